@@ -0,0 +1,81 @@
+package org.xznetwork.ecopower.bench;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.policy.ConditionParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 为基准测试生成规模可调的配置，不依赖 Minecraft 或真实的电源后端
+ */
+final class BenchmarkConfigs {
+    static final int PLAYERS_PER_PLAN = 4;
+
+    private BenchmarkConfigs() {}
+
+    /**
+     * 生成首尾相接的玩家区间计划，{@code withConditions} 时每隔一个计划附加条件表达式
+     */
+    static Config plans(int planCount, boolean withConditions) {
+        Config config = new Config();
+        Map<String, Config.PlanEntry> plans = new LinkedHashMap<>();
+        for (int i = 0; i < planCount; i++) {
+            Config.PlanEntry plan = new Config.PlanEntry();
+            plan.setGuid(String.format("00000000-0000-0000-0000-%012d", i));
+            int min = i == 0 ? Integer.MIN_VALUE : i * PLAYERS_PER_PLAN;
+            int max = i == planCount - 1 ? Integer.MAX_VALUE : (i + 1) * PLAYERS_PER_PLAN - 1;
+            plan.setRange(new int[]{min, max});
+            plan.setBroadcastMessage("plan " + i);
+            if (withConditions && i % 2 == 1) {
+                String condition = "players >= " + (i * PLAYERS_PER_PLAN + 2) + " && mspt_p95 > " + (20 + i);
+                plan.setCondition(condition);
+                plan.setCompiledCondition(ConditionParser.parse(condition));
+            }
+            plans.put("plan_" + i, plan);
+        }
+        config.setPlan(plans);
+        return config;
+    }
+
+    /**
+     * 生成指定数量的排除规则，其中 {@code regexShare} 比例为正则，其余平分给前缀和后缀
+     */
+    static Config.Exclude exclusions(int rules, double regexShare, Random random) {
+        Config.Exclude exclude = new Config.Exclude();
+        List<String> prefixes = new ArrayList<>();
+        List<String> suffixes = new ArrayList<>();
+        List<String> regexes = new ArrayList<>();
+        int regexCount = (int) Math.round(rules * regexShare);
+        for (int i = 0; i < rules - regexCount; i++) {
+            if (i % 2 == 0) prefixes.add("bot" + randomWord(random, 4) + "_");
+            else suffixes.add("_" + randomWord(random, 4) + "afk");
+        }
+        for (int i = 0; i < regexCount; i++) {
+            regexes.add("^[a-z]{2}" + randomWord(random, 3) + "\\d+$");
+        }
+        exclude.setPrefixes(prefixes);
+        exclude.setSuffixes(suffixes);
+        exclude.setRegexes(regexes);
+        return exclude;
+    }
+
+    static String[] playerNames(int count, Random random) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = randomWord(random, 3 + random.nextInt(10));
+        }
+        return names;
+    }
+
+    static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
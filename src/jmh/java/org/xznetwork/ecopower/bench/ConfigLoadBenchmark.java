@@ -0,0 +1,92 @@
+package org.xznetwork.ecopower.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.ConfigManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 大配置文件的解析与编译（/ecopower reload 的主要开销）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigLoadBenchmark {
+    @Param({"10", "100", "1000"})
+    public int planCount;
+
+    @Param({"10", "1000"})
+    public int exclusionRules;
+
+    private Path configDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        configDir = Files.createTempDirectory("ecopower-bench");
+        Random random = new Random(42);
+        StringBuilder yaml = new StringBuilder("plan:\n");
+        for (Config.PlanEntry plan : BenchmarkConfigs.plans(planCount, true).getPlan().values()) {
+            yaml.append("  ").append(plan.getName()).append(":\n");
+            yaml.append("    guid: ").append(plan.getGuid()).append('\n');
+            yaml.append("    range:\n");
+            yaml.append("    - ").append(plan.getRange()[0]).append('\n');
+            yaml.append("    - ").append(plan.getRange()[1]).append('\n');
+            yaml.append("    broadcastMessage: ").append(plan.getBroadcastMessage()).append('\n');
+            if (plan.getCondition() != null) {
+                yaml.append("    condition: '").append(plan.getCondition()).append("'\n");
+            }
+        }
+
+        Config.Exclude exclude = BenchmarkConfigs.exclusions(exclusionRules, 0.1, random);
+        yaml.append("exclude:\n");
+        appendList(yaml, "prefixes", exclude.getPrefixes());
+        appendList(yaml, "suffixes", exclude.getSuffixes());
+        appendList(yaml, "regexes", exclude.getRegexes());
+        yaml.append("broadcastChanges: true\n");
+        Files.writeString(configDir.resolve("config.yaml"), yaml, StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(configDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Config loadOrCreateConfig() {
+        return new ConfigManager(configDir).loadOrCreateConfig();
+    }
+
+    private static void appendList(StringBuilder yaml, String key, Iterable<String> values) {
+        yaml.append("  ").append(key).append(":\n");
+        for (String value : values) {
+            yaml.append("  - '").append(value).append("'\n");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.xznetwork.ecopower.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个 tick 的计划查找（PlanDriver.findMatchingPlan 委托给 PlanSelector）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlanSelectionBenchmark {
+    @Param({"3", "16", "64", "256"})
+    public int planCount;
+
+    @Param({"false", "true"})
+    public boolean conditions;
+
+    private PlanSelector selector;
+    private int[] playerCounts;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Config config = BenchmarkConfigs.plans(planCount, conditions);
+        TickTimeSampler tickTimes = new TickTimeSampler(200, 0.05);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            tickTimes.record(TimeUnit.MILLISECONDS.toNanos(15 + random.nextInt(30)));
+        }
+        selector = new PlanSelector(config, config.getPlanIndex(), tickTimes);
+
+        // 覆盖所有区间，包括超出密集查表范围的玩家数量
+        playerCounts = new int[1024];
+        int maxPlayers = planCount * BenchmarkConfigs.PLAYERS_PER_PLAN + 16;
+        for (int i = 0; i < playerCounts.length; i++) {
+            playerCounts[i] = random.nextInt(maxPlayers);
+        }
+    }
+
+    @Benchmark
+    public Config.PlanEntry findMatchingPlan() {
+        int players = playerCounts[next];
+        next = (next + 1) & (playerCounts.length - 1);
+        return selector.select(players);
+    }
+}
@@ -0,0 +1,61 @@
+package org.xznetwork.ecopower.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.util.PlayerExclusion;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 玩家加入时的排除规则匹配
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerExclusionBenchmark {
+    @Param({"10", "100", "1000"})
+    public int rules;
+
+    @Param({"0", "0.1", "0.5"})
+    public double regexShare;
+
+    private PlayerExclusion exclusion;
+    private String[] names;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Config config = new Config();
+        Config.Exclude exclude = BenchmarkConfigs.exclusions(rules, regexShare, random);
+        config.setExclude(exclude);
+        exclusion = new PlayerExclusion(config);
+
+        // 约八分之一的名字命中前缀规则，其余走完整的未命中路径
+        names = BenchmarkConfigs.playerNames(1024, random);
+        for (int i = 0; i < names.length && !exclude.getPrefixes().isEmpty(); i += 8) {
+            names[i] = exclude.getPrefixes().get(random.nextInt(exclude.getPrefixes().size())) + names[i];
+        }
+    }
+
+    @Benchmark
+    public boolean shouldExcludePlayer() {
+        String name = names[next];
+        next = (next + 1) & (names.length - 1);
+        return exclusion.shouldExcludePlayer(name);
+    }
+}
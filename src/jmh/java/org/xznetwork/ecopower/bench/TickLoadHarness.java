@@ -0,0 +1,361 @@
+package org.xznetwork.ecopower.bench;
+
+import org.xznetwork.ecopower.PlanDriver;
+import org.xznetwork.ecopower.PowerPlanManager;
+import org.xznetwork.ecopower.ServerHost;
+import org.xznetwork.ecopower.ServiceManager;
+import org.xznetwork.ecopower.backend.PowerBackend;
+import org.xznetwork.ecopower.backend.PowerPlan;
+import org.xznetwork.ecopower.backend.PowerTier;
+import org.xznetwork.ecopower.backend.ProcessScheduler;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.ConfigManager;
+import org.xznetwork.ecopower.config.ConfigSnapshot;
+import org.xznetwork.ecopower.config.ConfigWatcher;
+import org.xznetwork.ecopower.metrics.LatencyHistogram;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 合成负载下 END_SERVER_TICK 决策路径的回归检查，不需要 Minecraft 服务器：
+ * 直接驱动服务器上使用的 {@link PlanDriver}，数千名真实和被排除的玩家高频进出，运行中途多次通过 {@link ConfigWatcher} 重新加载配置，
+ * 切换经由 {@link PowerPlanManager} 交给内存中的后端，回调像 server.execute 一样在下一个 tick 前执行
+ * 时间按每 tick 50ms 推进，与切换策略的停留和限频判断一致
+ * 每 tick 开销（p99、平均）、进出处理开销或切换次数超出预算时以非零状态退出，./gradlew check 因此失败
+ * 预算和规模可通过 -Pharness.xxx 覆盖，见 {@link Settings}
+ */
+public final class TickLoadHarness {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Settings settings;
+    private final Random random = new Random(42);
+    private final ConcurrentLinkedQueue<Runnable> serverTasks = new ConcurrentLinkedQueue<>();
+    private final LatencyHistogram tickCost = new LatencyHistogram();
+    private final LatencyHistogram connectionCost = new LatencyHistogram();
+    private final LatencyHistogram reloadCost = new LatencyHistogram();
+    private final InMemoryBackend backend = new InMemoryBackend();
+    private final Metrics metrics = new Metrics();
+    private final PowerPlanManager powerPlanManager = new PowerPlanManager(backend, 5000, metrics);
+    private final Path configDir;
+    private final ConfigWatcher configWatcher;
+    private final PlanDriver driver;
+
+    private final List<UUID> online = new ArrayList<>();
+
+    private TickLoadHarness(Settings settings) throws IOException {
+        this.settings = settings;
+        this.configDir = Files.createTempDirectory("ecopower-harness");
+        writeConfig(false);
+        ConfigManager configManager = new ConfigManager(configDir);
+        this.configWatcher = new ConfigWatcher(configManager, ConfigSnapshot.compile(configManager.load(), 0));
+        this.driver = new PlanDriver(new SyntheticHost(), configWatcher, powerPlanManager, new ProcessScheduler(5000),
+                new ServiceManager(metrics, configDir), metrics, configDir.resolve("load-profile.bin"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        TickLoadHarness harness = new TickLoadHarness(settings);
+        List<String> failures;
+        try {
+            failures = harness.run();
+        } finally {
+            harness.close();
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("All budgets met");
+    }
+
+    private List<String> run() throws Exception {
+        int warmupTicks = settings.ticks / 5;
+        driver.start(settings.maxPlayers, 0, 0);
+        for (int tick = 0; tick < settings.ticks; tick++) {
+            long now = tick * TICK_NANOS;
+            boolean measured = tick >= warmupTicks;
+            boolean reloaded = false;
+
+            // 服务器在 tick 之间执行 server.execute 提交的任务
+            Runnable task;
+            while ((task = serverTasks.poll()) != null) {
+                task.run();
+            }
+
+            churn(now, measured);
+            if (tick > 0 && tick % settings.reloadEveryTicks == 0) {
+                // 交替改变排除规则和滞回带，重新判断所有在线玩家
+                // 等待后台加载完成，快照在下一次 onEndTick 生效，使每次运行的结果可复现
+                writeConfig((tick / settings.reloadEveryTicks) % 2 == 1);
+                configWatcher.reload().join();
+                reloaded = true;
+            }
+
+            driver.onTickStart(now - TimeUnit.MILLISECONDS.toNanos(15 + random.nextInt(20)));
+            long start = System.nanoTime();
+            driver.onEndTick(now, TimeUnit.NANOSECONDS.toMillis(now));
+            long cost = System.nanoTime() - start;
+            // 换上新快照的 tick 单独统计，不计入每 tick 开销
+            if (reloaded) {
+                reloadCost.record(cost);
+            } else if (measured) {
+                tickCost.record(cost);
+            }
+        }
+        return report();
+    }
+
+    /**
+     * 在线人数沿正弦曲线在 minPlayers 和 maxPlayers 之间往返，叠加每 tick 固定数量的进出
+     */
+    private void churn(long nowNanos, boolean measured) {
+        double phase = (double) nowNanos / (settings.periodTicks * TICK_NANOS) * 2 * Math.PI;
+        int target = settings.minPlayers
+                + (int) ((settings.maxPlayers - settings.minPlayers) * (0.5 - 0.5 * Math.cos(phase)));
+
+        int joins = settings.churnPerTick + Math.max(0, target - online.size()) / 20;
+        int leaves = settings.churnPerTick + Math.max(0, online.size() - target) / 20;
+        for (int i = 0; i < joins && online.size() < settings.maxPlayers; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            String name = playerName();
+            long start = System.nanoTime();
+            driver.onJoin(uuid, name);
+            long cost = System.nanoTime() - start;
+            if (measured) connectionCost.record(cost);
+            online.add(uuid);
+        }
+        for (int i = 0; i < leaves && !online.isEmpty(); i++) {
+            int index = random.nextInt(online.size());
+            UUID uuid = online.get(index);
+            // 与末尾交换后删除，避免移动整个列表
+            int last = online.size() - 1;
+            online.set(index, online.get(last));
+            online.remove(last);
+            long start = System.nanoTime();
+            driver.onLeave(uuid);
+            long cost = System.nanoTime() - start;
+            if (measured) connectionCost.record(cost);
+        }
+    }
+
+    /**
+     * 约五分之一的名称命中排除规则，另有一部分只在交替的配置中被排除
+     */
+    private String playerName() {
+        String base = BenchmarkConfigs.randomWord(random, 3 + random.nextInt(10));
+        return switch (random.nextInt(10)) {
+            case 0 -> "bot_" + base;
+            case 1 -> "npc" + random.nextInt(10000);
+            case 2 -> base + "_afk";
+            default -> base;
+        };
+    }
+
+    private void writeConfig(boolean alternate) throws IOException {
+        int plans = settings.planCount;
+        int width = Math.max(1, settings.maxPlayers / plans);
+        StringBuilder yaml = new StringBuilder("plan:\n");
+        for (int i = 0; i < plans; i++) {
+            yaml.append("  plan_").append(i).append(":\n");
+            yaml.append("    guid: ").append(String.format("00000000-0000-0000-0000-%012d", i)).append('\n');
+            yaml.append("    range:\n");
+            yaml.append("    - ").append(i == 0 ? 0 : i * width).append('\n');
+            yaml.append("    - ").append(i == plans - 1 ? Integer.MAX_VALUE : (i + 1) * width - 1).append('\n');
+            yaml.append("    hysteresis: ").append(alternate ? width / 4 : width / 10).append('\n');
+        }
+
+        Config.Exclude exclude = BenchmarkConfigs.exclusions(settings.exclusionRules, 0.1, new Random(7));
+        exclude.getPrefixes().add("bot_");
+        exclude.getRegexes().add("^npc\\d+$");
+        if (alternate) {
+            exclude.getSuffixes().add("_afk");
+        }
+        yaml.append("exclude:\n");
+        appendList(yaml, "prefixes", exclude.getPrefixes());
+        appendList(yaml, "suffixes", exclude.getSuffixes());
+        appendList(yaml, "regexes", exclude.getRegexes());
+        yaml.append("switching:\n");
+        yaml.append("  stepDownDelaySeconds: 30\n");
+        yaml.append("  maxSwitchesPerMinute: 6\n");
+        yaml.append("autoReload: false\n");
+        Files.writeString(configDir.resolve("config.yaml"), yaml, StandardCharsets.UTF_8);
+    }
+
+    private static void appendList(StringBuilder yaml, String key, Iterable<String> values) {
+        yaml.append("  ").append(key).append(":\n");
+        for (String value : values) {
+            yaml.append("  - '").append(value).append("'\n");
+        }
+    }
+
+    private List<String> report() {
+        double simulatedMinutes = settings.ticks * TICK_NANOS / (double) TimeUnit.MINUTES.toNanos(1);
+        long p99 = tickCost.getPercentileNanos(0.99);
+        double mean = (double) tickCost.getSumNanos() / Math.max(1, tickCost.getCount());
+        long connectionP99 = connectionCost.getPercentileNanos(0.99);
+        int switches = backend.switches.get();
+
+        System.out.printf(Locale.ROOT, "Simulated %.0f minutes, %d to %d players, %d joins/leaves per tick%n",
+                simulatedMinutes, settings.minPlayers, settings.maxPlayers, settings.churnPerTick);
+        System.out.printf(Locale.ROOT, "Tick hook:  mean %.0f ns, p99 %d ns, max %d ns%n", mean, p99, tickCost.getMaxNanos());
+        System.out.printf(Locale.ROOT, "Join/leave: p99 %d ns over %d events%n", connectionP99, connectionCost.getCount());
+        System.out.printf(Locale.ROOT, "Reload:     max %d ns to apply a snapshot, %d applied%n",
+                reloadCost.getMaxNanos(), reloadCost.getCount());
+        System.out.printf(Locale.ROOT, "Switches:   %d (%d suppressed)%n", switches, driver.getSwitchPolicy().getSuppressedSwitches());
+
+        List<String> failures = new ArrayList<>();
+        if (p99 > settings.maxTickP99Nanos) {
+            failures.add("tick hook p99 " + p99 + " ns exceeds " + settings.maxTickP99Nanos + " ns");
+        }
+        if (mean > settings.maxTickMeanNanos) {
+            failures.add(String.format(Locale.ROOT, "tick hook mean %.0f ns exceeds %d ns", mean, settings.maxTickMeanNanos));
+        }
+        if (connectionP99 > settings.maxConnectionP99Nanos) {
+            failures.add("join/leave p99 " + connectionP99 + " ns exceeds " + settings.maxConnectionP99Nanos + " ns");
+        }
+        if (switches > settings.maxSwitches) {
+            failures.add("switch count " + switches + " exceeds " + settings.maxSwitches);
+        }
+        if (reloadCost.getCount() == 0) {
+            failures.add("no config reload was applied during the run");
+        } else if (reloadCost.getMaxNanos() > settings.maxReloadApplyNanos) {
+            failures.add("applying a config snapshot took " + reloadCost.getMaxNanos() + " ns, budget " + settings.maxReloadApplyNanos + " ns");
+        }
+        return failures;
+    }
+
+    private void close() throws IOException {
+        driver.stop();
+        try (Stream<Path> files = Files.walk(configDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * 规模和预算，对应的系统属性为 harness.字段名，例如 -Pharness.maxPlayers=10000
+     * 预算按普通开发机留有数倍余量，目的是捕捉数量级上的退化而不是微小波动
+     */
+    private static final class Settings {
+        private int ticks = 72_000; // 一小时
+        private int minPlayers = 200;
+        private int maxPlayers = 5000;
+        private int churnPerTick = 5;
+        private int periodTicks = 12_000; // 在线人数曲线周期，十分钟
+        private int reloadEveryTicks = 6_000;
+        private int planCount = 8;
+        private int exclusionRules = 200;
+        private long maxTickP99Nanos = 50_000;
+        private long maxTickMeanNanos = 10_000;
+        private long maxConnectionP99Nanos = 50_000;
+        private long maxReloadApplyNanos = 200_000_000;
+        private int maxSwitches = 100;
+
+        private static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.ticks = Integer.getInteger("harness.ticks", settings.ticks);
+            settings.minPlayers = Integer.getInteger("harness.minPlayers", settings.minPlayers);
+            settings.maxPlayers = Integer.getInteger("harness.maxPlayers", settings.maxPlayers);
+            settings.churnPerTick = Integer.getInteger("harness.churnPerTick", settings.churnPerTick);
+            settings.periodTicks = Integer.getInteger("harness.periodTicks", settings.periodTicks);
+            settings.reloadEveryTicks = Math.max(1, Integer.getInteger("harness.reloadEveryTicks", settings.reloadEveryTicks));
+            settings.planCount = Math.max(1, Integer.getInteger("harness.planCount", settings.planCount));
+            settings.exclusionRules = Integer.getInteger("harness.exclusionRules", settings.exclusionRules);
+            settings.maxTickP99Nanos = Long.getLong("harness.maxTickP99Nanos", settings.maxTickP99Nanos);
+            settings.maxTickMeanNanos = Long.getLong("harness.maxTickMeanNanos", settings.maxTickMeanNanos);
+            settings.maxConnectionP99Nanos = Long.getLong("harness.maxConnectionP99Nanos", settings.maxConnectionP99Nanos);
+            settings.maxReloadApplyNanos = Long.getLong("harness.maxReloadApplyNanos", settings.maxReloadApplyNanos);
+            settings.maxSwitches = Integer.getInteger("harness.maxSwitches", settings.maxSwitches);
+            return settings;
+        }
+    }
+
+    /**
+     * 没有世界的服务器：需求就是真实玩家数量，没有世界信号，切换回调排队到下一个 tick 之前执行
+     */
+    private final class SyntheticHost implements ServerHost {
+        @Override
+        public void execute(Runnable task) {
+            serverTasks.add(task);
+        }
+
+        @Override
+        public void updateSettings(Config config) {
+        }
+
+        @Override
+        public int samplePlayerDemand(PlayerTracker tracker) {
+            return tracker.getRealPlayerCount();
+        }
+
+        @Override
+        public void forEachPlayerActivity(ActivityVisitor visitor) {
+        }
+
+        @Override
+        public void sampleSignals(PlanSelector selector) {
+        }
+
+        @Override
+        public void tickHibernation(int realPlayerCount, boolean holdAwake, long nowNanos) {
+        }
+
+        @Override
+        public void onPlanApplied(Config.PlanEntry plan) {
+        }
+
+        @Override
+        public void broadcast(String message) {
+        }
+    }
+
+    /**
+     * 只记录切换次数的内存后端
+     */
+    private static final class InMemoryBackend implements PowerBackend {
+        private final AtomicInteger switches = new AtomicInteger();
+        private volatile String activePlan;
+
+        @Override
+        public String getName() {
+            return "in-memory";
+        }
+
+        @Override
+        public List<PowerPlan> listPlans() {
+            return List.of();
+        }
+
+        @Override
+        public String getActivePlan() {
+            return activePlan;
+        }
+
+        @Override
+        public void setActivePlan(String planId) {
+            activePlan = planId;
+            switches.incrementAndGet();
+        }
+
+        @Override
+        public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.xznetwork.ecopower.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.SwitchPolicy;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
+import org.xznetwork.ecopower.util.PlayerExclusion;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟 N 名在线玩家时一次 END_SERVER_TICK 的决策路径：
+ * 玩家进出、真实玩家计数、计划查找和切换策略，不需要 Minecraft 服务器
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TickSimulationBenchmark {
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    private PlayerTracker tracker;
+    private TickTimeSampler tickTimes;
+    private PlanSelector selector;
+    private SwitchPolicy policy;
+    private UUID[] churn;
+    private String[] churnNames;
+    private int tick = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Config config = BenchmarkConfigs.plans(8, false);
+        config.setExclude(BenchmarkConfigs.exclusions(20, 0.1, random));
+
+        tracker = new PlayerTracker(new PlayerExclusion(config));
+        for (int i = 0; i < players; i++) {
+            tracker.onJoin(new UUID(random.nextLong(), random.nextLong()), BenchmarkConfigs.randomWord(random, 8));
+        }
+        churn = new UUID[64];
+        churnNames = BenchmarkConfigs.playerNames(churn.length, random);
+        for (int i = 0; i < churn.length; i++) {
+            churn[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        tickTimes = new TickTimeSampler(200, 0.05);
+        selector = new PlanSelector(config, config.getPlanIndex().withDenseLimit(players + churn.length), tickTimes);
+        policy = new SwitchPolicy(config.getSwitching());
+    }
+
+    @Benchmark
+    public Config.PlanEntry tick() {
+        // 每 20 tick 有一名玩家加入或离开
+        int step = tick++;
+        if (step % 20 == 0) {
+            int slot = (step / 20) % churn.length;
+            if ((step / 20 / churn.length) % 2 == 0) tracker.onJoin(churn[slot], churnNames[slot]);
+            else tracker.onLeave(churn[slot]);
+        }
+
+        long now = System.nanoTime();
+        tickTimes.onTickStart(now - 20_000_000L);
+        tickTimes.onTickEnd(now);
+        int realPlayerCount = tracker.getRealPlayerCount();
+        Config.PlanEntry matched = selector.select(realPlayerCount);
+        return policy.select(matched, realPlayerCount, selector.isSelectedByPlayers(), now);
+    }
+}
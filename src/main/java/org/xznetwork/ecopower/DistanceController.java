@@ -0,0 +1,67 @@
+package org.xznetwork.ecopower;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.PlayerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config.PlanEntry;
+
+/**
+ * 按计划调整视距和模拟距离，只能在服务器线程上调用
+ * 原始值在服务器启动后记录，计划未配置对应项时恢复原始值
+ */
+public class DistanceController {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Distance");
+    // 与 server.properties 接受的范围一致
+    private static final int MIN_DISTANCE = 2;
+    private static final int MAX_DISTANCE = 32;
+
+    private int originalViewDistance = -1;
+    private int originalSimulationDistance = -1;
+
+    /**
+     * 记录服务器当前的视距和模拟距离作为原始值
+     */
+    public void captureOriginal(MinecraftServer server) {
+        PlayerManager playerManager = server.getPlayerManager();
+        originalViewDistance = playerManager.getViewDistance();
+        originalSimulationDistance = playerManager.getSimulationDistance();
+        LOGGER.debug("[Eco Power] Original view distance {}, simulation distance {}",
+                originalViewDistance, originalSimulationDistance);
+    }
+
+    /**
+     * 应用计划的距离设置，两项在同一次调用中更新；与当前值相同时不发送任何数据包
+     */
+    public void apply(MinecraftServer server, PlanEntry plan) {
+        if (originalViewDistance < 0) return;
+        apply(server,
+                plan.getViewDistance() != null ? clamp(plan.getViewDistance()) : originalViewDistance,
+                plan.getSimulationDistance() != null ? clamp(plan.getSimulationDistance()) : originalSimulationDistance);
+    }
+
+    /**
+     * 恢复服务器启动时的视距和模拟距离
+     */
+    public void restore(MinecraftServer server) {
+        if (originalViewDistance < 0) return;
+        apply(server, originalViewDistance, originalSimulationDistance);
+    }
+
+    private void apply(MinecraftServer server, int viewDistance, int simulationDistance) {
+        PlayerManager playerManager = server.getPlayerManager();
+        // PlayerManager 会同步更新所有世界的区块管理器并通知在线玩家
+        if (playerManager.getViewDistance() != viewDistance) {
+            playerManager.setViewDistance(viewDistance);
+            LOGGER.debug("[Eco Power] Set view distance to {}", viewDistance);
+        }
+        if (playerManager.getSimulationDistance() != simulationDistance) {
+            playerManager.setSimulationDistance(simulationDistance);
+            LOGGER.debug("[Eco Power] Set simulation distance to {}", simulationDistance);
+        }
+    }
+
+    private static int clamp(int distance) {
+        return Math.max(MIN_DISTANCE, Math.min(MAX_DISTANCE, distance));
+    }
+}
@@ -4,44 +4,67 @@ import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.player.AttackBlockCallback;
+import net.fabricmc.fabric.api.event.player.UseBlockCallback;
+import net.fabricmc.fabric.api.message.v1.ServerMessageEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
-import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.text.Text;
+import net.minecraft.util.ActionResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.backend.PowerBackend;
+import org.xznetwork.ecopower.backend.PowerBackends;
+import org.xznetwork.ecopower.backend.ProcessScheduler;
 import org.xznetwork.ecopower.config.Config;
 import org.xznetwork.ecopower.config.ConfigManager;
+import org.xznetwork.ecopower.config.ConfigSnapshot;
+import org.xznetwork.ecopower.config.ConfigWatcher;
 import org.xznetwork.ecopower.config.Config.PlanEntry;
+import org.xznetwork.ecopower.history.HistoryLog;
+import org.xznetwork.ecopower.metrics.EnergySampler;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.policy.PlanSchedule;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.PreBoostPredictor;
+import org.xznetwork.ecopower.policy.SwitchPolicy;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
 import org.xznetwork.ecopower.util.PlayerExclusion;
+import org.xznetwork.ecopower.util.PlayerTracker;
 
-import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * 把 Fabric 事件接到 {@link PlanDriver}；决策路径本身不依赖 Minecraft，服务器相关的部分由 {@link MinecraftServerHost} 提供
+ */
 public class EcoPower implements ModInitializer {
     public static final Logger LOGGER = LoggerFactory.getLogger("EcoPower");
     private static final String MOD_ID = "ecopower";
-    private PowerPlanManager powerPlanManager;
-    private PlayerExclusion playerExclusion;
-    private Config config;
-    private String currentPlanGuid = null;
-    private String originalPlanGuid = null;
-    private boolean manualOverride = false;
+    private static final String PROFILE_FILE = "load-profile.bin";
+    private final MinecraftServerHost host = new MinecraftServerHost();
+    private final Metrics metrics = new Metrics();
+    private PlanDriver driver;
 
     @Override
     public void onInitialize() {
         LOGGER.info("[Eco Power] Initializing EcoPower...");
-        if (!System.getProperty("os.name").toLowerCase().contains("windows")) {
-            LOGGER.info("[Eco Power] This mod only works on Windows platforms. Mod will not function.");
-            return;
-        }
-
         Path configDir = FabricLoader.getInstance().getConfigDir().resolve(MOD_ID);
         ConfigManager configManager = new ConfigManager(configDir);
-        this.config = configManager.loadOrCreateConfig();
-        this.powerPlanManager = new PowerPlanManager();
-        this.playerExclusion = new PlayerExclusion(config);
+        Config config = configManager.loadOrCreateConfig();
+
+        PowerBackend backend = PowerBackends.create(config, configDir);
+        if (backend == null) {
+            LOGGER.info("[Eco Power] No supported power backend ({}) on this platform. Mod will not function.", config.getBackend());
+            return;
+        }
+        LOGGER.info("[Eco Power] Using {} power backend", backend.getName());
+        PowerPlanManager powerPlanManager = new PowerPlanManager(backend, config.getSwitchTimeoutMillis(), metrics);
+        ProcessScheduler processScheduler = new ProcessScheduler(config.getSwitchTimeoutMillis());
+        ConfigWatcher configWatcher = new ConfigWatcher(configManager, ConfigSnapshot.compile(config, 0));
+        this.driver = new PlanDriver(host, configWatcher, powerPlanManager, processScheduler,
+                new ServiceManager(metrics, configDir), metrics, configDir.resolve(PROFILE_FILE));
+        configWatcher.setWatching(config.isAutoReload());
 
         registerCommands();
         registerEvents();
@@ -54,131 +77,137 @@ public class EcoPower implements ModInitializer {
     }
 
     private void registerEvents() {
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            if (manualOverride) return;
-
-            int realPlayerCount = getRealPlayerCount(server);
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            ServerPlayerEntity player = handler.getPlayer();
+            if (driver.onJoin(player.getUuid(), player.getName().getString())) {
+                host.onRealPlayerJoin();
+            }
+        });
 
-            PlanEntry matchedPlan = findMatchingPlan(realPlayerCount);
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+                driver.onLeave(handler.getPlayer().getUuid())
+        );
 
-            if (matchedPlan != null) {
-                if (currentPlanGuid == null || !currentPlanGuid.equals(matchedPlan.getGuid())) {
-                    powerPlanManager.setActivePlan(matchedPlan.getGuid());
-                    currentPlanGuid = matchedPlan.getGuid();
+        // 交互和聊天让空闲玩家立即恢复活跃，移动由每秒的轮询发现
+        UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
+            if (player instanceof ServerPlayerEntity serverPlayer) {
+                host.onActivity(driver.getPlayerTracker(), serverPlayer);
+            }
+            return ActionResult.PASS;
+        });
+        AttackBlockCallback.EVENT.register((player, world, hand, pos, direction) -> {
+            if (player instanceof ServerPlayerEntity serverPlayer) {
+                host.onActivity(driver.getPlayerTracker(), serverPlayer);
+            }
+            return ActionResult.PASS;
+        });
+        ServerMessageEvents.CHAT_MESSAGE.register((message, sender, params) ->
+                host.onActivity(driver.getPlayerTracker(), sender)
+        );
 
-                    LOGGER.info("[Eco Power] Switched to power plan: {} (UUID: {}) for {} players",
-                            getPlanName(matchedPlan), matchedPlan.getGuid(), realPlayerCount);
+        ServerTickEvents.START_SERVER_TICK.register(server -> driver.onTickStart(System.nanoTime()));
 
-                    if (config.isBroadcastChanges()) {
-                        broadcastMessage(server, matchedPlan.getBroadcastMessage());
-                    }
-                }
-            } else {
-                LOGGER.warn("[Eco Power] No matching power plan found for {} players", realPlayerCount);
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (!metrics.isEnabled()) {
+                driver.onEndTick(System.nanoTime(), System.currentTimeMillis());
+                return;
             }
+            long start = System.nanoTime();
+            driver.onEndTick(start, System.currentTimeMillis());
+            metrics.recordTickHandler(System.nanoTime() - start);
         });
 
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
-            if (originalPlanGuid != null && !originalPlanGuid.equals(currentPlanGuid)) {
-                powerPlanManager.setActivePlan(originalPlanGuid);
-                LOGGER.info("[Eco Power] Server stopping - Restored original power plan: {}", originalPlanGuid);
-            }
+            host.shutdown();
+            driver.stop();
         });
 
         ServerLifecycleEvents.SERVER_STARTED.register(server -> {
-            try {
-                originalPlanGuid = powerPlanManager.getCurrentActivePlan();
-                LOGGER.info("[Eco Power] Original power plan detected: {}", originalPlanGuid);
-            } catch (IOException e) {
-                LOGGER.error("[Eco Power] Failed to detect original power plan", e);
-            }
-
-            int realPlayerCount = getRealPlayerCount(server);
-            PlanEntry initialPlan = findMatchingPlan(realPlayerCount);
-
-            if (initialPlan != null) {
-                powerPlanManager.setActivePlan(initialPlan.getGuid());
-                currentPlanGuid = initialPlan.getGuid();
-                LOGGER.info("[Eco Power] Initial power plan set to: {} for {} players",
-                        getPlanName(initialPlan), realPlayerCount);
-            }
+            host.attach(server);
+            driver.start(server.getMaxPlayerCount(), System.nanoTime(), System.currentTimeMillis());
         });
     }
 
-
     /**
-     * 根据玩家数量查找匹配的电源计划
-     * 按配置顺序检查，返回第一个匹配的计划
+     * 手动切换计划，结果在服务器线程上回调；被之后的切换请求覆盖时回调 {@link SwitchResult#SUPERSEDED}
      */
-    private PlanEntry findMatchingPlan(int playerCount) {
-        for (Map.Entry<String, PlanEntry> entry : config.getPlan().entrySet()) {
-            PlanEntry plan = entry.getValue();
-            int[] range = plan.getRange();
-
-            // [min, max]
-            if (playerCount >= range[0] && playerCount <= range[1]) {
-                return plan;
-            }
-        }
-        return null;
+    public void switchPlanManually(PlanEntry plan, Consumer<SwitchResult> onComplete) {
+        driver.switchPlanManually(plan, onComplete);
     }
 
     /**
-     * 获取计划名称（用于日志）
+     * 在后台线程重新加载配置，成功后在服务器线程上立即生效，失败时保留当前配置
+     * 回调在服务器线程上执行，参数为失败原因，成功时为 null
      */
-    private String getPlanName(PlanEntry plan) {
-        for (Map.Entry<String, PlanEntry> entry : config.getPlan().entrySet()) {
-            if (entry.getValue() == plan) {
-                return entry.getKey();
-            }
-        }
-        return "Unknown Plan";
+    public void reloadConfig(Consumer<Throwable> onComplete) {
+        driver.reloadConfig(onComplete);
     }
 
-    private int getRealPlayerCount(MinecraftServer server) {
-        int count = 0;
-        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            if (!playerExclusion.shouldExcludePlayer(player.getName().getString())) {
-                count++;
-            }
-        }
-        return count;
+    public Config getConfig() {
+        return driver.getConfig();
     }
 
-    private void broadcastMessage(MinecraftServer server, String message) {
-        try {
-            server.getPlayerManager().broadcast(Text.literal(message), false);
-        } catch (Exception e) {
-            LOGGER.error("[Eco Power] Failed to broadcast message: {}", message, e);
-        }
+    public PlayerExclusion getPlayerExclusion() {
+        return driver.getPlayerExclusion();
     }
 
-    public void reloadConfig() {
-        Path configDir = FabricLoader.getInstance().getConfigDir().resolve(MOD_ID);
-        this.config = new ConfigManager(configDir).loadOrCreateConfig();
-        this.playerExclusion.updateConfig(config);
-        LOGGER.info("[Eco Power] Configuration reloaded");
+    public PlayerTracker getPlayerTracker() {
+        return driver.getPlayerTracker();
     }
 
-    public Config getConfig() {
-        return config;
+    public PlanSelector getPlanSelector() {
+        return driver.getPlanSelector();
     }
 
-    public PlayerExclusion getPlayerExclusion() {
-        return playerExclusion;
+    public TickTimeSampler getTickTimeSampler() {
+        return driver.getTickTimeSampler();
+    }
+
+    public PreBoostPredictor getPreBoostPredictor() {
+        return driver.getPreBoostPredictor();
+    }
+
+    public PlanSchedule getPlanSchedule() {
+        return driver.getPlanSchedule();
+    }
+
+    public SwitchPolicy getSwitchPolicy() {
+        return driver.getSwitchPolicy();
     }
 
-    public PowerPlanManager getPowerPlanManager() { return powerPlanManager; }
+    public PowerPlanManager getPowerPlanManager() { return driver.getPowerPlanManager(); }
+
+    public HibernationController getHibernation() {
+        return host.getHibernation();
+    }
+
+    public PlayerActivitySampler getActivitySampler() {
+        return host.getActivitySampler();
+    }
+
+    public HistoryLog getHistoryLog() {
+        return driver.getHistoryLog();
+    }
+
+    public EnergySampler getEnergySampler() {
+        return driver.getEnergySampler();
+    }
+
+    public FrequencyCapController getFrequencyController() {
+        return driver.getFrequencyController();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
 
-    public boolean getManualOverride() { return manualOverride; }
+    public boolean getManualOverride() { return driver.getManualOverride(); }
 
     public void enableManualOverride() {
-        LOGGER.debug("[Eco Power] ");
-        manualOverride = true;
+        driver.enableManualOverride();
     }
 
     public void disableManualOverride() {
-        manualOverride = false;
-        currentPlanGuid = null;
+        driver.disableManualOverride();
     }
-}
\ No newline at end of file
+}
@@ -6,31 +6,50 @@ import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
-import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import org.xznetwork.ecopower.backend.ArbitratedBackend;
+import org.xznetwork.ecopower.backend.HelperBackend;
+import org.xznetwork.ecopower.backend.HelperProcess;
+import org.xznetwork.ecopower.backend.HostArbiter;
+import org.xznetwork.ecopower.backend.PowerBackend;
 import org.xznetwork.ecopower.config.Config;
-import org.xznetwork.ecopower.config.PowerPlanDetector;
+import org.xznetwork.ecopower.history.HistoryLog;
+import org.xznetwork.ecopower.history.HistorySummary;
+import org.xznetwork.ecopower.metrics.EnergySampler;
+import org.xznetwork.ecopower.metrics.LatencyHistogram;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.policy.LoadProfile;
+import org.xznetwork.ecopower.policy.MsptController;
+import org.xznetwork.ecopower.policy.PlanSchedule;
+import org.xznetwork.ecopower.policy.PreBoostPredictor;
+import org.xznetwork.ecopower.policy.SwitchPolicy;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
 
 import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class EcoPowerCommand implements Command<ServerCommandSource> {
     private final EcoPower mod;
-    private final PowerPlanDetector planDetector;
 
     public EcoPowerCommand(EcoPower mod) {
         this.mod = mod;
-        this.planDetector = new PowerPlanDetector();
     }
 
     @Override
     public int run(CommandContext<ServerCommandSource> context) {
         String[] args = context.getInput().split(" ");
         if (args.length < 2) {
-            context.getSource().sendError(Text.literal("Usage: /ecopower <reload|show|set>"));
+            context.getSource().sendError(Text.literal("Usage: /ecopower <reload|show|set|history>"));
             return 0;
         }
 
@@ -51,9 +70,19 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                     return showExclusion(context);
                 case "activation":
                     return showActivation(context);
+                case "profile":
+                    return showProfile(context);
+                case "metrics":
+                    return showMetrics(context);
+                case "energy":
+                    return showEnergy(context);
+                case "schedule":
+                    return showSchedule(context);
                 default:
                     return showAll(context);
             }
+        } else if ("history".equals(mainCommand)) {
+            return handleHistory(context, args.length >= 3 ? args[2] : "24h");
         } else if ("set".equals(mainCommand)) {
             if (args.length < 4 || !"plan".equals(args[2])) {
                 context.getSource().sendError(Text.literal("Usage: /ecopower set plan <plan_name|auto>"));
@@ -72,12 +101,118 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                         Text.literal("Reloading EcoPower configuration..."),
                 false
         );
-        mod.reloadConfig();
-        context.getSource().sendFeedback(() ->
-                        Text.literal("Reloading EcoPower configuration successful!").formatted(Formatting.GREEN),
+        // 解析在后台线程进行，完成后在服务器线程上反馈结果
+        ServerCommandSource source = context.getSource();
+        mod.reloadConfig(error -> {
+            if (error == null) {
+                source.sendFeedback(() ->
+                                Text.literal("Reloading EcoPower configuration successful!").formatted(Formatting.GREEN),
+                        false
+                );
+            } else {
+                source.sendError(Text.literal("Failed to reload configuration, keeping the previous one: " + error.getMessage())
+                        .formatted(Formatting.RED));
+            }
+        });
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private int handleHistory(CommandContext<ServerCommandSource> context, String range) {
+        HistoryLog history = mod.getHistoryLog();
+        if (history == null) {
+            context.getSource().sendError(Text.literal("History is disabled, set history.enabled in config.yaml and reload"));
+            return 0;
+        }
+        long rangeMillis = parseRange(range);
+        if (rangeMillis == 0) {
+            context.getSource().sendError(Text.literal("Invalid range: " + range + " (e.g. 30m, 24h, 7d, 4w or all)"));
+            return 0;
+        }
+
+        // 汇总在历史记录的后台线程上进行，完成后在服务器线程上反馈结果
+        ServerCommandSource source = context.getSource();
+        long now = System.currentTimeMillis();
+        long from = rangeMillis == Long.MAX_VALUE ? 0 : now - rangeMillis;
+        history.query(from, now).whenComplete((summary, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                source.sendError(Text.literal("Failed to read history: " + cause.getMessage()).formatted(Formatting.RED));
+                return;
+            }
+            sendHistory(source, range, summary);
+        }));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private void sendHistory(ServerCommandSource source, String range, HistorySummary summary) {
+        source.sendFeedback(() ->
+                        Text.literal("=== History (" + ("all".equals(range) ? "all" : "last " + range) + ") ===")
+                                .formatted(Formatting.BOLD, Formatting.GOLD),
+                false
+        );
+        if (summary.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No history recorded in this range").formatted(Formatting.GRAY), false);
+            return;
+        }
+
+        source.sendFeedback(() ->
+                        Text.literal(String.format(" - Players: avg %.1f, max %d",
+                                summary.getAveragePlayers(), summary.getMaxPlayers())),
+                false
+        );
+        source.sendFeedback(() ->
+                        Text.literal(String.format(" - MSPT: avg %.1f, max %.1f",
+                                summary.getAverageMspt(), summary.getMaxMspt())),
+                false
+        );
+        source.sendFeedback(() ->
+                        Text.literal(String.format(" - Switches: %d (%d failed), latency avg %.1fms, max %.1fms",
+                                summary.getSwitches(), summary.getFailedSwitches(),
+                                summary.getAverageLatencyMillis(), summary.getMaxLatencyMillis())),
+                false
+        );
+
+        StringBuilder shares = new StringBuilder(" - Time by plan:");
+        summary.getPlanShares().forEach((plan, share) ->
+                shares.append(' ').append(plan).append(String.format(" %.1f%%", share * 100)));
+        String sharesText = shares.toString();
+        source.sendFeedback(() -> Text.literal(sharesText), false);
+
+        source.sendFeedback(() ->
+                        Text.literal(String.format("From %d samples, %d raw records and %d hourly rollups",
+                                summary.getSamples(), summary.getRawRecords(), summary.getRollupRecords()))
+                                .formatted(Formatting.GRAY),
                 false
         );
-        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * 解析 30m、24h、7d、4w 形式的时间范围，all 返回 {@link Long#MAX_VALUE}，无效时返回 0
+     */
+    private static long parseRange(String range) {
+        if ("all".equalsIgnoreCase(range)) return Long.MAX_VALUE;
+        if (range.length() < 2) return 0;
+        long amount;
+        try {
+            amount = Long.parseLong(range.substring(0, range.length() - 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        if (amount <= 0) return 0;
+        TimeUnit unit;
+        switch (Character.toLowerCase(range.charAt(range.length() - 1))) {
+            case 'm' -> unit = TimeUnit.MINUTES;
+            case 'h' -> unit = TimeUnit.HOURS;
+            case 'd' -> unit = TimeUnit.DAYS;
+            case 'w' -> {
+                unit = TimeUnit.DAYS;
+                amount *= 7;
+            }
+            default -> {
+                return 0;
+            }
+        }
+        return unit.toMillis(amount);
     }
 
     private int handleSetPlan(CommandContext<ServerCommandSource> context, String planName) {
@@ -100,27 +235,33 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
             return 0;
         }
 
-        mod.enableManualOverride();
-
-        try {
-            mod.getPowerPlanManager().setActivePlan(planEntry.getGuid());
-            context.getSource().sendFeedback(() ->
-                            Text.literal("Manually switched to power plan: ")
-                                    .append(Text.literal(planName).formatted(Formatting.GOLD))
-                                    .formatted(Formatting.GREEN),
-                    false);
-
-            // 广播切换消息
-            //if (config.isBroadcastChanges()) {
-            //    mod.broadcastMessage(context.getSource().getServer(), planEntry.getBroadcastMessage());
-            //}
+        ServerCommandSource source = context.getSource();
+        source.sendFeedback(() ->
+                        Text.literal("Switching to power plan: ")
+                                .append(Text.literal(planName).formatted(Formatting.GOLD))
+                                .formatted(Formatting.GRAY),
+                false);
+
+        // 切换在后台线程执行，完成后在服务器线程上反馈结果
+        mod.switchPlanManually(planEntry, result -> {
+            switch (result) {
+                case SUCCESS -> source.sendFeedback(() ->
+                                Text.literal("Manually switched to power plan: ")
+                                        .append(Text.literal(planName).formatted(Formatting.GOLD))
+                                        .formatted(Formatting.GREEN),
+                        false);
+                case SUPERSEDED -> source.sendFeedback(() ->
+                                Text.literal("Switch to ")
+                                        .append(Text.literal(planName).formatted(Formatting.GOLD))
+                                        .append(Text.literal(" was superseded by a newer switch request"))
+                                        .formatted(Formatting.YELLOW),
+                        false);
+                default -> source.sendError(Text.literal("Failed to switch power plan: " + planName)
+                        .formatted(Formatting.RED));
+            }
+        });
 
-            return Command.SINGLE_SUCCESS;
-        } catch (Exception e) {
-            context.getSource().sendError(Text.literal("Failed to switch power plan: " + e.getMessage())
-                    .formatted(Formatting.RED));
-            return 0;
-        }
+        return Command.SINGLE_SUCCESS;
     }
 
     private int showAll(CommandContext<ServerCommandSource> context) {
@@ -132,7 +273,8 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
 
     private int showPlans(CommandContext<ServerCommandSource> context) {
         try {
-            String currentGuid = planDetector.getCurrentActivePlan();
+            PowerPlanManager powerPlanManager = mod.getPowerPlanManager();
+            String currentPlanId = powerPlanManager.getCurrentActivePlan();
             Config config = mod.getConfig();
 
             // 获取所有计划配置
@@ -157,7 +299,7 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                     Config.PlanEntry plan = entry.getValue();
 
                     // 检查是否为当前活动计划
-                    boolean isActive = currentGuid != null && currentGuid.equals(plan.getGuid());
+                    boolean isActive = powerPlanManager.isActivePlan(currentPlanId, plan.getPlanId());
 
                     // 构建计划信息文本
                     MutableText planText = Text.literal("» " + planName + ":")
@@ -165,14 +307,40 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                                     isActive ? Formatting.GREEN : Formatting.WHITE);
 
                     // 添加详细信息
-                    planText.append("\n  GUID: ").append(
-                            Text.literal(plan.getGuid())
+                    planText.append(plan.getGovernor() != null ? "\n  Governor: " : "\n  GUID: ").append(
+                            Text.literal(String.valueOf(plan.getPlanId()))
                                     .formatted(Formatting.GRAY));
 
                     planText.append("\n  Range: ").append(
                             Text.literal(Arrays.toString(plan.getRange()))
                                     .formatted(Formatting.YELLOW));
 
+                    if (plan.getCondition() != null) {
+                        planText.append("\n  Condition: ").append(
+                                Text.literal(plan.getCondition())
+                                        .formatted(plan.getCompiledCondition() != null ? Formatting.YELLOW : Formatting.RED));
+                    }
+
+                    if (plan.getMspt() != null) {
+                        planText.append("\n  MSPT: ").append(
+                                Text.literal(Arrays.toString(plan.getMspt()))
+                                        .formatted(Formatting.YELLOW));
+                    }
+
+                    if (plan.getAffinity() != null || plan.getNice() != null) {
+                        planText.append("\n  Scheduling: ").append(
+                                Text.literal("CPUs " + (plan.getAffinity() != null ? plan.getAffinity() : "default")
+                                                + ", nice " + (plan.getNice() != null ? plan.getNice() : "default"))
+                                        .formatted(Formatting.YELLOW));
+                    }
+
+                    if (plan.getViewDistance() != null || plan.getSimulationDistance() != null) {
+                        planText.append("\n  Distances: ").append(
+                                Text.literal("view " + (plan.getViewDistance() != null ? plan.getViewDistance() : "default")
+                                                + ", simulation " + (plan.getSimulationDistance() != null ? plan.getSimulationDistance() : "default"))
+                                        .formatted(Formatting.YELLOW));
+                    }
+
                     planText.append("\n  Message: ").append(
                             Text.literal(plan.getBroadcastMessage())
                                     .formatted(Formatting.AQUA));
@@ -195,7 +363,7 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
 
             MutableText currentInfo = Text.literal("Current Active: ")
                     .formatted(Formatting.GRAY)
-                    .append(Text.literal(currentGuid != null ? currentGuid : "None")
+                    .append(Text.literal(currentPlanId != null ? currentPlanId : "None")
                             .formatted(Formatting.GOLD));
 
             context.getSource().sendFeedback(() -> currentInfo, false);
@@ -233,24 +401,25 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
         );
 
         // Show current player exclusion status
-        int excludedCount = 0;
-        int totalCount = 0;
-        for (ServerPlayerEntity player : context.getSource().getServer().getPlayerManager().getPlayerList()) {
-            totalCount++;
-            String name = player.getName().getString();
-            if (mod.getPlayerExclusion().shouldExcludePlayer(name)) {
-                excludedCount++;
-            }
-        }
-
-        int finalTotalCount = totalCount;
-        int finalExcludedCount = excludedCount;
+        int totalCount = mod.getPlayerTracker().getTrackedPlayerCount();
+        int excludedCount = totalCount - mod.getPlayerTracker().getRealPlayerCount();
 
         context.getSource().sendFeedback(() ->
-                        Text.literal(String.format("Players: %d total, %d excluded", finalTotalCount, finalExcludedCount)),
+                        Text.literal(String.format("Players: %d total, %d excluded", totalCount, excludedCount)),
                 false
         );
 
+        PlayerActivitySampler activity = mod.getActivitySampler();
+        if (activity.isEnabled()) {
+            int idleCount = mod.getPlayerTracker().getIdlePlayerCount();
+            int demand = activity.getDemand(mod.getPlayerTracker());
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format("Activity: %d idle over %ds (weight %.2f), demand %d",
+                                    idleCount, activity.getIdleSeconds(), activity.getIdleWeight(), demand)),
+                    false
+            );
+        }
+
         return Command.SINGLE_SUCCESS;
     }
 
@@ -267,9 +436,294 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                 false
         );
 
+        context.getSource().sendFeedback(() ->
+                        Text.literal(" - Power Backend: " + mod.getPowerPlanManager().getBackend().getName()),
+                false
+        );
+
+        PowerBackend backend = mod.getPowerPlanManager().getBackend();
+        if (backend instanceof ArbitratedBackend arbitrated) {
+            backend = arbitrated.getDelegate();
+        }
+        if (backend instanceof HelperBackend helperBackend) {
+            HelperProcess helper = helperBackend.getHelper();
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format(" - Power Helper: %s, started %d time(s)",
+                                    helperBackend.isDegraded() ? "unavailable, using fallback" : helper.isRunning() ? "running" : "idle",
+                                    helper.getStarts())),
+                    false
+            );
+        }
+
+        if (mod.getPowerPlanManager().getBackend() instanceof ArbitratedBackend arbitrated) {
+            HostArbiter arbiter = arbitrated.getArbiter();
+            HostArbiter.Demand host = arbiter.getHostDemand();
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format(" - Host Arbiter: %s, %d instance(s), host plan %s",
+                                    arbiter.isLeader() ? "leader" : "follower", arbiter.getInstances(),
+                                    host != null ? describePlan(host.planId()) + " (level " + host.rank() + ")" : "unknown")),
+                    false
+            );
+        }
+
+        TickTimeSampler tickTimes = mod.getTickTimeSampler();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Selection Mode: %s (MSPT ewma %.2f ms, p95 %.2f ms%s)",
+                                config.getSelectionMode(), tickTimes.getEwmaMillis(), tickTimes.getP95Millis(),
+                                tickTimes.isWarm() ? "" : ", warming up")),
+                false
+        );
+
+        HibernationController hibernation = mod.getHibernation();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(!hibernation.isEnabled() ? " - Hibernation: disabled"
+                                : String.format(" - Hibernation: %s after %ds idle, %s, %d time(s), %ds total",
+                                hibernation.isFreezeMode() ? "freeze" : "throttle to " + hibernation.getThrottleTickRate() + " TPS",
+                                hibernation.getIdleSeconds(),
+                                hibernation.isHibernating() ? "hibernating" : "awake",
+                                hibernation.getHibernations(),
+                                TimeUnit.NANOSECONDS.toSeconds(hibernation.getTotalHibernatedNanos(System.nanoTime())))),
+                false
+        );
+
+        FrequencyCapController controller = mod.getFrequencyController();
+        if (controller.isActive()) {
+            MsptController loop = controller.getLoop();
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format(" - Frequency Cap: %d%% (applied %d%%), target %.1f ms, error %+.1f%%, integral %.1f%s%s",
+                                    controller.getRequestedCap(), controller.getAppliedCap(), loop.getTargetMspt(),
+                                    loop.getLastError(), loop.getIntegral(),
+                                    loop.isSaturated() ? ", saturated" : "",
+                                    controller.isStale() ? ", tick signal stale - full speed" : "")),
+                    false
+            );
+        }
+
+        Config.Switching switching = config.getSwitching();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Switching: min dwell %ds, step-down delay %ds, max %d/min",
+                                switching.getMinDwellSeconds(), switching.getStepDownDelaySeconds(),
+                                switching.getMaxSwitchesPerMinute())),
+                false
+        );
+
+        SwitchPolicy policy = mod.getSwitchPolicy();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Suppressed Switches: %d (hysteresis %d, dwell %d, rate limit %d)",
+                                policy.getSuppressedSwitches(), policy.getSuppressedByHysteresis(),
+                                policy.getSuppressedByDwell(), policy.getSuppressedByRateLimit())),
+                false
+        );
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private int showProfile(CommandContext<ServerCommandSource> context) {
+        PreBoostPredictor predictor = mod.getPreBoostPredictor();
+        LoadProfile profile = predictor.getProfile();
+        Config.Prediction prediction = mod.getConfig().getPrediction();
+
+        context.getSource().sendFeedback(() ->
+                        Text.literal("=== Load Profile (weekly average of peak real players, max per hour) ===")
+                                .formatted(Formatting.BOLD, Formatting.GOLD),
+                false
+        );
+
+        // 每小时取 4 个 15 分钟时段中最大的一个
+        for (DayOfWeek day : DayOfWeek.values()) {
+            StringBuilder line = new StringBuilder(day.getDisplayName(TextStyle.SHORT, Locale.ROOT)).append(':');
+            int base = (day.getValue() - 1) * LoadProfile.SLOTS_PER_DAY;
+            for (int hour = 0; hour < 24; hour++) {
+                float peak = 0;
+                boolean sampled = false;
+                for (int quarter = 0; quarter < 4; quarter++) {
+                    int slot = base + hour * 4 + quarter;
+                    if (profile.getSamples(slot) > 0) {
+                        sampled = true;
+                        peak = Math.max(peak, profile.getMean(slot));
+                    }
+                }
+                line.append(' ').append(sampled ? String.valueOf(Math.round(peak)) : "-");
+            }
+            String text = line.toString();
+            context.getSource().sendFeedback(() -> Text.literal(text).formatted(Formatting.GRAY), false);
+        }
+
+        long hits = profile.getHits();
+        long misses = profile.getMisses();
+        long total = hits + misses;
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format("Predictions: %d hit, %d miss (%s hit rate)", hits, misses,
+                                total == 0 ? "n/a" : String.format("%.1f%%", hits * 100.0 / total))),
+                false
+        );
+
+        Config.PlanEntry boost = predictor.getBoostPlan();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format("Pre-boost: %s, lead %d min, min %d weeks, current boost: %s",
+                                prediction.isEnabled() ? "enabled" : "disabled", prediction.getLeadMinutes(),
+                                prediction.getMinSamples(), boost != null ? boost.getName() : "none")),
+                false
+        );
+
         return Command.SINGLE_SUCCESS;
     }
 
+    private int showSchedule(CommandContext<ServerCommandSource> context) {
+        PlanSchedule schedule = mod.getPlanSchedule();
+        context.getSource().sendFeedback(() ->
+                        Text.literal("=== Schedule ===").formatted(Formatting.BOLD, Formatting.GOLD),
+                false
+        );
+        if (schedule.isEmpty()) {
+            context.getSource().sendFeedback(() ->
+                            Text.literal("No schedule windows configured, add a schedule list to a plan in config.yaml")
+                                    .formatted(Formatting.GRAY),
+                    false
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEE yyyy-MM-dd HH:mm", Locale.ROOT)
+                .withZone(ZoneId.systemDefault());
+        for (PlanSchedule.Window window : schedule.getWindows()) {
+            long boundary = window.getNextBoundaryMillis();
+            String when = window.isActive() ? "active until " + formatter.format(Instant.ofEpochMilli(boundary))
+                    : boundary == Long.MAX_VALUE ? "never starts" : "next " + formatter.format(Instant.ofEpochMilli(boundary));
+            MutableText line = Text.literal(String.format("» %s: %s '%s' for %d min, %s", window.getPlan().getName(),
+                    window.isCap() ? "cap" : "force", window.getCron(), window.getDurationMinutes(), when));
+            if (window.isActive()) {
+                line.formatted(Formatting.GREEN);
+            }
+            context.getSource().sendFeedback(() -> line, false);
+        }
+
+        Config.PlanEntry forced = schedule.getForcedPlan();
+        Config.PlanEntry cap = schedule.getCapPlan();
+        String state = forced != null ? "forcing " + forced.getName()
+                : cap != null ? "capping at " + cap.getName() : "no window active";
+        context.getSource().sendFeedback(() ->
+                        Text.literal("Now: " + state + (mod.getManualOverride() ? " (manual override in effect)" : "")),
+                false
+        );
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private int showMetrics(CommandContext<ServerCommandSource> context) {
+        Metrics metrics = mod.getMetrics();
+        context.getSource().sendFeedback(() ->
+                        Text.literal("=== Metrics ===").formatted(Formatting.BOLD, Formatting.GOLD),
+                false
+        );
+        if (!metrics.isEnabled()) {
+            context.getSource().sendFeedback(() ->
+                            Text.literal("Metrics are disabled, set metrics.enabled in config.yaml and reload")
+                                    .formatted(Formatting.GRAY),
+                    false
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        sendHistogram(context, "Tick Handler", metrics.getTickHandler());
+        sendHistogram(context, "Backend Get", metrics.getBackendGet());
+        sendHistogram(context, "Backend Set", metrics.getBackendSet());
+
+        context.getSource().sendFeedback(() ->
+                        Text.literal(" - Switch Failures: " + metrics.getFailures()),
+                false
+        );
+
+        // 按计划 ID 汇总切换次数和停留时间，能对应到配置时显示计划名称
+        Map<String, Long> switches = metrics.getSwitches();
+        Map<String, Long> timeInPlan = metrics.getTimeInPlanNanos(System.nanoTime());
+        for (Map.Entry<String, Long> entry : timeInPlan.entrySet()) {
+            String planId = entry.getKey();
+            long minutes = TimeUnit.NANOSECONDS.toMinutes(entry.getValue());
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format(" - Plan %s: %d switch(es), %dh %02dm active",
+                                    describePlan(planId), switches.getOrDefault(planId, 0L), minutes / 60, minutes % 60)),
+                    false
+            );
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private int showEnergy(CommandContext<ServerCommandSource> context) {
+        EnergySampler sampler = mod.getEnergySampler();
+        context.getSource().sendFeedback(() ->
+                        Text.literal("=== Energy ===").formatted(Formatting.BOLD, Formatting.GOLD),
+                false
+        );
+        if (sampler == null) {
+            context.getSource().sendFeedback(() ->
+                            Text.literal(mod.getConfig().getEnergy().isEnabled()
+                                            ? "No readable RAPL counters found, see the server log"
+                                            : "Energy sampling is disabled, set energy.enabled in config.yaml and reload")
+                                    .formatted(Formatting.GRAY),
+                    false
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        long totalMinutes = TimeUnit.NANOSECONDS.toMinutes(sampler.getTotalNanos());
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Source: %d RAPL zone(s) under %s, every %ds",
+                                sampler.getZoneCount(), sampler.getRoot(), sampler.getIntervalSeconds())),
+                false
+        );
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Total: %.1f kJ over %dh %02dm, %.1f W last minute, %.1f W last hour",
+                                sampler.getTotalMicrojoules() / 1e9, totalMinutes / 60, totalMinutes % 60,
+                                sampler.getRecentWatts(TimeUnit.MINUTES.toNanos(1)),
+                                sampler.getRecentWatts(TimeUnit.HOURS.toNanos(1)))),
+                false
+        );
+
+        // 有玩家在线时的能耗按真实玩家小时平摊
+        double playerHours = sampler.getPlayerHours();
+        long occupied = sampler.getOccupiedMicrojoules();
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - Players: %.2f player-hour(s), %s per player-hour, %.1f kJ with nobody online",
+                                playerHours,
+                                playerHours > 0 ? String.format("%.1f kJ", occupied / 1e9 / playerHours) : "n/a",
+                                (sampler.getTotalMicrojoules() - occupied) / 1e9)),
+                false
+        );
+
+        for (Map.Entry<String, EnergySampler.PlanUsage> entry : sampler.getPlanUsage().entrySet()) {
+            String planId = entry.getKey();
+            EnergySampler.PlanUsage usage = entry.getValue();
+            long minutes = TimeUnit.NANOSECONDS.toMinutes(usage.nanos());
+            context.getSource().sendFeedback(() ->
+                            Text.literal(String.format(" - Plan %s: %.1f kJ, average %.1f W over %dh %02dm",
+                                    describePlan(planId), usage.microjoules() / 1e9,
+                                    usage.nanos() > 0 ? usage.microjoules() * 1000.0 / usage.nanos() : 0, minutes / 60, minutes % 60)),
+                    false
+            );
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private void sendHistogram(CommandContext<ServerCommandSource> context, String label, LatencyHistogram histogram) {
+        context.getSource().sendFeedback(() ->
+                        Text.literal(String.format(" - %s: %d calls, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                                label, histogram.getCount(),
+                                histogram.getPercentileNanos(0.5) / 1_000_000.0,
+                                histogram.getPercentileNanos(0.99) / 1_000_000.0,
+                                histogram.getMaxNanos() / 1_000_000.0)),
+                false
+        );
+    }
+
+    private String describePlan(String planId) {
+        for (Config.PlanEntry plan : mod.getConfig().getPlan().values()) {
+            if (planId.equals(plan.getPlanId())) {
+                return plan.getName();
+            }
+        }
+        return planId;
+    }
+
     public static void register(
             com.mojang.brigadier.CommandDispatcher<ServerCommandSource> dispatcher,
             EcoPower mod
@@ -301,6 +755,30 @@ public class EcoPowerCommand implements Command<ServerCommandSource> {
                                 .then(CommandManager.literal("activation")
                                         .executes(new EcoPowerCommand(mod)) // /ecopower show activation
                                 )
+                                .then(CommandManager.literal("profile")
+                                        .executes(new EcoPowerCommand(mod)) // /ecopower show profile
+                                )
+                                .then(CommandManager.literal("metrics")
+                                        .executes(new EcoPowerCommand(mod)) // /ecopower show metrics
+                                )
+                                .then(CommandManager.literal("energy")
+                                        .executes(new EcoPowerCommand(mod)) // /ecopower show energy
+                                )
+                                .then(CommandManager.literal("schedule")
+                                        .executes(new EcoPowerCommand(mod)) // /ecopower show schedule
+                                )
+                        )
+                        .then(CommandManager.literal("history")
+                                .executes(new EcoPowerCommand(mod)) // /ecopower history (last 24h)
+                                .then(CommandManager.argument("range", StringArgumentType.word())
+                                        .suggests((context, builder) -> {
+                                            for (String range : new String[]{"1h", "24h", "7d", "30d", "all"}) {
+                                                builder.suggest(range);
+                                            }
+                                            return builder.buildFuture();
+                                        })
+                                        .executes(new EcoPowerCommand(mod)) // /ecopower history <range>
+                                )
                         )
                         .then(CommandManager.literal("set")
                                 .then(CommandManager.literal("plan")
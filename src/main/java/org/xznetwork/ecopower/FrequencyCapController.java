@@ -0,0 +1,197 @@
+package org.xznetwork.ecopower;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.policy.MsptController;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * controller 选择模式下的闭环频率控制
+ * 服务器线程按固定 tick 间隔把 MSPT 交给 {@link MsptController}，上限的写入在独立线程上进行（latest-wins）；
+ * 同一线程上的看门狗在 tick 信号超过 staleSeconds 没有更新时把上限恢复为全速
+ */
+public class FrequencyCapController {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Controller");
+    private static final int UNKNOWN = -1;
+
+    private final PowerPlanManager powerPlanManager;
+    private final MsptController loop;
+    private final AtomicInteger requestedCap = new AtomicInteger(MsptController.FULL_SPEED);
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> watchdog;
+    private int appliedCap = MsptController.FULL_SPEED; // 只在控制线程上访问
+    private volatile int lastAppliedCap = MsptController.FULL_SPEED;
+    private volatile boolean active = false;
+    private volatile boolean stale = false;
+    private volatile long lastSignalNanos;
+    private volatile long staleNanos;
+    private int intervalTicks;
+    private int ticksUntilUpdate = 0;
+
+    public FrequencyCapController(PowerPlanManager powerPlanManager, Config.Controller settings) {
+        this.powerPlanManager = powerPlanManager;
+        this.loop = new MsptController(settings, System.nanoTime());
+    }
+
+    /**
+     * 更新设置，并按是否处于 controller 模式启停控制；停止时恢复全速
+     */
+    public void updateSettings(Config.Controller settings, boolean controllerMode) {
+        loop.updateSettings(settings);
+        this.intervalTicks = Math.max(1, settings.getIntervalTicks());
+        this.staleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, settings.getStaleSeconds()));
+
+        if (controllerMode && !active) {
+            if (!powerPlanManager.supportsFrequencyCap()) {
+                LOGGER.warn("[Eco Power] {} backend cannot cap CPU frequency, controller mode has no effect",
+                        powerPlanManager.getBackend().getName());
+                return;
+            }
+            activate();
+        } else if (!controllerMode && active) {
+            active = false;
+            watchdog.cancel(false);
+            request(MsptController.FULL_SPEED);
+            LOGGER.info("[Eco Power] MSPT controller stopped, CPU frequency cap lifted");
+        }
+    }
+
+    private void activate() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "EcoPower-Controller");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long now = System.nanoTime();
+        loop.reset(now);
+        lastSignalNanos = now;
+        stale = false;
+        ticksUntilUpdate = intervalTicks;
+        active = true;
+        watchdog = executor.scheduleAtFixedRate(this::checkStale, 1, 1, TimeUnit.SECONDS);
+        LOGGER.info("[Eco Power] MSPT controller started, target {} ms", loop.getTargetMspt());
+    }
+
+    /**
+     * 每个服务器 tick 结束时调用，{@code warm} 为 false 时只刷新看门狗
+     */
+    public void tick(double msptMillis, boolean warm, long nowNanos) {
+        if (!active) return;
+        lastSignalNanos = nowNanos;
+        if (--ticksUntilUpdate > 0) return;
+        ticksUntilUpdate = intervalTicks;
+
+        if (stale) {
+            // 看门狗已恢复全速，从全速重新开始收敛
+            stale = false;
+            loop.reset(nowNanos);
+            LOGGER.info("[Eco Power] Tick signal resumed, MSPT controller restarting from full speed");
+        }
+        if (!warm) return;
+        request(loop.update(msptMillis, nowNanos));
+    }
+
+    /**
+     * 手动模式下暂停控制并恢复全速，退出手动模式后从全速重新收敛
+     */
+    public void release(long nowNanos) {
+        if (!active) return;
+        lastSignalNanos = nowNanos;
+        if (loop.getOutput() != MsptController.FULL_SPEED || requestedCap.get() != MsptController.FULL_SPEED) {
+            loop.reset(nowNanos);
+            request(MsptController.FULL_SPEED);
+        }
+    }
+
+    /**
+     * 计划切换后重新写入上限；Windows 上每个电源方案有各自的最大处理器状态
+     */
+    public void onPlanSwitched() {
+        if (!active) return;
+        executor.execute(() -> {
+            appliedCap = UNKNOWN;
+            applyRequested();
+        });
+    }
+
+    /**
+     * 服务器停止时调用：停止控制线程并同步恢复全速
+     */
+    public void shutdown() {
+        active = false;
+        if (executor == null) return;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (appliedCap != MsptController.FULL_SPEED) {
+            try {
+                powerPlanManager.setFrequencyCap(MsptController.FULL_SPEED);
+                LOGGER.info("[Eco Power] Server stopping - CPU frequency cap lifted");
+            } catch (IOException e) {
+                LOGGER.error("[Eco Power] Failed to lift CPU frequency cap", e);
+            }
+        }
+    }
+
+    private void request(int cap) {
+        if (requestedCap.getAndSet(cap) != cap) {
+            executor.execute(this::applyRequested);
+        }
+    }
+
+    private void applyRequested() {
+        int cap = requestedCap.get();
+        if (cap == appliedCap) return;
+        try {
+            powerPlanManager.setFrequencyCap(cap);
+            appliedCap = cap;
+            lastAppliedCap = cap;
+            LOGGER.debug("[Eco Power] CPU frequency capped at {}%", cap);
+        } catch (IOException e) {
+            // 状态不确定，下一次请求时重新写入
+            appliedCap = UNKNOWN;
+            LOGGER.warn("[Eco Power] Failed to set CPU frequency cap to {}%: {}", cap, e.getMessage());
+        }
+    }
+
+    private void checkStale() {
+        if (stale || System.nanoTime() - lastSignalNanos <= staleNanos) return;
+        stale = true;
+        requestedCap.set(MsptController.FULL_SPEED);
+        applyRequested();
+        LOGGER.warn("[Eco Power] No tick signal for {}s, restored full CPU speed",
+                TimeUnit.NANOSECONDS.toSeconds(staleNanos));
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public int getRequestedCap() {
+        return requestedCap.get();
+    }
+
+    public int getAppliedCap() {
+        return lastAppliedCap;
+    }
+
+    public MsptController getLoop() {
+        return loop;
+    }
+}
@@ -0,0 +1,148 @@
+package org.xznetwork.ecopower;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.ServerTickManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 没有真实玩家时让服务器休眠：冻结世界 tick（freeze）或降低 tick 速率（throttle）
+ * 与 /tick freeze 相同，网络连接和指令照常处理；第一位真实玩家加入时立即恢复
+ */
+public class HibernationController {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Hibernation");
+
+    private boolean enabled = false;
+    private long idleNanos;
+    private boolean freeze = true;
+    private float throttleTickRate = 1.0f;
+
+    private boolean idle = false;
+    private long idleSinceNanos;
+    private boolean hibernating = false;
+    private boolean frozeWorld;
+    private float previousTickRate;
+    private long hibernatedSinceNanos;
+    private long totalHibernatedNanos = 0;
+    private int hibernations = 0;
+
+    /**
+     * 更新设置；已在休眠时按进入休眠时的模式唤醒，关闭后下一次 tick 即唤醒
+     */
+    public void updateSettings(Config.Hibernation settings) {
+        this.enabled = settings.isEnabled();
+        this.idleNanos = TimeUnit.SECONDS.toNanos(Math.max(0, settings.getIdleSeconds()));
+        this.freeze = !"throttle".equals(settings.getMode().toLowerCase(Locale.ROOT));
+        this.throttleTickRate = (float) Math.max(1.0, Math.min(20.0, settings.getThrottleTickRate()));
+    }
+
+    /**
+     * 每个服务器 tick 结束时调用；{@code holdAwake} 为 true 时（如预测到玩家即将上线）不进入休眠
+     */
+    public void tick(MinecraftServer server, int realPlayerCount, boolean holdAwake, long nowNanos) {
+        if (!enabled || realPlayerCount > 0 || holdAwake) {
+            idle = false;
+            if (hibernating) {
+                wake(server, realPlayerCount > 0 ? "real player online" : "hibernation no longer allowed", nowNanos);
+            }
+            return;
+        }
+
+        if (!idle) {
+            idle = true;
+            idleSinceNanos = nowNanos;
+            return;
+        }
+        if (!hibernating && nowNanos - idleSinceNanos >= idleNanos) {
+            hibernate(server, nowNanos);
+        }
+    }
+
+    /**
+     * 真实玩家加入时在服务器线程上调用，不等下一个 tick 立即恢复
+     */
+    public void onRealPlayerJoin(MinecraftServer server) {
+        idle = false;
+        if (hibernating) {
+            wake(server, "real player joined", System.nanoTime());
+        }
+    }
+
+    /**
+     * 服务器停止前恢复 tick 状态
+     */
+    public void shutdown(MinecraftServer server) {
+        idle = false;
+        if (hibernating) {
+            wake(server, "server stopping", System.nanoTime());
+        }
+    }
+
+    private void hibernate(MinecraftServer server, long nowNanos) {
+        ServerTickManager tickManager = server.getTickManager();
+        if (tickManager.isFrozen()) {
+            // 管理员已手动冻结，不接管也不在唤醒时解冻
+            return;
+        }
+        previousTickRate = tickManager.getTickRate();
+        frozeWorld = freeze;
+        if (freeze) {
+            tickManager.setFrozen(true);
+        } else {
+            tickManager.setTickRate(throttleTickRate);
+        }
+        hibernating = true;
+        hibernatedSinceNanos = nowNanos;
+        hibernations++;
+        LOGGER.info("[Eco Power] No real players for {}s, hibernating ({})",
+                TimeUnit.NANOSECONDS.toSeconds(idleNanos), freeze ? "world ticking frozen" : "tick rate " + throttleTickRate);
+    }
+
+    private void wake(MinecraftServer server, String reason, long nowNanos) {
+        ServerTickManager tickManager = server.getTickManager();
+        if (frozeWorld) {
+            tickManager.setFrozen(false);
+        } else {
+            tickManager.setTickRate(previousTickRate);
+        }
+        hibernating = false;
+        totalHibernatedNanos += nowNanos - hibernatedSinceNanos;
+        LOGGER.info("[Eco Power] Waking up from hibernation after {}s: {}",
+                TimeUnit.NANOSECONDS.toSeconds(nowNanos - hibernatedSinceNanos), reason);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isHibernating() {
+        return hibernating;
+    }
+
+    public boolean isFreezeMode() {
+        return freeze;
+    }
+
+    public float getThrottleTickRate() {
+        return throttleTickRate;
+    }
+
+    public long getIdleSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(idleNanos);
+    }
+
+    public int getHibernations() {
+        return hibernations;
+    }
+
+    /**
+     * 累计休眠时间，包含当前尚未结束的部分
+     */
+    public long getTotalHibernatedNanos(long nowNanos) {
+        return hibernating ? totalHibernatedNanos + nowNanos - hibernatedSinceNanos : totalHibernatedNanos;
+    }
+}
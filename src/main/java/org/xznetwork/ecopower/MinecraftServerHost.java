@@ -0,0 +1,115 @@
+package org.xznetwork.ecopower;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.Config.PlanEntry;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.util.List;
+
+/**
+ * 在 Minecraft 服务器上实现 {@link ServerHost}：活跃度轮询、世界信号、休眠、视距和广播
+ * 服务器启动完成后通过 {@link #attach} 接上，此前只能调用 {@link #updateSettings}
+ */
+public class MinecraftServerHost implements ServerHost {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Server");
+    private final WorldSignalSampler worldSignalSampler = new WorldSignalSampler();
+    private final HibernationController hibernation = new HibernationController();
+    private final DistanceController distanceController = new DistanceController();
+    private final PlayerActivitySampler activitySampler = new PlayerActivitySampler();
+    private MinecraftServer server;
+
+    /**
+     * 接上已启动的服务器，并记录它原始的视距和模拟距离
+     */
+    public void attach(MinecraftServer server) {
+        this.server = server;
+        distanceController.captureOriginal(server);
+    }
+
+    /**
+     * 服务器关闭时唤醒世界并恢复原始视距
+     */
+    public void shutdown() {
+        hibernation.shutdown(server);
+        distanceController.restore(server);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        server.execute(task);
+    }
+
+    @Override
+    public void updateSettings(Config config) {
+        hibernation.updateSettings(config.getHibernation());
+        activitySampler.updateSettings(config.getActivity());
+        worldSignalSampler.invalidate();
+    }
+
+    @Override
+    public int samplePlayerDemand(PlayerTracker tracker) {
+        activitySampler.tick(server, tracker);
+        return activitySampler.getDemand(tracker);
+    }
+
+    @Override
+    public void forEachPlayerActivity(ActivityVisitor visitor) {
+        List<ServerPlayerEntity> players = server.getPlayerManager().getPlayerList();
+        for (int i = 0; i < players.size(); i++) {
+            ServerPlayerEntity player = players.get(i);
+            visitor.visit(player.getUuid(), player.getLastActionTime());
+        }
+    }
+
+    @Override
+    public void sampleSignals(PlanSelector selector) {
+        worldSignalSampler.tick(server, selector);
+    }
+
+    @Override
+    public void tickHibernation(int realPlayerCount, boolean holdAwake, long nowNanos) {
+        hibernation.tick(server, realPlayerCount, holdAwake, nowNanos);
+    }
+
+    @Override
+    public void onPlanApplied(PlanEntry plan) {
+        distanceController.apply(server, plan);
+    }
+
+    @Override
+    public void broadcast(String message) {
+        try {
+            server.getPlayerManager().broadcast(Text.literal(message), false);
+        } catch (Exception e) {
+            LOGGER.error("[Eco Power] Failed to broadcast message: {}", message, e);
+        }
+    }
+
+    /**
+     * 真实玩家加入时立即从休眠中唤醒
+     */
+    public void onRealPlayerJoin() {
+        hibernation.onRealPlayerJoin(server);
+    }
+
+    /**
+     * 交互、聊天等事件发生时调用
+     */
+    public void onActivity(PlayerTracker tracker, ServerPlayerEntity player) {
+        activitySampler.onActivity(tracker, player);
+    }
+
+    public HibernationController getHibernation() {
+        return hibernation;
+    }
+
+    public PlayerActivitySampler getActivitySampler() {
+        return activitySampler;
+    }
+}
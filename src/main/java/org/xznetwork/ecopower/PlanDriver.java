@@ -0,0 +1,582 @@
+package org.xznetwork.ecopower;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.backend.ArbitratedBackend;
+import org.xznetwork.ecopower.backend.ProcessScheduler;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.Config.PlanEntry;
+import org.xznetwork.ecopower.config.ConfigSnapshot;
+import org.xznetwork.ecopower.config.ConfigWatcher;
+import org.xznetwork.ecopower.history.HistoryLog;
+import org.xznetwork.ecopower.metrics.EnergySampler;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.policy.LoadProfile;
+import org.xznetwork.ecopower.policy.PlanSchedule;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.PreBoostPredictor;
+import org.xznetwork.ecopower.policy.Signal;
+import org.xznetwork.ecopower.policy.SwitchPolicy;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
+import org.xznetwork.ecopower.trace.TraceRecorder;
+import org.xznetwork.ecopower.util.PlayerExclusion;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 每个 tick 的计划决策路径：配置快照生效、需求和信号采样、预测、定时窗口、切换策略和异步切换
+ * 不依赖 Minecraft，服务器相关的部分通过 {@link ServerHost} 完成；除注明的方法外只能在服务器线程上调用
+ * 时间由调用方传入，合成负载测试可以按模拟时间推进
+ */
+public class PlanDriver {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Plans");
+    private static final long PROFILE_SAVE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long TRACE_SAMPLE_INTERVAL_MILLIS = 1000;
+
+    private final ServerHost host;
+    private final ConfigWatcher configWatcher;
+    private final PowerPlanManager powerPlanManager;
+    private final ProcessScheduler processScheduler;
+    private final FrequencyCapController frequencyController;
+    private final PlayerExclusion playerExclusion;
+    private final PlayerTracker playerTracker;
+    private final SwitchPolicy switchPolicy;
+    private final PreBoostPredictor preBoostPredictor;
+    private final Metrics metrics;
+    private final ServiceManager serviceManager;
+    private final Path profileFile;
+    private TickTimeSampler tickTimeSampler;
+    private PlanSelector planSelector;
+    private PlanSchedule planSchedule;
+    private ServiceManager.Services services = ServiceManager.Services.NONE;
+    private long nextTraceSampleMillis = 0;
+    private long nextHistorySampleMillis = 0;
+    private long nextProfileSaveMillis = Long.MAX_VALUE;
+    private CompletableFuture<Void> profileSave = CompletableFuture.completedFuture(null);
+    private Config config;
+    private ConfigSnapshot appliedSnapshot;
+    private String currentPlanId = null;
+    private String originalPlanId = null;
+    private String pendingPlanId = null;
+    private String failedPlanId = null;
+    private int lastUnmatchedCount = -1;
+    private boolean manualOverride = false;
+
+    /**
+     * 按 {@code configWatcher} 当前的快照初始化，并等待初始配置的 I/O 服务启动
+     */
+    public PlanDriver(ServerHost host, ConfigWatcher configWatcher, PowerPlanManager powerPlanManager,
+                      ProcessScheduler processScheduler, ServiceManager serviceManager, Metrics metrics, Path profileFile) {
+        this.host = host;
+        this.configWatcher = configWatcher;
+        this.powerPlanManager = powerPlanManager;
+        this.processScheduler = processScheduler;
+        this.serviceManager = serviceManager;
+        this.metrics = metrics;
+        this.profileFile = profileFile;
+        this.appliedSnapshot = configWatcher.getLatest();
+        this.config = appliedSnapshot.getConfig();
+
+        this.frequencyController = new FrequencyCapController(powerPlanManager, config.getController());
+        this.playerExclusion = new PlayerExclusion(appliedSnapshot.getExclusion());
+        this.playerTracker = new PlayerTracker(playerExclusion);
+        metrics.setEnabled(config.getMetrics().isEnabled());
+        installServices(serviceManager.start(config));
+        this.switchPolicy = new SwitchPolicy(config.getSwitching());
+        this.preBoostPredictor = new PreBoostPredictor(loadProfile(), ZoneId.systemDefault());
+        applySelection(appliedSnapshot);
+        host.updateSettings(config);
+    }
+
+    /**
+     * 服务器启动完成后调用：按最大玩家数重新编译配置，记录原始计划并切换到初始计划
+     */
+    public void start(int maxPlayers, long nowNanos, long nowMillis) {
+        // 按最大玩家数扩展计划索引的直接查表范围，在加载线程上重新编译当前配置
+        ConfigSnapshot sized = configWatcher.setMaxPlayers(maxPlayers).join();
+        if (sized != appliedSnapshot) {
+            applySnapshot(sized);
+        }
+        // 世界加载完成后才有 tick 信号，控制器（和它的看门狗）从这里开始运行
+        frequencyController.updateSettings(config.getController(), isControllerMode());
+        nextProfileSaveMillis = nowMillis + PROFILE_SAVE_INTERVAL_MILLIS;
+
+        try {
+            originalPlanId = powerPlanManager.getCurrentActivePlan();
+            LOGGER.info("[Eco Power] Original power plan detected: {}", originalPlanId);
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to detect original power plan", e);
+        }
+
+        int demand = host.samplePlayerDemand(playerTracker);
+        host.sampleSignals(planSelector);
+        PlanEntry initialPlan = planSchedule.apply(findMatchingPlan(demand));
+
+        if (initialPlan != null && switchPolicy.select(initialPlan, demand, planSelector.isSelectedByPlayers(), nowNanos) == initialPlan) {
+            LOGGER.info("[Eco Power] Initial power plan: {} for {} players",
+                    getPlanName(initialPlan), demand);
+            requestSwitch(initialPlan, demand);
+        }
+    }
+
+    /**
+     * 服务器关闭时调用：保存负载曲线，恢复原始计划和调度设置，停止所有后台线程
+     */
+    public void stop() {
+        configWatcher.close();
+        // 后台保存和这里的保存写同一个临时文件，先等它结束
+        profileSave.exceptionally(error -> null).join();
+        saveProfile();
+
+        // 先等待正在执行的切换结束，再同步恢复原始计划
+        powerPlanManager.shutdown();
+        if (originalPlanId != null && (pendingPlanId != null || !originalPlanId.equals(currentPlanId))) {
+            powerPlanManager.setActivePlan(originalPlanId);
+            LOGGER.info("[Eco Power] Server stopping - Restored original power plan: {}", originalPlanId);
+        }
+        processScheduler.restore();
+        frequencyController.shutdown();
+        powerPlanManager.close();
+        serviceManager.close();
+    }
+
+    public void onTickStart(long nowNanos) {
+        tickTimeSampler.onTickStart(nowNanos);
+    }
+
+    public void onEndTick(long nowNanos, long nowMillis) {
+        // 后台加载的新配置在 tick 边界整体生效
+        ConfigSnapshot latest = configWatcher.getLatest();
+        if (latest != appliedSnapshot) {
+            applySnapshot(latest);
+        }
+
+        tickTimeSampler.onTickEnd(nowNanos);
+        int realPlayerCount = playerTracker.getRealPlayerCount();
+        if (services.energy() != null) {
+            services.energy().setRealPlayerCount(realPlayerCount);
+        }
+        // 计划选择使用按活跃程度加权的需求，休眠和能耗统计仍按真实玩家数量
+        int demand = host.samplePlayerDemand(playerTracker);
+
+        // 负载曲线在手动模式下也持续学习
+        preBoostPredictor.tick(nowMillis, demand);
+        if (nowMillis >= nextProfileSaveMillis) {
+            nextProfileSaveMillis = nowMillis + PROFILE_SAVE_INTERVAL_MILLIS;
+            saveProfileAsync();
+        }
+        if (services.trace() != null && nowMillis >= nextTraceSampleMillis) {
+            nextTraceSampleMillis = nowMillis + TRACE_SAMPLE_INTERVAL_MILLIS;
+            sampleTrace(services.trace(), nowMillis);
+        }
+        if (services.history() != null && nowMillis >= nextHistorySampleMillis) {
+            nextHistorySampleMillis = nowMillis + services.history().getSampleIntervalMillis();
+            services.history().recordSample(nowMillis, realPlayerCount, planSelector.getMspt());
+        }
+
+        // 定时窗口在手动模式下照常推进，回到自动模式后立即按当前生效的窗口选择计划
+        if (planSchedule.tick(nowMillis)) {
+            logScheduleChange();
+        }
+
+        // 休眠与手动模式无关，只看真实玩家；预测即将升档时保持唤醒
+        host.tickHibernation(realPlayerCount, preBoostPredictor.getBoostPlan() != null, nowNanos);
+
+        if (manualOverride) {
+            // 手动模式下不限制 CPU 频率
+            frequencyController.release(nowNanos);
+            return;
+        }
+
+        // controller 模式下在所选计划之上闭环调整 CPU 频率上限
+        frequencyController.tick(planSelector.getMspt(), tickTimeSampler.isWarm(), nowNanos);
+
+        host.sampleSignals(planSelector);
+
+        PlanEntry matchedPlan = findMatchingPlan(demand);
+
+        if (matchedPlan == null && demand != lastUnmatchedCount) {
+            // 未覆盖的区间已在加载时报告，这里每个玩家数量只提示一次
+            lastUnmatchedCount = demand;
+            LOGGER.warn("[Eco Power] No matching power plan found for {} players", demand);
+        }
+
+        // 预测到即将到来的高峰时提前升档
+        PlanEntry predictedPlan = preBoostPredictor.adjust(matchedPlan);
+        boolean playerDriven = predictedPlan == matchedPlan && planSelector.isSelectedByPlayers();
+        matchedPlan = predictedPlan;
+
+        // 定时窗口强制或限制计划；窗口改变了结果时只受切换频率限制，否则滞回、降档宽限和频率限制由切换策略决定
+        PlanEntry scheduledPlan = planSchedule.apply(matchedPlan);
+        PlanEntry targetPlan = scheduledPlan != matchedPlan
+                ? switchPolicy.selectScheduled(scheduledPlan, nowNanos)
+                : switchPolicy.select(matchedPlan, demand, playerDriven, nowNanos);
+        if (targetPlan != null) {
+            String planId = targetPlan.getPlanId();
+            String targetPlanId = pendingPlanId != null ? pendingPlanId : currentPlanId;
+            if (planId != null && !planId.equals(targetPlanId) && !planId.equals(failedPlanId)) {
+                requestSwitch(targetPlan, demand);
+            }
+        }
+    }
+
+    /**
+     * 玩家加入时调用，返回该玩家是否计入真实玩家
+     */
+    public boolean onJoin(UUID uuid, String name) {
+        playerTracker.onJoin(uuid, name);
+        if (services.trace() != null) {
+            services.trace().onJoin(uuid, name, System.currentTimeMillis());
+        }
+        return !playerTracker.isExcluded(uuid);
+    }
+
+    public void onLeave(UUID uuid) {
+        playerTracker.onLeave(uuid);
+        if (services.trace() != null) {
+            services.trace().onLeave(uuid, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 异步切换到指定计划，切换成功后才在服务器线程上更新当前计划
+     */
+    private void requestSwitch(PlanEntry plan, int playerDemand) {
+        String planId = plan.getPlanId();
+        pendingPlanId = planId;
+        long requestedNanos = System.nanoTime();
+        powerPlanManager.setActivePlanAsync(planId, result -> {
+            // 被更新的请求覆盖时没有执行，由新的请求负责后续处理
+            if (result == SwitchResult.SUPERSEDED) return;
+            boolean success = result == SwitchResult.SUCCESS;
+            applySchedulingThen(plan, success, () -> {
+                // 已被更新的请求覆盖时忽略旧结果
+                if (!planId.equals(pendingPlanId)) return;
+                pendingPlanId = null;
+                recordSwitchHistory(plan, success, false, requestedNanos);
+
+                if (!success) {
+                    failedPlanId = planId;
+                    return;
+                }
+                failedPlanId = null;
+                currentPlanId = planId;
+                onPlanApplied(plan);
+
+                LOGGER.info("[Eco Power] Switched to power plan: {} ({}) for {} players",
+                        getPlanName(plan), planId, playerDemand);
+
+                if (config.isBroadcastChanges()) {
+                    host.broadcast(plan.getBroadcastMessage());
+                }
+            });
+        });
+    }
+
+    /**
+     * 在切换线程上应用计划的 CPU 亲和性和 nice 设置，再把后续处理交回服务器线程
+     * 调度设置失败只记录日志，不影响计划切换的结果
+     */
+    private void applySchedulingThen(PlanEntry plan, boolean success, Runnable onServerThread) {
+        if (success) {
+            processScheduler.apply(plan.getAffinity(), plan.getNice());
+        }
+        host.execute(onServerThread);
+    }
+
+    /**
+     * 手动切换计划，结果在服务器线程上回调；被之后的切换请求覆盖时回调 {@link SwitchResult#SUPERSEDED}
+     */
+    public void switchPlanManually(PlanEntry plan, Consumer<SwitchResult> onComplete) {
+        enableManualOverride();
+        String planId = plan.getPlanId();
+        pendingPlanId = planId;
+        long requestedNanos = System.nanoTime();
+        powerPlanManager.setActivePlanAsync(planId, result -> {
+            if (result == SwitchResult.SUPERSEDED) {
+                host.execute(() -> onComplete.accept(result));
+                return;
+            }
+            boolean success = result == SwitchResult.SUCCESS;
+            applySchedulingThen(plan, success, () -> {
+                if (planId.equals(pendingPlanId)) {
+                    pendingPlanId = null;
+                    recordSwitchHistory(plan, success, true, requestedNanos);
+                    if (success) {
+                        currentPlanId = planId;
+                        onPlanApplied(plan);
+                    }
+                }
+                onComplete.accept(result);
+            });
+        });
+    }
+
+    /**
+     * 按条件表达式、玩家数量（mspt 模式下优先按 tick 耗时）查找匹配的电源计划
+     * 使用加载配置时编译的区间索引，重叠时按配置顺序先匹配者优先
+     */
+    private PlanEntry findMatchingPlan(int playerCount) {
+        return planSelector.select(playerCount);
+    }
+
+    /**
+     * 获取计划名称（用于日志）
+     */
+    private String getPlanName(PlanEntry plan) {
+        return plan.getName() != null ? plan.getName() : "Unknown Plan";
+    }
+
+    /**
+     * 换上快照中已编译的计划索引、选择规则和定时窗口；只有 tick 采样窗口大小变化时才新建采样器
+     */
+    private void applySelection(ConfigSnapshot snapshot) {
+        Config.Mspt mspt = config.getMspt();
+        if (tickTimeSampler == null || tickTimeSampler.getWindowTicks() != mspt.getWindowTicks()) {
+            tickTimeSampler = new TickTimeSampler(mspt.getWindowTicks(), mspt.getEwmaAlpha());
+        } else {
+            // 窗口大小不变时保留已有样本，只更新平滑系数
+            tickTimeSampler.setAlpha(mspt.getEwmaAlpha());
+        }
+        if (planSelector == null) {
+            planSelector = new PlanSelector(snapshot.getSelection(), tickTimeSampler);
+        } else {
+            planSelector.setRules(snapshot.getSelection());
+            planSelector.setTickTimes(tickTimeSampler);
+        }
+        if (powerPlanManager.getBackend() instanceof ArbitratedBackend arbitrated) {
+            // 计划对应的系统档位作为向其他实例上报的需求等级
+            arbitrated.setPlans(config.getPlan().values());
+        }
+        preBoostPredictor.updateSettings(config.getPrediction(), snapshot.getPlanIndex());
+        planSchedule = snapshot.getSchedule();
+    }
+
+    private void logScheduleChange() {
+        PlanEntry forced = planSchedule.getForcedPlan();
+        PlanEntry cap = planSchedule.getCapPlan();
+        String state = forced != null ? "forcing " + getPlanName(forced)
+                : cap != null ? "capping at " + getPlanName(cap) : "no window active";
+        if (manualOverride) {
+            LOGGER.info("[Eco Power] Schedule window boundary reached ({}), manual override remains in effect", state);
+        } else {
+            LOGGER.info("[Eco Power] Schedule window boundary reached ({})", state);
+        }
+    }
+
+    /**
+     * 计划切换成功后在服务器线程上更新跟随当前计划的设置和统计
+     */
+    private void onPlanApplied(PlanEntry plan) {
+        host.onPlanApplied(plan);
+        if (services.energy() != null) {
+            services.energy().setActivePlan(plan.getPlanId());
+        }
+        if (services.trace() != null) {
+            services.trace().onPlanSwitched(plan.getPlanId(), System.currentTimeMillis());
+        }
+        frequencyController.onPlanSwitched();
+    }
+
+    /**
+     * 在服务器线程上换上后台线程打开的服务，返回被换下的一组；
+     * 运行中新开启的录制先接上已在线的玩家和当前计划，回放和历史从一致的状态开始
+     */
+    private ServiceManager.Services installServices(ServiceManager.Services next) {
+        ServiceManager.Services replaced = services;
+        services = next;
+        long now = System.currentTimeMillis();
+        if (next.energy() != null && next.energy() != replaced.energy()) {
+            next.energy().setActivePlan(currentPlanId);
+        }
+        TraceRecorder recorder = next.trace();
+        if (recorder != null && recorder != replaced.trace()) {
+            playerTracker.forEachPlayer((uuid, name) -> recorder.onJoin(uuid, name, now));
+            if (currentPlanId != null) {
+                recorder.onPlanSwitched(currentPlanId, now);
+            }
+        }
+        HistoryLog log = next.history();
+        if (log != null) {
+            log.updateSettings(config.getHistory());
+            if (log != replaced.history()) {
+                for (PlanEntry plan : config.getPlan().values()) {
+                    if (currentPlanId != null && currentPlanId.equals(plan.getPlanId())) {
+                        log.setCurrentPlan(getPlanName(plan));
+                    }
+                }
+                nextHistorySampleMillis = 0;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * 切换结果回到服务器线程时记录，耗时包括在切换线程上排队的时间
+     */
+    private void recordSwitchHistory(PlanEntry plan, boolean success, boolean manual, long requestedNanos) {
+        if (services.history() != null) {
+            services.history().recordSwitch(System.currentTimeMillis(), getPlanName(plan), playerTracker.getRealPlayerCount(),
+                    planSelector.getMspt(), System.nanoTime() - requestedNanos, success, manual);
+        }
+    }
+
+    /**
+     * 记录玩家活动和一个负载样本；只有当前条件表达式用到的世界信号会被采样
+     */
+    private void sampleTrace(TraceRecorder recorder, long nowMillis) {
+        host.forEachPlayerActivity((uuid, lastActionTime) -> recorder.onActivity(uuid, lastActionTime, nowMillis));
+        EnergySampler energySampler = services.energy();
+        double watts = energySampler != null && energySampler.getTotalNanos() > 0
+                ? energySampler.getRecentWatts(TimeUnit.MILLISECONDS.toNanos(TRACE_SAMPLE_INTERVAL_MILLIS))
+                : Double.NaN;
+        recorder.sample(nowMillis, tickTimeSampler.getEwmaMillis(), tickTimeSampler.getP95Millis(),
+                tickTimeSampler.isWarm(), traceSignal(Signal.LOADED_CHUNKS), traceSignal(Signal.ENTITIES),
+                traceSignal(Signal.TIME_OF_DAY), watts);
+    }
+
+    private double traceSignal(Signal signal) {
+        return planSelector.requires(signal) ? planSelector.getSignal(signal) : Double.NaN;
+    }
+
+    private boolean isControllerMode() {
+        return "controller".equalsIgnoreCase(config.getSelectionMode());
+    }
+
+    private LoadProfile loadProfile() {
+        LoadProfile profile = new LoadProfile();
+        try {
+            profile.load(profileFile);
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to load load profile, starting fresh", e);
+        }
+        return profile;
+    }
+
+    private void saveProfile() {
+        try {
+            preBoostPredictor.getProfile().save(profileFile);
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to save load profile", e);
+        }
+    }
+
+    private void saveProfileAsync() {
+        // 上一次保存还没结束时跳过这一次，同一时刻只有一个线程写临时文件
+        if (profileSave.isDone()) {
+            profileSave = CompletableFuture.runAsync(this::saveProfile);
+        }
+    }
+
+    /**
+     * 在后台线程重新加载配置，成功后在服务器线程上立即生效，失败时保留当前配置
+     * 回调在服务器线程上执行，参数为失败原因，成功时为 null
+     */
+    public void reloadConfig(Consumer<Throwable> onComplete) {
+        configWatcher.reload().whenComplete((snapshot, error) -> host.execute(() -> {
+            if (error == null && snapshot != appliedSnapshot) {
+                applySnapshot(snapshot);
+            }
+            onComplete.accept(error instanceof CompletionException ? error.getCause() : error);
+        }));
+    }
+
+    /**
+     * 在服务器线程上切换到新的配置快照，所有派生状态在同一步内更新
+     * 编译在加载线程上已经完成，这里只换引用；I/O 服务在后台线程上启停，稍后在 tick 之间换上
+     */
+    private void applySnapshot(ConfigSnapshot snapshot) {
+        Config previous = config;
+        this.appliedSnapshot = snapshot;
+        this.config = snapshot.getConfig();
+        applySelection(snapshot);
+        this.playerExclusion.setMatcher(snapshot.getExclusion());
+        this.playerTracker.recheckAll();
+        this.powerPlanManager.setCommandTimeoutMillis(config.getSwitchTimeoutMillis());
+        this.processScheduler.setCommandTimeoutMillis(config.getSwitchTimeoutMillis());
+        this.failedPlanId = null;
+        this.lastUnmatchedCount = -1;
+        this.switchPolicy.updateSettings(config.getSwitching());
+        this.switchPolicy.rebind(config.getPlan());
+        this.host.updateSettings(config);
+        this.frequencyController.updateSettings(config.getController(), isControllerMode());
+        metrics.setEnabled(config.getMetrics().isEnabled());
+        serviceManager.update(config, host, this::installServices);
+        // 只扩展了直接查表范围时配置本身没有变化
+        if (config != previous) {
+            LOGGER.info("[Eco Power] Configuration reloaded");
+        }
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public PlayerExclusion getPlayerExclusion() {
+        return playerExclusion;
+    }
+
+    public PlayerTracker getPlayerTracker() {
+        return playerTracker;
+    }
+
+    public PlanSelector getPlanSelector() {
+        return planSelector;
+    }
+
+    public TickTimeSampler getTickTimeSampler() {
+        return tickTimeSampler;
+    }
+
+    public PreBoostPredictor getPreBoostPredictor() {
+        return preBoostPredictor;
+    }
+
+    public PlanSchedule getPlanSchedule() {
+        return planSchedule;
+    }
+
+    public SwitchPolicy getSwitchPolicy() {
+        return switchPolicy;
+    }
+
+    public PowerPlanManager getPowerPlanManager() {
+        return powerPlanManager;
+    }
+
+    public HistoryLog getHistoryLog() {
+        return services.history();
+    }
+
+    public EnergySampler getEnergySampler() {
+        return services.energy();
+    }
+
+    public FrequencyCapController getFrequencyController() {
+        return frequencyController;
+    }
+
+    public boolean getManualOverride() {
+        return manualOverride;
+    }
+
+    public void enableManualOverride() {
+        LOGGER.debug("[Eco Power] ");
+        manualOverride = true;
+    }
+
+    public void disableManualOverride() {
+        manualOverride = false;
+        currentPlanId = null;
+        failedPlanId = null;
+        switchPolicy.reset();
+    }
+}
@@ -0,0 +1,76 @@
+package org.xznetwork.ecopower;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Util;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按玩家活跃程度加权计算用于选择计划的需求
+ * 原版在玩家移动、交互和聊天时都会更新 {@link ServerPlayerEntity#getLastActionTime()}，
+ * 这里每秒轮询一次并重新判断空闲；交互和聊天事件另外直接调用 {@link PlayerTracker#onActivity}，
+ * 使回来的玩家立即计入需求。时间统一使用 {@link Util#getMeasuringTimeMs()}
+ */
+public class PlayerActivitySampler {
+    private static final int SAMPLE_INTERVAL_TICKS = 20;
+    private int ticksUntilSample = 0;
+    private boolean enabled;
+    private long idleMillis;
+    private double idleWeight;
+
+    public void updateSettings(Config.Activity settings) {
+        this.enabled = settings.isEnabled();
+        this.idleMillis = TimeUnit.SECONDS.toMillis(Math.max(1, settings.getIdleSeconds()));
+        this.idleWeight = Math.min(1.0, Math.max(0.0, settings.getIdleWeight()));
+        // 重新开启时立即按新的阈值判断
+        this.ticksUntilSample = 0;
+    }
+
+    public void tick(MinecraftServer server, PlayerTracker tracker) {
+        if (!enabled || --ticksUntilSample > 0) return;
+        ticksUntilSample = SAMPLE_INTERVAL_TICKS;
+
+        List<ServerPlayerEntity> players = server.getPlayerManager().getPlayerList();
+        for (int i = 0; i < players.size(); i++) {
+            ServerPlayerEntity player = players.get(i);
+            tracker.onActivity(player.getUuid(), player.getLastActionTime());
+        }
+        tracker.refreshIdle(Util.getMeasuringTimeMs(), idleMillis);
+    }
+
+    /**
+     * 交互、聊天等事件发生时调用
+     */
+    public void onActivity(PlayerTracker tracker, ServerPlayerEntity player) {
+        if (enabled) {
+            tracker.onActivity(player.getUuid(), Util.getMeasuringTimeMs());
+        }
+    }
+
+    /**
+     * 用于选择计划的玩家需求；未开启时就是真实玩家数量
+     * 只要还有需求就向上取整，避免少量空闲玩家被当作没有玩家
+     */
+    public int getDemand(PlayerTracker tracker) {
+        if (!enabled) {
+            return tracker.getRealPlayerCount();
+        }
+        return (int) Math.ceil(tracker.getDemand(idleWeight));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getIdleSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(idleMillis);
+    }
+
+    public double getIdleWeight() {
+        return idleWeight;
+    }
+}
@@ -2,28 +2,105 @@ package org.xznetwork.ecopower;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xznetwork.ecopower.config.PowerPlanDetector;
+import org.xznetwork.ecopower.backend.PowerBackend;
+import org.xznetwork.ecopower.metrics.Metrics;
 
 import java.io.IOException;
+import java.util.function.Consumer;
 
-public class PowerPlanManager extends PowerPlanDetector {
+public class PowerPlanManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|PowerManager");
+    private final PowerBackend backend;
+    private final PowerSwitchExecutor switchExecutor;
+    private final Metrics metrics;
+    private volatile long commandTimeoutMillis;
 
-    public PowerPlanManager() {}
+    public PowerPlanManager(PowerBackend backend, long commandTimeoutMillis, Metrics metrics) {
+        this.backend = backend;
+        this.metrics = metrics;
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        this.switchExecutor = new PowerSwitchExecutor(this::executeSwitch);
+    }
+
+    /**
+     * 同步切换电源计划，仅用于服务器关闭等必须等待结果的场景
+     */
+    public boolean setActivePlan(String planId) {
+        LOGGER.info("[Eco Power] Switching to {} power plan", planId);
+        return executeSwitch(planId);
+    }
 
-    public void setActivePlan(String guid) {
-        LOGGER.info("[Eco Power] Switching to {} power plan", guid);
-        executePowerCfgCommand(guid);
+    /**
+     * 在切换线程上异步切换电源计划，回调在切换线程上执行；被更新的请求覆盖时在提交线程上回调
+     */
+    public void setActivePlanAsync(String planId, Consumer<SwitchResult> callback) {
+        LOGGER.debug("[Eco Power] Queued switch to {} power plan", planId);
+        switchExecutor.submit(planId, callback);
     }
 
-    private void executePowerCfgCommand(String guid) {
+    public String getCurrentActivePlan() throws IOException {
+        if (!metrics.isEnabled()) {
+            return backend.getActivePlan();
+        }
+        long start = System.nanoTime();
         try {
-            Process process = Runtime.getRuntime().exec("powercfg /setactive " + guid);
-            if (process.waitFor() != 0) {
-                LOGGER.error("[Eco Power] Failed to change power plan. Admin rights required?");
-            }
-        } catch (IOException | InterruptedException e) {
-            LOGGER.error("[Eco Power] Error executing powercfg command", e);
+            return backend.getActivePlan();
+        } finally {
+            metrics.recordBackendGet(System.nanoTime() - start);
+        }
+    }
+
+    public boolean supportsFrequencyCap() {
+        return backend.supportsFrequencyCap();
+    }
+
+    /**
+     * 同步设置 CPU 频率上限，由频率控制线程调用
+     */
+    public void setFrequencyCap(int percent) throws IOException {
+        backend.setFrequencyCap(percent);
+    }
+
+    public boolean isActivePlan(String activePlanId, String planId) {
+        return backend.isActivePlan(activePlanId, planId);
+    }
+
+    public PowerBackend getBackend() {
+        return backend;
+    }
+
+    public void setCommandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        backend.setCommandTimeoutMillis(commandTimeoutMillis);
+    }
+
+    public void shutdown() {
+        switchExecutor.shutdown(commandTimeoutMillis);
+    }
+
+    /**
+     * 在 {@link #shutdown()} 和最后一次同步切换之后调用
+     */
+    public void close() {
+        backend.close();
+    }
+
+    private boolean executeSwitch(String planId) {
+        boolean recording = metrics.isEnabled();
+        long start = recording ? System.nanoTime() : 0;
+        boolean success;
+        try {
+            backend.setActivePlan(planId);
+            success = true;
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to switch power plan via {}: {}", backend.getName(), e.getMessage());
+            success = false;
+        }
+        if (recording) {
+            long end = System.nanoTime();
+            metrics.recordBackendSet(end - start);
+            metrics.recordSwitch(planId, success, end);
         }
+        return success;
     }
-}
\ No newline at end of file
+}
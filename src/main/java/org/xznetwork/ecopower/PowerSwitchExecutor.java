@@ -0,0 +1,121 @@
+package org.xznetwork.ecopower;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 在独立线程上执行电源计划切换
+ * 只保留最新的一次请求（latest-wins），排队中被覆盖的请求不会执行，其回调以 {@link SwitchResult#SUPERSEDED} 调用
+ */
+public class PowerSwitchExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Switch");
+    private final Predicate<String> switchAction;
+    private final Thread worker;
+    private SwitchRequest pending;
+    private boolean running = true;
+
+    public PowerSwitchExecutor(Predicate<String> switchAction) {
+        this.switchAction = switchAction;
+        this.worker = new Thread(this::runLoop, "EcoPower-Switch");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交一次切换请求，回调在切换线程上执行；被覆盖的请求的回调在提交线程上执行
+     */
+    public void submit(String planId, Consumer<SwitchResult> callback) {
+        SwitchRequest superseded;
+        synchronized (this) {
+            if (!running) {
+                superseded = new SwitchRequest(planId, callback);
+            } else {
+                superseded = pending;
+                if (superseded != null) {
+                    LOGGER.debug("[Eco Power] Switch to {} superseded by {}", superseded.planId, planId);
+                }
+                pending = new SwitchRequest(planId, callback);
+                notifyAll();
+            }
+        }
+        if (superseded != null) {
+            complete(superseded, SwitchResult.SUPERSEDED);
+        }
+    }
+
+    /**
+     * 停止接收新请求，取消排队中的请求，并等待切换线程退出
+     * 正在执行的切换可能包含多条后端命令（每条各有超时），必须等它真正结束，之后的同步恢复才不会被它覆盖；
+     * 超过 {@code warnAfterMillis} 仍未结束时记录警告后继续等待
+     */
+    public void shutdown(long warnAfterMillis) {
+        SwitchRequest cancelled;
+        synchronized (this) {
+            running = false;
+            cancelled = pending;
+            pending = null;
+            notifyAll();
+        }
+        if (cancelled != null) {
+            complete(cancelled, SwitchResult.SUPERSEDED);
+        }
+        try {
+            worker.join(Math.max(1, warnAfterMillis));
+            if (worker.isAlive()) {
+                LOGGER.warn("[Eco Power] Power plan switch still running after {} ms, waiting for it to finish", warnAfterMillis);
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            SwitchRequest request;
+            synchronized (this) {
+                while (running && pending == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) return;
+                request = pending;
+                pending = null;
+            }
+
+            boolean success;
+            try {
+                success = switchAction.test(request.planId);
+            } catch (RuntimeException e) {
+                LOGGER.error("[Eco Power] Unexpected error while switching to {}", request.planId, e);
+                success = false;
+            }
+
+            complete(request, success ? SwitchResult.SUCCESS : SwitchResult.FAILED);
+        }
+    }
+
+    private static void complete(SwitchRequest request, SwitchResult result) {
+        try {
+            request.callback.accept(result);
+        } catch (RuntimeException e) {
+            LOGGER.error("[Eco Power] Switch completion callback failed", e);
+        }
+    }
+
+    private static class SwitchRequest {
+        private final String planId;
+        private final Consumer<SwitchResult> callback;
+
+        private SwitchRequest(String planId, Consumer<SwitchResult> callback) {
+            this.planId = planId;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.xznetwork.ecopower;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.Config.PlanEntry;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link PlanDriver} 用到的服务器能力：在服务器线程上执行任务、在线玩家和世界信号
+ * 除 {@link #execute} 外都只在服务器线程上调用；Minecraft 服务器和合成负载测试各自实现
+ */
+public interface ServerHost extends Executor {
+    /**
+     * 在服务器线程上的下一个 tick 之前执行
+     */
+    @Override
+    void execute(Runnable task);
+
+    /**
+     * 换上新配置时更新服务器一侧的设置（休眠、活跃度），世界信号在下一次采样时重新采集
+     */
+    void updateSettings(Config config);
+
+    /**
+     * 每个 tick 调用一次，返回用于选择计划的玩家需求；可以在这里轮询玩家的活跃状态
+     */
+    int samplePlayerDemand(PlayerTracker tracker);
+
+    /**
+     * 依次给出在线玩家和他们最近一次操作的时间，用于负载轨迹录制
+     */
+    void forEachPlayerActivity(ActivityVisitor visitor);
+
+    /**
+     * 采样条件表达式用到的世界信号，采样频率由实现决定
+     */
+    void sampleSignals(PlanSelector selector);
+
+    /**
+     * 每个 tick 调用一次；{@code holdAwake} 为 true 时不进入休眠
+     */
+    void tickHibernation(int realPlayerCount, boolean holdAwake, long nowNanos);
+
+    /**
+     * 计划切换成功后更新跟随计划的服务器设置，如视距
+     */
+    void onPlanApplied(PlanEntry plan);
+
+    void broadcast(String message);
+
+    @FunctionalInterface
+    interface ActivityVisitor {
+        void visit(UUID uuid, long lastActionTime);
+    }
+}
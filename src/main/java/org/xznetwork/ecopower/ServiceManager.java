@@ -0,0 +1,195 @@
+package org.xznetwork.ecopower;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.history.HistoryLog;
+import org.xznetwork.ecopower.metrics.EnergySampler;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.metrics.MetricsHttpExporter;
+import org.xznetwork.ecopower.trace.TraceRecorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按配置启停的 I/O 服务：指标 HTTP 导出、RAPL 能耗采样、负载轨迹录制和计划历史
+ * 打开文件、绑定端口和关闭都在 EcoPower-Services 线程上执行；服务器线程只换上新的一组引用，
+ * 被换下的服务随后交回这个线程关闭，因此服务器线程不会用到已经关闭的服务
+ */
+public class ServiceManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Services");
+
+    private final Metrics metrics;
+    private final Path configDir;
+    private final ExecutorService worker;
+    // 以下字段仅在后台线程上访问：最近一次打开的组合（可能尚未被换上），以及所有未关闭的服务
+    private Services opened = Services.NONE;
+    private final Map<Object, Runnable> running = new LinkedHashMap<>();
+
+    public ServiceManager(Metrics metrics, Path configDir) {
+        this.metrics = metrics;
+        this.configDir = configDir;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-Services");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 服务器启动前按初始配置打开服务，等待完成后直接返回
+     */
+    public Services start(Config config) {
+        return CompletableFuture.supplyAsync(() -> open(config), worker).join();
+    }
+
+    /**
+     * 在后台线程上按新配置启停服务，再通过 {@code serverThread} 调用 {@code install} 换上新的组合；
+     * {@code install} 返回被换下的组合，其中不再使用的服务回到后台线程关闭
+     */
+    public void update(Config config, Executor serverThread, UnaryOperator<Services> install) {
+        worker.execute(() -> {
+            Services next = open(config);
+            serverThread.execute(() -> {
+                Services replaced = install.apply(next);
+                try {
+                    worker.execute(() -> retire(replaced, next));
+                } catch (RejectedExecutionException e) {
+                    // 已经关闭，所有服务都已停止
+                }
+            });
+        });
+    }
+
+    /**
+     * 停止所有仍在运行的服务，包括已打开但尚未换上的，然后结束后台线程
+     */
+    public void close() {
+        CompletableFuture.runAsync(() -> {
+            List<Runnable> closers = new ArrayList<>(running.values());
+            running.clear();
+            opened = Services.NONE;
+            closers.forEach(ServiceManager::closeQuietly);
+        }, worker).join();
+        worker.shutdown();
+    }
+
+    private Services open(Config config) {
+        Services current = opened;
+        opened = new Services(openExporter(current.exporter(), config.getMetrics()),
+                openEnergy(current.energy(), config.getEnergy()),
+                openTrace(current.trace(), config.getTrace()),
+                openHistory(current.history(), config.getHistory()));
+        return opened;
+    }
+
+    /**
+     * 服务器线程不直接使用导出器，地址或端口变化时先停掉旧的，避免同一端口重复绑定
+     */
+    private MetricsHttpExporter openExporter(MetricsHttpExporter current, Config.Metrics settings) {
+        boolean serve = settings.isEnabled() && settings.getHttpPort() > 0;
+        if (current != null && serve && current.matches(settings.getHttpHost(), settings.getHttpPort())) {
+            return current;
+        }
+        if (current != null) {
+            closeQuietly(running.remove(current));
+        }
+        if (!serve) return null;
+        MetricsHttpExporter exporter = new MetricsHttpExporter(metrics, settings.getHttpHost(), settings.getHttpPort());
+        try {
+            exporter.start();
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to start metrics endpoint on {}:{}", settings.getHttpHost(), settings.getHttpPort(), e);
+            return null;
+        }
+        running.put(exporter, exporter::stop);
+        return exporter;
+    }
+
+    /**
+     * 采样目录或间隔变化时重新开始
+     */
+    private EnergySampler openEnergy(EnergySampler current, Config.Energy settings) {
+        if (!settings.isEnabled()) return null;
+        Path root = Path.of(settings.getRaplRoot());
+        if (current != null && current.matches(root, settings.getSampleIntervalSeconds())) {
+            return current;
+        }
+        EnergySampler sampler = new EnergySampler(root, settings.getSampleIntervalSeconds());
+        if (!sampler.start()) return null;
+        running.put(sampler, sampler::stop);
+        return sampler;
+    }
+
+    /**
+     * 目录变化时另起一个文件
+     */
+    private TraceRecorder openTrace(TraceRecorder current, Config.Tracing settings) {
+        if (!settings.isEnabled()) return null;
+        Path directory = configDir.resolve(settings.getDirectory());
+        if (current != null && current.getFile().getParent().equals(directory)) {
+            return current;
+        }
+        try {
+            TraceRecorder recorder = TraceRecorder.start(directory);
+            running.put(recorder, recorder::close);
+            return recorder;
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to start trace recording in {}", directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * 目录变化时改为在新目录中记录；采样间隔等设置由服务器线程在换上时更新
+     */
+    private HistoryLog openHistory(HistoryLog current, Config.History settings) {
+        if (!settings.isEnabled()) return null;
+        Path directory = configDir.resolve(settings.getDirectory());
+        if (current != null && current.getDirectory().equals(directory)) {
+            return current;
+        }
+        try {
+            HistoryLog log = HistoryLog.open(directory, settings);
+            running.put(log, log::close);
+            return log;
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to open plan history in {}", directory, e);
+            return null;
+        }
+    }
+
+    private void retire(Services replaced, Services next) {
+        if (replaced.exporter() != next.exporter()) closeQuietly(running.remove(replaced.exporter()));
+        if (replaced.energy() != next.energy()) closeQuietly(running.remove(replaced.energy()));
+        if (replaced.trace() != next.trace()) closeQuietly(running.remove(replaced.trace()));
+        if (replaced.history() != next.history()) closeQuietly(running.remove(replaced.history()));
+    }
+
+    private static void closeQuietly(Runnable closer) {
+        if (closer == null) return;
+        try {
+            closer.run();
+        } catch (RuntimeException e) {
+            LOGGER.error("[Eco Power] Failed to stop background service", e);
+        }
+    }
+
+    /**
+     * 同时生效的一组服务，未启用或启动失败的为 null
+     */
+    public record Services(MetricsHttpExporter exporter, EnergySampler energy, TraceRecorder trace, HistoryLog history) {
+        public static final Services NONE = new Services(null, null, null, null);
+    }
+}
@@ -0,0 +1,11 @@
+package org.xznetwork.ecopower;
+
+/**
+ * 一次异步切换请求的结果
+ */
+public enum SwitchResult {
+    SUCCESS,
+    FAILED,
+    // 排队中被更新的请求覆盖，或因关闭而取消，没有执行
+    SUPERSEDED
+}
@@ -0,0 +1,50 @@
+package org.xznetwork.ecopower;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.Signal;
+
+/**
+ * 为计划条件采样来自世界的信号，只采样条件表达式实际引用到的信号
+ */
+public class WorldSignalSampler {
+    // 区块和实体数量变化缓慢，每秒采样一次即可
+    private static final int SAMPLE_INTERVAL_TICKS = 20;
+    private int ticksUntilSample = 0;
+
+    public void tick(MinecraftServer server, PlanSelector selector) {
+        if (--ticksUntilSample > 0) return;
+        ticksUntilSample = SAMPLE_INTERVAL_TICKS;
+
+        if (selector.requires(Signal.LOADED_CHUNKS)) {
+            int chunks = 0;
+            for (ServerWorld world : server.getWorlds()) {
+                chunks += world.getChunkManager().getLoadedChunkCount();
+            }
+            selector.setSignal(Signal.LOADED_CHUNKS, chunks);
+        }
+
+        if (selector.requires(Signal.ENTITIES)) {
+            int entities = 0;
+            for (ServerWorld world : server.getWorlds()) {
+                for (Entity ignored : world.iterateEntities()) {
+                    entities++;
+                }
+            }
+            selector.setSignal(Signal.ENTITIES, entities);
+        }
+
+        if (selector.requires(Signal.TIME_OF_DAY)) {
+            selector.setSignal(Signal.TIME_OF_DAY, server.getOverworld().getTimeOfDay() % 24000L);
+        }
+    }
+
+    /**
+     * 配置重载后立即重新采样
+     */
+    public void invalidate() {
+        ticksUntilSample = 0;
+    }
+}
@@ -0,0 +1,141 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过 {@link HostArbiter} 与同机的其他实例协商后再切换电源计划的后端包装
+ * 切换计划只是更新本实例的需求；只有 leader 会把整机需求（各实例需求的最大值）交给被包装的后端，
+ * 因此对本实例来说切换总是“成功”的，计划相关的本地设置（调度、视距等）照常按本实例的计划生效。
+ * 需求等级取计划对应的 {@link PowerTier}，各实例的配置不同也能互相比较；
+ * 频率上限无法在实例之间合并，启用仲裁时不提供
+ */
+public class ArbitratedBackend implements PowerBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Arbiter");
+    private final PowerBackend delegate;
+    private final HostArbiter arbiter;
+    private volatile Map<String, Integer> ranks = Map.of();
+
+    public ArbitratedBackend(PowerBackend delegate, HostArbiter arbiter) {
+        this.delegate = delegate;
+        this.arbiter = arbiter;
+        arbiter.setHostListener(host -> {
+            try {
+                applyHost();
+            } catch (IOException e) {
+                LOGGER.error("[Eco Power] Failed to apply host power plan {}: {}", host.planId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 按计划对应的系统档位确定需求等级，配置重载后需要重新调用
+     * 配置中的档位只在本实例内有意义，不能用来和其他实例比较；无法判断档位的计划按平衡处理
+     */
+    public void setPlans(Collection<Config.PlanEntry> plans) {
+        Map<String, Integer> byPlanId = new HashMap<>();
+        for (Config.PlanEntry plan : plans) {
+            String planId = plan.getPlanId();
+            if (planId == null || byPlanId.containsKey(planId)) continue;
+            PowerTier tier = delegate.getTier(planId);
+            if (tier == null) {
+                LOGGER.warn("[Eco Power] Cannot tell the power tier of plan {}, arbitrating it as {}", planId, PowerTier.BALANCED);
+                tier = PowerTier.BALANCED;
+            }
+            byPlanId.put(planId, tier.ordinal());
+        }
+        this.ranks = byPlanId;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName() + "+arbiter";
+    }
+
+    @Override
+    public List<PowerPlan> listPlans() throws IOException {
+        return delegate.listPlans();
+    }
+
+    @Override
+    public String getActivePlan() throws IOException {
+        return delegate.getActivePlan();
+    }
+
+    /**
+     * 配置之外的计划（如服务器关闭时恢复的原始计划）需求等级为 -1，低于任何配置中的计划
+     */
+    @Override
+    public void setActivePlan(String planId) throws IOException {
+        arbiter.setLocalDemand(new HostArbiter.Demand(ranks.getOrDefault(planId, -1), planId));
+        if (arbiter.isLeader()) {
+            applyHost();
+        }
+    }
+
+    @Override
+    public void noteActivePlan(String planId) {
+        delegate.noteActivePlan(planId);
+    }
+
+    @Override
+    public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) throws IOException {
+        delegate.applyDefaultPlan(plan, tier);
+    }
+
+    @Override
+    public boolean isActivePlan(String activePlanId, String planId) {
+        return delegate.isActivePlan(activePlanId, planId);
+    }
+
+    @Override
+    public PowerTier getTier(String planId) {
+        return delegate.getTier(planId);
+    }
+
+    /**
+     * 上限会直接作用于整机，绕过其他实例的需求，因此仲裁时 controller 模式不可用
+     */
+    @Override
+    public boolean supportsFrequencyCap() {
+        return false;
+    }
+
+    @Override
+    public void setCommandTimeoutMillis(long timeoutMillis) {
+        delegate.setCommandTimeoutMillis(timeoutMillis);
+    }
+
+    @Override
+    public void close() {
+        arbiter.close();
+        delegate.close();
+    }
+
+    public PowerBackend getDelegate() {
+        return delegate;
+    }
+
+    public HostArbiter getArbiter() {
+        return arbiter;
+    }
+
+    /**
+     * 把最新的整机需求交给被包装的后端；仲裁线程和切换线程都可能调用
+     * 以系统的实际计划为准判断是否已生效，上一任 leader 设置的计划不会被重复切换
+     */
+    private synchronized void applyHost() throws IOException {
+        HostArbiter.Demand host = arbiter.getHostDemand();
+        if (host == null || delegate.isActivePlan(delegate.getActivePlan(), host.planId())) return;
+        delegate.setActivePlan(host.planId());
+        LOGGER.info("[Eco Power] Host power plan set to {} (demand level {}, {} instance(s))",
+                host.planId(), host.rank(), arbiter.getInstances());
+    }
+}
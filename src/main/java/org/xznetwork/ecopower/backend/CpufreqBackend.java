@@ -0,0 +1,218 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Linux 后端，通过各 CPU 的 cpufreq 目录（/sys/devices/system/cpu/cpuN/cpufreq）切换调速器
+ * 计划 ID 为调速器名称，可附加能效偏好：{@code governor[:energy_performance_preference]}
+ */
+public class CpufreqBackend implements PowerBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Cpufreq");
+    private static final String GOVERNOR_FILE = "scaling_governor";
+    private static final String AVAILABLE_GOVERNORS_FILE = "scaling_available_governors";
+    private static final String EPP_FILE = "energy_performance_preference";
+    private static final String MAX_FREQ_FILE = "scaling_max_freq";
+    private static final String MIN_FREQ_FILE = "scaling_min_freq";
+    private static final String HARDWARE_MAX_FREQ_FILE = "cpuinfo_max_freq";
+    private final Path cpuRoot;
+
+    public CpufreqBackend(Path cpuRoot) {
+        this.cpuRoot = cpuRoot;
+    }
+
+    @Override
+    public String getName() {
+        return "cpufreq";
+    }
+
+    @Override
+    public List<PowerPlan> listPlans() throws IOException {
+        List<PowerPlan> plans = new ArrayList<>();
+        for (String governor : readFile(firstPolicy().resolve(AVAILABLE_GOVERNORS_FILE)).split("\\s+")) {
+            if (!governor.isEmpty()) {
+                plans.add(new PowerPlan(governor, governor));
+            }
+        }
+        return plans;
+    }
+
+    @Override
+    public String getActivePlan() throws IOException {
+        Path policy = firstPolicy();
+        String governor = readFile(policy.resolve(GOVERNOR_FILE));
+        Path epp = policy.resolve(EPP_FILE);
+        return Files.exists(epp) ? governor + ":" + readFile(epp) : governor;
+    }
+
+    @Override
+    public void setActivePlan(String planId) throws IOException {
+        int separator = planId.indexOf(':');
+        String governor = separator < 0 ? planId : planId.substring(0, separator);
+        String epp = separator < 0 ? null : planId.substring(separator + 1);
+
+        List<Path> policies = listPolicies();
+        if (policies.isEmpty()) {
+            throw new IOException("No cpufreq policies found under " + cpuRoot);
+        }
+        for (Path policy : policies) {
+            writeFile(policy.resolve(GOVERNOR_FILE), governor);
+            if (epp != null) {
+                Path eppFile = policy.resolve(EPP_FILE);
+                if (Files.exists(eppFile)) {
+                    writeFile(eppFile, epp);
+                }
+            }
+        }
+        LOGGER.debug("[Eco Power] Applied governor {} (epp: {}) to {} CPUs", governor, epp, policies.size());
+    }
+
+    @Override
+    public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) throws IOException {
+        List<String> governors = new ArrayList<>();
+        for (PowerPlan available : listPlans()) {
+            governors.add(available.getId());
+        }
+        boolean eppSupported = Files.exists(firstPolicy().resolve(EPP_FILE));
+
+        switch (tier) {
+            case POWER_SAVER -> {
+                plan.setGovernor(requireGovernor(governors, "powersave"));
+                if (eppSupported) plan.setEnergyPerformancePreference("power");
+            }
+            case BALANCED -> {
+                if (governors.contains("schedutil")) {
+                    plan.setGovernor("schedutil");
+                } else if (governors.contains("ondemand")) {
+                    plan.setGovernor("ondemand");
+                } else {
+                    // intel_pstate / amd-pstate 只提供 performance 和 powersave，借助能效偏好实现平衡
+                    plan.setGovernor(requireGovernor(governors, "powersave"));
+                    if (eppSupported) plan.setEnergyPerformancePreference("balance_performance");
+                }
+            }
+            case HIGH_PERFORMANCE -> plan.setGovernor(requireGovernor(governors, "performance"));
+        }
+    }
+
+    /**
+     * powersave 调速器的档位由能效偏好决定（intel_pstate / amd-pstate 用它实现平衡）
+     */
+    @Override
+    public PowerTier getTier(String planId) {
+        if (planId == null) return null;
+        int separator = planId.indexOf(':');
+        String governor = separator < 0 ? planId : planId.substring(0, separator);
+        String epp = separator < 0 ? "power" : planId.substring(separator + 1);
+        return switch (governor) {
+            case "performance" -> PowerTier.HIGH_PERFORMANCE;
+            case "schedutil", "ondemand", "conservative" -> PowerTier.BALANCED;
+            case "powersave" -> switch (epp) {
+                case "power" -> PowerTier.POWER_SAVER;
+                case "balance_power", "balance_performance", "default" -> PowerTier.BALANCED;
+                case "performance" -> PowerTier.HIGH_PERFORMANCE;
+                default -> null;
+            };
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean isActivePlan(String activePlanId, String planId) {
+        if (activePlanId == null || planId == null) return false;
+        // 只配置了调速器的计划不关心能效偏好
+        return activePlanId.equals(planId) || (planId.indexOf(':') < 0 && activePlanId.startsWith(planId + ":"));
+    }
+
+    @Override
+    public boolean supportsFrequencyCap() {
+        try {
+            Path policy = firstPolicy();
+            return Files.isRegularFile(policy.resolve(MAX_FREQ_FILE)) && Files.isRegularFile(policy.resolve(HARDWARE_MAX_FREQ_FILE));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按各 CPU 的硬件最高频率换算上限并写入 scaling_max_freq，不低于当前的 scaling_min_freq
+     */
+    @Override
+    public void setFrequencyCap(int percent) throws IOException {
+        int clamped = Math.max(1, Math.min(100, percent));
+        List<Path> policies = listPolicies();
+        if (policies.isEmpty()) {
+            throw new IOException("No cpufreq policies found under " + cpuRoot);
+        }
+        for (Path policy : policies) {
+            long hardwareMax = Long.parseLong(readFile(policy.resolve(HARDWARE_MAX_FREQ_FILE)));
+            long cap = hardwareMax * clamped / 100;
+            Path minFile = policy.resolve(MIN_FREQ_FILE);
+            if (Files.exists(minFile)) {
+                // 上限低于下限时内核会拒绝写入
+                cap = Math.max(cap, Long.parseLong(readFile(minFile)));
+            }
+            writeFile(policy.resolve(MAX_FREQ_FILE), Long.toString(cap));
+        }
+        LOGGER.debug("[Eco Power] Capped {} CPUs at {}% of maximum frequency", policies.size(), clamped);
+    }
+
+    private String requireGovernor(List<String> governors, String governor) throws IOException {
+        if (!governors.contains(governor)) {
+            throw new IOException("cpufreq governor '" + governor + "' is not available, found " + governors);
+        }
+        return governor;
+    }
+
+    private Path firstPolicy() throws IOException {
+        List<Path> policies = listPolicies();
+        if (policies.isEmpty()) {
+            throw new IOException("No cpufreq policies found under " + cpuRoot);
+        }
+        return policies.get(0);
+    }
+
+    /**
+     * 列出所有在线且支持 cpufreq 的 CPU 的 cpufreq 目录
+     */
+    private List<Path> listPolicies() throws IOException {
+        List<Path> policies = new ArrayList<>();
+        try (DirectoryStream<Path> cpus = Files.newDirectoryStream(cpuRoot, "cpu[0-9]*")) {
+            for (Path cpu : cpus) {
+                Path cpufreq = cpu.resolve("cpufreq");
+                if (Files.isRegularFile(cpufreq.resolve(GOVERNOR_FILE))) {
+                    policies.add(cpufreq);
+                }
+            }
+        }
+        policies.sort(Comparator.comparingInt(CpufreqBackend::cpuIndex));
+        return policies;
+    }
+
+    private static int cpuIndex(Path cpufreq) {
+        String name = cpufreq.getParent().getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(3));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static String readFile(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.US_ASCII).trim();
+    }
+
+    private static void writeFile(Path file, String value) throws IOException {
+        Files.writeString(file, value, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,150 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过常驻助手进程执行电源命令的后端，避免每次查询或切换都派生新进程
+ * 助手不可用时退回被包装的后端直接执行，恢复后自动切回助手
+ */
+public class HelperBackend implements PowerBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Helper");
+    private final PowerBackend fallback;
+    private final HelperProcess helper;
+    private final ScheduledExecutorService healthCheck;
+    private volatile boolean degraded = false;
+
+    public HelperBackend(PowerBackend fallback, HelperProcess helper, int healthCheckSeconds) {
+        this.fallback = fallback;
+        this.helper = helper;
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-Helper-Health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 定期探活，进程崩溃时在这里重启，而不是等到下一次切换
+        if (healthCheckSeconds > 0) {
+            healthCheck.scheduleWithFixedDelay(helper::ping, 0, healthCheckSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return fallback.getName() + "+helper";
+    }
+
+    @Override
+    public List<PowerPlan> listPlans() throws IOException {
+        try {
+            List<PowerPlan> plans = new ArrayList<>();
+            for (String line : helper.requestLines("LIST")) {
+                int tab = line.indexOf('\t');
+                plans.add(tab < 0 ? new PowerPlan(line, line) : new PowerPlan(line.substring(0, tab), line.substring(tab + 1)));
+            }
+            recovered();
+            return plans;
+        } catch (HelperProcess.HelperUnavailableException e) {
+            degrade(e);
+            return fallback.listPlans();
+        }
+    }
+
+    @Override
+    public String getActivePlan() throws IOException {
+        try {
+            String plan = helper.request("GET");
+            fallback.noteActivePlan(plan);
+            recovered();
+            return plan;
+        } catch (HelperProcess.HelperUnavailableException e) {
+            degrade(e);
+            return fallback.getActivePlan();
+        }
+    }
+
+    /**
+     * 助手切换成功后同步被包装后端的缓存，之后的频率上限才会写到新方案上
+     */
+    @Override
+    public void setActivePlan(String planId) throws IOException {
+        try {
+            helper.request("SET " + planId);
+            fallback.noteActivePlan(planId);
+            recovered();
+        } catch (HelperProcess.HelperUnavailableException e) {
+            degrade(e);
+            fallback.setActivePlan(planId);
+        }
+    }
+
+    @Override
+    public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) throws IOException {
+        fallback.applyDefaultPlan(plan, tier);
+    }
+
+    @Override
+    public boolean isActivePlan(String activePlanId, String planId) {
+        return fallback.isActivePlan(activePlanId, planId);
+    }
+
+    @Override
+    public PowerTier getTier(String planId) {
+        return fallback.getTier(planId);
+    }
+
+    /**
+     * 助手协议不包含频率上限，直接交给被包装的后端
+     */
+    @Override
+    public boolean supportsFrequencyCap() {
+        return fallback.supportsFrequencyCap();
+    }
+
+    @Override
+    public void setFrequencyCap(int percent) throws IOException {
+        fallback.setFrequencyCap(percent);
+    }
+
+    @Override
+    public void setCommandTimeoutMillis(long timeoutMillis) {
+        helper.setResponseTimeoutMillis(timeoutMillis);
+        fallback.setCommandTimeoutMillis(timeoutMillis);
+    }
+
+    @Override
+    public void close() {
+        healthCheck.shutdownNow();
+        helper.close();
+        fallback.close();
+    }
+
+    public HelperProcess getHelper() {
+        return helper;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    private void degrade(IOException cause) {
+        if (!degraded) {
+            degraded = true;
+            LOGGER.warn("[Eco Power] Power helper unavailable, falling back to {}: {}", fallback.getName(), cause.getMessage());
+        }
+    }
+
+    private void recovered() {
+        if (degraded) {
+            degraded = false;
+            LOGGER.info("[Eco Power] Power helper recovered");
+        }
+    }
+}
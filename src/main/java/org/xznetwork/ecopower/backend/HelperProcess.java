@@ -0,0 +1,232 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的电源命令助手进程
+ * 通过标准输入写入一行命令，从标准输出读取 {@code OK [结果]} 或 {@code ERR <原因>}；
+ * LIST 的回复为 {@code OK <数量>}，随后是对应数量的行
+ * <p>
+ * 进程在首次请求时启动，崩溃或超时后被杀掉，在下一次请求时按退避间隔重新启动
+ */
+public class HelperProcess {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Helper");
+    private static final String EOF = "\u0000EOF";
+    private static final long MIN_RESTART_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_RESTART_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final List<String> command;
+    private volatile long responseTimeoutMillis;
+    private Process process;
+    private BufferedWriter input;
+    private BlockingQueue<String> output;
+    private int starts = 0;
+    private long restartIntervalNanos = MIN_RESTART_INTERVAL_NANOS;
+    private long nextStartNanos;
+    private boolean closed = false;
+
+    public HelperProcess(List<String> command, long responseTimeoutMillis) {
+        this.command = List.copyOf(command);
+        this.responseTimeoutMillis = responseTimeoutMillis;
+        this.nextStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 发送一条命令并返回 OK 之后的内容
+     *
+     * @throws HelperUnavailableException 进程无法启动、已崩溃或未按时回复
+     * @throws IOException                助手回复了 ERR
+     */
+    public synchronized String request(String line) throws IOException {
+        return request(line, false).get(0);
+    }
+
+    /**
+     * 发送返回多行结果的命令（如 LIST），返回计数行之后的各行
+     */
+    public synchronized List<String> requestLines(String line) throws IOException {
+        return request(line, true);
+    }
+
+    public synchronized boolean ping() {
+        try {
+            request("PING");
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Power helper health check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * 进程启动的总次数，大于 1 说明发生过重启
+     */
+    public synchronized int getStarts() {
+        return starts;
+    }
+
+    public void setResponseTimeoutMillis(long responseTimeoutMillis) {
+        this.responseTimeoutMillis = responseTimeoutMillis;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        if (process == null) return;
+        try {
+            input.close(); // 助手读到输入结束后自行退出
+            if (!process.waitFor(responseTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+    }
+
+    private List<String> request(String line, boolean multiLine) throws IOException {
+        ensureStarted();
+        try {
+            input.write(line);
+            input.newLine();
+            input.flush();
+        } catch (IOException e) {
+            throw fail("Failed to write to power helper: " + e.getMessage());
+        }
+
+        String status = poll(line);
+        List<String> lines = new ArrayList<>();
+        if (status.startsWith("ERR")) {
+            restartIntervalNanos = MIN_RESTART_INTERVAL_NANOS;
+            throw new IOException("Power helper: " + status.substring(3).trim());
+        }
+        if (!status.startsWith("OK")) {
+            throw fail("Unexpected reply to " + line + ": " + status);
+        }
+        String value = status.substring(2).trim();
+        if (multiLine) {
+            int count;
+            try {
+                count = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw fail("Invalid line count in reply to " + line + ": " + value);
+            }
+            for (int i = 0; i < count; i++) {
+                lines.add(poll(line));
+            }
+        } else {
+            lines.add(value);
+        }
+        // 恢复正常后重置重启退避
+        restartIntervalNanos = MIN_RESTART_INTERVAL_NANOS;
+        return lines;
+    }
+
+    private String poll(String line) throws HelperUnavailableException {
+        String reply;
+        try {
+            reply = output.poll(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw fail("Interrupted while waiting for power helper");
+        }
+        if (reply == null) {
+            throw fail("Power helper did not answer " + line + " within " + responseTimeoutMillis + " ms");
+        }
+        if (reply == EOF) {
+            throw fail("Power helper exited unexpectedly");
+        }
+        return reply;
+    }
+
+    private void ensureStarted() throws HelperUnavailableException {
+        if (closed) {
+            throw new HelperUnavailableException("Power helper has been shut down");
+        }
+        if (process != null && process.isAlive()) return;
+        if (process != null) {
+            LOGGER.warn("[Eco Power] Power helper exited with code {}, restarting", process.exitValue());
+            process = null;
+        }
+        long now = System.nanoTime();
+        if (now - nextStartNanos < 0) {
+            throw new HelperUnavailableException("Power helper is restarting");
+        }
+
+        try {
+            Process started = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            Thread reader = new Thread(() -> readOutput(started, queue), "EcoPower-Helper-Reader");
+            reader.setDaemon(true);
+            reader.start();
+
+            process = started;
+            input = new BufferedWriter(new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8));
+            output = queue;
+            starts++;
+            LOGGER.info("[Eco Power] Started power helper: {}", String.join(" ", command));
+        } catch (IOException e) {
+            scheduleRestart();
+            throw new HelperUnavailableException("Failed to start power helper: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 杀掉无响应的进程，下次请求时按退避间隔重启
+     */
+    private HelperUnavailableException fail(String message) {
+        if (process != null) {
+            process.destroyForcibly();
+            process = null;
+        }
+        scheduleRestart();
+        return new HelperUnavailableException(message);
+    }
+
+    private void scheduleRestart() {
+        nextStartNanos = System.nanoTime() + restartIntervalNanos;
+        restartIntervalNanos = Math.min(restartIntervalNanos * 2, MAX_RESTART_INTERVAL_NANOS);
+    }
+
+    private static void readOutput(Process process, BlockingQueue<String> queue) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                queue.add(line);
+            }
+        } catch (IOException ignored) {
+            // 进程被杀掉时输入流关闭
+        }
+        queue.add(EOF);
+    }
+
+    /**
+     * 助手本身不可用（而不是命令执行失败），调用方可以退回直接执行命令
+     */
+    public static class HelperUnavailableException extends IOException {
+        public HelperUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
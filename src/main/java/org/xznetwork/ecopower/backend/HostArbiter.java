@@ -0,0 +1,445 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 同一台机器上多个服务器实例之间的电源计划仲裁
+ * 持有锁文件的实例成为 leader，在 Unix 域套接字上收集各实例的需求，整机计划取需求等级的最大值，由 leader 负责切换；
+ * 其他实例每个心跳周期上报一次 {@code DEMAND <实例> <等级> <计划>}（还没有需求时发送 {@code PING <实例>}），
+ * leader 回复 {@code HOST <等级> <计划> <实例数>}，整机需求未知时计划为 {@code -}。
+ * 超过超时时间没有心跳的实例的需求被丢弃；leader 退出后操作系统释放文件锁，其余实例重新竞选
+ */
+public class HostArbiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Arbiter");
+    private static final int MAX_LINE = 512;
+
+    /**
+     * 一个实例的需求：计划对应的 {@link PowerTier} 序号和计划 ID，等级越高需求越大
+     */
+    public record Demand(int rank, String planId) {
+        boolean exceeds(Demand other) {
+            return other == null || rank > other.rank;
+        }
+    }
+
+    private final Path lockPath;
+    private final Path socketPath;
+    private final String instanceId = Long.toString(ProcessHandle.current().pid());
+    private final long heartbeatNanos;
+    private final long timeoutNanos;
+    private final Thread thread;
+    private Consumer<Demand> hostListener = demand -> {};
+    private Selector selector;
+    private volatile boolean running = true;
+
+    // leader 状态，由 this 保护
+    private final Map<String, RemoteDemand> remoteDemands = new HashMap<>();
+    private Demand localDemand;
+    private Demand hostDemand;
+    private long graceUntilNanos;
+
+    private volatile boolean leader = false;
+    private volatile int instances = 1;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private volatile boolean sendNow = false;
+    private long lastSentNanos;
+    private long lastReplyNanos;
+
+    public HostArbiter(Path directory, long heartbeatMillis, long timeoutMillis) {
+        this.lockPath = directory.resolve("arbiter.lock");
+        this.socketPath = directory.resolve("arbiter.sock");
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(100, heartbeatMillis));
+        this.timeoutNanos = Math.max(2 * heartbeatNanos, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        this.thread = new Thread(this::runLoop, "EcoPower-Arbiter");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 设置整机需求变化时的回调，只在本实例是 leader 时在仲裁线程上调用；
+     * 本实例自身需求引起的变化由 {@link #setLocalDemand} 的调用方处理
+     */
+    public void setHostListener(Consumer<Demand> hostListener) {
+        this.hostListener = hostListener;
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(lockPath.getParent());
+        selector = Selector.open();
+        thread.start();
+    }
+
+    /**
+     * 更新本实例的需求；leader 立即重新计算整机需求，follower 唤醒仲裁线程尽快上报
+     * 返回新的整机需求（未知时为本实例的需求）
+     */
+    public Demand setLocalDemand(Demand demand) {
+        synchronized (this) {
+            localDemand = demand;
+            if (leader) {
+                recompute(System.nanoTime());
+            }
+        }
+        sendNow = true;
+        selector.wakeup();
+        return getHostDemand();
+    }
+
+    public synchronized Demand getHostDemand() {
+        return hostDemand != null ? hostDemand : localDemand;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    /**
+     * 撤回本实例的需求并退出；leader 释放锁，由其余实例重新竞选
+     */
+    public void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        try {
+            thread.join(TimeUnit.NANOSECONDS.toMillis(heartbeatNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (!leader && client == null) {
+                    elect(now);
+                }
+                if (leader) {
+                    serveLeader(now);
+                } else if (client != null) {
+                    serveFollower(now);
+                }
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(heartbeatNanos) / 2));
+                handleReady();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("[Eco Power] Host arbiter stopped unexpectedly", e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * 先尝试拿锁成为 leader，拿不到就作为 follower 连接 leader 的套接字
+     */
+    private void elect(long now) throws IOException {
+        if (lockChannel == null) {
+            lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        lock = lockChannel.tryLock();
+        if (lock != null) {
+            // 上一任 leader 崩溃时可能留下套接字文件
+            Files.deleteIfExists(socketPath);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            Demand host;
+            synchronized (this) {
+                leader = true;
+                remoteDemands.clear();
+                // 其他实例要到下一次心跳才会重新上报，在这之前只升档不降档
+                graceUntilNanos = now + timeoutNanos;
+                recompute(now);
+                host = getHostDemand();
+            }
+            LOGGER.info("[Eco Power] This instance is now the host power arbiter ({})", socketPath);
+            if (host != null) {
+                hostListener.accept(host);
+            }
+            return;
+        }
+
+        try {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new LineBuffer());
+            client = channel;
+            sendNow = true;
+            lastReplyNanos = now;
+            LOGGER.info("[Eco Power] Connected to host power arbiter at {}", socketPath);
+        } catch (IOException e) {
+            // leader 正在启动或刚刚退出，下一轮重试
+            LOGGER.debug("[Eco Power] Host arbiter not reachable yet: {}", e.getMessage());
+        }
+    }
+
+    private void serveLeader(long now) {
+        Demand host;
+        synchronized (this) {
+            remoteDemands.values().removeIf(remote -> {
+                boolean expired = now - remote.lastSeenNanos > timeoutNanos;
+                if (expired) {
+                    LOGGER.info("[Eco Power] Instance {} stopped sending heartbeats, dropping its demand", remote.instanceId);
+                }
+                return expired;
+            });
+            host = recompute(now);
+        }
+        if (host != null) {
+            hostListener.accept(host);
+        }
+    }
+
+    private void serveFollower(long now) throws IOException {
+        if (now - lastReplyNanos > timeoutNanos) {
+            LOGGER.warn("[Eco Power] Host arbiter did not answer for {}s, reconnecting",
+                    TimeUnit.NANOSECONDS.toSeconds(timeoutNanos));
+            dropClient();
+            return;
+        }
+        Demand demand;
+        synchronized (this) {
+            demand = localDemand;
+        }
+        if (sendNow || now - lastSentNanos >= heartbeatNanos) {
+            sendNow = false;
+            write(client, demand != null
+                    ? "DEMAND " + instanceId + " " + demand.rank() + " " + demand.planId()
+                    : "PING " + instanceId);
+            lastSentNanos = now;
+        }
+    }
+
+    private void handleReady() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+
+            if (key.isAcceptable()) {
+                SocketChannel channel = server.accept();
+                if (channel != null) {
+                    channel.configureBlocking(false);
+                    channel.register(selector, SelectionKey.OP_READ, new LineBuffer());
+                }
+            } else if (key.isReadable()) {
+                SocketChannel channel = (SocketChannel) key.channel();
+                LineBuffer buffer = (LineBuffer) key.attachment();
+                try {
+                    if (!buffer.fill(channel)) {
+                        closeChannel(key);
+                        continue;
+                    }
+                    String line;
+                    while ((line = buffer.nextLine()) != null) {
+                        if (leader) {
+                            onLeaderMessage(channel, line);
+                        } else {
+                            onFollowerMessage(line);
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.debug("[Eco Power] Arbiter connection failed: {}", e.getMessage());
+                    closeChannel(key);
+                }
+            }
+        }
+    }
+
+    private void onLeaderMessage(SocketChannel channel, String line) throws IOException {
+        String[] parts = line.split(" ");
+        Demand host;
+        synchronized (this) {
+            try {
+                if (parts.length == 4 && parts[0].equals("DEMAND")) {
+                    Demand demand = new Demand(Integer.parseInt(parts[2]), parts[3]);
+                    remoteDemands.put(parts[1], new RemoteDemand(parts[1], demand, System.nanoTime()));
+                } else if (parts.length == 2 && parts[0].equals("PING")) {
+                    // 还没有需求的实例只需要知道整机计划
+                } else if (parts.length == 2 && parts[0].equals("WITHDRAW")) {
+                    remoteDemands.remove(parts[1]);
+                } else {
+                    throw new IllegalArgumentException();
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("[Eco Power] Ignoring arbiter message: {}", line);
+                return;
+            }
+            host = recompute(System.nanoTime());
+        }
+        if (host != null) {
+            hostListener.accept(host);
+        }
+        if (!parts[0].equals("WITHDRAW")) {
+            Demand current = getHostDemand();
+            write(channel, current != null
+                    ? "HOST " + current.rank() + " " + current.planId() + " " + instances
+                    : "HOST -1 - " + instances);
+        }
+    }
+
+    private void onFollowerMessage(String line) {
+        String[] parts = line.split(" ");
+        if (parts.length != 4 || !parts[0].equals("HOST")) return;
+        try {
+            synchronized (this) {
+                hostDemand = parts[2].equals("-") ? null : new Demand(Integer.parseInt(parts[1]), parts[2]);
+            }
+            instances = Integer.parseInt(parts[3]);
+            lastReplyNanos = System.nanoTime();
+        } catch (NumberFormatException e) {
+            LOGGER.debug("[Eco Power] Ignoring arbiter message: {}", line);
+        }
+    }
+
+    /**
+     * 重新计算整机需求，变化时返回新的需求，否则返回 null；调用方需持有 this
+     */
+    private Demand recompute(long now) {
+        Demand max = localDemand;
+        for (RemoteDemand remote : remoteDemands.values()) {
+            if (remote.demand.exceeds(max)) {
+                max = remote.demand;
+            }
+        }
+        instances = remoteDemands.size() + 1;
+        if (max == null || max.equals(hostDemand)) {
+            return null;
+        }
+        if (now < graceUntilNanos && hostDemand != null && !max.exceeds(hostDemand)) {
+            return null;
+        }
+        hostDemand = max;
+        return max;
+    }
+
+    private void shutdown() {
+        try {
+            if (client != null) {
+                try {
+                    client.configureBlocking(true);
+                    write(client, "WITHDRAW " + instanceId);
+                } catch (IOException e) {
+                    LOGGER.debug("[Eco Power] Failed to withdraw demand: {}", e.getMessage());
+                }
+                dropClient();
+            }
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            if (server != null) {
+                Files.deleteIfExists(socketPath);
+            }
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to clean up host arbiter", e);
+        }
+        leader = false;
+    }
+
+    private void closeChannel(SelectionKey key) throws IOException {
+        key.cancel();
+        key.channel().close();
+        if (key.channel() == client) {
+            LOGGER.info("[Eco Power] Lost connection to host power arbiter, re-electing");
+            client = null;
+        }
+    }
+
+    private void dropClient() throws IOException {
+        SelectionKey key = client.keyFor(selector);
+        if (key != null) {
+            key.cancel();
+        }
+        client.close();
+        client = null;
+    }
+
+    private static void write(SocketChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        // 消息很短，非阻塞写几乎总能一次写完；写不完说明对端已经卡住
+        channel.write(buffer);
+        if (buffer.hasRemaining()) {
+            throw new IOException("Arbiter peer is not reading");
+        }
+    }
+
+    private static class RemoteDemand {
+        private final String instanceId;
+        private final Demand demand;
+        private final long lastSeenNanos;
+
+        private RemoteDemand(String instanceId, Demand demand, long lastSeenNanos) {
+            this.instanceId = instanceId;
+            this.demand = demand;
+            this.lastSeenNanos = lastSeenNanos;
+        }
+    }
+
+    /**
+     * 非阻塞读取时按行切分的缓冲区
+     */
+    private static class LineBuffer {
+        private final ByteBuffer buffer = ByteBuffer.allocate(MAX_LINE);
+
+        /**
+         * 返回 false 表示对端已关闭
+         */
+        boolean fill(SocketChannel channel) throws IOException {
+            return channel.read(buffer) >= 0;
+        }
+
+        String nextLine() throws IOException {
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    String line = new String(buffer.array(), 0, i, StandardCharsets.UTF_8);
+                    buffer.flip();
+                    buffer.position(i + 1);
+                    buffer.compact();
+                    return line;
+                }
+            }
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Arbiter message too long");
+            }
+            return null;
+        }
+    }
+}
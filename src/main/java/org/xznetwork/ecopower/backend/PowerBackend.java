@@ -0,0 +1,69 @@
+package org.xznetwork.ecopower.backend;
+
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 电源控制后端，负责列出、读取和切换系统的电源计划
+ * 计划 ID 的含义由后端决定，例如 powercfg 的方案 GUID 或 cpufreq 的调速器名称
+ */
+public interface PowerBackend {
+
+    String getName();
+
+    List<PowerPlan> listPlans() throws IOException;
+
+    String getActivePlan() throws IOException;
+
+    /**
+     * 切换到指定计划，失败时抛出 IOException
+     */
+    void setActivePlan(String planId) throws IOException;
+
+    /**
+     * 计划已经通过其他途径（例如助手进程）切换或读取，更新后端缓存的活动计划
+     */
+    default void noteActivePlan(String planId) {}
+
+    /**
+     * 为首次生成的默认配置填充对应档位的计划
+     */
+    void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) throws IOException;
+
+    /**
+     * 判断当前活动计划是否就是配置中的计划
+     */
+    default boolean isActivePlan(String activePlanId, String planId) {
+        return activePlanId != null && activePlanId.equals(planId);
+    }
+
+    /**
+     * 计划对应的默认档位，多实例仲裁时各实例据此比较需求；无法判断时返回 null
+     */
+    default PowerTier getTier(String planId) {
+        return null;
+    }
+
+    /**
+     * 是否支持连续的 CPU 最高频率上限（controller 选择模式使用）
+     */
+    default boolean supportsFrequencyCap() {
+        return false;
+    }
+
+    /**
+     * 把 CPU 最高频率限制为最大频率的 {@code percent}%（1-100），100 表示全速
+     */
+    default void setFrequencyCap(int percent) throws IOException {
+        throw new IOException(getName() + " backend does not support frequency caps");
+    }
+
+    default void setCommandTimeoutMillis(long timeoutMillis) {}
+
+    /**
+     * 服务器关闭时释放后端持有的资源，例如常驻的助手进程
+     */
+    default void close() {}
+}
@@ -0,0 +1,127 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+public final class PowerBackends {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Backend");
+
+    private static final String HELPER_RESOURCE_DIR = "/helper/";
+    private static final String PROCESSOR_STATE_FILE = "processor-state.properties";
+
+    private PowerBackends() {}
+
+    /**
+     * 创建后端并恢复上次异常退出时留下的频率上限，启用常驻助手时用 {@link HelperBackend} 包装，启用多实例仲裁时再用 {@link ArbitratedBackend} 包装
+     */
+    public static PowerBackend create(Config config, Path configDir) {
+        PowerBackend backend = create(config);
+        if (backend == null) {
+            return null;
+        }
+        if (backend instanceof PowercfgBackend powercfg) {
+            powercfg.recoverFrequencyCaps(configDir.resolve(PROCESSOR_STATE_FILE));
+        }
+        if (config.getHelper().isEnabled()) {
+            backend = withHelper(backend, config, configDir);
+        }
+        if (config.getArbiter().isEnabled()) {
+            backend = withArbiter(backend, config.getArbiter());
+        }
+        return backend;
+    }
+
+    /**
+     * 未配置助手命令时，把内置脚本释放到配置目录并按后端类型启动
+     */
+    private static PowerBackend withHelper(PowerBackend backend, Config config, Path configDir) {
+        Config.Helper helper = config.getHelper();
+        List<String> command = helper.getCommand();
+        if (command == null || command.isEmpty()) {
+            try {
+                command = bundledHelperCommand(backend, config, configDir);
+            } catch (IOException e) {
+                LOGGER.error("[Eco Power] Failed to extract bundled power helper, using {} directly", backend.getName(), e);
+                return backend;
+            }
+        }
+        HelperProcess process = new HelperProcess(command, config.getSwitchTimeoutMillis());
+        return new HelperBackend(backend, process, helper.getHealthCheckSeconds());
+    }
+
+    private static PowerBackend withArbiter(PowerBackend backend, Config.Arbiter settings) {
+        Path directory = settings.getDirectory() == null || settings.getDirectory().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "ecopower-arbiter")
+                : Path.of(settings.getDirectory());
+        HostArbiter arbiter = new HostArbiter(directory,
+                TimeUnit.SECONDS.toMillis(settings.getHeartbeatSeconds()), TimeUnit.SECONDS.toMillis(settings.getTimeoutSeconds()));
+        try {
+            arbiter.start();
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to start host power arbiter in {}, using {} directly", directory, backend.getName(), e);
+            return backend;
+        }
+        return new ArbitratedBackend(backend, arbiter);
+    }
+
+    /**
+     * 根据配置创建后端，auto 时按操作系统选择，不支持时返回 null
+     */
+    public static PowerBackend create(Config config) {
+        String type = config.getBackend() == null ? "auto" : config.getBackend().toLowerCase(Locale.ROOT);
+        Path cpufreqRoot = Path.of(config.getCpufreqRoot());
+
+        switch (type) {
+            case "powercfg":
+                return new PowercfgBackend(config.getSwitchTimeoutMillis());
+            case "cpufreq":
+                return new CpufreqBackend(cpufreqRoot);
+            case "auto":
+                String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+                if (os.contains("windows")) {
+                    return new PowercfgBackend(config.getSwitchTimeoutMillis());
+                }
+                if (os.contains("linux") && Files.isDirectory(cpufreqRoot)) {
+                    return new CpufreqBackend(cpufreqRoot);
+                }
+                return null;
+            default:
+                LOGGER.error("[Eco Power] Unknown power backend: {}", config.getBackend());
+                return null;
+        }
+    }
+
+    private static List<String> bundledHelperCommand(PowerBackend backend, Config config, Path configDir) throws IOException {
+        if (backend instanceof PowercfgBackend) {
+            Path script = extractHelper(configDir, "ecopower-helper.ps1");
+            return List.of("powershell", "-NoProfile", "-NonInteractive", "-ExecutionPolicy", "Bypass", "-File", script.toString());
+        }
+        Path script = extractHelper(configDir, "ecopower-helper.sh");
+        return List.of("sh", script.toString(), config.getCpufreqRoot());
+    }
+
+    /**
+     * 每次启动都覆盖释放，保证脚本与模组版本一致
+     */
+    private static Path extractHelper(Path configDir, String name) throws IOException {
+        Path target = configDir.resolve("helper").resolve(name);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = PowerBackends.class.getResourceAsStream(HELPER_RESOURCE_DIR + name)) {
+            if (in == null) {
+                throw new IOException("Missing bundled helper " + name);
+            }
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
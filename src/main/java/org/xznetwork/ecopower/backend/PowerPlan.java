@@ -0,0 +1,24 @@
+package org.xznetwork.ecopower.backend;
+
+public class PowerPlan {
+    private final String id;
+    private final String name;
+
+    public PowerPlan(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + id + ")";
+    }
+}
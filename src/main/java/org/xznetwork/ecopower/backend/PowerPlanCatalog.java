@@ -0,0 +1,198 @@
+package org.xznetwork.ecopower.backend;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * powercfg 电源方案目录
+ * 一次 {@code powercfg /list} 同时得到 GUID→名称索引和当前活动方案（行尾带 *），
+ * 结果按 TTL 缓存；我们自己的切换会直接更新缓存，因此大多数查询不需要启动新进程
+ */
+public class PowerPlanCatalog {
+    // Windows 内置方案的 GUID 与系统语言无关
+    public static final String POWER_SAVER_GUID = "a1841308-3541-4fab-bc81-f71556f20b4a";
+    public static final String BALANCED_GUID = "381b4222-f694-41f0-9685-ff5bb260df2e";
+    public static final String HIGH_PERFORMANCE_GUID = "8c5e7fda-e8bf-4a96-9a85-a6e23a8c635c";
+    public static final String ULTIMATE_PERFORMANCE_GUID = "e9a42b02-d5df-448d-aa00-03f14749eb61";
+
+    private static final Pattern GUID_PATTERN = Pattern.compile("[a-fA-F0-9]{8}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{12}");
+    private static final Pattern NAME_PATTERN = Pattern.compile("\\((.*)\\)");
+    private static final Pattern INDEX_PATTERN = Pattern.compile("0x([0-9a-fA-F]{8})");
+    // powercfg 按控制台（OEM）代码页输出，与 native.encoding 的 ANSI 代码页不同；先切换到 65001 再统一按 UTF-8 解码
+    private static final String UTF8_CODE_PAGE = "chcp 65001 >nul && ";
+
+    private final long ttlNanos;
+    private volatile long commandTimeoutMillis;
+    private Map<String, String> plans = Collections.emptyMap();
+    private long plansLoadedAt;
+    private boolean plansLoaded = false;
+    private String activePlan;
+    private long activeLoadedAt;
+
+    public PowerPlanCatalog(long ttlMillis, long commandTimeoutMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.commandTimeoutMillis = commandTimeoutMillis;
+    }
+
+    /**
+     * GUID→名称索引，过期时重新执行一次 powercfg /list
+     */
+    public synchronized Map<String, String> getPlans() throws IOException {
+        if (!plansLoaded || isExpired(plansLoadedAt)) {
+            refresh();
+        }
+        return plans;
+    }
+
+    public synchronized String getActivePlan() throws IOException {
+        if (activePlan == null || isExpired(activeLoadedAt)) {
+            activePlan = queryActivePlan();
+            activeLoadedAt = System.nanoTime();
+        }
+        return activePlan;
+    }
+
+    /**
+     * 记录我们自己完成的切换，使缓存保持最新
+     */
+    public synchronized void noteActivePlan(String guid) {
+        activePlan = guid.toLowerCase(Locale.ROOT);
+        activeLoadedAt = System.nanoTime();
+    }
+
+    public synchronized void invalidate() {
+        plansLoaded = false;
+        activePlan = null;
+    }
+
+    /**
+     * 查找默认档位对应的方案：优先匹配内置 GUID，其次按中文或英文名称匹配
+     */
+    public String findPlan(String wellKnownGuid, String... names) throws IOException {
+        Map<String, String> index = getPlans();
+        if (index.containsKey(wellKnownGuid)) {
+            return wellKnownGuid;
+        }
+        for (String name : names) {
+            for (Map.Entry<String, String> entry : index.entrySet()) {
+                if (entry.getValue().contains(name)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        throw new IOException("Could not detect power plan " + wellKnownGuid + " or any of " + String.join(", ", names));
+    }
+
+    /**
+     * 读取方案的交流和直流索引值，例如 {@code SUB_PROCESSOR PROCTHROTTLEMAX}
+     * 输出的文字随系统语言变化，这里只取最后两个十六进制值，顺序固定为交流、直流
+     */
+    public int[] queryValueIndex(String scheme, String subgroup, String setting) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        for (String line : run("powercfg /query " + scheme + " " + subgroup + " " + setting)) {
+            Matcher index = INDEX_PATTERN.matcher(line);
+            if (index.find()) {
+                values.add(Integer.parseUnsignedInt(index.group(1), 16));
+            }
+        }
+        if (values.size() < 2) {
+            throw new IOException("Could not read " + setting + " of power plan " + scheme);
+        }
+        return new int[]{values.get(values.size() - 2), values.get(values.size() - 1)};
+    }
+
+    public void setCommandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+    }
+
+    private void refresh() throws IOException {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        String active = null;
+        for (String line : run("powercfg /list")) {
+            Matcher guid = GUID_PATTERN.matcher(line);
+            if (!guid.find()) continue;
+            String id = guid.group().toLowerCase(Locale.ROOT);
+            Matcher name = NAME_PATTERN.matcher(line);
+            parsed.put(id, name.find() ? name.group(1) : id);
+            if (line.trim().endsWith("*")) {
+                active = id;
+            }
+        }
+        long now = System.nanoTime();
+        plans = Collections.unmodifiableMap(parsed);
+        plansLoadedAt = now;
+        plansLoaded = true;
+        if (active != null) {
+            activePlan = active;
+            activeLoadedAt = now;
+        }
+    }
+
+    private String queryActivePlan() throws IOException {
+        for (String line : run("powercfg /getactivescheme")) {
+            Matcher guid = GUID_PATTERN.matcher(line);
+            if (guid.find()) {
+                return guid.group().toLowerCase(Locale.ROOT);
+            }
+        }
+        throw new IOException("Could not detect current active power plan");
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return System.nanoTime() - loadedAt >= ttlNanos;
+    }
+
+    /**
+     * 输出在单独的线程上读取，调用方只按超时等待进程退出；超时后结束进程，读取也随之结束
+     * 命令经 cmd 执行，以便在同一个控制台里先切换代码页
+     */
+    private List<String> run(String commandLine) throws IOException {
+        Process process = new ProcessBuilder("cmd", "/c", UTF8_CODE_PAGE + commandLine).redirectErrorStream(true).start();
+        FutureTask<List<String>> output = new FutureTask<>(() -> readLines(process));
+        Thread reader = new Thread(output, "EcoPower-Powercfg-Output");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            if (!process.waitFor(commandTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException(commandLine + " did not finish within " + commandTimeoutMillis + " ms, process killed");
+            }
+            // 进程已退出，剩余的输出很快就能读完
+            return output.get(commandTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + commandLine, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read output of " + commandLine, e.getCause());
+        } catch (TimeoutException e) {
+            reader.interrupt();
+            throw new IOException("Output of " + commandLine + " was not closed after the process exited");
+        }
+    }
+
+    private static List<String> readLines(Process process) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,10 @@
+package org.xznetwork.ecopower.backend;
+
+/**
+ * 默认配置中的三个档位
+ */
+public enum PowerTier {
+    POWER_SAVER,
+    BALANCED,
+    HIGH_PERFORMANCE
+}
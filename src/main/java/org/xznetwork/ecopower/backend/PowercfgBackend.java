@@ -0,0 +1,274 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Windows 后端，通过 powercfg 管理电源方案
+ * 方案列表和活动方案由 {@link PowerPlanCatalog} 缓存，只有切换和缓存过期时才启动 powercfg
+ */
+public class PowercfgBackend implements PowerBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Powercfg");
+    // 外部程序（如控制面板）修改方案后，最多这么久才会被注意到
+    private static final long CATALOG_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private final PowerPlanCatalog catalog;
+    // 被我们限制过的方案及其原始交流、直流值，同时保存在 stateFile 中
+    private final Map<String, int[]> originalStates = new HashMap<>();
+    // 每个方案最后一次成功写入的上限
+    private final Map<String, Integer> writtenCaps = new HashMap<>();
+    private Path stateFile;
+    private volatile long commandTimeoutMillis;
+
+    public PowercfgBackend(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        this.catalog = new PowerPlanCatalog(CATALOG_TTL_MILLIS, commandTimeoutMillis);
+    }
+
+    @Override
+    public String getName() {
+        return "powercfg";
+    }
+
+    @Override
+    public List<PowerPlan> listPlans() throws IOException {
+        List<PowerPlan> plans = new ArrayList<>();
+        for (Map.Entry<String, String> entry : catalog.getPlans().entrySet()) {
+            plans.add(new PowerPlan(entry.getKey(), entry.getValue()));
+        }
+        return plans;
+    }
+
+    @Override
+    public String getActivePlan() throws IOException {
+        return catalog.getActivePlan();
+    }
+
+    @Override
+    public void setActivePlan(String planId) throws IOException {
+        if (!runPowercfg("/setactive", planId)) {
+            // 失败后系统的实际状态不确定，下次查询时重新读取
+            catalog.invalidate();
+            throw new IOException("Failed to change power plan. Admin rights required?");
+        }
+        catalog.noteActivePlan(planId);
+    }
+
+    @Override
+    public void noteActivePlan(String planId) {
+        catalog.noteActivePlan(planId);
+    }
+
+    @Override
+    public boolean supportsFrequencyCap() {
+        return true;
+    }
+
+    /**
+     * 修改当前方案交流和直流电源下的“最大处理器状态”（PROCTHROTTLEMAX），再重新激活方案使其生效
+     * 每个方案有自己的设置，调用方需要在切换方案后重新写入；与上次写入该方案的值相同时不启动 powercfg。
+     * 第一次限制某个方案前先把它的原始值写入状态文件，{@link #close()} 或下次启动时据此恢复
+     */
+    @Override
+    public synchronized void setFrequencyCap(int percent) throws IOException {
+        int clamped = Math.max(1, Math.min(100, percent));
+        String scheme = catalog.getActivePlan();
+        Integer written = writtenCaps.get(scheme);
+        if (written != null && written == clamped) return;
+
+        int[] original = originalStates.get(scheme);
+        if (clamped == 100 && original == null) {
+            // 我们没有限制过这个方案，保持用户自己的设置
+            writtenCaps.put(scheme, clamped);
+            return;
+        }
+        if (original == null) {
+            original = catalog.queryValueIndex(scheme, "SUB_PROCESSOR", "PROCTHROTTLEMAX");
+            originalStates.put(scheme, original);
+            try {
+                saveState();
+            } catch (IOException e) {
+                // 原始值没有落盘就不限制，避免崩溃后无法恢复
+                originalStates.remove(scheme);
+                throw e;
+            }
+        }
+
+        writtenCaps.remove(scheme);
+        if (clamped == 100) {
+            writeProcessorMaxState(scheme, original[0], original[1]);
+        } else {
+            writeProcessorMaxState(scheme, clamped, clamped);
+        }
+        if (!runPowercfg("/setactive", scheme)) {
+            throw new IOException("Failed to reapply power plan " + scheme);
+        }
+        writtenCaps.put(scheme, clamped);
+        if (clamped == 100) {
+            originalStates.remove(scheme);
+            saveState();
+        }
+    }
+
+    /**
+     * 指定记录原始最大处理器状态的文件；上次异常退出时留下的限制在这里恢复
+     */
+    public synchronized void recoverFrequencyCaps(Path stateFile) {
+        this.stateFile = stateFile;
+        if (!Files.exists(stateFile)) return;
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            saved.load(reader);
+            for (String scheme : saved.stringPropertyNames()) {
+                String[] values = saved.getProperty(scheme).split(",");
+                originalStates.put(scheme, new int[]{Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim())});
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("[Eco Power] Failed to read saved processor states from {}", stateFile, e);
+            return;
+        }
+        if (!originalStates.isEmpty()) {
+            LOGGER.warn("[Eco Power] Restoring maximum processor state of {} left capped by an unclean shutdown", originalStates.keySet());
+            restoreOriginalStates();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        restoreOriginalStates();
+    }
+
+    private void restoreOriginalStates() {
+        if (originalStates.isEmpty()) return;
+        try {
+            String active = catalog.getActivePlan();
+            boolean reapply = false;
+            for (Map.Entry<String, int[]> entry : originalStates.entrySet()) {
+                writeProcessorMaxState(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+                reapply |= entry.getKey().equalsIgnoreCase(active);
+            }
+            // 只有活动方案需要重新激活，其他方案下次被激活时自然读到恢复后的值
+            if (reapply) {
+                runPowercfg("/setactive", active);
+            }
+            originalStates.clear();
+            writtenCaps.clear();
+            saveState();
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to restore maximum processor state of {}", originalStates.keySet(), e);
+        }
+    }
+
+    /**
+     * 先写入临时文件再原子替换；没有被限制的方案时删除文件
+     */
+    private void saveState() throws IOException {
+        if (stateFile == null) return;
+        if (originalStates.isEmpty()) {
+            Files.deleteIfExists(stateFile);
+            return;
+        }
+        Properties state = new Properties();
+        for (Map.Entry<String, int[]> entry : originalStates.entrySet()) {
+            state.setProperty(entry.getKey(), entry.getValue()[0] + "," + entry.getValue()[1]);
+        }
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            state.store(writer, "Original PROCTHROTTLEMAX (AC,DC) of power plans capped by EcoPower");
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeProcessorMaxState(String scheme, int acPercent, int dcPercent) throws IOException {
+        if (!runPowercfg("/setacvalueindex", scheme, "SUB_PROCESSOR", "PROCTHROTTLEMAX", Integer.toString(acPercent))
+                || !runPowercfg("/setdcvalueindex", scheme, "SUB_PROCESSOR", "PROCTHROTTLEMAX", Integer.toString(dcPercent))) {
+            throw new IOException("Failed to change maximum processor state. Admin rights required?");
+        }
+    }
+
+    /**
+     * 运行一次 powercfg，返回是否以 0 退出
+     */
+    private boolean runPowercfg(String... args) throws IOException {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("powercfg");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            if (!process.waitFor(commandTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("powercfg did not finish within " + commandTimeoutMillis + " ms, process killed");
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while executing powercfg command", e);
+        }
+        return process.exitValue() == 0;
+    }
+
+    @Override
+    public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) throws IOException {
+        switch (tier) {
+            case POWER_SAVER -> plan.setGuid(catalog.findPlan(PowerPlanCatalog.POWER_SAVER_GUID, "节能", "Power saver"));
+            case BALANCED -> plan.setGuid(catalog.findPlan(PowerPlanCatalog.BALANCED_GUID, "平衡", "Balanced"));
+            case HIGH_PERFORMANCE -> plan.setGuid(findHighPerformancePlan());
+        }
+    }
+
+    /**
+     * powercfg 输出的 GUID 大小写不固定，比较时忽略大小写
+     */
+    @Override
+    public boolean isActivePlan(String activePlanId, String planId) {
+        return activePlanId != null && activePlanId.equalsIgnoreCase(planId);
+    }
+
+    /**
+     * 只认识系统内置的方案，自定义方案无法判断档位
+     */
+    @Override
+    public PowerTier getTier(String planId) {
+        if (planId == null) return null;
+        if (planId.equalsIgnoreCase(PowerPlanCatalog.POWER_SAVER_GUID)) return PowerTier.POWER_SAVER;
+        if (planId.equalsIgnoreCase(PowerPlanCatalog.BALANCED_GUID)) return PowerTier.BALANCED;
+        if (planId.equalsIgnoreCase(PowerPlanCatalog.HIGH_PERFORMANCE_GUID)
+                || planId.equalsIgnoreCase(PowerPlanCatalog.ULTIMATE_PERFORMANCE_GUID)) return PowerTier.HIGH_PERFORMANCE;
+        return null;
+    }
+
+    @Override
+    public void setCommandTimeoutMillis(long timeoutMillis) {
+        this.commandTimeoutMillis = timeoutMillis;
+        catalog.setCommandTimeoutMillis(timeoutMillis);
+    }
+
+    /**
+     * 某些系统（如开启了现代待机的笔记本）隐藏了高性能方案，此时退而使用卓越性能方案
+     */
+    private String findHighPerformancePlan() throws IOException {
+        try {
+            return catalog.findPlan(PowerPlanCatalog.HIGH_PERFORMANCE_GUID, "高性能", "High performance");
+        } catch (IOException e) {
+            LOGGER.debug("High performance plan not found, trying Ultimate Performance...");
+            return catalog.findPlan(PowerPlanCatalog.ULTIMATE_PERFORMANCE_GUID, "卓越性能", "Ultimate Performance");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.xznetwork.ecopower.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 按计划调整服务器进程的 CPU 亲和性和 nice 值（仅 Linux）
+ * 亲和性通过 {@code taskset -a} 作用于 /proc/self/task 下的全部线程，nice 通过 renice 逐线程设置；
+ * 原始值从 /proc/self 读取，计划未配置对应项时恢复原始值
+ */
+public class ProcessScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Scheduler");
+    private static final Pattern CPU_LIST = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+    private static final Path PROC_SELF = Path.of("/proc/self");
+
+    private final String pid = Long.toString(ProcessHandle.current().pid());
+    private final boolean supported;
+    private volatile long commandTimeoutMillis;
+    private String originalAffinity;
+    private Integer originalNice;
+    private String appliedAffinity;
+    private Integer appliedNice;
+
+    public ProcessScheduler(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        this.supported = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux")
+                && Files.isDirectory(PROC_SELF.resolve("task"));
+        if (supported) {
+            captureOriginal();
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * 应用计划的调度设置，为 null 的项恢复原始值；与当前已应用的值相同时不启动任何进程
+     */
+    public synchronized void apply(String affinity, Integer nice) {
+        if (!supported) {
+            if (affinity != null || nice != null) {
+                LOGGER.debug("[Eco Power] CPU affinity and nice are only supported on Linux, ignoring");
+            }
+            return;
+        }
+
+        String targetAffinity = affinity != null ? affinity.replace(" ", "") : originalAffinity;
+        Integer targetNice = nice != null ? nice : originalNice;
+
+        if (targetAffinity != null && !targetAffinity.equals(appliedAffinity)) {
+            if (!CPU_LIST.matcher(targetAffinity).matches()) {
+                LOGGER.warn("[Eco Power] Ignoring invalid CPU list '{}', expected e.g. 0-3,8", targetAffinity);
+            } else if (run("taskset", "-a", "-p", "-c", targetAffinity, pid)) {
+                appliedAffinity = targetAffinity;
+                LOGGER.debug("[Eco Power] Set CPU affinity to {}", targetAffinity);
+            }
+        }
+
+        if (targetNice != null && !targetNice.equals(appliedNice)) {
+            List<String> command = new ArrayList<>(List.of("renice", "-n", targetNice.toString(), "-p"));
+            command.addAll(listThreads());
+            // 降低 nice（提高优先级）需要 CAP_SYS_NICE，失败时保持原状
+            if (run(command.toArray(new String[0]))) {
+                appliedNice = targetNice;
+                LOGGER.debug("[Eco Power] Set nice to {}", targetNice);
+            }
+        }
+    }
+
+    /**
+     * 恢复启动时记录的亲和性和 nice 值
+     */
+    public void restore() {
+        apply(null, null);
+    }
+
+    public synchronized String getAppliedAffinity() {
+        return appliedAffinity;
+    }
+
+    public synchronized Integer getAppliedNice() {
+        return appliedNice;
+    }
+
+    public void setCommandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+    }
+
+    private void captureOriginal() {
+        try {
+            for (String line : Files.readAllLines(PROC_SELF.resolve("status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("Cpus_allowed_list:")) {
+                    originalAffinity = line.substring("Cpus_allowed_list:".length()).trim();
+                }
+            }
+            // comm 中可能含有空格，从最后一个右括号之后开始数：state 之后第 16 个字段是 nice
+            String stat = Files.readString(PROC_SELF.resolve("stat"), StandardCharsets.US_ASCII);
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            originalNice = Integer.parseInt(fields[16]);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("[Eco Power] Failed to read original CPU affinity and nice", e);
+        }
+        appliedAffinity = originalAffinity;
+        appliedNice = originalNice;
+        LOGGER.debug("[Eco Power] Original CPU affinity {}, nice {}", originalAffinity, originalNice);
+    }
+
+    private List<String> listThreads() {
+        List<String> threads = new ArrayList<>();
+        try (DirectoryStream<Path> tasks = Files.newDirectoryStream(PROC_SELF.resolve("task"))) {
+            for (Path task : tasks) {
+                threads.add(task.getFileName().toString());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to list server threads, applying nice to the main thread only", e);
+            threads.add(pid);
+        }
+        return threads;
+    }
+
+    private boolean run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(commandTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                LOGGER.warn("[Eco Power] {} did not finish within {} ms", command[0], commandTimeoutMillis);
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                LOGGER.warn("[Eco Power] {} exited with code {}. Missing privileges?", command[0], process.exitValue());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to run {}: {}", command[0], e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
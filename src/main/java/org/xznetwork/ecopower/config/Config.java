@@ -1,14 +1,35 @@
 package org.xznetwork.ecopower.config;
 
+import org.xznetwork.ecopower.policy.Condition;
+import org.xznetwork.ecopower.policy.CronExpression;
+
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Config {
-    private Map<String, PlanEntry> plan = new HashMap<>();
+    private Map<String, PlanEntry> plan = new LinkedHashMap<>(); // 保持配置顺序，先匹配者优先
+    private PlanIndex planIndex;
+    private Switching switching = new Switching();
+    private String selectionMode = "players"; // players、mspt 或 controller
+    private Mspt mspt = new Mspt();
+    private Controller controller = new Controller();
+    private Prediction prediction = new Prediction();
+    private Helper helper = new Helper();
+    private Metrics metrics = new Metrics();
+    private Hibernation hibernation = new Hibernation();
+    private Activity activity = new Activity();
+    private Energy energy = new Energy();
+    private Tracing trace = new Tracing();
+    private History history = new History();
+    private Arbiter arbiter = new Arbiter();
     private Exclude exclude = new Exclude();
     private boolean broadcastChanges = true;
+    private boolean autoReload = true; // 监视配置文件，修改后自动重新加载
+    private long switchTimeoutMillis = 5000;
+    private String backend = "auto";
+    private String cpufreqRoot = "/sys/devices/system/cpu";
 
     public Config() {
         exclude.getPrefixes().add("bot_");
@@ -16,17 +37,72 @@ public class Config {
     }
 
     public static class PlanEntry {
+        private String name;
         private String guid;
+        private String governor; // cpufreq 后端使用，替代 guid
+        private String energyPerformancePreference;
         private int[] range = new int[2]; // 两个整数的数组
         private String broadcastMessage;
+        private int hysteresis = 0; // 按玩家数量降档前允许越出当前区间的玩家数
+        private double[] mspt; // mspt 模式下的 [min, max) 毫秒阈值，可选
+        private String condition; // 条件表达式，可选，优先于 range 判断
+        private String affinity; // 可选，Linux CPU 列表，例如 "0-7,16-23"
+        private Integer nice; // 可选，Linux nice 值
+        private Integer viewDistance; // 可选，视距（区块）
+        private Integer simulationDistance; // 可选，模拟距离（区块）
+        private List<ScheduleWindow> schedule = new ArrayList<>(); // 可选，定时窗口
+        private Condition compiledCondition;
+        private String planId;
+        private int rank = -1;
+
+        /**
+         * 交给后端的计划 ID：配置了调速器时为 governor[:epp]，否则为 GUID
+         */
+        public String getPlanId() {
+            if (planId == null) {
+                if (governor == null) {
+                    planId = guid;
+                } else {
+                    planId = energyPerformancePreference == null ? governor : governor + ":" + energyPerformancePreference;
+                }
+            }
+            return planId;
+        }
 
         // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
         public String getGuid() {
             return guid;
         }
 
         public void setGuid(String guid) {
             this.guid = guid;
+            this.planId = null;
+        }
+
+        public String getGovernor() {
+            return governor;
+        }
+
+        public void setGovernor(String governor) {
+            this.governor = governor;
+            this.planId = null;
+        }
+
+        public String getEnergyPerformancePreference() {
+            return energyPerformancePreference;
+        }
+
+        public void setEnergyPerformancePreference(String energyPerformancePreference) {
+            this.energyPerformancePreference = energyPerformancePreference;
+            this.planId = null;
         }
 
         public int[] getRange() {
@@ -44,6 +120,599 @@ public class Config {
         public void setBroadcastMessage(String broadcastMessage) {
             this.broadcastMessage = broadcastMessage;
         }
+
+        public double[] getMspt() {
+            return mspt;
+        }
+
+        public void setMspt(double[] mspt) {
+            this.mspt = mspt;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        public void setCondition(String condition) {
+            this.condition = condition;
+        }
+
+        /**
+         * 加载配置时编译的条件，表达式无效或未配置时为 null
+         */
+        public Condition getCompiledCondition() {
+            return compiledCondition;
+        }
+
+        public void setCompiledCondition(Condition compiledCondition) {
+            this.compiledCondition = compiledCondition;
+        }
+
+        public String getAffinity() {
+            return affinity;
+        }
+
+        public void setAffinity(String affinity) {
+            this.affinity = affinity;
+        }
+
+        public Integer getNice() {
+            return nice;
+        }
+
+        public void setNice(Integer nice) {
+            this.nice = nice;
+        }
+
+        public Integer getViewDistance() {
+            return viewDistance;
+        }
+
+        public void setViewDistance(Integer viewDistance) {
+            this.viewDistance = viewDistance;
+        }
+
+        public Integer getSimulationDistance() {
+            return simulationDistance;
+        }
+
+        public void setSimulationDistance(Integer simulationDistance) {
+            this.simulationDistance = simulationDistance;
+        }
+
+        public List<ScheduleWindow> getSchedule() {
+            return schedule;
+        }
+
+        public void setSchedule(List<ScheduleWindow> schedule) {
+            this.schedule = schedule;
+        }
+
+        public int getHysteresis() {
+            return hysteresis;
+        }
+
+        public void setHysteresis(int hysteresis) {
+            this.hysteresis = hysteresis;
+        }
+
+        /**
+         * 按区间下界排序后的档位，编译索引时计算，无效区间为 -1
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        void setRank(int rank) {
+            this.rank = rank;
+        }
+    }
+
+    // 内部类：计划的定时窗口，cron 给出每次开始的时刻
+    public static class ScheduleWindow {
+        public static final String MODE_FORCE = "force"; // 窗口内直接使用该计划
+        public static final String MODE_CAP = "cap"; // 窗口内所选计划不高于该计划
+
+        private String cron;
+        private int durationMinutes = 60;
+        private String mode = MODE_FORCE;
+        private CronExpression compiledCron;
+
+        // Getters and Setters
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        public void setDurationMinutes(int durationMinutes) {
+            this.durationMinutes = durationMinutes;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public boolean isCap() {
+            return MODE_CAP.equals(mode);
+        }
+
+        /**
+         * 加载配置时编译的 cron 表达式
+         */
+        public CronExpression getCompiledCron() {
+            return compiledCron;
+        }
+
+        public void setCompiledCron(CronExpression compiledCron) {
+            this.compiledCron = compiledCron;
+        }
+    }
+
+    // 内部类：tick 耗时采样配置
+    public static class Mspt {
+        private int windowTicks = 200;
+        private double ewmaAlpha = 0.05;
+        private String statistic = "p95"; // p95 或 ewma
+
+        // Getters and Setters
+        public int getWindowTicks() {
+            return windowTicks;
+        }
+
+        public void setWindowTicks(int windowTicks) {
+            this.windowTicks = windowTicks;
+        }
+
+        public double getEwmaAlpha() {
+            return ewmaAlpha;
+        }
+
+        public void setEwmaAlpha(double ewmaAlpha) {
+            this.ewmaAlpha = ewmaAlpha;
+        }
+
+        public String getStatistic() {
+            return statistic;
+        }
+
+        public void setStatistic(String statistic) {
+            this.statistic = statistic;
+        }
+    }
+
+    // 内部类：controller 模式下的闭环 MSPT 控制参数
+    public static class Controller {
+        private double targetMspt = 40.0;
+        private double kp = 0.5;
+        private double ki = 0.2; // 每秒
+        private int minCapPercent = 40;
+        private int stepPercent = 5;
+        private int maxChangePercent = 10; // 每次更新的最大变化
+        private int intervalTicks = 20;
+        private int staleSeconds = 5; // tick 信号超过这么久没有更新时恢复全速
+
+        // Getters and Setters
+        public double getTargetMspt() {
+            return targetMspt;
+        }
+
+        public void setTargetMspt(double targetMspt) {
+            this.targetMspt = targetMspt;
+        }
+
+        public double getKp() {
+            return kp;
+        }
+
+        public void setKp(double kp) {
+            this.kp = kp;
+        }
+
+        public double getKi() {
+            return ki;
+        }
+
+        public void setKi(double ki) {
+            this.ki = ki;
+        }
+
+        public int getMinCapPercent() {
+            return minCapPercent;
+        }
+
+        public void setMinCapPercent(int minCapPercent) {
+            this.minCapPercent = minCapPercent;
+        }
+
+        public int getStepPercent() {
+            return stepPercent;
+        }
+
+        public void setStepPercent(int stepPercent) {
+            this.stepPercent = stepPercent;
+        }
+
+        public int getMaxChangePercent() {
+            return maxChangePercent;
+        }
+
+        public void setMaxChangePercent(int maxChangePercent) {
+            this.maxChangePercent = maxChangePercent;
+        }
+
+        public int getIntervalTicks() {
+            return intervalTicks;
+        }
+
+        public void setIntervalTicks(int intervalTicks) {
+            this.intervalTicks = intervalTicks;
+        }
+
+        public int getStaleSeconds() {
+            return staleSeconds;
+        }
+
+        public void setStaleSeconds(int staleSeconds) {
+            this.staleSeconds = staleSeconds;
+        }
+    }
+
+    // 内部类：按历史负载曲线提前升档
+    public static class Prediction {
+        private boolean enabled = false;
+        private int leadMinutes = 15;
+        private int minSamples = 2; // 目标时段至少需要记录过的周数
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLeadMinutes() {
+            return leadMinutes;
+        }
+
+        public void setLeadMinutes(int leadMinutes) {
+            this.leadMinutes = leadMinutes;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+
+    // 内部类：常驻电源命令助手设置
+    public static class Helper {
+        private boolean enabled = false;
+        private List<String> command = new ArrayList<>(); // 为空时使用内置脚本
+        private int healthCheckSeconds = 30;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getCommand() {
+            return command;
+        }
+
+        public void setCommand(List<String> command) {
+            this.command = command;
+        }
+
+        public int getHealthCheckSeconds() {
+            return healthCheckSeconds;
+        }
+
+        public void setHealthCheckSeconds(int healthCheckSeconds) {
+            this.healthCheckSeconds = healthCheckSeconds;
+        }
+    }
+
+    // 内部类：tick 延迟直方图与 HTTP 指标导出设置
+    public static class Metrics {
+        private boolean enabled = false;
+        private int httpPort = 0; // 0 表示不开启 HTTP 导出
+        private String httpHost = "127.0.0.1";
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getHttpPort() {
+            return httpPort;
+        }
+
+        public void setHttpPort(int httpPort) {
+            this.httpPort = httpPort;
+        }
+
+        public String getHttpHost() {
+            return httpHost;
+        }
+
+        public void setHttpHost(String httpHost) {
+            this.httpHost = httpHost;
+        }
+    }
+
+    // 内部类：同机多实例的电源计划仲裁设置，启用后 controller 模式不可用
+    public static class Arbiter {
+        private boolean enabled = false;
+        private String directory = ""; // 锁文件和套接字所在目录，为空时使用系统临时目录下的 ecopower-arbiter
+        private int heartbeatSeconds = 2;
+        private int timeoutSeconds = 10;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(int heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+
+        public int getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+
+    // 内部类：RAPL 能耗采样设置
+    public static class Energy {
+        private boolean enabled = false;
+        private String raplRoot = "/sys/class/powercap";
+        private int sampleIntervalSeconds = 5;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getRaplRoot() {
+            return raplRoot;
+        }
+
+        public void setRaplRoot(String raplRoot) {
+            this.raplRoot = raplRoot;
+        }
+
+        public int getSampleIntervalSeconds() {
+            return sampleIntervalSeconds;
+        }
+
+        public void setSampleIntervalSeconds(int sampleIntervalSeconds) {
+            this.sampleIntervalSeconds = sampleIntervalSeconds;
+        }
+    }
+
+    // 内部类：负载轨迹录制设置
+    public static class Tracing {
+        private boolean enabled = false;
+        private String directory = "traces"; // 相对路径相对于配置目录
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    // 内部类：计划切换与负载的历史记录设置
+    public static class History {
+        private boolean enabled = false;
+        private String directory = "history"; // 相对路径相对于配置目录
+        private int sampleSeconds = 60;
+        private int segmentRecords = 10080; // 每个分段的记录数，按默认采样间隔约一周
+        private int rawRetentionDays = 7; // 超过后分段压缩为每小时汇总
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSampleSeconds() {
+            return sampleSeconds;
+        }
+
+        public void setSampleSeconds(int sampleSeconds) {
+            this.sampleSeconds = sampleSeconds;
+        }
+
+        public int getSegmentRecords() {
+            return segmentRecords;
+        }
+
+        public void setSegmentRecords(int segmentRecords) {
+            this.segmentRecords = segmentRecords;
+        }
+
+        public int getRawRetentionDays() {
+            return rawRetentionDays;
+        }
+
+        public void setRawRetentionDays(int rawRetentionDays) {
+            this.rawRetentionDays = rawRetentionDays;
+        }
+    }
+
+    // 内部类：按玩家活跃程度加权的需求设置
+    public static class Activity {
+        private boolean enabled = false;
+        private int idleSeconds = 600;
+        private double idleWeight = 0.0; // 空闲玩家计入需求的权重，0 表示完全不计
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIdleSeconds() {
+            return idleSeconds;
+        }
+
+        public void setIdleSeconds(int idleSeconds) {
+            this.idleSeconds = idleSeconds;
+        }
+
+        public double getIdleWeight() {
+            return idleWeight;
+        }
+
+        public void setIdleWeight(double idleWeight) {
+            this.idleWeight = idleWeight;
+        }
+    }
+
+    // 内部类：无真实玩家时的休眠设置
+    public static class Hibernation {
+        private boolean enabled = false;
+        private int idleSeconds = 300;
+        private String mode = "freeze"; // freeze 冻结世界 tick，throttle 降低 tick 速率
+        private double throttleTickRate = 1.0;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIdleSeconds() {
+            return idleSeconds;
+        }
+
+        public void setIdleSeconds(int idleSeconds) {
+            this.idleSeconds = idleSeconds;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public double getThrottleTickRate() {
+            return throttleTickRate;
+        }
+
+        public void setThrottleTickRate(double throttleTickRate) {
+            this.throttleTickRate = throttleTickRate;
+        }
+    }
+
+    // 内部类：切换节流配置
+    public static class Switching {
+        private int minDwellSeconds = 0;
+        private int stepDownDelaySeconds = 30;
+        private int maxSwitchesPerMinute = 6;
+
+        // Getters and Setters
+        public int getMinDwellSeconds() {
+            return minDwellSeconds;
+        }
+
+        public void setMinDwellSeconds(int minDwellSeconds) {
+            this.minDwellSeconds = minDwellSeconds;
+        }
+
+        public int getStepDownDelaySeconds() {
+            return stepDownDelaySeconds;
+        }
+
+        public void setStepDownDelaySeconds(int stepDownDelaySeconds) {
+            this.stepDownDelaySeconds = stepDownDelaySeconds;
+        }
+
+        public int getMaxSwitchesPerMinute() {
+            return maxSwitchesPerMinute;
+        }
+
+        public void setMaxSwitchesPerMinute(int maxSwitchesPerMinute) {
+            this.maxSwitchesPerMinute = maxSwitchesPerMinute;
+        }
     }
 
     // 内部类：排除规则配置
@@ -84,7 +753,19 @@ public class Config {
     }
 
     public void setPlan(Map<String, PlanEntry> plan) {
+        plan.forEach((name, entry) -> entry.setName(name));
         this.plan = plan;
+        this.planIndex = null;
+    }
+
+    /**
+     * 按玩家数量查找计划的索引，首次访问时编译
+     */
+    public PlanIndex getPlanIndex() {
+        if (planIndex == null) {
+            planIndex = PlanIndex.compile(plan.values());
+        }
+        return planIndex;
     }
 
     public Exclude getExclude() {
@@ -96,6 +777,110 @@ public class Config {
     }
 
 
+    public Switching getSwitching() {
+        return switching;
+    }
+
+    public void setSwitching(Switching switching) {
+        this.switching = switching;
+    }
+
+    public String getSelectionMode() {
+        return selectionMode;
+    }
+
+    public void setSelectionMode(String selectionMode) {
+        this.selectionMode = selectionMode;
+    }
+
+    public Mspt getMspt() {
+        return mspt;
+    }
+
+    public void setMspt(Mspt mspt) {
+        this.mspt = mspt;
+    }
+
+    public Controller getController() {
+        return controller;
+    }
+
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+
+    public Prediction getPrediction() {
+        return prediction;
+    }
+
+    public void setPrediction(Prediction prediction) {
+        this.prediction = prediction;
+    }
+
+    public Helper getHelper() {
+        return helper;
+    }
+
+    public void setHelper(Helper helper) {
+        this.helper = helper;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Hibernation getHibernation() {
+        return hibernation;
+    }
+
+    public void setHibernation(Hibernation hibernation) {
+        this.hibernation = hibernation;
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public void setActivity(Activity activity) {
+        this.activity = activity;
+    }
+
+    public Arbiter getArbiter() {
+        return arbiter;
+    }
+
+    public void setArbiter(Arbiter arbiter) {
+        this.arbiter = arbiter;
+    }
+
+    public Energy getEnergy() {
+        return energy;
+    }
+
+    public void setEnergy(Energy energy) {
+        this.energy = energy;
+    }
+
+    public Tracing getTrace() {
+        return trace;
+    }
+
+    public void setTrace(Tracing trace) {
+        this.trace = trace;
+    }
+
+    public History getHistory() {
+        return history;
+    }
+
+    public void setHistory(History history) {
+        this.history = history;
+    }
+
     public boolean isBroadcastChanges() {
         return broadcastChanges;
     }
@@ -103,4 +888,36 @@ public class Config {
     public void setBroadcastChanges(boolean broadcastChanges) {
         this.broadcastChanges = broadcastChanges;
     }
-}
\ No newline at end of file
+
+    public boolean isAutoReload() {
+        return autoReload;
+    }
+
+    public void setAutoReload(boolean autoReload) {
+        this.autoReload = autoReload;
+    }
+
+    public long getSwitchTimeoutMillis() {
+        return switchTimeoutMillis;
+    }
+
+    public void setSwitchTimeoutMillis(long switchTimeoutMillis) {
+        this.switchTimeoutMillis = switchTimeoutMillis;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public String getCpufreqRoot() {
+        return cpufreqRoot;
+    }
+
+    public void setCpufreqRoot(String cpufreqRoot) {
+        this.cpufreqRoot = cpufreqRoot;
+    }
+}
@@ -2,8 +2,14 @@ package org.xznetwork.ecopower.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.backend.PowerBackend;
+import org.xznetwork.ecopower.backend.PowerBackends;
+import org.xznetwork.ecopower.backend.PowerTier;
+import org.xznetwork.ecopower.policy.ConditionParser;
+import org.xznetwork.ecopower.policy.CronExpression;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -30,28 +36,31 @@ public class ConfigManager {
 
         if (!Files.exists(configPath)) {
             try {
-                PowerPlanDetector detector = new PowerPlanDetector();
+                PowerBackend backend = PowerBackends.create(config);
+                if (backend == null) {
+                    throw new IOException("No supported power backend on this platform");
+                }
 
                 // Create Default Plans
                 Map<String, Config.PlanEntry> defaultPlans = new LinkedHashMap<>();
 
                 // Power Saver
                 Config.PlanEntry powerSaver = new Config.PlanEntry();
-                powerSaver.setGuid(detector.detectPowerSaverGuid());
+                backend.applyDefaultPlan(powerSaver, PowerTier.POWER_SAVER);
                 powerSaver.setRange(new int[]{Integer.MIN_VALUE, 0});
                 powerSaver.setBroadcastMessage("§a[Eco Power] §7witched to §aPower Saver Mode");
                 defaultPlans.put("power_saver", powerSaver);
 
                 // Balanced
                 Config.PlanEntry balanced = new Config.PlanEntry();
-                balanced.setGuid(detector.detectBalancedGuid());
+                backend.applyDefaultPlan(balanced, PowerTier.BALANCED);
                 balanced.setRange(new int[]{1, 2});
                 balanced.setBroadcastMessage("§a[Eco Power] §7Switched to §eBalanced Mode");
                 defaultPlans.put("balanced", balanced);
 
                 // High Performance
                 Config.PlanEntry highPerformance = new Config.PlanEntry();
-                highPerformance.setGuid(detector.detectHighPerformanceGuid());
+                backend.applyDefaultPlan(highPerformance, PowerTier.HIGH_PERFORMANCE);
                 highPerformance.setRange(new int[]{3, Integer.MAX_VALUE});
                 highPerformance.setBroadcastMessage("§a[Eco Power] §7Switched to §cHigh Performance Mode");
                 defaultPlans.put("high_performance", highPerformance);
@@ -66,54 +75,306 @@ public class ConfigManager {
                 saveConfig(config); // 保存空配置
             }
         } else {
-            try (InputStream input = Files.newInputStream(configPath)) {
-                Yaml yaml = new Yaml();
-                Map<String, Object> data = yaml.load(input);
-
-                if (data != null) {
-                    Map<String, Object> planData = (Map<String, Object>) data.get("plan");
-                    if (planData != null) {
-                        Map<String, Config.PlanEntry> plans = new LinkedHashMap<>();
-                        for (Map.Entry<String, Object> entry : planData.entrySet()) {
-                            Map<String, Object> planEntry = (Map<String, Object>) entry.getValue();
-
-                            Config.PlanEntry plan = new Config.PlanEntry();
-                            plan.setGuid((String) planEntry.get("guid"));
-
-                            List<Integer> rangeList = (List<Integer>) planEntry.get("range");
-                            if (rangeList != null && rangeList.size() == 2) {
-                                plan.setRange(new int[]{rangeList.get(0), rangeList.get(1)});
-                            } else {
-                                LOGGER.warn("[Eco Power] Invalid range format for plan: " + entry.getKey());
+            try {
+                config = load();
+            } catch (IOException e) {
+                LOGGER.error("[Eco Power] Error loading config file", e);
+            }
+        }
+
+        // 加载时编译计划索引，重叠和未覆盖的区间在此报告
+        config.getPlanIndex();
+        return config;
+    }
+
+    /**
+     * 严格读取现有的配置文件，文件缺失或 YAML 语法、结构有误时抛出 IOException
+     */
+    public Config load() throws IOException {
+        return parse(Files.readAllBytes(configPath));
+    }
+
+    /**
+     * 解析配置内容并编译计划索引，不修改任何已有对象
+     */
+    @SuppressWarnings("unchecked")
+    public Config parse(byte[] content) throws IOException {
+        Config config = new Config();
+        try {
+            Yaml yaml = new Yaml();
+            Map<String, Object> data = yaml.load(new ByteArrayInputStream(content));
+
+            if (data != null) {
+                Map<String, Object> planData = (Map<String, Object>) data.get("plan");
+                if (planData != null) {
+                    Map<String, Config.PlanEntry> plans = new LinkedHashMap<>();
+                    for (Map.Entry<String, Object> entry : planData.entrySet()) {
+                        Map<String, Object> planEntry = (Map<String, Object>) entry.getValue();
+
+                        Config.PlanEntry plan = new Config.PlanEntry();
+                        plan.setGuid((String) planEntry.get("guid"));
+                        plan.setGovernor((String) planEntry.get("governor"));
+                        plan.setEnergyPerformancePreference((String) planEntry.get("energyPerformancePreference"));
+
+                        List<Integer> rangeList = (List<Integer>) planEntry.get("range");
+                        if (rangeList != null && rangeList.size() == 2) {
+                            plan.setRange(new int[]{rangeList.get(0), rangeList.get(1)});
+                        } else {
+                            LOGGER.warn("[Eco Power] Invalid range format for plan: " + entry.getKey());
+                        }
+
+                        plan.setBroadcastMessage((String) planEntry.get("broadcastMessage"));
+                        List<Number> msptList = (List<Number>) planEntry.get("mspt");
+                        if (msptList != null && msptList.size() == 2) {
+                            plan.setMspt(new double[]{msptList.get(0).doubleValue(), msptList.get(1).doubleValue()});
+                        } else if (msptList != null) {
+                            LOGGER.warn("[Eco Power] Invalid mspt format for plan: " + entry.getKey());
+                        }
+
+                        if (planEntry.get("condition") instanceof String condition) {
+                            plan.setCondition(condition);
+                            try {
+                                plan.setCompiledCondition(ConditionParser.parse(condition));
+                            } catch (IllegalArgumentException e) {
+                                LOGGER.warn("[Eco Power] Ignoring invalid condition for plan {}: {}", entry.getKey(), e.getMessage());
                             }
+                        }
 
-                            plan.setBroadcastMessage((String) planEntry.get("broadcastMessage"));
-                            plans.put(entry.getKey(), plan);
+                        if (planEntry.get("schedule") instanceof List<?> scheduleList) {
+                            for (Object item : scheduleList) {
+                                Config.ScheduleWindow window = parseScheduleWindow(entry.getKey(), item);
+                                if (window != null) plan.getSchedule().add(window);
+                            }
                         }
-                        config.setPlan(plans);
+
+                        if (planEntry.get("hysteresis") instanceof Number hysteresis) {
+                            plan.setHysteresis(hysteresis.intValue());
+                        }
+
+                        // 单个 CPU 编号在 YAML 中会被解析为数字
+                        Object affinity = planEntry.get("affinity");
+                        if (affinity != null) {
+                            plan.setAffinity(String.valueOf(affinity));
+                        }
+                        if (planEntry.get("nice") instanceof Number nice) {
+                            plan.setNice(nice.intValue());
+                        }
+                        if (planEntry.get("viewDistance") instanceof Number viewDistance) {
+                            plan.setViewDistance(viewDistance.intValue());
+                        }
+                        if (planEntry.get("simulationDistance") instanceof Number simulationDistance) {
+                            plan.setSimulationDistance(simulationDistance.intValue());
+                        }
+                        plans.put(entry.getKey(), plan);
                     }
+                    config.setPlan(plans);
+                }
 
-                    Map<String, Object> exclude = (Map<String, Object>) data.get("exclude");
-                    if (exclude != null) {
-                        Config.Exclude excludeObj = new Config.Exclude();
-                        excludeObj.setPrefixes(getStringList(exclude, "prefixes"));
-                        excludeObj.setSuffixes(getStringList(exclude, "suffixes"));
-                        excludeObj.setRegexes(getStringList(exclude, "regexes"));
-                        config.setExclude(excludeObj);
+                Map<String, Object> exclude = (Map<String, Object>) data.get("exclude");
+                if (exclude != null) {
+                    Config.Exclude excludeObj = new Config.Exclude();
+                    excludeObj.setPrefixes(getStringList(exclude, "prefixes"));
+                    excludeObj.setSuffixes(getStringList(exclude, "suffixes"));
+                    excludeObj.setRegexes(getStringList(exclude, "regexes"));
+                    config.setExclude(excludeObj);
+                }
+
+                Map<String, Object> switching = (Map<String, Object>) data.get("switching");
+                if (switching != null) {
+                    Config.Switching switchingObj = new Config.Switching();
+                    switchingObj.setMinDwellSeconds(getInt(switching, "minDwellSeconds", switchingObj.getMinDwellSeconds()));
+                    switchingObj.setStepDownDelaySeconds(getInt(switching, "stepDownDelaySeconds", switchingObj.getStepDownDelaySeconds()));
+                    switchingObj.setMaxSwitchesPerMinute(getInt(switching, "maxSwitchesPerMinute", switchingObj.getMaxSwitchesPerMinute()));
+                    config.setSwitching(switchingObj);
+                }
+
+                if (data.get("selectionMode") instanceof String selectionMode) {
+                    config.setSelectionMode(selectionMode);
+                }
+
+                Map<String, Object> mspt = (Map<String, Object>) data.get("mspt");
+                if (mspt != null) {
+                    Config.Mspt msptObj = new Config.Mspt();
+                    msptObj.setWindowTicks(getInt(mspt, "windowTicks", msptObj.getWindowTicks()));
+                    if (mspt.get("ewmaAlpha") instanceof Number alpha) {
+                        msptObj.setEwmaAlpha(alpha.doubleValue());
                     }
+                    if (mspt.get("statistic") instanceof String statistic) {
+                        msptObj.setStatistic(statistic);
+                    }
+                    config.setMspt(msptObj);
+                }
 
-                    if (data.containsKey("broadcastChanges")) {
-                        config.setBroadcastChanges((boolean) data.get("broadcastChanges"));
+                Map<String, Object> controller = (Map<String, Object>) data.get("controller");
+                if (controller != null) {
+                    Config.Controller controllerObj = new Config.Controller();
+                    if (controller.get("targetMspt") instanceof Number targetMspt) {
+                        controllerObj.setTargetMspt(targetMspt.doubleValue());
                     }
+                    if (controller.get("kp") instanceof Number kp) {
+                        controllerObj.setKp(kp.doubleValue());
+                    }
+                    if (controller.get("ki") instanceof Number ki) {
+                        controllerObj.setKi(ki.doubleValue());
+                    }
+                    controllerObj.setMinCapPercent(getInt(controller, "minCapPercent", controllerObj.getMinCapPercent()));
+                    controllerObj.setStepPercent(getInt(controller, "stepPercent", controllerObj.getStepPercent()));
+                    controllerObj.setMaxChangePercent(getInt(controller, "maxChangePercent", controllerObj.getMaxChangePercent()));
+                    controllerObj.setIntervalTicks(getInt(controller, "intervalTicks", controllerObj.getIntervalTicks()));
+                    controllerObj.setStaleSeconds(getInt(controller, "staleSeconds", controllerObj.getStaleSeconds()));
+                    config.setController(controllerObj);
+                }
+
+                Map<String, Object> prediction = (Map<String, Object>) data.get("prediction");
+                if (prediction != null) {
+                    Config.Prediction predictionObj = new Config.Prediction();
+                    if (prediction.get("enabled") instanceof Boolean enabled) {
+                        predictionObj.setEnabled(enabled);
+                    }
+                    predictionObj.setLeadMinutes(getInt(prediction, "leadMinutes", predictionObj.getLeadMinutes()));
+                    predictionObj.setMinSamples(getInt(prediction, "minSamples", predictionObj.getMinSamples()));
+                    config.setPrediction(predictionObj);
+                }
+
+                Map<String, Object> helper = (Map<String, Object>) data.get("helper");
+                if (helper != null) {
+                    Config.Helper helperObj = new Config.Helper();
+                    if (helper.get("enabled") instanceof Boolean enabled) {
+                        helperObj.setEnabled(enabled);
+                    }
+                    helperObj.setCommand(getStringList(helper, "command"));
+                    helperObj.setHealthCheckSeconds(getInt(helper, "healthCheckSeconds", helperObj.getHealthCheckSeconds()));
+                    config.setHelper(helperObj);
+                }
+
+                Map<String, Object> arbiter = (Map<String, Object>) data.get("arbiter");
+                if (arbiter != null) {
+                    Config.Arbiter arbiterObj = new Config.Arbiter();
+                    if (arbiter.get("enabled") instanceof Boolean enabled) {
+                        arbiterObj.setEnabled(enabled);
+                    }
+                    if (arbiter.get("directory") instanceof String directory) {
+                        arbiterObj.setDirectory(directory);
+                    }
+                    arbiterObj.setHeartbeatSeconds(getInt(arbiter, "heartbeatSeconds", arbiterObj.getHeartbeatSeconds()));
+                    arbiterObj.setTimeoutSeconds(getInt(arbiter, "timeoutSeconds", arbiterObj.getTimeoutSeconds()));
+                    config.setArbiter(arbiterObj);
+                }
+
+                Map<String, Object> metrics = (Map<String, Object>) data.get("metrics");
+                if (metrics != null) {
+                    Config.Metrics metricsObj = new Config.Metrics();
+                    if (metrics.get("enabled") instanceof Boolean enabled) {
+                        metricsObj.setEnabled(enabled);
+                    }
+                    metricsObj.setHttpPort(getInt(metrics, "httpPort", metricsObj.getHttpPort()));
+                    if (metrics.get("httpHost") instanceof String httpHost) {
+                        metricsObj.setHttpHost(httpHost);
+                    }
+                    config.setMetrics(metricsObj);
+                }
+
+                Map<String, Object> hibernation = (Map<String, Object>) data.get("hibernation");
+                if (hibernation != null) {
+                    Config.Hibernation hibernationObj = new Config.Hibernation();
+                    if (hibernation.get("enabled") instanceof Boolean enabled) {
+                        hibernationObj.setEnabled(enabled);
+                    }
+                    hibernationObj.setIdleSeconds(getInt(hibernation, "idleSeconds", hibernationObj.getIdleSeconds()));
+                    if (hibernation.get("mode") instanceof String mode) {
+                        hibernationObj.setMode(mode);
+                    }
+                    if (hibernation.get("throttleTickRate") instanceof Number rate) {
+                        hibernationObj.setThrottleTickRate(rate.doubleValue());
+                    }
+                    config.setHibernation(hibernationObj);
+                }
+
+                Map<String, Object> activity = (Map<String, Object>) data.get("activity");
+                if (activity != null) {
+                    Config.Activity activityObj = new Config.Activity();
+                    if (activity.get("enabled") instanceof Boolean enabled) {
+                        activityObj.setEnabled(enabled);
+                    }
+                    activityObj.setIdleSeconds(getInt(activity, "idleSeconds", activityObj.getIdleSeconds()));
+                    if (activity.get("idleWeight") instanceof Number weight) {
+                        activityObj.setIdleWeight(weight.doubleValue());
+                    }
+                    config.setActivity(activityObj);
+                }
+
+                Map<String, Object> energy = (Map<String, Object>) data.get("energy");
+                if (energy != null) {
+                    Config.Energy energyObj = new Config.Energy();
+                    if (energy.get("enabled") instanceof Boolean enabled) {
+                        energyObj.setEnabled(enabled);
+                    }
+                    if (energy.get("raplRoot") instanceof String raplRoot) {
+                        energyObj.setRaplRoot(raplRoot);
+                    }
+                    energyObj.setSampleIntervalSeconds(getInt(energy, "sampleIntervalSeconds", energyObj.getSampleIntervalSeconds()));
+                    config.setEnergy(energyObj);
+                }
+
+                Map<String, Object> trace = (Map<String, Object>) data.get("trace");
+                if (trace != null) {
+                    Config.Tracing traceObj = new Config.Tracing();
+                    if (trace.get("enabled") instanceof Boolean enabled) {
+                        traceObj.setEnabled(enabled);
+                    }
+                    if (trace.get("directory") instanceof String directory) {
+                        traceObj.setDirectory(directory);
+                    }
+                    config.setTrace(traceObj);
+                }
+
+                Map<String, Object> history = (Map<String, Object>) data.get("history");
+                if (history != null) {
+                    Config.History historyObj = new Config.History();
+                    if (history.get("enabled") instanceof Boolean enabled) {
+                        historyObj.setEnabled(enabled);
+                    }
+                    if (history.get("directory") instanceof String directory) {
+                        historyObj.setDirectory(directory);
+                    }
+                    historyObj.setSampleSeconds(getInt(history, "sampleSeconds", historyObj.getSampleSeconds()));
+                    historyObj.setSegmentRecords(getInt(history, "segmentRecords", historyObj.getSegmentRecords()));
+                    historyObj.setRawRetentionDays(getInt(history, "rawRetentionDays", historyObj.getRawRetentionDays()));
+                    config.setHistory(historyObj);
+                }
+
+                if (data.containsKey("broadcastChanges")) {
+                    config.setBroadcastChanges((boolean) data.get("broadcastChanges"));
+                }
+
+                if (data.get("autoReload") instanceof Boolean autoReload) {
+                    config.setAutoReload(autoReload);
+                }
+
+                if (data.get("switchTimeoutMillis") instanceof Number timeout) {
+                    config.setSwitchTimeoutMillis(timeout.longValue());
+                }
+
+                if (data.get("backend") instanceof String backend) {
+                    config.setBackend(backend);
+                }
+
+                if (data.get("cpufreqRoot") instanceof String cpufreqRoot) {
+                    config.setCpufreqRoot(cpufreqRoot);
                 }
-            } catch (IOException e) {
-                LOGGER.error("[Eco Power] Error loading config file", e);
             }
+        } catch (YAMLException | ClassCastException | NullPointerException e) {
+            throw new IOException("Invalid config file " + configPath + ": " + e.getMessage(), e);
         }
 
+        config.getPlanIndex();
         return config;
     }
 
+    public Path getConfigPath() {
+        return configPath;
+    }
+
     @SuppressWarnings("unchecked")
     private List<String> getStringList(Map<String, Object> map, String key) {
         Object value = map.get(key);
@@ -123,6 +384,52 @@ public class ConfigManager {
         return new ArrayList<>();
     }
 
+    /**
+     * 解析计划的一个定时窗口，格式错误时记录警告并返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private Config.ScheduleWindow parseScheduleWindow(String planName, Object item) {
+        if (!(item instanceof Map<?, ?>)) {
+            LOGGER.warn("[Eco Power] Invalid schedule format for plan: " + planName);
+            return null;
+        }
+        Map<String, Object> windowData = (Map<String, Object>) item;
+        Config.ScheduleWindow window = new Config.ScheduleWindow();
+        window.setDurationMinutes(getInt(windowData, "durationMinutes", window.getDurationMinutes()));
+        if (windowData.get("mode") instanceof String mode) {
+            window.setMode(mode.toLowerCase(Locale.ROOT));
+        }
+        if (!(windowData.get("cron") instanceof String cron)) {
+            LOGGER.warn("[Eco Power] Ignoring schedule without cron for plan: " + planName);
+            return null;
+        }
+        window.setCron(cron);
+
+        if (window.getDurationMinutes() <= 0) {
+            LOGGER.warn("[Eco Power] Ignoring schedule '{}' for plan {}: durationMinutes must be positive", cron, planName);
+            return null;
+        }
+        if (!Config.ScheduleWindow.MODE_FORCE.equals(window.getMode()) && !window.isCap()) {
+            LOGGER.warn("[Eco Power] Ignoring schedule '{}' for plan {}: unknown mode '{}'", cron, planName, window.getMode());
+            return null;
+        }
+        try {
+            window.setCompiledCron(CronExpression.parse(cron));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("[Eco Power] Ignoring invalid schedule for plan {}: {}", planName, e.getMessage());
+            return null;
+        }
+        return window;
+    }
+
+    private int getInt(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return defaultValue;
+    }
+
     private void saveConfig(Config config) {
         try (Writer writer = new FileWriter(configPath.toFile())) {
             Map<String, Object> configMap = new LinkedHashMap<>();
@@ -131,13 +438,36 @@ public class ConfigManager {
             Map<String, Object> planMap = new LinkedHashMap<>();
             for (Map.Entry<String, Config.PlanEntry> entry : config.getPlan().entrySet()) {
                 Map<String, Object> planEntry = new LinkedHashMap<>();
-                planEntry.put("guid", entry.getValue().getGuid());
+                Config.PlanEntry plan = entry.getValue();
+                if (plan.getGuid() != null) planEntry.put("guid", plan.getGuid());
+                if (plan.getGovernor() != null) planEntry.put("governor", plan.getGovernor());
+                if (plan.getEnergyPerformancePreference() != null) {
+                    planEntry.put("energyPerformancePreference", plan.getEnergyPerformancePreference());
+                }
 
                 // 转换范围数组为列表
                 int[] range = entry.getValue().getRange();
                 planEntry.put("range", Arrays.asList(range[0], range[1]));
 
                 planEntry.put("broadcastMessage", entry.getValue().getBroadcastMessage());
+                if (plan.getMspt() != null) planEntry.put("mspt", Arrays.asList(plan.getMspt()[0], plan.getMspt()[1]));
+                if (plan.getCondition() != null) planEntry.put("condition", plan.getCondition());
+                if (!plan.getSchedule().isEmpty()) {
+                    List<Map<String, Object>> scheduleList = new ArrayList<>();
+                    for (Config.ScheduleWindow window : plan.getSchedule()) {
+                        Map<String, Object> windowMap = new LinkedHashMap<>();
+                        windowMap.put("cron", window.getCron());
+                        windowMap.put("durationMinutes", window.getDurationMinutes());
+                        windowMap.put("mode", window.getMode());
+                        scheduleList.add(windowMap);
+                    }
+                    planEntry.put("schedule", scheduleList);
+                }
+                if (plan.getHysteresis() != 0) planEntry.put("hysteresis", plan.getHysteresis());
+                if (plan.getAffinity() != null) planEntry.put("affinity", plan.getAffinity());
+                if (plan.getNice() != null) planEntry.put("nice", plan.getNice());
+                if (plan.getViewDistance() != null) planEntry.put("viewDistance", plan.getViewDistance());
+                if (plan.getSimulationDistance() != null) planEntry.put("simulationDistance", plan.getSimulationDistance());
                 planMap.put(entry.getKey(), planEntry);
             }
             configMap.put("plan", planMap);
@@ -150,9 +480,124 @@ public class ConfigManager {
             excludeMap.put("regexes", exclude.getRegexes());
             configMap.put("exclude", excludeMap);
 
+            // 保存计划选择模式与 tick 耗时采样设置
+            configMap.put("selectionMode", config.getSelectionMode());
+            Config.Mspt mspt = config.getMspt();
+            Map<String, Object> msptMap = new LinkedHashMap<>();
+            msptMap.put("windowTicks", mspt.getWindowTicks());
+            msptMap.put("ewmaAlpha", mspt.getEwmaAlpha());
+            msptMap.put("statistic", mspt.getStatistic());
+            configMap.put("mspt", msptMap);
+
+            // 保存闭环控制参数
+            Config.Controller controller = config.getController();
+            Map<String, Object> controllerMap = new LinkedHashMap<>();
+            controllerMap.put("targetMspt", controller.getTargetMspt());
+            controllerMap.put("kp", controller.getKp());
+            controllerMap.put("ki", controller.getKi());
+            controllerMap.put("minCapPercent", controller.getMinCapPercent());
+            controllerMap.put("stepPercent", controller.getStepPercent());
+            controllerMap.put("maxChangePercent", controller.getMaxChangePercent());
+            controllerMap.put("intervalTicks", controller.getIntervalTicks());
+            controllerMap.put("staleSeconds", controller.getStaleSeconds());
+            configMap.put("controller", controllerMap);
+
+            // 保存提前升档设置
+            Config.Prediction prediction = config.getPrediction();
+            Map<String, Object> predictionMap = new LinkedHashMap<>();
+            predictionMap.put("enabled", prediction.isEnabled());
+            predictionMap.put("leadMinutes", prediction.getLeadMinutes());
+            predictionMap.put("minSamples", prediction.getMinSamples());
+            configMap.put("prediction", predictionMap);
+
+            // 保存切换节流设置
+            Config.Switching switching = config.getSwitching();
+            Map<String, Object> switchingMap = new LinkedHashMap<>();
+            switchingMap.put("minDwellSeconds", switching.getMinDwellSeconds());
+            switchingMap.put("stepDownDelaySeconds", switching.getStepDownDelaySeconds());
+            switchingMap.put("maxSwitchesPerMinute", switching.getMaxSwitchesPerMinute());
+            configMap.put("switching", switchingMap);
+
             // 保存广播开关
             configMap.put("broadcastChanges", config.isBroadcastChanges());
 
+            // 保存配置文件自动重载开关
+            configMap.put("autoReload", config.isAutoReload());
+
+            // 保存切换命令超时时间
+            configMap.put("switchTimeoutMillis", config.getSwitchTimeoutMillis());
+
+            // 保存电源后端设置
+            configMap.put("backend", config.getBackend());
+            configMap.put("cpufreqRoot", config.getCpufreqRoot());
+
+            // 保存常驻助手进程设置
+            Config.Helper helper = config.getHelper();
+            Map<String, Object> helperMap = new LinkedHashMap<>();
+            helperMap.put("enabled", helper.isEnabled());
+            helperMap.put("command", helper.getCommand());
+            helperMap.put("healthCheckSeconds", helper.getHealthCheckSeconds());
+            configMap.put("helper", helperMap);
+
+            // 保存多实例仲裁设置
+            Config.Arbiter arbiter = config.getArbiter();
+            Map<String, Object> arbiterMap = new LinkedHashMap<>();
+            arbiterMap.put("enabled", arbiter.isEnabled());
+            arbiterMap.put("directory", arbiter.getDirectory());
+            arbiterMap.put("heartbeatSeconds", arbiter.getHeartbeatSeconds());
+            arbiterMap.put("timeoutSeconds", arbiter.getTimeoutSeconds());
+            configMap.put("arbiter", arbiterMap);
+
+            // 保存指标设置
+            Config.Metrics metrics = config.getMetrics();
+            Map<String, Object> metricsMap = new LinkedHashMap<>();
+            metricsMap.put("enabled", metrics.isEnabled());
+            metricsMap.put("httpPort", metrics.getHttpPort());
+            metricsMap.put("httpHost", metrics.getHttpHost());
+            configMap.put("metrics", metricsMap);
+
+            // 保存休眠设置
+            Config.Hibernation hibernation = config.getHibernation();
+            Map<String, Object> hibernationMap = new LinkedHashMap<>();
+            hibernationMap.put("enabled", hibernation.isEnabled());
+            hibernationMap.put("idleSeconds", hibernation.getIdleSeconds());
+            hibernationMap.put("mode", hibernation.getMode());
+            hibernationMap.put("throttleTickRate", hibernation.getThrottleTickRate());
+            configMap.put("hibernation", hibernationMap);
+
+            // 保存活跃度加权设置
+            Config.Activity activity = config.getActivity();
+            Map<String, Object> activityMap = new LinkedHashMap<>();
+            activityMap.put("enabled", activity.isEnabled());
+            activityMap.put("idleSeconds", activity.getIdleSeconds());
+            activityMap.put("idleWeight", activity.getIdleWeight());
+            configMap.put("activity", activityMap);
+
+            // 保存能耗采样设置
+            Config.Energy energy = config.getEnergy();
+            Map<String, Object> energyMap = new LinkedHashMap<>();
+            energyMap.put("enabled", energy.isEnabled());
+            energyMap.put("raplRoot", energy.getRaplRoot());
+            energyMap.put("sampleIntervalSeconds", energy.getSampleIntervalSeconds());
+            configMap.put("energy", energyMap);
+
+            // 保存轨迹录制设置
+            Config.Tracing trace = config.getTrace();
+            Map<String, Object> traceMap = new LinkedHashMap<>();
+            traceMap.put("enabled", trace.isEnabled());
+            traceMap.put("directory", trace.getDirectory());
+            configMap.put("trace", traceMap);
+
+            // 保存历史记录设置
+            Config.History history = config.getHistory();
+            Map<String, Object> historyMap = new LinkedHashMap<>();
+            historyMap.put("enabled", history.isEnabled());
+            historyMap.put("directory", history.getDirectory());
+            historyMap.put("sampleSeconds", history.getSampleSeconds());
+            historyMap.put("segmentRecords", history.getSegmentRecords());
+            historyMap.put("rawRetentionDays", history.getRawRetentionDays());
+            configMap.put("history", historyMap);
+
             // 设置YAML格式选项
             DumperOptions options = new DumperOptions();
             options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
@@ -0,0 +1,62 @@
+package org.xznetwork.ecopower.config;
+
+import org.xznetwork.ecopower.policy.PlanSchedule;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.util.ExclusionMatcher;
+
+import java.time.ZoneId;
+
+/**
+ * 完整编译后的配置快照：解析后的配置、计划区间索引、计划选择规则、定时窗口和排除规则匹配器
+ * 在后台线程构建，配置和编译结果发布之后不再修改，服务器线程一次性整体切换过去
+ */
+public final class ConfigSnapshot {
+    private final Config config;
+    private final ExclusionMatcher exclusion;
+    private final PlanIndex planIndex;
+    private final PlanSelector.Rules selection;
+    private final PlanSchedule schedule;
+
+    private ConfigSnapshot(Config config, ExclusionMatcher exclusion, PlanIndex planIndex,
+                           PlanSelector.Rules selection, PlanSchedule schedule) {
+        this.config = config;
+        this.exclusion = exclusion;
+        this.planIndex = planIndex;
+        this.selection = selection;
+        this.schedule = schedule;
+    }
+
+    /**
+     * 编译计划索引、选择规则、定时窗口和排除规则，{@code maxPlayers} 大于 0 时按服务器最大玩家数扩展直接查表范围
+     */
+    public static ConfigSnapshot compile(Config config, int maxPlayers) {
+        PlanIndex planIndex = maxPlayers > 0 ? config.getPlanIndex().withDenseLimit(maxPlayers) : config.getPlanIndex();
+        PlanSchedule schedule = new PlanSchedule(ZoneId.systemDefault());
+        schedule.rebuild(config.getPlan().values(), System.currentTimeMillis());
+        return new ConfigSnapshot(config, ExclusionMatcher.compile(config.getExclude()), planIndex,
+                PlanSelector.Rules.compile(config, planIndex), schedule);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public ExclusionMatcher getExclusion() {
+        return exclusion;
+    }
+
+    public PlanIndex getPlanIndex() {
+        return planIndex;
+    }
+
+    public PlanSelector.Rules getSelection() {
+        return selection;
+    }
+
+    /**
+     * 按编译时刻建立的定时窗口；服务器线程换上之后由它独占推进，过去的边界在第一次 tick 时补上
+     */
+    public PlanSchedule getSchedule() {
+        return schedule;
+    }
+}
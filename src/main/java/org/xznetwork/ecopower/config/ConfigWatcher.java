@@ -0,0 +1,184 @@
+package org.xznetwork.ecopower.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在后台线程监视并重新加载配置文件
+ * 解析和编译都在加载线程上完成，得到的 {@link ConfigSnapshot} 通过一次 volatile 写入发布；
+ * 解析失败时保留上一个可用的快照，服务器线程每个 tick 只需一次 volatile 读取
+ */
+public class ConfigWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|ConfigWatcher");
+    // 编辑器保存时常连续触发多个事件，静默这么久之后才加载
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final ConfigManager configManager;
+    private final ExecutorService loader;
+    private volatile ConfigSnapshot latest;
+    // 仅在加载线程上访问
+    private int maxPlayers = 0;
+    private byte[] lastContent;
+    private WatchService watchService;
+
+    public ConfigWatcher(ConfigManager configManager, ConfigSnapshot initial) {
+        this.configManager = configManager;
+        this.latest = initial;
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-ConfigLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(() -> {
+            try {
+                lastContent = Files.readAllBytes(configManager.getConfigPath());
+            } catch (IOException ignored) {
+                // 文件尚不存在时，第一次修改事件会正常加载
+            }
+        });
+    }
+
+    /**
+     * 最近一次成功加载的快照
+     */
+    public ConfigSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * 之后编译的快照按服务器最大玩家数扩展计划索引的直接查表范围；
+     * 当前快照也在加载线程上按新范围重新编译并发布
+     */
+    public CompletableFuture<ConfigSnapshot> setMaxPlayers(int maxPlayers) {
+        return CompletableFuture.supplyAsync(() -> {
+            this.maxPlayers = maxPlayers;
+            ConfigSnapshot snapshot = ConfigSnapshot.compile(latest.getConfig(), maxPlayers);
+            latest = snapshot;
+            return snapshot;
+        }, loader);
+    }
+
+    /**
+     * 开启或关闭文件监视，手动重新加载不受影响
+     */
+    public synchronized void setWatching(boolean watching) {
+        if (watching == (watchService != null)) return;
+        if (!watching) {
+            stopWatching();
+            return;
+        }
+
+        Path dir = configManager.getConfigPath().getParent();
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            Thread thread = new Thread(() -> watch(service), "EcoPower-ConfigWatcher");
+            thread.setDaemon(true);
+            thread.start();
+            watchService = service;
+            LOGGER.info("[Eco Power] Watching {} for changes", configManager.getConfigPath());
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to watch config directory {}", dir, e);
+        }
+    }
+
+    /**
+     * 在加载线程上强制重新加载，解析失败时以 IOException 异常完成，当前快照保持不变
+     */
+    public CompletableFuture<ConfigSnapshot> reload() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(true);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, loader);
+    }
+
+    public synchronized void close() {
+        stopWatching();
+        loader.shutdownNow();
+    }
+
+    private void stopWatching() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.debug("[Eco Power] Failed to close config watch service", e);
+        }
+        watchService = null;
+    }
+
+    private void watch(WatchService service) {
+        Path configFile = configManager.getConfigPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = touchesConfig(key, configFile);
+                key.reset();
+                if (!changed) continue;
+
+                WatchKey next;
+                while ((next = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                loader.execute(this::loadChanged);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 监视已关闭
+        }
+    }
+
+    private static boolean touchesConfig(WatchKey key, Path configFile) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || configFile.equals(event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void loadChanged() {
+        try {
+            load(false);
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Ignoring invalid config change, keeping the previous configuration: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 内容未变化且不是强制加载时返回 null
+     */
+    private ConfigSnapshot load(boolean force) throws IOException {
+        byte[] content = Files.readAllBytes(configManager.getConfigPath());
+        if (!force && Arrays.equals(content, lastContent)) {
+            return null;
+        }
+        ConfigSnapshot snapshot = ConfigSnapshot.compile(configManager.parse(content), maxPlayers);
+        lastContent = content;
+        latest = snapshot;
+        LOGGER.info("[Eco Power] Loaded new configuration from {}", configManager.getConfigPath());
+        // 注册或关闭目录监视也在这里完成，服务器线程应用快照时不再接触文件系统
+        setWatching(snapshot.getConfig().isAutoReload());
+        return snapshot;
+    }
+}
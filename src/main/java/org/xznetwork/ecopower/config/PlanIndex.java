@@ -0,0 +1,161 @@
+package org.xznetwork.ecopower.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 由配置编译得到的玩家数量区间索引
+ * 重叠区间按配置顺序先匹配者优先，编译后区间互不重叠且有序；
+ * 0 到最大玩家数之间直接查表，其余数量二分查找
+ */
+public final class PlanIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Plans");
+    public static final int DEFAULT_DENSE_LIMIT = 256;
+
+    private final long[] starts;
+    private final long[] ends;
+    private final Config.PlanEntry[] segmentPlans;
+    private final Config.PlanEntry[] dense;
+
+    private PlanIndex(long[] starts, long[] ends, Config.PlanEntry[] segmentPlans, int denseLimit) {
+        this.starts = starts;
+        this.ends = ends;
+        this.segmentPlans = segmentPlans;
+        this.dense = new Config.PlanEntry[denseLimit + 1];
+        for (int count = 0; count <= denseLimit; count++) {
+            dense[count] = search(count);
+        }
+    }
+
+    /**
+     * 按配置顺序编译计划，并在日志中报告无效、重叠和未覆盖的区间
+     */
+    public static PlanIndex compile(Collection<Config.PlanEntry> plans) {
+        List<Config.PlanEntry> valid = new ArrayList<>();
+        for (Config.PlanEntry plan : plans) {
+            int[] range = plan.getRange();
+            if (range == null || range.length != 2 || range[0] > range[1]) {
+                LOGGER.warn("[Eco Power] Plan '{}' has an invalid range {} and will never match",
+                        plan.getName(), Arrays.toString(range));
+                continue;
+            }
+            for (Config.PlanEntry earlier : valid) {
+                long from = Math.max(earlier.getRange()[0], range[0]);
+                long to = Math.min(earlier.getRange()[1], range[1]);
+                if (from <= to) {
+                    LOGGER.warn("[Eco Power] Plan '{}' overlaps '{}' for [{}, {}] players, '{}' takes precedence",
+                            plan.getName(), earlier.getName(), from, to, earlier.getName());
+                }
+            }
+            valid.add(plan);
+        }
+
+        // 档位按区间下界排序，供切换策略判断升档还是降档
+        List<Config.PlanEntry> byLowerBound = new ArrayList<>(valid);
+        byLowerBound.sort((a, b) -> a.getRange()[0] != b.getRange()[0]
+                ? Integer.compare(a.getRange()[0], b.getRange()[0])
+                : Integer.compare(a.getRange()[1], b.getRange()[1]));
+        for (Config.PlanEntry plan : plans) {
+            plan.setRank(byLowerBound.indexOf(plan));
+        }
+
+        // 所有区间端点切分出的基本区间，每段取配置中第一个覆盖它的计划
+        TreeSet<Long> boundaries = new TreeSet<>();
+        for (Config.PlanEntry plan : valid) {
+            boundaries.add((long) plan.getRange()[0]);
+            boundaries.add(plan.getRange()[1] + 1L);
+        }
+
+        List<long[]> segments = new ArrayList<>();
+        List<Config.PlanEntry> owners = new ArrayList<>();
+        Long previous = null;
+        for (Long boundary : boundaries) {
+            if (previous != null) {
+                Config.PlanEntry owner = firstCovering(valid, previous);
+                if (owner != null) {
+                    int last = segments.size() - 1;
+                    if (last >= 0 && owners.get(last) == owner && segments.get(last)[1] == previous - 1) {
+                        segments.get(last)[1] = boundary - 1;
+                    } else {
+                        segments.add(new long[]{previous, boundary - 1});
+                        owners.add(owner);
+                    }
+                }
+            }
+            previous = boundary;
+        }
+
+        reportUncovered(segments);
+
+        long[] starts = new long[segments.size()];
+        long[] ends = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            starts[i] = segments.get(i)[0];
+            ends[i] = segments.get(i)[1];
+        }
+        return new PlanIndex(starts, ends, owners.toArray(new Config.PlanEntry[0]), DEFAULT_DENSE_LIMIT);
+    }
+
+    /**
+     * 返回查表范围为 0 到 maxPlayers 的索引副本
+     */
+    public PlanIndex withDenseLimit(int maxPlayers) {
+        if (maxPlayers < 0 || maxPlayers == dense.length - 1) return this;
+        return new PlanIndex(starts, ends, segmentPlans, maxPlayers);
+    }
+
+    public Config.PlanEntry find(int playerCount) {
+        if (playerCount >= 0 && playerCount < dense.length) {
+            return dense[playerCount];
+        }
+        return search(playerCount);
+    }
+
+    private Config.PlanEntry search(long playerCount) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] > playerCount) {
+                high = mid - 1;
+            } else if (ends[mid] < playerCount) {
+                low = mid + 1;
+            } else {
+                return segmentPlans[mid];
+            }
+        }
+        return null;
+    }
+
+    private static Config.PlanEntry firstCovering(List<Config.PlanEntry> plans, long playerCount) {
+        for (Config.PlanEntry plan : plans) {
+            if (playerCount >= plan.getRange()[0] && playerCount <= plan.getRange()[1]) {
+                return plan;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 报告非负玩家数量中没有任何计划覆盖的区间
+     */
+    private static void reportUncovered(List<long[]> segments) {
+        long next = 0;
+        for (long[] segment : segments) {
+            if (segment[1] < next) continue;
+            if (segment[0] > next) {
+                LOGGER.warn("[Eco Power] No power plan covers [{}, {}] players", next, segment[0] - 1);
+            }
+            next = segment[1] + 1;
+        }
+        if (next <= Integer.MAX_VALUE) {
+            LOGGER.warn("[Eco Power] No power plan covers [{}, {}] players", next, Integer.MAX_VALUE);
+        }
+    }
+}
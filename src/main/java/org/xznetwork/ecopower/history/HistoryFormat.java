@@ -0,0 +1,90 @@
+package org.xznetwork.ecopower.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录文件格式，定长记录，大端序
+ * <pre>
+ * 分段 segment-NNNNNN.eph，创建时按容量预先分配并整体映射写入：
+ *   文件头（32 字节）：int 魔数 "EPHS"，short 版本，short 记录长度，int 容量，int 已写记录数，
+ *                     int 标志，long 创建时间（epoch 毫秒），int 保留
+ *   记录（24 字节）：  long 时间（epoch 毫秒），short 计划编号（-1 表示未知），byte 类型，byte 标志，
+ *                     int 真实玩家数，float MSPT，int 切换耗时（微秒，样本为 0）
+ * 汇总 rollup.eph，按小时和计划汇总，按时间顺序追加：
+ *   文件头（16 字节）：int 魔数 "EPHR"，short 版本，short 记录长度，int 记录数，int 已汇总的最后一个分段序号
+ *   记录（48 字节）：  见 {@link HourlyRollup}
+ * </pre>
+ * 汇总文件头中的记录数和分段序号一起更新，是压缩的提交点；序号不大于它的分段已经汇总过，只需删除。
+ * 已提交的记录不再改写，两次压缩之间跨越的小时因此可能有多条同一计划的汇总，查询时累加
+ * 计划编号对应 plans.txt 中的行号，新计划名第一次出现时追加
+ */
+final class HistoryFormat {
+    static final int SEGMENT_MAGIC = 0x45504853; // "EPHS"
+    static final int ROLLUP_MAGIC = 0x45504852; // "EPHR"
+    static final short VERSION = 1;
+
+    static final int SEGMENT_HEADER = 32;
+    static final int SEGMENT_CAPACITY_OFFSET = 8;
+    static final int SEGMENT_COUNT_OFFSET = 12;
+    static final int SEGMENT_FLAGS_OFFSET = 16;
+    static final int SEGMENT_CREATED_OFFSET = 20;
+    static final int RECORD_SIZE = 24;
+
+    static final int ROLLUP_HEADER = 16;
+    static final int ROLLUP_COUNT_OFFSET = 8;
+    static final int ROLLUP_SEQUENCE_OFFSET = 12;
+    static final int ROLLUP_SIZE = 48;
+
+    static final byte TYPE_SAMPLE = 0;
+    static final byte TYPE_SWITCH = 1;
+    static final int FLAG_FAILED = 1;
+    static final int FLAG_MANUAL = 1 << 1;
+
+    // 分段标志：已压缩进汇总，等待删除
+    static final int SEGMENT_COMPACTED = 1;
+
+    static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private HistoryFormat() {}
+
+    /**
+     * 从 {@code position} 开始读满缓冲区剩余空间，到达文件末尾时返回实际读到的字节数
+     */
+    static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    static long readLong(FileChannel channel, ByteBuffer probe, long position) throws IOException {
+        probe.clear().limit(Long.BYTES);
+        if (readFully(channel, probe, position) < Long.BYTES) {
+            throw new IOException("Unexpected end of history file");
+        }
+        return probe.getLong(0);
+    }
+
+    /**
+     * 在按时间排序的定长记录中二分查找第一条时间不早于 {@code millis} 的记录
+     */
+    static int lowerBound(FileChannel channel, ByteBuffer probe, long base, int recordSize, int count, long millis) throws IOException {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (readLong(channel, probe, base + (long) mid * recordSize) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,565 @@
+package org.xznetwork.ecopower.history;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 计划切换和负载样本的历史记录
+ * 服务器线程把定长记录直接写入内存映射的分段，写满后换上后台线程预先分配好的下一个分段，刷盘也交给后台线程；
+ * 后台线程每小时把超过保留期的分段压缩为每小时汇总后删除。查询同样在后台线程上进行：
+ * 二分查找起点后按块流式读取，不把整个文件读入堆内存
+ */
+public class HistoryLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|History");
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".eph";
+    private static final String ROLLUP_FILE = "rollup.eph";
+    private static final String PLANS_FILE = "plans.txt";
+    private static final long COMPACT_INTERVAL_MINUTES = 60;
+    private static final int MIN_SEGMENT_RECORDS = 64;
+    private static final int MAX_SEGMENT_RECORDS = 1 << 22;
+    // 分段记录和汇总记录长度的公倍数，每块都是完整记录
+    private static final int READ_CHUNK_BYTES = 48 * 1024;
+
+    private final Path directory;
+    private final ScheduledExecutorService worker;
+
+    // 以下只在后台线程上使用
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_CHUNK_BYTES);
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(HistoryFormat.SEGMENT_HEADER);
+    private final ByteBuffer probe = ByteBuffer.allocate(Long.BYTES);
+
+    // 计划名称表由 this 保护
+    private final List<String> planNames = new ArrayList<>();
+    private final Map<String, Short> planIndexes = new HashMap<>();
+
+    // 以下只在服务器线程上使用
+    private HistorySegment segment;
+    private short currentPlan = -1;
+    private long lastRecordMillis = 0;
+    private long sampleIntervalMillis;
+
+    // 后台线程预先分配的下一个分段，由服务器线程取走
+    private final AtomicReference<HistorySegment> spare = new AtomicReference<>();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private volatile int segmentRecords;
+    private volatile long activeSequence;
+    private volatile long rawRetentionMillis;
+
+    private HistoryLog(Path directory) {
+        this.directory = directory;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-History");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 打开目录中的历史记录，继续写入最新的未写满分段，否则新建一个分段
+     */
+    public static HistoryLog open(Path directory, Config.History settings) throws IOException {
+        Files.createDirectories(directory);
+        HistoryLog log = new HistoryLog(directory);
+        log.updateSettings(settings);
+        try {
+            log.loadPlanNames();
+            log.openSegment(System.currentTimeMillis());
+        } catch (IOException e) {
+            log.worker.shutdown();
+            throw e;
+        }
+        long nextSequence = log.activeSequence + 1;
+        log.worker.execute(() -> log.prepareSpare(nextSequence));
+        log.worker.scheduleWithFixedDelay(log::compact, 0, COMPACT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        LOGGER.info("[Eco Power] Recording plan history to {}", directory);
+        return log;
+    }
+
+    /**
+     * 更新采样间隔和保留期；分段容量从下一次预先分配的分段开始生效
+     */
+    public void updateSettings(Config.History settings) {
+        this.sampleIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, settings.getSampleSeconds()));
+        this.segmentRecords = Math.max(MIN_SEGMENT_RECORDS, Math.min(MAX_SEGMENT_RECORDS, settings.getSegmentRecords()));
+        this.rawRetentionMillis = TimeUnit.DAYS.toMillis(Math.max(1, settings.getRawRetentionDays()));
+    }
+
+    public long getSampleIntervalMillis() {
+        return sampleIntervalMillis;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 设置之后的样本所属的计划，不写入记录；用于运行中开启记录时接上已生效的计划
+     */
+    public void setCurrentPlan(String planName) {
+        currentPlan = planIndex(planName);
+    }
+
+    /**
+     * 记录一个负载样本，计划为最近一次成功切换到的计划
+     */
+    public void recordSample(long nowMillis, int realPlayerCount, double mspt) {
+        append(nowMillis, currentPlan, HistoryFormat.TYPE_SAMPLE, 0, realPlayerCount, (float) mspt, 0);
+    }
+
+    /**
+     * 记录一次计划切换
+     *
+     * @param latencyNanos 从提交切换到结果回到服务器线程的耗时
+     */
+    public void recordSwitch(long nowMillis, String planName, int realPlayerCount, double mspt,
+                             long latencyNanos, boolean success, boolean manual) {
+        short plan = planIndex(planName);
+        if (success) {
+            currentPlan = plan;
+        }
+        int flags = (success ? 0 : HistoryFormat.FLAG_FAILED) | (manual ? HistoryFormat.FLAG_MANUAL : 0);
+        int latencyMicros = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(Math.max(0, latencyNanos)));
+        append(nowMillis, plan, HistoryFormat.TYPE_SWITCH, flags, realPlayerCount, (float) mspt, latencyMicros);
+    }
+
+    /**
+     * 在后台线程上汇总 [fromMillis, toMillis) 内的记录；早于原始记录的部分按小时汇总计算
+     */
+    public CompletableFuture<HistorySummary> query(long fromMillis, long toMillis) {
+        List<String> names;
+        synchronized (this) {
+            names = List.copyOf(planNames);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            HistorySummary summary = new HistorySummary(fromMillis, toMillis, names);
+            try {
+                long rawStart = queryRaw(summary, fromMillis, toMillis);
+                queryRollups(summary, fromMillis, Math.min(toMillis, rawStart));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return summary;
+        }, worker);
+    }
+
+    /**
+     * 停止后台线程并把当前分段写回磁盘
+     */
+    public void close() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    private void append(long nowMillis, short plan, byte type, int flags, int players, float mspt, int latencyMicros) {
+        if (segment == null) return;
+        // 系统时钟回拨时沿用上一条记录的时间，保持分段内按时间排序
+        long time = Math.max(nowMillis, lastRecordMillis);
+        lastRecordMillis = time;
+        if (!segment.append(time, plan, type, flags, players, mspt, latencyMicros)) {
+            rotate(time);
+            if (segment != null) {
+                segment.append(time, plan, type, flags, players, mspt, latencyMicros);
+            }
+        }
+    }
+
+    /**
+     * 换上预先分配的分段，写满的分段交给后台线程刷盘；服务器线程上不创建文件也不等待磁盘
+     * 后台线程还没分配好（例如正在压缩）时丢弃这条记录，下一条记录再尝试
+     */
+    private void rotate(long nowMillis) {
+        HistorySegment next = spare.getAndSet(null);
+        if (next == null) {
+            LOGGER.debug("[Eco Power] Next history segment is not ready yet, dropping record at {}", nowMillis);
+            return;
+        }
+        HistorySegment full = segment;
+        segment = next;
+        activeSequence = next.getSequence();
+        worker.execute(() -> {
+            full.force();
+            prepareSpare(next.getSequence() + 1);
+        });
+        // 连续换段时只排队一次压缩
+        if (compactionQueued.compareAndSet(false, true)) {
+            worker.execute(this::compact);
+        }
+    }
+
+    /**
+     * 在后台线程上创建并映射下一个分段；空分段不参与压缩和查询，重启时作为最新分段继续写入
+     */
+    private void prepareSpare(long sequence) {
+        try {
+            spare.set(HistorySegment.create(segmentFile(sequence), sequence, segmentRecords, System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to create history segment, history recording stopped", e);
+        }
+    }
+
+    private void openSegment(long nowMillis) throws IOException {
+        TreeMap<Long, Path> segments = listSegments();
+        long sequence = 1;
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            segment = HistorySegment.reopen(last.getValue(), last.getKey());
+            sequence = last.getKey() + 1;
+        }
+        if (segment == null) {
+            segment = HistorySegment.create(segmentFile(sequence), sequence, segmentRecords, nowMillis);
+        }
+        activeSequence = segment.getSequence();
+    }
+
+    private Path segmentFile(long sequence) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    LOGGER.debug("[Eco Power] Ignoring unexpected file in history directory: {}", name);
+                }
+            }
+        }
+        return segments;
+    }
+
+    // ===== 计划名称表 =====
+
+    private synchronized void loadPlanNames() throws IOException {
+        Path file = directory.resolve(PLANS_FILE);
+        if (!Files.exists(file)) return;
+        for (String name : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            planIndexes.putIfAbsent(name, (short) planNames.size());
+            planNames.add(name);
+        }
+    }
+
+    private synchronized short planIndex(String name) {
+        if (name == null) return -1;
+        Short index = planIndexes.get(name);
+        if (index != null) return index;
+        if (planNames.size() >= Short.MAX_VALUE) return -1;
+
+        short created = (short) planNames.size();
+        planNames.add(name);
+        planIndexes.put(name, created);
+        List<String> snapshot = List.copyOf(planNames);
+        worker.execute(() -> {
+            try {
+                Files.write(directory.resolve(PLANS_FILE), snapshot, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                LOGGER.warn("[Eco Power] Failed to save history plan names", e);
+            }
+        });
+        return created;
+    }
+
+    // ===== 后台线程：压缩与查询 =====
+
+    /**
+     * 把超过保留期的分段汇总后一次性追加到汇总文件，提交后再标记并删除这些分段
+     * 提交之前异常退出时分段原样保留，下次重新汇总；提交之后异常退出时按汇总文件头中的序号跳过，不会重复计入
+     */
+    private void compact() {
+        compactionQueued.set(false);
+        try {
+            long cutoff = System.currentTimeMillis() - rawRetentionMillis;
+            long active = activeSequence;
+            long compactedSequence = readCompactedSequence();
+            TreeMap<Long, HourlyRollup> buckets = new TreeMap<>();
+            List<Path> finished = new ArrayList<>();
+            long lastSequence = compactedSequence;
+            for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+                if (entry.getKey() >= active) break;
+                if (entry.getKey() <= compactedSequence) {
+                    finished.add(entry.getValue());
+                    continue;
+                }
+                // 分段按序号从旧到新，遇到仍在保留期内的分段即可停止
+                SegmentState state = collectSegment(entry.getValue(), cutoff, buckets);
+                if (state == SegmentState.RETAINED) break;
+                if (state == SegmentState.COLLECTED) {
+                    lastSequence = entry.getKey();
+                }
+                if (state != SegmentState.UNRECOGNIZED) {
+                    finished.add(entry.getValue());
+                }
+            }
+            if (lastSequence > compactedSequence) {
+                appendRollups(buckets.values(), lastSequence);
+                LOGGER.debug("[Eco Power] Compacted history up to segment {} into {} hourly rollups", lastSequence, buckets.size());
+            }
+            for (Path file : finished) {
+                deleteSegment(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("[Eco Power] Failed to compact plan history", e);
+        }
+    }
+
+    private enum SegmentState {
+        RETAINED, COLLECTED, COMPACTED, UNRECOGNIZED
+    }
+
+    /**
+     * 把超过保留期的分段按小时和计划汇总，与同一次压缩中其他分段的汇总合并
+     */
+    private SegmentState collectSegment(Path file, long cutoff, TreeMap<Long, HourlyRollup> batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int count = readSegmentCount(channel);
+            if (count < 0) {
+                LOGGER.warn("[Eco Power] Skipping unrecognized history segment {}", file);
+                return SegmentState.UNRECOGNIZED;
+            }
+            if (headerBuffer.getInt(HistoryFormat.SEGMENT_FLAGS_OFFSET) != 0) {
+                return SegmentState.COMPACTED;
+            }
+            if (count > 0 && lastRecordTime(channel, count) >= cutoff) {
+                return SegmentState.RETAINED;
+            }
+            TreeMap<Long, HourlyRollup> buckets = new TreeMap<>();
+            forEachRecord(channel, 0, count, Long.MAX_VALUE, (time, plan, type, flags, players, mspt, latency) -> {
+                long hour = Math.floorDiv(time, HistoryFormat.HOUR_MILLIS);
+                HourlyRollup rollup = buckets.computeIfAbsent((hour << 16) | (plan & 0xFFFF),
+                        key -> new HourlyRollup(hour * HistoryFormat.HOUR_MILLIS, plan));
+                if (type == HistoryFormat.TYPE_SWITCH) {
+                    rollup.addSwitch((flags & HistoryFormat.FLAG_FAILED) == 0, latency);
+                } else {
+                    rollup.addSample(players, mspt);
+                }
+            });
+            // 跨越两个分段的小时合并为一条
+            buckets.forEach((key, rollup) -> batch.merge(key, rollup, (existing, added) -> {
+                existing.merge(added);
+                return existing;
+            }));
+            return SegmentState.COLLECTED;
+        }
+    }
+
+    /**
+     * 先在分段头中标记已压缩再删除；Windows 上映射未被回收时删除会失败，下次压缩时按汇总文件头中的序号跳过并重试
+     */
+    private void deleteSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer flags = ByteBuffer.allocate(Integer.BYTES).putInt(0, HistoryFormat.SEGMENT_COMPACTED);
+            channel.write(flags, HistoryFormat.SEGMENT_FLAGS_OFFSET);
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            LOGGER.debug("[Eco Power] History segment {} is still mapped, will retry deletion later", file);
+        }
+    }
+
+    /**
+     * 按时间顺序在已提交的记录之后追加汇总，写完后在文件头中同时更新记录数和分段序号
+     * 早于文件末尾小时的汇总（系统时钟回拨）会破坏时间顺序，直接丢弃
+     */
+    private void appendRollups(Collection<HourlyRollup> rollups, long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(ROLLUP_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HistoryFormat.ROLLUP_HEADER);
+            int count = readRollupHeader(header);
+            if (sequence <= header.getInt(HistoryFormat.ROLLUP_SEQUENCE_OFFSET)) return;
+
+            long lastHour = count > 0 ? HistoryFormat.readLong(channel, probe, rollupOffset(count - 1)) : Long.MIN_VALUE;
+            List<HourlyRollup> appended = new ArrayList<>();
+            for (HourlyRollup rollup : rollups) {
+                if (rollup.hourStart >= lastHour) appended.add(rollup);
+            }
+            if (!appended.isEmpty()) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, rollupOffset(count),
+                        (long) appended.size() * HistoryFormat.ROLLUP_SIZE);
+                for (int i = 0; i < appended.size(); i++) {
+                    appended.get(i).write(region, i * HistoryFormat.ROLLUP_SIZE);
+                }
+                region.force();
+            }
+            header.putInt(HistoryFormat.ROLLUP_COUNT_OFFSET, count + appended.size());
+            header.putInt(HistoryFormat.ROLLUP_SEQUENCE_OFFSET, (int) sequence);
+            header.force();
+        }
+    }
+
+    /**
+     * 汇总文件头中记录的最后一个已汇总分段序号，还没有汇总时为 0
+     */
+    private long readCompactedSequence() throws IOException {
+        Path file = directory.resolve(ROLLUP_FILE);
+        if (!Files.exists(file)) return 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HistoryFormat.ROLLUP_HEADER);
+            if (HistoryFormat.readFully(channel, header, 0) < HistoryFormat.ROLLUP_HEADER) return 0;
+            readRollupHeader(header);
+            return header.getInt(HistoryFormat.ROLLUP_SEQUENCE_OFFSET);
+        }
+    }
+
+    /**
+     * @return 原始记录中最早的时间，没有原始记录时为 {@link Long#MAX_VALUE}
+     */
+    private long queryRaw(HistorySummary summary, long fromMillis, long toMillis) throws IOException {
+        long rawStart = Long.MAX_VALUE;
+        long compactedSequence = readCompactedSequence();
+        for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+            // 已汇总但还没来得及删除的分段由汇总计入
+            if (entry.getKey() <= compactedSequence) continue;
+            try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                int count = readSegmentCount(channel);
+                if (count <= 0 || headerBuffer.getInt(HistoryFormat.SEGMENT_FLAGS_OFFSET) != 0) continue;
+
+                long first = HistoryFormat.readLong(channel, probe, HistoryFormat.SEGMENT_HEADER);
+                rawStart = Math.min(rawStart, first);
+                if (first >= toMillis) break;
+                if (lastRecordTime(channel, count) < fromMillis) continue;
+
+                int start = HistoryFormat.lowerBound(channel, probe, HistoryFormat.SEGMENT_HEADER,
+                        HistoryFormat.RECORD_SIZE, count, fromMillis);
+                forEachRecord(channel, start, count, toMillis, (time, plan, type, flags, players, mspt, latency) ->
+                        summary.addRecord(plan, type, flags, players, mspt, latency));
+            }
+        }
+        return rawStart;
+    }
+
+    private void queryRollups(HistorySummary summary, long fromMillis, long beforeMillis) throws IOException {
+        Path file = directory.resolve(ROLLUP_FILE);
+        if (!Files.exists(file)) return;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HistoryFormat.ROLLUP_HEADER) return;
+            ByteBuffer header = ByteBuffer.allocate(HistoryFormat.ROLLUP_HEADER);
+            HistoryFormat.readFully(channel, header, 0);
+            int count = readRollupHeader(header);
+
+            // 包含起点所在的整个小时
+            long fromHour = Math.floorDiv(fromMillis, HistoryFormat.HOUR_MILLIS) * HistoryFormat.HOUR_MILLIS;
+            int start = HistoryFormat.lowerBound(channel, probe, HistoryFormat.ROLLUP_HEADER,
+                    HistoryFormat.ROLLUP_SIZE, count, fromHour);
+            long position = rollupOffset(start);
+            long end = rollupOffset(count);
+            while (position < end) {
+                readBuffer.clear().limit((int) Math.min(readBuffer.capacity(), end - position));
+                int read = HistoryFormat.readFully(channel, readBuffer, position);
+                for (int offset = 0; offset + HistoryFormat.ROLLUP_SIZE <= read; offset += HistoryFormat.ROLLUP_SIZE) {
+                    HourlyRollup rollup = HourlyRollup.read(readBuffer, offset);
+                    if (rollup.hourStart >= beforeMillis) return;
+                    summary.addRollup(rollup);
+                }
+                if (read < HistoryFormat.ROLLUP_SIZE) return;
+                position += read - read % HistoryFormat.ROLLUP_SIZE;
+            }
+        }
+    }
+
+    /**
+     * 按块读取分段中 [start, count) 的记录，遇到不早于 {@code beforeMillis} 的记录时停止
+     */
+    private void forEachRecord(FileChannel channel, int start, int count, long beforeMillis, RecordVisitor visitor) throws IOException {
+        long position = HistoryFormat.SEGMENT_HEADER + (long) start * HistoryFormat.RECORD_SIZE;
+        long end = HistoryFormat.SEGMENT_HEADER + (long) count * HistoryFormat.RECORD_SIZE;
+        while (position < end) {
+            readBuffer.clear().limit((int) Math.min(readBuffer.capacity(), end - position));
+            int read = HistoryFormat.readFully(channel, readBuffer, position);
+            for (int offset = 0; offset + HistoryFormat.RECORD_SIZE <= read; offset += HistoryFormat.RECORD_SIZE) {
+                long time = readBuffer.getLong(offset);
+                if (time >= beforeMillis) return;
+                visitor.visit(time, readBuffer.getShort(offset + 8), readBuffer.get(offset + 10), readBuffer.get(offset + 11) & 0xFF,
+                        readBuffer.getInt(offset + 12), readBuffer.getFloat(offset + 16), readBuffer.getInt(offset + 20));
+            }
+            if (read < HistoryFormat.RECORD_SIZE) return;
+            position += read - read % HistoryFormat.RECORD_SIZE;
+        }
+    }
+
+    /**
+     * 读取分段文件头到 {@link #headerBuffer}，返回已写记录数，格式不符时返回 -1
+     */
+    private int readSegmentCount(FileChannel channel) throws IOException {
+        headerBuffer.clear();
+        if (HistoryFormat.readFully(channel, headerBuffer, 0) < HistoryFormat.SEGMENT_HEADER
+                || headerBuffer.getInt(0) != HistoryFormat.SEGMENT_MAGIC
+                || headerBuffer.getShort(4) != HistoryFormat.VERSION
+                || headerBuffer.getShort(6) != HistoryFormat.RECORD_SIZE) {
+            return -1;
+        }
+        int capacity = headerBuffer.getInt(HistoryFormat.SEGMENT_CAPACITY_OFFSET);
+        int count = headerBuffer.getInt(HistoryFormat.SEGMENT_COUNT_OFFSET);
+        if (count < 0 || count > capacity
+                || HistoryFormat.SEGMENT_HEADER + (long) count * HistoryFormat.RECORD_SIZE > channel.size()) {
+            return -1;
+        }
+        return count;
+    }
+
+    private long lastRecordTime(FileChannel channel, int count) throws IOException {
+        return HistoryFormat.readLong(channel, probe, HistoryFormat.SEGMENT_HEADER + (long) (count - 1) * HistoryFormat.RECORD_SIZE);
+    }
+
+    /**
+     * 校验汇总文件头并返回记录数；新文件写入文件头
+     */
+    private static int readRollupHeader(ByteBuffer header) throws IOException {
+        if (header.getInt(0) == 0) {
+            header.putInt(0, HistoryFormat.ROLLUP_MAGIC);
+            header.putShort(4, HistoryFormat.VERSION);
+            header.putShort(6, (short) HistoryFormat.ROLLUP_SIZE);
+            header.putInt(HistoryFormat.ROLLUP_COUNT_OFFSET, 0);
+            return 0;
+        }
+        if (header.getInt(0) != HistoryFormat.ROLLUP_MAGIC || header.getShort(4) != HistoryFormat.VERSION
+                || header.getShort(6) != HistoryFormat.ROLLUP_SIZE) {
+            throw new IOException("Unrecognized history rollup file");
+        }
+        return header.getInt(HistoryFormat.ROLLUP_COUNT_OFFSET);
+    }
+
+    private static long rollupOffset(int index) {
+        return HistoryFormat.ROLLUP_HEADER + (long) index * HistoryFormat.ROLLUP_SIZE;
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long time, short plan, byte type, int flags, int players, float mspt, int latencyMicros);
+    }
+}
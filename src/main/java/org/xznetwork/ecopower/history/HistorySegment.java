@@ -0,0 +1,107 @@
+package org.xznetwork.ecopower.history;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 正在写入的分段：文件按容量预先分配并整体映射，追加一条记录只是几次内存写入
+ * 只在服务器线程上写入；映射在对象不再被引用后由 GC 释放
+ */
+final class HistorySegment {
+    private final Path file;
+    private final long sequence;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int count;
+
+    private HistorySegment(Path file, long sequence, MappedByteBuffer buffer, int capacity, int count) {
+        this.file = file;
+        this.sequence = sequence;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    static HistorySegment create(Path file, long sequence, int capacity, long nowMillis) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HistoryFormat.SEGMENT_HEADER + (long) capacity * HistoryFormat.RECORD_SIZE);
+            buffer.putInt(0, HistoryFormat.SEGMENT_MAGIC);
+            buffer.putShort(4, HistoryFormat.VERSION);
+            buffer.putShort(6, (short) HistoryFormat.RECORD_SIZE);
+            buffer.putInt(HistoryFormat.SEGMENT_CAPACITY_OFFSET, capacity);
+            buffer.putInt(HistoryFormat.SEGMENT_COUNT_OFFSET, 0);
+            buffer.putInt(HistoryFormat.SEGMENT_FLAGS_OFFSET, 0);
+            buffer.putLong(HistoryFormat.SEGMENT_CREATED_OFFSET, nowMillis);
+            return new HistorySegment(file, sequence, buffer, capacity, 0);
+        }
+    }
+
+    /**
+     * 打开未写满的分段继续追加；格式不符、已写满或已压缩时返回 null
+     * 异常退出时文件头中的记录数可能落后，从该位置向后找回已写入的记录
+     */
+    static HistorySegment reopen(Path file, long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HistoryFormat.SEGMENT_HEADER) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.getInt(0) != HistoryFormat.SEGMENT_MAGIC || buffer.getShort(4) != HistoryFormat.VERSION
+                    || buffer.getShort(6) != HistoryFormat.RECORD_SIZE || buffer.getInt(HistoryFormat.SEGMENT_FLAGS_OFFSET) != 0) {
+                return null;
+            }
+            int capacity = buffer.getInt(HistoryFormat.SEGMENT_CAPACITY_OFFSET);
+            if (capacity <= 0 || HistoryFormat.SEGMENT_HEADER + (long) capacity * HistoryFormat.RECORD_SIZE != channel.size()) {
+                return null;
+            }
+
+            int count = Math.max(0, Math.min(buffer.getInt(HistoryFormat.SEGMENT_COUNT_OFFSET), capacity));
+            while (count < capacity && buffer.getLong(HistoryFormat.SEGMENT_HEADER + count * HistoryFormat.RECORD_SIZE) != 0) {
+                count++;
+            }
+            if (count == capacity) return null;
+            buffer.putInt(HistoryFormat.SEGMENT_COUNT_OFFSET, count);
+            return new HistorySegment(file, sequence, buffer, capacity, count);
+        }
+    }
+
+    /**
+     * @return 分段已写满时返回 false，记录未写入
+     */
+    boolean append(long timeMillis, short plan, byte type, int flags, int players, float mspt, int latencyMicros) {
+        if (count == capacity) return false;
+        int offset = HistoryFormat.SEGMENT_HEADER + count * HistoryFormat.RECORD_SIZE;
+        buffer.putShort(offset + 8, plan);
+        buffer.put(offset + 10, type);
+        buffer.put(offset + 11, (byte) flags);
+        buffer.putInt(offset + 12, players);
+        buffer.putFloat(offset + 16, mspt);
+        buffer.putInt(offset + 20, latencyMicros);
+        // 时间最后写入：非 0 的时间表示记录完整
+        buffer.putLong(offset, timeMillis);
+        buffer.putInt(HistoryFormat.SEGMENT_COUNT_OFFSET, ++count);
+        return true;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * 把映射中的修改写回磁盘
+     */
+    void force() {
+        buffer.force();
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+}
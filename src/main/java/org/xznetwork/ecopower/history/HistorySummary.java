@@ -0,0 +1,167 @@
+package org.xznetwork.ecopower.history;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一段时间内的历史汇总，由 {@link HistoryLog#query} 在后台线程上逐条累加
+ * 计划占比按样本数计算，采样间隔固定时即为时间占比
+ */
+public class HistorySummary {
+    private final long fromMillis;
+    private final long toMillis;
+    private final List<String> planNames;
+
+    private long rawRecords = 0;
+    private long rollupRecords = 0;
+    private long samples = 0;
+    private long sumPlayers = 0;
+    private int maxPlayers = 0;
+    private double sumMspt = 0;
+    private float maxMspt = 0;
+    private long switches = 0;
+    private long failedSwitches = 0;
+    private long sumLatencyMicros = 0;
+    private int maxLatencyMicros = 0;
+    private long[] samplesByPlan = new long[8];
+    private long unknownPlanSamples = 0;
+
+    HistorySummary(long fromMillis, long toMillis, List<String> planNames) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.planNames = planNames;
+    }
+
+    void addRecord(short plan, byte type, int flags, int players, float mspt, int latencyMicros) {
+        rawRecords++;
+        if (type == HistoryFormat.TYPE_SWITCH) {
+            if ((flags & HistoryFormat.FLAG_FAILED) != 0) {
+                failedSwitches++;
+            } else {
+                switches++;
+            }
+            sumLatencyMicros += latencyMicros;
+            maxLatencyMicros = Math.max(maxLatencyMicros, latencyMicros);
+            return;
+        }
+        samples++;
+        sumPlayers += players;
+        maxPlayers = Math.max(maxPlayers, players);
+        sumMspt += mspt;
+        maxMspt = Math.max(maxMspt, mspt);
+        countPlan(plan, 1);
+    }
+
+    void addRollup(HourlyRollup rollup) {
+        rollupRecords++;
+        samples += rollup.samples;
+        sumPlayers += rollup.sumPlayers;
+        maxPlayers = Math.max(maxPlayers, rollup.maxPlayers);
+        sumMspt += rollup.sumMspt;
+        maxMspt = Math.max(maxMspt, rollup.maxMspt);
+        switches += rollup.switches;
+        failedSwitches += rollup.failedSwitches;
+        sumLatencyMicros += rollup.sumLatencyMicros;
+        maxLatencyMicros = Math.max(maxLatencyMicros, rollup.maxLatencyMicros);
+        countPlan(rollup.plan, rollup.samples);
+    }
+
+    private void countPlan(short plan, long count) {
+        if (plan < 0) {
+            unknownPlanSamples += count;
+            return;
+        }
+        if (plan >= samplesByPlan.length) {
+            samplesByPlan = Arrays.copyOf(samplesByPlan, Math.max(plan + 1, samplesByPlan.length * 2));
+        }
+        samplesByPlan[plan] += count;
+    }
+
+    public boolean isEmpty() {
+        return samples == 0 && switches == 0 && failedSwitches == 0;
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    /**
+     * 直接读取的原始记录数（样本和切换）
+     */
+    public long getRawRecords() {
+        return rawRecords;
+    }
+
+    /**
+     * 读取的每小时汇总记录数，早于原始记录保留期的部分来自这里
+     */
+    public long getRollupRecords() {
+        return rollupRecords;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public double getAveragePlayers() {
+        return samples == 0 ? 0 : (double) sumPlayers / samples;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public double getAverageMspt() {
+        return samples == 0 ? 0 : sumMspt / samples;
+    }
+
+    public float getMaxMspt() {
+        return maxMspt;
+    }
+
+    public long getSwitches() {
+        return switches;
+    }
+
+    public long getFailedSwitches() {
+        return failedSwitches;
+    }
+
+    /**
+     * 包括失败的切换在内的平均切换耗时
+     */
+    public double getAverageLatencyMillis() {
+        long attempts = switches + failedSwitches;
+        return attempts == 0 ? 0 : sumLatencyMicros / 1000.0 / attempts;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyMicros / 1000.0;
+    }
+
+    /**
+     * 各计划的样本占比，按占比从高到低排列
+     */
+    public Map<String, Double> getPlanShares() {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        if (samples == 0) return shares;
+        Integer[] order = new Integer[samplesByPlan.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(samplesByPlan[b], samplesByPlan[a]));
+        for (int plan : order) {
+            if (samplesByPlan[plan] == 0) break;
+            String name = plan < planNames.size() ? planNames.get(plan) : "plan #" + plan;
+            shares.put(name, (double) samplesByPlan[plan] / samples);
+        }
+        if (unknownPlanSamples > 0) {
+            shares.put("(unknown)", (double) unknownPlanSamples / samples);
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,94 @@
+package org.xznetwork.ecopower.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 一个小时内处于同一计划的汇总
+ * <pre>
+ * long 小时开始时间，short 计划编号，short 保留，int 样本数，int 成功切换次数，int 失败切换次数，
+ * int 玩家数之和，int 最大玩家数，float MSPT 之和，float 最大 MSPT，int 切换耗时之和（微秒），int 最大切换耗时
+ * </pre>
+ * 切换按目标计划计入；求和字段到达 int 上限时饱和
+ */
+final class HourlyRollup {
+    long hourStart;
+    short plan;
+    int samples;
+    int switches;
+    int failedSwitches;
+    int sumPlayers;
+    int maxPlayers;
+    float sumMspt;
+    float maxMspt;
+    int sumLatencyMicros;
+    int maxLatencyMicros;
+
+    HourlyRollup(long hourStart, short plan) {
+        this.hourStart = hourStart;
+        this.plan = plan;
+    }
+
+    void addSample(int players, float mspt) {
+        samples++;
+        sumPlayers = saturatedAdd(sumPlayers, players);
+        maxPlayers = Math.max(maxPlayers, players);
+        sumMspt += mspt;
+        maxMspt = Math.max(maxMspt, mspt);
+    }
+
+    void addSwitch(boolean success, int latencyMicros) {
+        if (success) {
+            switches++;
+        } else {
+            failedSwitches++;
+        }
+        sumLatencyMicros = saturatedAdd(sumLatencyMicros, latencyMicros);
+        maxLatencyMicros = Math.max(maxLatencyMicros, latencyMicros);
+    }
+
+    void merge(HourlyRollup other) {
+        samples += other.samples;
+        switches += other.switches;
+        failedSwitches += other.failedSwitches;
+        sumPlayers = saturatedAdd(sumPlayers, other.sumPlayers);
+        maxPlayers = Math.max(maxPlayers, other.maxPlayers);
+        sumMspt += other.sumMspt;
+        maxMspt = Math.max(maxMspt, other.maxMspt);
+        sumLatencyMicros = saturatedAdd(sumLatencyMicros, other.sumLatencyMicros);
+        maxLatencyMicros = Math.max(maxLatencyMicros, other.maxLatencyMicros);
+    }
+
+    static HourlyRollup read(ByteBuffer buffer, int offset) {
+        HourlyRollup rollup = new HourlyRollup(buffer.getLong(offset), buffer.getShort(offset + 8));
+        rollup.samples = buffer.getInt(offset + 12);
+        rollup.switches = buffer.getInt(offset + 16);
+        rollup.failedSwitches = buffer.getInt(offset + 20);
+        rollup.sumPlayers = buffer.getInt(offset + 24);
+        rollup.maxPlayers = buffer.getInt(offset + 28);
+        rollup.sumMspt = buffer.getFloat(offset + 32);
+        rollup.maxMspt = buffer.getFloat(offset + 36);
+        rollup.sumLatencyMicros = buffer.getInt(offset + 40);
+        rollup.maxLatencyMicros = buffer.getInt(offset + 44);
+        return rollup;
+    }
+
+    void write(ByteBuffer buffer, int offset) {
+        buffer.putLong(offset, hourStart);
+        buffer.putShort(offset + 8, plan);
+        buffer.putShort(offset + 10, (short) 0);
+        buffer.putInt(offset + 12, samples);
+        buffer.putInt(offset + 16, switches);
+        buffer.putInt(offset + 20, failedSwitches);
+        buffer.putInt(offset + 24, sumPlayers);
+        buffer.putInt(offset + 28, maxPlayers);
+        buffer.putFloat(offset + 32, sumMspt);
+        buffer.putFloat(offset + 36, maxMspt);
+        buffer.putInt(offset + 40, sumLatencyMicros);
+        buffer.putInt(offset + 44, maxLatencyMicros);
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        long sum = (long) a + b;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+}
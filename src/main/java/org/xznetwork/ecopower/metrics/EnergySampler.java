@@ -0,0 +1,273 @@
+package org.xznetwork.ecopower.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 在后台线程按固定间隔读取 RAPL 能耗计数器（intel-rapl:N/energy_uj），把能耗归属到当前计划和真实玩家小时
+ * 只读取顶层 package 区域，core、dram 等子区域已包含在内；计数器回绕时按 max_energy_range_uj 修正
+ * 服务器线程只写入两个 volatile 字段，统计结果保存在固定大小的基本类型数组中
+ */
+public class EnergySampler {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Energy");
+    private static final Pattern PACKAGE_ZONE = Pattern.compile("intel-rapl:\\d+");
+    public static final int MAX_PLANS = 32;
+    // 最近的采样保留一小时（按 5 秒间隔），用于计算近期平均功率
+    private static final int HISTORY_SIZE = 720;
+
+    private final Path root;
+    private final int intervalSeconds;
+    private Path[] counters;
+    private long[] maxRanges;
+    private long[] lastValues;
+    private long[] readValues; // 本次读取的值，全部读取成功后才替换 lastValues
+    private long lastSampleNanos;
+    private ScheduledExecutorService executor;
+    private boolean failing = false;
+
+    private volatile String activePlanId;
+    private volatile int realPlayerCount;
+
+    // 以下统计由 this 保护
+    private final String[] planIds = new String[MAX_PLANS];
+    private final long[] planMicrojoules = new long[MAX_PLANS];
+    private final long[] planNanos = new long[MAX_PLANS];
+    private int planCount = 0;
+    private long totalMicrojoules = 0;
+    private long totalNanos = 0;
+    private long occupiedMicrojoules = 0;
+    private long playerNanos = 0;
+    private final long[] historyNanos = new long[HISTORY_SIZE];
+    private final long[] historyMicrojoules = new long[HISTORY_SIZE];
+    private int historyHead = 0;
+    private int historyCount = 0;
+
+    public EnergySampler(Path root, int intervalSeconds) {
+        this.root = root;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+    }
+
+    /**
+     * 查找 RAPL 区域并开始采样，找不到可读的计数器时返回 false
+     */
+    public boolean start() {
+        List<Path> zones = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, "intel-rapl*")) {
+            for (Path zone : stream) {
+                if (PACKAGE_ZONE.matcher(zone.getFileName().toString()).matches()
+                        && Files.exists(zone.resolve("energy_uj"))) {
+                    zones.add(zone);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to list RAPL zones under {}: {}", root, e.toString());
+            return false;
+        }
+        if (zones.isEmpty()) {
+            LOGGER.warn("[Eco Power] No RAPL zones found under {}, energy sampling disabled", root);
+            return false;
+        }
+        zones.sort(null);
+
+        counters = new Path[zones.size()];
+        maxRanges = new long[zones.size()];
+        lastValues = new long[zones.size()];
+        readValues = new long[zones.size()];
+        try {
+            for (int i = 0; i < zones.size(); i++) {
+                counters[i] = zones.get(i).resolve("energy_uj");
+                lastValues[i] = readLong(counters[i]);
+                Path range = zones.get(i).resolve("max_energy_range_uj");
+                maxRanges[i] = Files.exists(range) ? readLong(range) : 0;
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 较新的内核只允许 root 读取 energy_uj
+            LOGGER.warn("[Eco Power] Cannot read RAPL counters under {} ({}). Energy sampling needs read access to energy_uj",
+                    root, e.toString());
+            return false;
+        }
+        lastSampleNanos = System.nanoTime();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-Energy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        LOGGER.info("[Eco Power] Sampling {} RAPL zone(s) under {} every {}s", counters.length, root, intervalSeconds);
+        return true;
+    }
+
+    public void stop() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    public boolean matches(Path root, int intervalSeconds) {
+        return this.root.equals(root) && this.intervalSeconds == Math.max(1, intervalSeconds);
+    }
+
+    /**
+     * 由服务器线程在计划切换成功后调用
+     */
+    public void setActivePlan(String planId) {
+        this.activePlanId = planId;
+    }
+
+    /**
+     * 由服务器线程每 tick 调用
+     */
+    public void setRealPlayerCount(int realPlayerCount) {
+        this.realPlayerCount = realPlayerCount;
+    }
+
+    /**
+     * 先读取所有区域，全部成功后才更新上次的值和时间；任何一个区域读取失败时整次丢弃，
+     * 下一次成功的采样覆盖包括这次在内的整段时间
+     */
+    void sample() {
+        long now = System.nanoTime();
+        try {
+            for (int i = 0; i < counters.length; i++) {
+                readValues[i] = readLong(counters[i]);
+            }
+            failing = false;
+        } catch (IOException | RuntimeException e) {
+            if (!failing) {
+                LOGGER.warn("[Eco Power] Failed to read RAPL counters: {}", e.toString());
+                failing = true;
+            }
+            return;
+        }
+
+        long microjoules = 0;
+        for (int i = 0; i < counters.length; i++) {
+            long delta = readValues[i] - lastValues[i];
+            if (delta < 0) {
+                // 计数器在 max_energy_range_uj 处回绕，范围未知时丢弃这一段
+                delta = maxRanges[i] > 0 ? delta + maxRanges[i] : 0;
+            }
+            lastValues[i] = readValues[i];
+            microjoules += delta;
+        }
+        long elapsed = now - lastSampleNanos;
+        lastSampleNanos = now;
+        record(elapsed, microjoules, activePlanId, realPlayerCount);
+    }
+
+    private synchronized void record(long elapsedNanos, long microjoules, String planId, int players) {
+        totalMicrojoules += microjoules;
+        totalNanos += elapsedNanos;
+        if (players > 0) {
+            occupiedMicrojoules += microjoules;
+            playerNanos += players * elapsedNanos;
+        }
+
+        if (planId != null) {
+            int slot = slotOf(planId);
+            if (slot >= 0) {
+                planMicrojoules[slot] += microjoules;
+                planNanos[slot] += elapsedNanos;
+            }
+        }
+
+        historyNanos[historyHead] = elapsedNanos;
+        historyMicrojoules[historyHead] = microjoules;
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        if (historyCount < HISTORY_SIZE) historyCount++;
+    }
+
+    private int slotOf(String planId) {
+        for (int i = 0; i < planCount; i++) {
+            if (planIds[i].equals(planId)) return i;
+        }
+        if (planCount == MAX_PLANS) return -1;
+        planIds[planCount] = planId;
+        return planCount++;
+    }
+
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    public int getZoneCount() {
+        return counters != null ? counters.length : 0;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public synchronized long getTotalMicrojoules() {
+        return totalMicrojoules;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 有真实玩家在线期间消耗的能量
+     */
+    public synchronized long getOccupiedMicrojoules() {
+        return occupiedMicrojoules;
+    }
+
+    public synchronized double getPlayerHours() {
+        return (double) playerNanos / TimeUnit.HOURS.toNanos(1);
+    }
+
+    /**
+     * 最近 {@code windowNanos} 内的平均功率（瓦），没有样本时返回 0
+     */
+    public synchronized double getRecentWatts(long windowNanos) {
+        long nanos = 0;
+        long microjoules = 0;
+        for (int i = 1; i <= historyCount && nanos < windowNanos; i++) {
+            int index = (historyHead - i + HISTORY_SIZE) % HISTORY_SIZE;
+            nanos += historyNanos[index];
+            microjoules += historyMicrojoules[index];
+        }
+        return nanos == 0 ? 0 : microjoules * 1000.0 / nanos;
+    }
+
+    /**
+     * 各计划的能耗和时长，在同一次加锁中读取，两者总是对应同一组计划
+     */
+    public synchronized Map<String, PlanUsage> getPlanUsage() {
+        Map<String, PlanUsage> result = new TreeMap<>();
+        for (int i = 0; i < planCount; i++) {
+            result.put(planIds[i], new PlanUsage(planMicrojoules[i], planNanos[i]));
+        }
+        return result;
+    }
+
+    private static long readLong(Path path) throws IOException {
+        return Long.parseLong(Files.readString(path, StandardCharsets.US_ASCII).trim());
+    }
+
+    /**
+     * 一个计划累计的能耗（微焦）和时长（纳秒）
+     */
+    public record PlanUsage(long microjoules, long nanos) {
+    }
+}
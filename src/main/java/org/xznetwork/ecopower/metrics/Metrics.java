@@ -0,0 +1,155 @@
+package org.xznetwork.ecopower.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EcoPower 自身的运行指标：tick 处理耗时、后端调用延迟、各计划的切换次数与停留时间
+ * 调用方在计时前先检查 {@link #isEnabled()}，关闭时连 {@code System.nanoTime()} 也不调用
+ */
+public class Metrics {
+    private volatile boolean enabled = false;
+
+    private final LatencyHistogram tickHandler = new LatencyHistogram();
+    private final LatencyHistogram backendSet = new LatencyHistogram();
+    private final LatencyHistogram backendGet = new LatencyHistogram();
+    private final Map<String, LongAdder> switches = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final Map<String, LongAdder> planNanos = new ConcurrentHashMap<>();
+    private String activePlanId;
+    private long activeSinceNanos;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordTickHandler(long nanos) {
+        tickHandler.record(nanos);
+    }
+
+    public void recordBackendGet(long nanos) {
+        backendGet.record(nanos);
+    }
+
+    public void recordBackendSet(long nanos) {
+        backendSet.record(nanos);
+    }
+
+    /**
+     * 记录一次切换结果，成功时开始累计新计划的停留时间
+     */
+    public void recordSwitch(String planId, boolean success, long nowNanos) {
+        if (!success) {
+            failures.increment();
+            return;
+        }
+        switches.computeIfAbsent(planId, id -> new LongAdder()).increment();
+        synchronized (this) {
+            if (activePlanId != null) {
+                planNanos.computeIfAbsent(activePlanId, id -> new LongAdder()).add(nowNanos - activeSinceNanos);
+            }
+            activePlanId = planId;
+            activeSinceNanos = nowNanos;
+        }
+    }
+
+    public LatencyHistogram getTickHandler() {
+        return tickHandler;
+    }
+
+    public LatencyHistogram getBackendGet() {
+        return backendGet;
+    }
+
+    public LatencyHistogram getBackendSet() {
+        return backendSet;
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public Map<String, Long> getSwitches() {
+        Map<String, Long> result = new TreeMap<>();
+        switches.forEach((plan, count) -> result.put(plan, count.sum()));
+        return result;
+    }
+
+    /**
+     * 各计划累计停留时间，包含当前计划尚未结束的部分
+     */
+    public synchronized Map<String, Long> getTimeInPlanNanos(long nowNanos) {
+        Map<String, Long> result = new TreeMap<>();
+        planNanos.forEach((plan, nanos) -> result.put(plan, nanos.sum()));
+        if (activePlanId != null) {
+            result.merge(activePlanId, nowNanos - activeSinceNanos, Long::sum);
+        }
+        return result;
+    }
+
+    /**
+     * 以 Prometheus 文本格式（0.0.4）输出全部指标
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        writeHistogram(out, "ecopower_tick_handler_seconds", "Time spent in the EcoPower end-of-tick handler", tickHandler, "");
+        out.append("# HELP ecopower_backend_call_seconds Latency of power backend calls\n");
+        out.append("# TYPE ecopower_backend_call_seconds histogram\n");
+        writeHistogramSamples(out, "ecopower_backend_call_seconds", backendGet, "op=\"get\"");
+        writeHistogramSamples(out, "ecopower_backend_call_seconds", backendSet, "op=\"set\"");
+
+        out.append("# HELP ecopower_switches_total Successful power plan switches\n");
+        out.append("# TYPE ecopower_switches_total counter\n");
+        getSwitches().forEach((plan, count) ->
+                out.append("ecopower_switches_total{plan=\"").append(escape(plan)).append("\"} ").append(count).append('\n'));
+
+        out.append("# HELP ecopower_switch_failures_total Failed power plan switches\n");
+        out.append("# TYPE ecopower_switch_failures_total counter\n");
+        out.append("ecopower_switch_failures_total ").append(getFailures()).append('\n');
+
+        out.append("# HELP ecopower_plan_active_seconds_total Time spent in each power plan\n");
+        out.append("# TYPE ecopower_plan_active_seconds_total counter\n");
+        getTimeInPlanNanos(System.nanoTime()).forEach((plan, nanos) ->
+                out.append("ecopower_plan_active_seconds_total{plan=\"").append(escape(plan)).append("\"} ")
+                        .append(toSeconds(nanos)).append('\n'));
+        return out.toString();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String help, LatencyHistogram histogram, String labels) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        writeHistogramSamples(out, name, histogram, labels);
+    }
+
+    /**
+     * 桶边界取 1µs 到约 68s 之间的 2 的幂纳秒，与直方图的桶边界对齐
+     */
+    private static void writeHistogramSamples(StringBuilder out, String name, LatencyHistogram histogram, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int exponent = 10; exponent <= 36; exponent += 2) {
+            long limit = 1L << exponent;
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(toSeconds(limit)).append("\"} ")
+                    .append(histogram.getCountBelow(limit)).append('\n');
+        }
+        long count = histogram.getCount();
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(toSeconds(histogram.getSumNanos())).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(count).append('\n');
+    }
+
+    private static String toSeconds(long nanos) {
+        return Double.toString((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,133 @@
+package org.xznetwork.ecopower.policy;
+
+/**
+ * 编译后的计划条件，对按 {@link Signal#ordinal()} 排列的信号数组求值
+ * 求值只在预先构建的节点树上进行，不分配内存
+ */
+public final class Condition {
+    private final String source;
+    private final Node root;
+    private final long signalMask;
+
+    Condition(String source, Node root, long signalMask) {
+        this.source = source;
+        this.root = root;
+        this.signalMask = signalMask;
+    }
+
+    public boolean test(double[] signals) {
+        return root.eval(signals) != 0;
+    }
+
+    /**
+     * 表达式引用到的信号位掩码
+     */
+    public long getSignalMask() {
+        return signalMask;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    abstract static class Node {
+        abstract double eval(double[] signals);
+    }
+
+    static final class Constant extends Node {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(double[] signals) {
+            return value;
+        }
+    }
+
+    static final class SignalRef extends Node {
+        private final int index;
+
+        SignalRef(Signal signal) {
+            this.index = signal.ordinal();
+        }
+
+        @Override
+        double eval(double[] signals) {
+            return signals[index];
+        }
+    }
+
+    static final class Not extends Node {
+        private final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double eval(double[] signals) {
+            return operand.eval(signals) == 0 ? 1 : 0;
+        }
+    }
+
+    static final class Negate extends Node {
+        private final Node operand;
+
+        Negate(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double eval(double[] signals) {
+            return -operand.eval(signals);
+        }
+    }
+
+    static final class Binary extends Node {
+        private final char op;
+        private final Node left;
+        private final Node right;
+
+        Binary(char op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval(double[] signals) {
+            // 逻辑运算短路求值
+            switch (op) {
+                case '|':
+                    return left.eval(signals) != 0 || right.eval(signals) != 0 ? 1 : 0;
+                case '&':
+                    return left.eval(signals) != 0 && right.eval(signals) != 0 ? 1 : 0;
+                default:
+                    break;
+            }
+            double a = left.eval(signals);
+            double b = right.eval(signals);
+            switch (op) {
+                case '+': return a + b;
+                case '-': return a - b;
+                case '*': return a * b;
+                case '/': return b == 0 ? 0 : a / b;
+                case '<': return a < b ? 1 : 0;
+                case 'l': return a <= b ? 1 : 0;
+                case '>': return a > b ? 1 : 0;
+                case 'g': return a >= b ? 1 : 0;
+                case '=': return a == b ? 1 : 0;
+                case '!': return a != b ? 1 : 0;
+                default: throw new IllegalStateException("Unknown operator " + op);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.xznetwork.ecopower.policy;
+
+/**
+ * 解析计划条件表达式，例如 {@code players >= 5 || mspt_p95 > 35 || loaded_chunks > 4000}
+ * <p>
+ * 支持数字、信号名、括号、算术运算（+ - * /）、比较运算（&lt; &lt;= &gt; &gt;= == !=）
+ * 以及逻辑运算（! &amp;&amp; ||，也可写作 not and or）
+ */
+public final class ConditionParser {
+    private final String source;
+    private int pos = 0;
+    private long signalMask = 0;
+
+    private ConditionParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @throws IllegalArgumentException 表达式有语法错误或引用了未知信号
+     */
+    public static Condition parse(String expression) {
+        ConditionParser parser = new ConditionParser(expression);
+        Condition.Node root = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.pos < expression.length()) {
+            throw parser.error("Unexpected '" + expression.charAt(parser.pos) + "'");
+        }
+        return new Condition(expression, root, parser.signalMask);
+    }
+
+    private Condition.Node parseOr() {
+        Condition.Node left = parseAnd();
+        while (match("||") || matchWord("or")) {
+            left = new Condition.Binary('|', left, parseAnd());
+        }
+        return left;
+    }
+
+    private Condition.Node parseAnd() {
+        Condition.Node left = parseNot();
+        while (match("&&") || matchWord("and")) {
+            left = new Condition.Binary('&', left, parseNot());
+        }
+        return left;
+    }
+
+    private Condition.Node parseNot() {
+        skipWhitespace();
+        if (peek('!') && !peekAt(1, '=')) {
+            pos++;
+            return new Condition.Not(parseNot());
+        }
+        if (matchWord("not")) {
+            return new Condition.Not(parseNot());
+        }
+        return parseComparison();
+    }
+
+    private Condition.Node parseComparison() {
+        Condition.Node left = parseSum();
+        char op;
+        if (match("<=")) op = 'l';
+        else if (match(">=")) op = 'g';
+        else if (match("==")) op = '=';
+        else if (match("!=")) op = '!';
+        else if (match("<")) op = '<';
+        else if (match(">")) op = '>';
+        else return left;
+        return new Condition.Binary(op, left, parseSum());
+    }
+
+    private Condition.Node parseSum() {
+        Condition.Node left = parseTerm();
+        while (true) {
+            if (match("+")) left = new Condition.Binary('+', left, parseTerm());
+            else if (match("-")) left = new Condition.Binary('-', left, parseTerm());
+            else return left;
+        }
+    }
+
+    private Condition.Node parseTerm() {
+        Condition.Node left = parseUnary();
+        while (true) {
+            if (match("*")) left = new Condition.Binary('*', left, parseUnary());
+            else if (match("/")) left = new Condition.Binary('/', left, parseUnary());
+            else return left;
+        }
+    }
+
+    private Condition.Node parseUnary() {
+        if (match("-")) {
+            return new Condition.Negate(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private Condition.Node parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("Unexpected end of expression");
+        }
+
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Condition.Node inner = parseOr();
+            if (!match(")")) {
+                throw error("Expected ')'");
+            }
+            return inner;
+        }
+
+        if (Character.isDigit(c) || c == '.') {
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            try {
+                return new Condition.Constant(Double.parseDouble(source.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Invalid number");
+            }
+        }
+
+        if (Character.isLetter(c) || c == '_') {
+            int start = pos;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            String name = source.substring(start, pos);
+            if (name.equals("true")) return new Condition.Constant(1);
+            if (name.equals("false")) return new Condition.Constant(0);
+
+            Signal signal = Signal.byKey(name);
+            if (signal == null) {
+                pos = start;
+                throw error("Unknown signal '" + name + "'");
+            }
+            signalMask |= signal.mask();
+            return new Condition.SignalRef(signal);
+        }
+
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private boolean match(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchWord(String word) {
+        skipWhitespace();
+        int end = pos + word.length();
+        if (source.startsWith(word, pos)
+                && (end == source.length() || !Character.isLetterOrDigit(source.charAt(end)) && source.charAt(end) != '_')) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peek(char c) {
+        return pos < source.length() && source.charAt(pos) == c;
+    }
+
+    private boolean peekAt(int offset, char c) {
+        return pos + offset < source.length() && source.charAt(pos + offset) == c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " in '" + source + "'");
+    }
+}
@@ -0,0 +1,156 @@
+package org.xznetwork.ecopower.policy;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * 五段式 cron 表达式：分 时 日 月 星期，例如 {@code 0 20 * * SAT} 表示每周六 20:00
+ * <p>
+ * 每段支持 {@code *}、数字、区间 {@code a-b}、列表 {@code a,b} 以及在 {@code *}、区间或起点后加 {@code /n} 的步长，
+ * 月份和星期可使用英文缩写，星期的 0 和 7 都表示周日；
+ * 与常见的 cron 实现一样，日和星期都受限制时满足其一即可
+ */
+public final class CronExpression {
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    // 无法满足的表达式（例如 2 月 30 日）向后搜索这么多年后放弃
+    private static final int MAX_SEARCH_YEARS = 5;
+
+    private final String source;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(String source, String[] fields) {
+        this.source = source;
+        this.minutes = parseField(fields[0], 0, 59, null, 0);
+        this.hours = parseField(fields[1], 0, 23, null, 0);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null, 0);
+        this.months = parseField(fields[3], 1, 12, MONTH_NAMES, 1);
+        long dow = parseField(fields[4], 0, 7, DAY_NAMES, 0);
+        this.daysOfWeek = (dow & (1L << 7)) != 0 ? (dow & ~(1L << 7)) | 1L : dow;
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * @throws IllegalArgumentException 表达式格式错误或数值越界
+     */
+    public static CronExpression parse(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields (minute hour day month weekday) in '" + expression + "'");
+        }
+        return new CronExpression(expression, fields);
+    }
+
+    /**
+     * 严格晚于 {@code afterMillis} 的下一个匹配时刻（整分钟），不存在时返回 {@link Long#MAX_VALUE}
+     */
+    public long next(long afterMillis, ZoneId zone) {
+        ZonedDateTime time = Instant.ofEpochMilli(afterMillis).atZone(zone)
+                .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        int lastYear = time.getYear() + MAX_SEARCH_YEARS;
+        while (time.getYear() <= lastYear) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!has(hours, time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!has(minutes, time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time.toInstant().toEpochMilli();
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private boolean matchesDay(ZonedDateTime time) {
+        boolean dayOfMonth = has(daysOfMonth, time.getDayOfMonth());
+        boolean dayOfWeek = has(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return (!dayOfMonthRestricted || dayOfMonth) && (!dayOfWeekRestricted || dayOfWeek);
+    }
+
+    private static boolean has(long mask, int value) {
+        return (mask & (1L << value)) != 0;
+    }
+
+    private static long parseField(String field, int min, int max, String[] names, int nameOffset) {
+        long mask = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, Integer.MAX_VALUE, null, 0, field);
+                range = part.substring(0, slash);
+            }
+
+            int low;
+            int high;
+            if ("*".equals(range)) {
+                low = min;
+                high = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    low = parseValue(range.substring(0, dash), min, max, names, nameOffset, field);
+                    high = parseValue(range.substring(dash + 1), min, max, names, nameOffset, field);
+                } else {
+                    low = parseValue(range, min, max, names, nameOffset, field);
+                    // "5/15" 表示从 5 开始每 15 一次
+                    high = slash >= 0 ? max : low;
+                }
+            }
+            if (low > high) {
+                throw new IllegalArgumentException("Invalid range '" + part + "' in cron field '" + field + "'");
+            }
+            for (int value = low; value <= high; value += step) {
+                mask |= 1L << value;
+            }
+        }
+        return mask;
+    }
+
+    private static int parseValue(String text, int min, int max, String[] names, int nameOffset, String field) {
+        if (names != null) {
+            String upper = text.toUpperCase(Locale.ROOT);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(upper)) {
+                    return i + nameOffset;
+                }
+            }
+        }
+        int value;
+        try {
+            value = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + text + "' in cron field '" + field + "'");
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("Value " + value + " out of range " + min + "-" + max + " in cron field '" + field + "'");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,138 @@
+package org.xznetwork.ecopower.policy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * 按星期几和 15 分钟时段统计的真实玩家数量直方图
+ * 经过一个时段时记下其间的峰值，离开时段时把峰值计入该时段按周的滑动平均，
+ * 因此每个时段每周只有一个样本；以紧凑的二进制格式持久化
+ */
+public class LoadProfile {
+    public static final int SLOTS_PER_DAY = 96;
+    public static final int SLOT_COUNT = 7 * SLOTS_PER_DAY;
+    private static final int MAGIC = 0x45504C50; // "EPLP"
+    private static final int VERSION = 1;
+    // 平均值最多按这么多周加权，让最近几周的变化更快体现出来
+    private static final int MAX_WEIGHT = 8;
+
+    private final float[] means = new float[SLOT_COUNT];
+    private final int[] samples = new int[SLOT_COUNT];
+    private long hits = 0;
+    private long misses = 0;
+    // 正在经过的时段及其间的峰值，离开该时段时才计入
+    private int visitSlot = -1;
+    private int visitPeak = 0;
+
+    public static int slotOf(long epochMillis, ZoneId zone) {
+        ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(zone);
+        int day = time.getDayOfWeek().getValue() - 1;
+        return day * SLOTS_PER_DAY + (time.getHour() * 60 + time.getMinute()) / 15;
+    }
+
+    /**
+     * 记录当前时段的一个玩家数量样本；进入新的时段时上一个时段的峰值计入平均
+     */
+    public synchronized void record(int slot, int realPlayerCount) {
+        if (slot != visitSlot) {
+            commitVisit();
+            visitSlot = slot;
+            visitPeak = realPlayerCount;
+        } else {
+            visitPeak = Math.max(visitPeak, realPlayerCount);
+        }
+    }
+
+    private void commitVisit() {
+        if (visitSlot < 0) return;
+        int weight = Math.min(samples[visitSlot], MAX_WEIGHT - 1) + 1;
+        means[visitSlot] += (visitPeak - means[visitSlot]) / weight;
+        if (samples[visitSlot] < Integer.MAX_VALUE) samples[visitSlot]++;
+        visitSlot = -1;
+    }
+
+    /**
+     * 该时段各周峰值的滑动平均
+     */
+    public synchronized float getMean(int slot) {
+        return means[slot];
+    }
+
+    /**
+     * 该时段已计入的周数
+     */
+    public synchronized int getSamples(int slot) {
+        return samples[slot];
+    }
+
+    public synchronized void recordPrediction(boolean hit) {
+        if (hit) hits++;
+        else misses++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void load(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                throw new IOException("Unsupported load profile format: " + file);
+            }
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                means[i] = in.readFloat();
+                samples[i] = in.readInt();
+            }
+            hits = in.readLong();
+            misses = in.readLong();
+            visitSlot = in.readInt();
+            visitPeak = in.readInt();
+            if (visitSlot >= SLOT_COUNT) visitSlot = -1;
+        }
+    }
+
+    /**
+     * 先写入临时文件再原子替换，避免写到一半时崩溃导致文件损坏
+     */
+    public void save(Path file) throws IOException {
+        byte[] data = toBytes();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            out.write(data);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + SLOT_COUNT * 8 + 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                out.writeFloat(means[i]);
+                out.writeInt(samples[i]);
+            }
+            out.writeLong(hits);
+            out.writeLong(misses);
+            // 重启后回到同一时段时继续累计峰值，否则在下一次记录时计入
+            out.writeInt(visitSlot);
+            out.writeInt(visitPeak);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package org.xznetwork.ecopower.policy;
+
+import org.xznetwork.ecopower.config.Config;
+
+/**
+ * 以目标 MSPT 为设定值的 PI 控制器，输出 CPU 最高频率上限（百分比）
+ * 误差按目标值归一化为百分比；积分项带钳位抗饱和：输出已饱和且误差继续推向饱和方向时停止积分，
+ * 积分项本身也限制在输出范围内。超过一个 tick 的预算（50 ms）时直接回到全速
+ */
+public class MsptController {
+    public static final int FULL_SPEED = 100;
+    private static final double TICK_BUDGET_MILLIS = 50.0;
+    // 两次更新间隔过长（如服务器卡顿后）时只按这么久积分，避免一次跳变
+    private static final double MAX_DT_SECONDS = 5.0;
+
+    private double targetMspt;
+    private double kp;
+    private double ki;
+    private int minCap;
+    private int stepPercent;
+    private int maxChangePercent;
+
+    private double integral = FULL_SPEED;
+    private int output = FULL_SPEED;
+    private long lastUpdateNanos;
+    private boolean saturated = false;
+    private double lastError = 0;
+
+    public MsptController(Config.Controller settings, long nowNanos) {
+        updateSettings(settings);
+        reset(nowNanos);
+    }
+
+    public void updateSettings(Config.Controller settings) {
+        this.targetMspt = Math.max(1.0, Math.min(TICK_BUDGET_MILLIS, settings.getTargetMspt()));
+        this.kp = Math.max(0, settings.getKp());
+        this.ki = Math.max(0, settings.getKi());
+        this.minCap = Math.max(1, Math.min(FULL_SPEED, settings.getMinCapPercent()));
+        this.stepPercent = Math.max(1, settings.getStepPercent());
+        this.maxChangePercent = Math.max(stepPercent, settings.getMaxChangePercent());
+        this.integral = clamp(integral, minCap, FULL_SPEED);
+    }
+
+    /**
+     * 回到全速并清空积分状态
+     */
+    public void reset(long nowNanos) {
+        integral = FULL_SPEED;
+        output = FULL_SPEED;
+        saturated = false;
+        lastError = 0;
+        lastUpdateNanos = nowNanos;
+    }
+
+    /**
+     * 按最新的 MSPT 计算新的频率上限，返回值已按步长量化
+     */
+    public int update(double msptMillis, long nowNanos) {
+        double dt = Math.min(MAX_DT_SECONDS, (nowNanos - lastUpdateNanos) / 1e9);
+        lastUpdateNanos = nowNanos;
+
+        if (msptMillis >= TICK_BUDGET_MILLIS) {
+            // 已经掉 tick，不等积分慢慢追上
+            integral = FULL_SPEED;
+            output = FULL_SPEED;
+            saturated = true;
+            lastError = (msptMillis - targetMspt) / targetMspt * 100.0;
+            return output;
+        }
+
+        double error = (msptMillis - targetMspt) / targetMspt * 100.0;
+        double proportional = kp * error;
+        double candidate = integral + ki * error * dt;
+        double unclamped = proportional + candidate;
+        saturated = (unclamped > FULL_SPEED && error > 0) || (unclamped < minCap && error < 0);
+        if (!saturated) {
+            integral = candidate;
+        }
+        integral = clamp(integral, minCap, FULL_SPEED);
+        lastError = error;
+
+        double raw = clamp(proportional + integral, minCap, FULL_SPEED);
+        int quantized = (int) Math.round(raw / stepPercent) * stepPercent;
+        quantized = (int) clamp(quantized, minCap, FULL_SPEED);
+        // 每次只小步调整
+        output = (int) clamp(quantized, output - maxChangePercent, output + maxChangePercent);
+        return output;
+    }
+
+    public int getOutput() {
+        return output;
+    }
+
+    public double getIntegral() {
+        return integral;
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    public double getLastError() {
+        return lastError;
+    }
+
+    public double getTargetMspt() {
+        return targetMspt;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
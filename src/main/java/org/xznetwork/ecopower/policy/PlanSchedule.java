@@ -0,0 +1,211 @@
+package org.xznetwork.ecopower.policy;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.util.TimerWheel;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 计划的定时窗口
+ * force 窗口内直接使用该计划，cap 窗口内所选计划的档位不超过该计划；多个窗口同时生效时
+ * 档位最高的 force 优先，cap 取档位最低的一个。窗口的开始和结束时刻放在 {@link TimerWheel} 中，
+ * tick 中只检查是否有到期的定时器，只有到达边界时才计算下一次开始时间
+ */
+public class PlanSchedule {
+    private static final int WHEEL_SLOTS = 512;
+    private static final long RESOLUTION_MILLIS = 1000;
+    // 两次 tick 之间系统时钟跳变（回拨或前跳）超过这个值时按新时间重建窗口状态
+    private static final long CLOCK_JUMP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ZoneId zone;
+    private final List<Window> windows = new ArrayList<>();
+    private final Consumer<Window> onBoundary = this::onBoundary;
+    private TimerWheel<Window> wheel;
+    private long lastNowMillis;
+    private boolean changed;
+
+    private Config.PlanEntry forcedPlan;
+    private Config.PlanEntry capPlan;
+
+    public PlanSchedule(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * 按配置重新建立所有窗口，并根据当前时间判断哪些窗口正处于生效中
+     */
+    public void rebuild(Collection<Config.PlanEntry> plans, long nowMillis) {
+        windows.clear();
+        for (Config.PlanEntry plan : plans) {
+            for (Config.ScheduleWindow settings : plan.getSchedule()) {
+                if (settings.getCompiledCron() != null) {
+                    windows.add(new Window(plan, settings));
+                }
+            }
+        }
+        reset(nowMillis);
+    }
+
+    /**
+     * 每个 tick 调用，没有到期的边界时只做一次比较
+     *
+     * @return 本次调用是否有窗口开始或结束
+     */
+    public boolean tick(long nowMillis) {
+        if (windows.isEmpty()) return false;
+        if (Math.abs(nowMillis - lastNowMillis) > CLOCK_JUMP_MILLIS) {
+            reset(nowMillis);
+            return true;
+        }
+        lastNowMillis = nowMillis;
+
+        changed = false;
+        wheel.advance(nowMillis, onBoundary);
+        if (changed) {
+            recompute();
+        }
+        return changed;
+    }
+
+    /**
+     * 按当前生效的窗口调整匹配结果
+     */
+    public Config.PlanEntry apply(Config.PlanEntry matched) {
+        if (forcedPlan != null) {
+            return forcedPlan;
+        }
+        if (capPlan != null && matched != null && matched.getRank() > capPlan.getRank()) {
+            return capPlan;
+        }
+        return matched;
+    }
+
+    public Config.PlanEntry getForcedPlan() {
+        return forcedPlan;
+    }
+
+    public Config.PlanEntry getCapPlan() {
+        return capPlan;
+    }
+
+    public boolean isEmpty() {
+        return windows.isEmpty();
+    }
+
+    public List<Window> getWindows() {
+        return Collections.unmodifiableList(windows);
+    }
+
+    private void reset(long nowMillis) {
+        lastNowMillis = nowMillis;
+        if (wheel == null) {
+            wheel = new TimerWheel<>(WHEEL_SLOTS, RESOLUTION_MILLIS, nowMillis);
+        } else {
+            wheel.reset(nowMillis);
+        }
+        for (Window window : windows) {
+            // 最近一次开始时间不早于 now - duration 时，窗口正处于生效中
+            long start = window.cron.next(nowMillis - window.durationMillis, zone);
+            if (start <= nowMillis) {
+                window.start(start);
+            } else {
+                window.scheduleStart(start);
+            }
+        }
+        recompute();
+    }
+
+    private void onBoundary(Window window) {
+        if (window.active) {
+            // 结束后紧接着的下一次开始可能恰好就是现在
+            window.scheduleStart(window.cron.next(window.endMillis - 1, zone));
+        } else {
+            window.start(window.nextStartMillis);
+        }
+        changed = true;
+    }
+
+    private void recompute() {
+        Config.PlanEntry forced = null;
+        Config.PlanEntry cap = null;
+        for (Window window : windows) {
+            if (!window.active) continue;
+            if (window.cap) {
+                if (cap == null || window.plan.getRank() < cap.getRank()) cap = window.plan;
+            } else if (forced == null || window.plan.getRank() > forced.getRank()) {
+                forced = window.plan;
+            }
+        }
+        forcedPlan = forced;
+        capPlan = cap;
+    }
+
+    /**
+     * 一个定时窗口的运行状态
+     */
+    public final class Window {
+        private final Config.PlanEntry plan;
+        private final CronExpression cron;
+        private final long durationMillis;
+        private final boolean cap;
+        private boolean active;
+        private long endMillis;
+        private long nextStartMillis = Long.MAX_VALUE;
+
+        private Window(Config.PlanEntry plan, Config.ScheduleWindow settings) {
+            this.plan = plan;
+            this.cron = settings.getCompiledCron();
+            this.durationMillis = TimeUnit.MINUTES.toMillis(settings.getDurationMinutes());
+            this.cap = settings.isCap();
+        }
+
+        private void start(long startMillis) {
+            active = true;
+            endMillis = startMillis + durationMillis;
+            nextStartMillis = Long.MAX_VALUE;
+            wheel.schedule(this, endMillis);
+        }
+
+        private void scheduleStart(long startMillis) {
+            active = false;
+            nextStartMillis = startMillis;
+            // 不会再匹配的表达式（例如 2 月 30 日）不放入时间轮
+            if (startMillis != Long.MAX_VALUE) {
+                wheel.schedule(this, startMillis);
+            }
+        }
+
+        public Config.PlanEntry getPlan() {
+            return plan;
+        }
+
+        public String getCron() {
+            return cron.getSource();
+        }
+
+        public long getDurationMinutes() {
+            return TimeUnit.MILLISECONDS.toMinutes(durationMillis);
+        }
+
+        public boolean isCap() {
+            return cap;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 生效中的窗口返回结束时间，否则返回下一次开始时间（{@link Long#MAX_VALUE} 表示不会再开始）
+         */
+        public long getNextBoundaryMillis() {
+            return active ? endMillis : nextStartMillis;
+        }
+    }
+}
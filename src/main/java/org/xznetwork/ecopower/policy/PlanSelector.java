@@ -0,0 +1,156 @@
+package org.xznetwork.ecopower.policy;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.PlanIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 根据配置的选择模式为当前负载挑选计划
+ * 配置了条件表达式的计划按配置顺序优先判断；
+ * 其余情况下 players 模式只看真实玩家数量，mspt 模式按 tick 耗时阈值选择，
+ * 没有计划匹配或采样尚未填满时退回玩家数量
+ */
+public class PlanSelector {
+    private Rules rules;
+    private TickTimeSampler tickTimes;
+    private final double[] signals = new double[Signal.count()];
+    private boolean selectedByPlayers;
+
+    public PlanSelector(Config config, PlanIndex planIndex, TickTimeSampler tickTimes) {
+        this(Rules.compile(config, planIndex), tickTimes);
+    }
+
+    public PlanSelector(Rules rules, TickTimeSampler tickTimes) {
+        this.rules = rules;
+        this.tickTimes = tickTimes;
+    }
+
+    /**
+     * 换上新配置编译出的规则，已采样的信号保留到下一次采样
+     */
+    public void setRules(Rules rules) {
+        this.rules = rules;
+    }
+
+    public void setTickTimes(TickTimeSampler tickTimes) {
+        this.tickTimes = tickTimes;
+    }
+
+    public Config.PlanEntry select(int realPlayerCount) {
+        if (rules.conditionPlans.length > 0) {
+            signals[Signal.PLAYERS.ordinal()] = realPlayerCount;
+            if (requires(Signal.MSPT_EWMA)) signals[Signal.MSPT_EWMA.ordinal()] = tickTimes.getEwmaMillis();
+            if (requires(Signal.MSPT_P95)) signals[Signal.MSPT_P95.ordinal()] = tickTimes.getP95Millis();
+
+            for (Config.PlanEntry plan : rules.conditionPlans) {
+                if (plan.getCompiledCondition().test(signals)) {
+                    selectedByPlayers = false;
+                    return plan;
+                }
+            }
+        }
+
+        if (rules.msptMode && tickTimes.isWarm()) {
+            Config.PlanEntry plan = rules.findByMspt(getMspt());
+            if (plan != null) {
+                selectedByPlayers = false;
+                return plan;
+            }
+        }
+        selectedByPlayers = true;
+        return rules.planIndex.find(realPlayerCount);
+    }
+
+    /**
+     * 最近一次 {@link #select} 的结果是否来自玩家数量区间（而不是条件表达式或 MSPT 阈值）
+     */
+    public boolean isSelectedByPlayers() {
+        return selectedByPlayers;
+    }
+
+    /**
+     * 当前用于选择的 MSPT 统计值
+     */
+    public double getMspt() {
+        return rules.useP95 ? tickTimes.getP95Millis() : tickTimes.getEwmaMillis();
+    }
+
+    /**
+     * 条件表达式引用到的信号，未引用的信号不需要采样
+     */
+    public boolean requires(Signal signal) {
+        return (rules.requiredSignals & signal.mask()) != 0;
+    }
+
+    /**
+     * 由调用方写入需要从世界采样的信号（区块、实体、时间）
+     */
+    public void setSignal(Signal signal, double value) {
+        signals[signal.ordinal()] = value;
+    }
+
+    public double getSignal(Signal signal) {
+        return signals[signal.ordinal()];
+    }
+
+    public boolean isMsptMode() {
+        return rules.msptMode;
+    }
+
+    /**
+     * 由配置编译出的选择规则，不可变，在加载配置的线程上构建
+     */
+    public static final class Rules {
+        private final PlanIndex planIndex;
+        private final boolean msptMode;
+        private final boolean useP95;
+        private final Config.PlanEntry[] msptPlans;
+        private final Config.PlanEntry[] conditionPlans;
+        private final long requiredSignals;
+
+        private Rules(PlanIndex planIndex, boolean msptMode, boolean useP95, Config.PlanEntry[] msptPlans,
+                      Config.PlanEntry[] conditionPlans, long requiredSignals) {
+            this.planIndex = planIndex;
+            this.msptMode = msptMode;
+            this.useP95 = useP95;
+            this.msptPlans = msptPlans;
+            this.conditionPlans = conditionPlans;
+            this.requiredSignals = requiredSignals;
+        }
+
+        public static Rules compile(Config config, PlanIndex planIndex) {
+            List<Config.PlanEntry> withMspt = new ArrayList<>();
+            List<Config.PlanEntry> withCondition = new ArrayList<>();
+            long mask = 0;
+            for (Config.PlanEntry plan : config.getPlan().values()) {
+                if (plan.getMspt() != null) {
+                    withMspt.add(plan);
+                }
+                if (plan.getCompiledCondition() != null) {
+                    withCondition.add(plan);
+                    mask |= plan.getCompiledCondition().getSignalMask();
+                }
+            }
+            return new Rules(planIndex,
+                    "mspt".equalsIgnoreCase(config.getSelectionMode()),
+                    !"ewma".equals(config.getMspt().getStatistic().toLowerCase(Locale.ROOT)),
+                    withMspt.toArray(new Config.PlanEntry[0]),
+                    withCondition.toArray(new Config.PlanEntry[0]),
+                    mask);
+        }
+
+        private Config.PlanEntry findByMspt(double mspt) {
+            // 与玩家数量区间一样按配置顺序先匹配者优先，计划数量很少，线性扫描即可
+            for (Config.PlanEntry plan : msptPlans) {
+                double[] range = plan.getMspt();
+                if (mspt >= range[0] && mspt < range[1]) {
+                    return plan;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.xznetwork.ecopower.policy;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.PlanIndex;
+
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 根据历史负载曲线提前升档
+ * 每分钟把真实玩家数量记入 {@link LoadProfile}，并查看提前量之后的时段：
+ * 该时段已有足够多周的记录且预测的计划高于当前匹配的计划时，就提前切换到预测的计划
+ */
+public class PreBoostPredictor {
+    private static final long SAMPLE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long SLOT_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private final LoadProfile profile;
+    private final ZoneId zone;
+    private boolean enabled;
+    private long leadMillis;
+    private int minSamples;
+    private PlanIndex planIndex;
+
+    private long nextSampleMillis = 0;
+    private Config.PlanEntry boostPlan;
+    // 等待验证的预测：目标时段（自纪元起的 15 分钟序号）和预测的档位
+    private long pendingQuarter = -1;
+    private int pendingRank;
+
+    public PreBoostPredictor(LoadProfile profile, ZoneId zone) {
+        this.profile = profile;
+        this.zone = zone;
+    }
+
+    public void updateSettings(Config.Prediction prediction, PlanIndex planIndex) {
+        this.enabled = prediction.isEnabled();
+        this.leadMillis = TimeUnit.MINUTES.toMillis(Math.max(0, prediction.getLeadMinutes()));
+        this.minSamples = Math.max(1, prediction.getMinSamples());
+        this.planIndex = planIndex;
+        this.boostPlan = null;
+        this.pendingQuarter = -1;
+        this.nextSampleMillis = 0;
+    }
+
+    /**
+     * 每个 tick 调用，实际工作每分钟只做一次
+     */
+    public void tick(long nowMillis, int realPlayerCount) {
+        if (nowMillis < nextSampleMillis) return;
+        nextSampleMillis = nowMillis + SAMPLE_INTERVAL_MILLIS;
+
+        profile.record(LoadProfile.slotOf(nowMillis, zone), realPlayerCount);
+        Config.PlanEntry actual = planIndex.find(realPlayerCount);
+
+        // 到达预测的目标时段后验证预测是否命中
+        if (pendingQuarter >= 0 && nowMillis / SLOT_MILLIS >= pendingQuarter) {
+            profile.recordPrediction(actual != null && actual.getRank() >= pendingRank);
+            pendingQuarter = -1;
+        }
+
+        boostPlan = null;
+        if (!enabled) return;
+
+        long targetMillis = nowMillis + leadMillis;
+        int targetSlot = LoadProfile.slotOf(targetMillis, zone);
+        if (profile.getSamples(targetSlot) < minSamples) return;
+
+        Config.PlanEntry predicted = planIndex.find(Math.round(profile.getMean(targetSlot)));
+        if (predicted == null || (actual != null && predicted.getRank() <= actual.getRank())) return;
+
+        boostPlan = predicted;
+        if (pendingQuarter < 0) {
+            pendingQuarter = targetMillis / SLOT_MILLIS;
+            pendingRank = predicted.getRank();
+        }
+    }
+
+    /**
+     * 预测的计划高于匹配结果时返回预测的计划，否则原样返回
+     */
+    public Config.PlanEntry adjust(Config.PlanEntry matched) {
+        if (boostPlan == null || (matched != null && matched.getRank() >= boostPlan.getRank())) {
+            return matched;
+        }
+        return boostPlan;
+    }
+
+    public Config.PlanEntry getBoostPlan() {
+        return boostPlan;
+    }
+
+    public LoadProfile getProfile() {
+        return profile;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+}
@@ -0,0 +1,41 @@
+package org.xznetwork.ecopower.policy;
+
+/**
+ * 计划条件表达式可以引用的信号
+ */
+public enum Signal {
+    PLAYERS("players"),
+    MSPT_EWMA("mspt_ewma"),
+    MSPT_P95("mspt_p95"),
+    LOADED_CHUNKS("loaded_chunks"),
+    ENTITIES("entities"),
+    TIME_OF_DAY("time_of_day");
+
+    private static final Signal[] VALUES = values();
+    private final String key;
+
+    Signal(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    public static Signal byKey(String key) {
+        for (Signal signal : VALUES) {
+            if (signal.key.equals(key)) {
+                return signal;
+            }
+        }
+        return null;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,174 @@
+package org.xznetwork.ecopower.policy;
+
+import org.xznetwork.ecopower.config.Config;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计划切换节流策略
+ * 升档立即生效；降档需要在当前计划停留足够久并持续一段宽限期；
+ * 按玩家数量降档时当前计划的区间带有滞回带，全局还限制每分钟的切换次数
+ */
+public class SwitchPolicy {
+    private static final long ONE_MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private long minDwellNanos;
+    private long stepDownDelayNanos;
+    private long[] recentSwitches; // 最近切换时间的环形缓冲
+    private int recentHead = 0;
+    private int recentCount = 0;
+
+    private Config.PlanEntry current;
+    private long currentSince;
+    private Config.PlanEntry stepDownCandidate;
+    private long stepDownSince;
+    private Config.PlanEntry lastSuppressed;
+
+    private long suppressedByHysteresis = 0;
+    private long suppressedByDwell = 0;
+    private long suppressedByRateLimit = 0;
+
+    public SwitchPolicy(Config.Switching switching) {
+        updateSettings(switching);
+    }
+
+    public void updateSettings(Config.Switching switching) {
+        this.minDwellNanos = TimeUnit.SECONDS.toNanos(Math.max(0, switching.getMinDwellSeconds()));
+        this.stepDownDelayNanos = TimeUnit.SECONDS.toNanos(Math.max(0, switching.getStepDownDelaySeconds()));
+        int maxSwitches = switching.getMaxSwitchesPerMinute();
+        this.recentSwitches = maxSwitches > 0 ? new long[maxSwitches] : null;
+        this.recentHead = 0;
+        this.recentCount = 0;
+    }
+
+    /**
+     * 配置重载后按名称把当前计划映射到新的计划对象
+     */
+    public void rebind(Map<String, Config.PlanEntry> plans) {
+        if (current != null) {
+            current = plans.get(current.getName());
+        }
+        stepDownCandidate = null;
+        lastSuppressed = null;
+    }
+
+    public void reset() {
+        current = null;
+        stepDownCandidate = null;
+        lastSuppressed = null;
+    }
+
+    /**
+     * 根据匹配结果决定现在应处于哪个计划
+     *
+     * @param matched       按信号匹配到的计划，可能为 null
+     * @param signal        用于滞回判断的信号值（玩家数量）
+     * @param playerDriven  匹配结果是否由玩家数量区间决定；由 MSPT、条件表达式或预测决定时不做滞回判断
+     * @param nowNanos      当前时间，{@link System#nanoTime()}
+     * @return 应该处于的计划，与上一次不同表示需要切换
+     */
+    public Config.PlanEntry select(Config.PlanEntry matched, int signal, boolean playerDriven, long nowNanos) {
+        if (matched == null || matched == current) {
+            stepDownCandidate = null;
+            lastSuppressed = null;
+            return current;
+        }
+        if (current == null) {
+            return accept(matched, nowNanos);
+        }
+
+        if (matched.getRank() < current.getRank()) {
+            // 滞回带只用于按玩家数量降档：玩家数量仍在当前区间扩展 hysteresis 后的范围内时保持不变
+            int[] range = current.getRange();
+            int band = current.getHysteresis();
+            if (playerDriven && band > 0 && (long) signal >= (long) range[0] - band && (long) signal <= (long) range[1] + band) {
+                if (lastSuppressed != matched) {
+                    lastSuppressed = matched;
+                    suppressedByHysteresis++;
+                }
+                return current;
+            }
+
+            if (stepDownCandidate != matched) {
+                stepDownCandidate = matched;
+                stepDownSince = nowNanos;
+            }
+            if (nowNanos - currentSince < minDwellNanos || nowNanos - stepDownSince < stepDownDelayNanos) {
+                if (lastSuppressed != matched) {
+                    lastSuppressed = matched;
+                    suppressedByDwell++;
+                }
+                return current;
+            }
+        }
+
+        if (isRateLimited(nowNanos)) {
+            if (lastSuppressed != matched) {
+                lastSuppressed = matched;
+                suppressedByRateLimit++;
+            }
+            return current;
+        }
+
+        return accept(matched, nowNanos);
+    }
+
+    /**
+     * 定时窗口决定的计划：窗口边界是明确的时间点，不受滞回带和降档宽限影响，仍受每分钟切换次数限制
+     */
+    public Config.PlanEntry selectScheduled(Config.PlanEntry scheduled, long nowNanos) {
+        if (scheduled == current) {
+            stepDownCandidate = null;
+            lastSuppressed = null;
+            return current;
+        }
+        if (current != null && isRateLimited(nowNanos)) {
+            if (lastSuppressed != scheduled) {
+                lastSuppressed = scheduled;
+                suppressedByRateLimit++;
+            }
+            return current;
+        }
+        return accept(scheduled, nowNanos);
+    }
+
+    private Config.PlanEntry accept(Config.PlanEntry plan, long nowNanos) {
+        current = plan;
+        currentSince = nowNanos;
+        stepDownCandidate = null;
+        lastSuppressed = null;
+        if (recentSwitches != null) {
+            recentSwitches[recentHead] = nowNanos;
+            recentHead = (recentHead + 1) % recentSwitches.length;
+            if (recentCount < recentSwitches.length) recentCount++;
+        }
+        return plan;
+    }
+
+    private boolean isRateLimited(long nowNanos) {
+        if (recentSwitches == null || recentCount < recentSwitches.length) return false;
+        // 缓冲已满且最旧的一次切换仍在一分钟内，说明已达到上限
+        return nowNanos - recentSwitches[recentHead] < ONE_MINUTE_NANOS;
+    }
+
+    public Config.PlanEntry getCurrent() {
+        return current;
+    }
+
+    public long getSuppressedByHysteresis() {
+        return suppressedByHysteresis;
+    }
+
+    public long getSuppressedByDwell() {
+        return suppressedByDwell;
+    }
+
+    public long getSuppressedByRateLimit() {
+        return suppressedByRateLimit;
+    }
+
+    public long getSuppressedSwitches() {
+        return suppressedByHysteresis + suppressedByDwell + suppressedByRateLimit;
+    }
+}
@@ -0,0 +1,122 @@
+package org.xznetwork.ecopower.policy;
+
+/**
+ * 记录每个服务器 tick 的耗时
+ * 使用固定大小的基本类型环形缓冲，EWMA 与 p95 的计算过程不分配内存
+ */
+public class TickTimeSampler {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    // p95 每隔这么多个样本重新计算一次
+    private static final int PERCENTILE_INTERVAL = 20;
+
+    private final long[] samples;
+    private final long[] scratch;
+    private double alpha;
+    private int head = 0;
+    private int count = 0;
+    private long tickStart;
+    private boolean tickStarted = false;
+    private double ewmaNanos = 0;
+    private double p95Nanos = 0;
+    private int samplesSincePercentile = 0;
+    private long lastSampleNanos = 0;
+
+    public TickTimeSampler(int windowTicks, double alpha) {
+        int size = Math.max(1, windowTicks);
+        this.samples = new long[size];
+        this.scratch = new long[size];
+        setAlpha(alpha);
+    }
+
+    /**
+     * 修改 EWMA 的平滑系数，已有的样本和统计值保留，从下一个样本开始生效
+     */
+    public void setAlpha(double alpha) {
+        this.alpha = Math.min(1.0, Math.max(0.0001, alpha));
+    }
+
+    public void onTickStart(long nowNanos) {
+        tickStart = nowNanos;
+        tickStarted = true;
+    }
+
+    public void onTickEnd(long nowNanos) {
+        if (!tickStarted) return;
+        record(nowNanos - tickStart);
+        lastSampleNanos = nowNanos;
+        tickStarted = false;
+    }
+
+    public void record(long durationNanos) {
+        samples[head] = durationNanos;
+        head = (head + 1) % samples.length;
+        if (count < samples.length) count++;
+
+        ewmaNanos = count == 1 ? durationNanos : ewmaNanos + alpha * (durationNanos - ewmaNanos);
+
+        if (++samplesSincePercentile >= PERCENTILE_INTERVAL || count < PERCENTILE_INTERVAL) {
+            samplesSincePercentile = 0;
+            p95Nanos = percentile(0.95);
+        }
+    }
+
+    /**
+     * 缓冲填满后统计才有意义
+     */
+    public boolean isWarm() {
+        return count == samples.length;
+    }
+
+    public double getEwmaMillis() {
+        return ewmaNanos / NANOS_PER_MILLI;
+    }
+
+    public double getP95Millis() {
+        return p95Nanos / NANOS_PER_MILLI;
+    }
+
+    public long getLastSampleNanos() {
+        return lastSampleNanos;
+    }
+
+    public int getWindowTicks() {
+        return samples.length;
+    }
+
+    private long percentile(double quantile) {
+        if (count == 0) return 0;
+        System.arraycopy(samples, 0, scratch, 0, count);
+        int k = (int) Math.ceil(quantile * count) - 1;
+        return select(scratch, 0, count - 1, Math.max(0, k));
+    }
+
+    /**
+     * 原地快速选择第 k 小的元素
+     */
+    private static long select(long[] values, int left, int right, int k) {
+        while (left < right) {
+            long pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    long tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+}
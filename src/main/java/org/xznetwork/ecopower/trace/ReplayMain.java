@@ -0,0 +1,129 @@
+package org.xznetwork.ecopower.trace;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.ConfigManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线回放命令行：用一段录制的轨迹并行评估多个候选配置，不需要启动 Minecraft 服务器
+ * <pre>
+ * ReplayMain &lt;trace.eptr&gt; &lt;config.yaml&gt;... [--watts 计划=瓦,...]
+ * </pre>
+ * 能耗按各计划的平均功率估算：默认使用轨迹中录制时实测的功率（需要开启 energy 采样），
+ * {@code --watts} 按计划名称或计划 ID 覆盖或补充
+ */
+public final class ReplayMain {
+    private ReplayMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<Path> configs = new ArrayList<>();
+        Map<String, Double> wattOverrides = new HashMap<>();
+        Path tracePath = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--watts".equals(args[i]) && i + 1 < args.length) {
+                parseWatts(args[++i], wattOverrides);
+            } else if (tracePath == null) {
+                tracePath = Path.of(args[i]);
+            } else {
+                configs.add(Path.of(args[i]));
+            }
+        }
+        if (tracePath == null || configs.isEmpty()) {
+            System.err.println("Usage: ReplayMain <trace.eptr> <config.yaml>... [--watts plan=W,...]");
+            System.exit(2);
+        }
+
+        Trace trace = Trace.read(tracePath);
+        Map<String, Double> watts = new HashMap<>(trace.measuredWatts());
+        printTrace(tracePath, trace, watts);
+        watts.putAll(wattOverrides);
+
+        // 每个候选配置各自独立回放，轨迹只读共享
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(configs.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<CompletableFuture<ReplaySimulator.Result>> futures = new ArrayList<>();
+            for (Path path : configs) {
+                Config config = loadConfig(path);
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> ReplaySimulator.run(path.toString(), trace, config, watts), executor));
+            }
+            for (CompletableFuture<ReplaySimulator.Result> future : futures) {
+                printResult(future.join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Config loadConfig(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        return new ConfigManager(parent).parse(Files.readAllBytes(path));
+    }
+
+    private static void parseWatts(String value, Map<String, Double> watts) {
+        for (String entry : value.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid --watts entry '" + entry + "', expected plan=W");
+            }
+            watts.put(entry.substring(0, eq).trim(), Double.parseDouble(entry.substring(eq + 1).trim()));
+        }
+    }
+
+    private static void printTrace(Path path, Trace trace, Map<String, Double> measured) {
+        System.out.printf(Locale.ROOT, "Trace: %s%n", path);
+        System.out.printf(Locale.ROOT, "  Duration: %s, %d joins, %d activity records, %d samples, %d plan switches recorded%s%n",
+                formatDuration(trace.getDurationMillis()), trace.count(TraceFormat.JOIN), trace.count(TraceFormat.ACTIVE),
+                trace.count(TraceFormat.SAMPLE), trace.count(TraceFormat.PLAN),
+                trace.isTruncated() ? " (last record truncated)" : "");
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            System.out.printf(Locale.ROOT, "  Measured power %s: %.1f W%n", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void printResult(ReplaySimulator.Result result) {
+        long total = Math.max(1, result.totalMillis());
+        System.out.printf(Locale.ROOT, "%n== %s ==%n", result.candidate());
+        System.out.printf(Locale.ROOT, "  Switches: %d (%d suppressed by switching policy)%n",
+                result.switches(), result.suppressedSwitches());
+        for (Map.Entry<String, Long> entry : result.timeByPlan().entrySet()) {
+            System.out.printf(Locale.ROOT, "  %-20s %12s  %5.1f%%%n", entry.getKey(),
+                    formatDuration(entry.getValue()), entry.getValue() * 100.0 / total);
+        }
+        long priced = result.totalMillis() - result.unpricedMillis();
+        if (priced > 0) {
+            System.out.printf(Locale.ROOT, "  Energy: %.3f kWh (avg %.1f W over %.1f%% of the trace)%n",
+                    result.joules() / 3_600_000.0, result.joules() * 1000.0 / priced, priced * 100.0 / total);
+        } else {
+            System.out.println("  Energy: unknown (no power data, use --watts plan=W)");
+        }
+        if (!result.missingSignals().isEmpty()) {
+            System.out.printf(Locale.ROOT, "  Warning: signals %s were not recorded and read as 0%n", result.missingSignals());
+        }
+        if (result.activityIgnored()) {
+            System.out.println("  Warning: activity weighting is enabled but the trace has no player activity, replayed with real player counts");
+        }
+        double speed = result.totalMillis() / Math.max(1e-6, result.elapsedNanos() / 1_000_000.0);
+        System.out.printf(Locale.ROOT, "  Replayed in %.1f ms (%.0fx real time)%n", result.elapsedNanos() / 1_000_000.0, speed);
+    }
+
+    private static String formatDuration(long millis) {
+        long hours = TimeUnit.MILLISECONDS.toHours(millis);
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis) % 60;
+        return String.format(Locale.ROOT, "%dh %02dm %02ds", hours, minutes, seconds);
+    }
+}
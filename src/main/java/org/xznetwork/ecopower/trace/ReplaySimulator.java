@@ -0,0 +1,199 @@
+package org.xznetwork.ecopower.trace;
+
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.ConfigSnapshot;
+import org.xznetwork.ecopower.policy.PlanSchedule;
+import org.xznetwork.ecopower.policy.PlanSelector;
+import org.xznetwork.ecopower.policy.Signal;
+import org.xznetwork.ecopower.policy.SwitchPolicy;
+import org.xznetwork.ecopower.policy.TickTimeSampler;
+import org.xznetwork.ecopower.util.PlayerExclusion;
+import org.xznetwork.ecopower.util.PlayerTracker;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用候选配置回放一段轨迹，统计切换次数、各计划停留时间和估算能耗
+ * 玩家排除、{@link PlanSelector} 和 {@link SwitchPolicy} 与服务器上使用的是同一套实现；
+ * 选择只在轨迹记录处（约每秒一次）进行，降档宽限等时间判断因此最多有一个采样间隔的误差
+ * 定时窗口按轨迹的录制时间和本机时区推进
+ * 候选配置开启活动加权时，按轨迹中录制的玩家活动和候选的空闲阈值重新判断空闲，误差为活动的录制分辨率
+ * 负载预测依赖服务器上学习到的负载曲线，回放中不模拟
+ */
+public final class ReplaySimulator {
+    private static final String NO_PLAN = "(none)";
+    private static final Signal[] WORLD_SIGNALS = {Signal.LOADED_CHUNKS, Signal.ENTITIES, Signal.TIME_OF_DAY};
+
+    private ReplaySimulator() {}
+
+    /**
+     * @param watts 按计划 ID 或计划名称给出的平均功率（瓦），找不到的计划不计入能耗
+     */
+    public static Result run(String candidate, Trace trace, Config config, Map<String, Double> watts) {
+        long started = System.nanoTime();
+        ConfigSnapshot snapshot = ConfigSnapshot.compile(config, 0);
+        ReplayTickTimes tickTimes = new ReplayTickTimes();
+        PlanSelector selector = new PlanSelector(config, config.getPlanIndex(), tickTimes);
+        SwitchPolicy policy = new SwitchPolicy(config.getSwitching());
+        PlayerTracker players = new PlayerTracker(new PlayerExclusion(snapshot.getExclusion()));
+        Config.Activity activity = config.getActivity();
+        boolean weighActivity = activity.isEnabled() && trace.isActivityRecorded();
+        long idleMillis = TimeUnit.SECONDS.toMillis(Math.max(1, activity.getIdleSeconds()));
+        double idleWeight = Math.min(1.0, Math.max(0.0, activity.getIdleWeight()));
+        PlanSchedule schedule = new PlanSchedule(ZoneId.systemDefault());
+        schedule.rebuild(config.getPlan().values(), trace.getStartEpochMillis());
+
+        // 按配置顺序给计划编号，最后一格记录没有匹配到任何计划的时间
+        Map<Config.PlanEntry, Integer> slots = new IdentityHashMap<>();
+        List<String> names = new ArrayList<>();
+        double[] planWatts = new double[config.getPlan().size() + 1];
+        for (Config.PlanEntry plan : config.getPlan().values()) {
+            slots.put(plan, names.size());
+            Double value = watts.get(plan.getName());
+            if (value == null && plan.getPlanId() != null) value = watts.get(plan.getPlanId());
+            planWatts[names.size()] = value != null ? value : Double.NaN;
+            names.add(plan.getName());
+        }
+        int noPlan = names.size();
+        names.add(NO_PLAN);
+        planWatts[noPlan] = Double.NaN;
+
+        long[] planMillis = new long[names.size()];
+        boolean[] seenSignal = new boolean[WORLD_SIGNALS.length];
+        int slot = noPlan;
+        String appliedPlanId = null;
+        int switches = 0;
+        long previous = 0;
+
+        for (int i = 0; i < trace.size(); i++) {
+            long offset = trace.getOffsetMillis(i);
+            planMillis[slot] += offset - previous;
+            previous = offset;
+
+            switch (trace.getType(i)) {
+                case TraceFormat.JOIN -> players.onJoin(sessionUuid(trace.getSession(i)), trace.getSessionName(trace.getSession(i)));
+                case TraceFormat.LEAVE -> players.onLeave(sessionUuid(trace.getSession(i)));
+                case TraceFormat.ACTIVE -> {
+                    players.onActivity(sessionUuid(trace.getSession(i)), offset);
+                    // 活动之后紧跟着同一时刻的样本，在那里重新选择
+                    continue;
+                }
+                case TraceFormat.SAMPLE -> {
+                    if (weighActivity) {
+                        players.refreshIdle(offset, idleMillis);
+                    }
+                    tickTimes.set(trace.getMsptEwma(i), trace.getMsptP95(i), trace.isWarm(i));
+                    setSignal(selector, seenSignal, 0, trace.getLoadedChunks(i));
+                    setSignal(selector, seenSignal, 1, trace.getEntities(i));
+                    setSignal(selector, seenSignal, 2, trace.getTimeOfDay(i));
+                }
+                default -> {
+                    // 录制时的实际计划只用于统计实测功率
+                    continue;
+                }
+            }
+
+            // 与 PlayerActivitySampler 相同：只要还有需求就向上取整
+            int demand = weighActivity ? (int) Math.ceil(players.getDemand(idleWeight)) : players.getRealPlayerCount();
+            long nowNanos = offset * 1_000_000L;
+            schedule.tick(trace.getStartEpochMillis() + offset);
+            Config.PlanEntry matched = selector.select(demand);
+            Config.PlanEntry scheduled = schedule.apply(matched);
+            Config.PlanEntry target = scheduled != matched
+                    ? policy.selectScheduled(scheduled, nowNanos)
+                    : policy.select(matched, demand, selector.isSelectedByPlayers(), nowNanos);
+            if (target != null && target.getPlanId() != null && !target.getPlanId().equals(appliedPlanId)) {
+                if (appliedPlanId != null) switches++;
+                appliedPlanId = target.getPlanId();
+            }
+            if (target != null) {
+                slot = slots.get(target);
+            }
+        }
+
+        Map<String, Long> timeByPlan = new LinkedHashMap<>();
+        double joules = 0;
+        long unpricedMillis = 0;
+        for (int p = 0; p < names.size(); p++) {
+            if (planMillis[p] == 0) continue;
+            timeByPlan.put(names.get(p), planMillis[p]);
+            if (Double.isNaN(planWatts[p])) {
+                unpricedMillis += planMillis[p];
+            } else {
+                joules += planWatts[p] * planMillis[p] / 1000.0;
+            }
+        }
+        List<Signal> missingSignals = new ArrayList<>();
+        for (int s = 0; s < WORLD_SIGNALS.length; s++) {
+            if (selector.requires(WORLD_SIGNALS[s]) && !seenSignal[s]) {
+                missingSignals.add(WORLD_SIGNALS[s]);
+            }
+        }
+        return new Result(candidate, switches, timeByPlan, joules, unpricedMillis, trace.getDurationMillis(),
+                missingSignals, activity.isEnabled() && !weighActivity, policy.getSuppressedSwitches(),
+                System.nanoTime() - started);
+    }
+
+    private static void setSignal(PlanSelector selector, boolean[] seen, int index, float value) {
+        if (Float.isNaN(value)) return;
+        seen[index] = true;
+        selector.setSignal(WORLD_SIGNALS[index], value);
+    }
+
+    private static UUID sessionUuid(int session) {
+        return new UUID(0, session);
+    }
+
+    /**
+     * 一个候选配置的回放结果
+     *
+     * @param unpricedMillis 停留在没有功率数据的计划上的时间，不计入 {@code joules}
+     * @param missingSignals 条件表达式需要但录制时没有采样的信号，按 0 处理
+     * @param activityIgnored 候选配置开启了活动加权，但轨迹没有录制玩家活动，按真实玩家数量回放
+     */
+    public record Result(String candidate, int switches, Map<String, Long> timeByPlan, double joules,
+                         long unpricedMillis, long totalMillis, List<Signal> missingSignals,
+                         boolean activityIgnored, long suppressedSwitches, long elapsedNanos) {
+    }
+
+    /**
+     * 直接返回轨迹中记录的 tick 耗时统计
+     */
+    private static final class ReplayTickTimes extends TickTimeSampler {
+        private double ewma;
+        private double p95;
+        private boolean warm;
+
+        private ReplayTickTimes() {
+            super(1, 1.0);
+        }
+
+        private void set(double ewma, double p95, boolean warm) {
+            this.ewma = ewma;
+            this.p95 = p95;
+            this.warm = warm;
+        }
+
+        @Override
+        public boolean isWarm() {
+            return warm;
+        }
+
+        @Override
+        public double getEwmaMillis() {
+            return ewma;
+        }
+
+        @Override
+        public double getP95Millis() {
+            return p95;
+        }
+    }
+}
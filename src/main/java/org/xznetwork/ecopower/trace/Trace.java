@@ -0,0 +1,267 @@
+package org.xznetwork.ecopower.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读入内存的轨迹，记录按列存放在基本类型数组中，供多个回放并发只读访问
+ * 服务器异常退出时文件末尾可能有半条记录，读取时忽略
+ */
+public final class Trace {
+    private final long startEpochMillis;
+    private final int size;
+    private final byte[] types;
+    private final long[] offsetMillis;
+    // JOIN/LEAVE/ACTIVE 为会话号，PLAN 为 planIds 中的下标，SAMPLE 为标志
+    private final int[] values;
+    private final float[] msptEwma;
+    private final float[] msptP95;
+    private final float[] loadedChunks;
+    private final float[] entities;
+    private final float[] timeOfDay;
+    private final float[] watts;
+    private final List<String> sessionNames;
+    private final List<String> planIds;
+    private final boolean truncated;
+    private final boolean activityRecorded;
+
+    private Trace(long startEpochMillis, Columns columns, List<String> sessionNames, List<String> planIds,
+                  boolean truncated, boolean activityRecorded) {
+        this.startEpochMillis = startEpochMillis;
+        this.size = columns.size;
+        this.types = Arrays.copyOf(columns.types, size);
+        this.offsetMillis = Arrays.copyOf(columns.offsetMillis, size);
+        this.values = Arrays.copyOf(columns.values, size);
+        this.msptEwma = Arrays.copyOf(columns.msptEwma, size);
+        this.msptP95 = Arrays.copyOf(columns.msptP95, size);
+        this.loadedChunks = Arrays.copyOf(columns.loadedChunks, size);
+        this.entities = Arrays.copyOf(columns.entities, size);
+        this.timeOfDay = Arrays.copyOf(columns.timeOfDay, size);
+        this.watts = Arrays.copyOf(columns.watts, size);
+        this.sessionNames = List.copyOf(sessionNames);
+        this.planIds = List.copyOf(planIds);
+        this.truncated = truncated;
+        this.activityRecorded = activityRecorded;
+    }
+
+    public static Trace read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != TraceFormat.MAGIC) {
+                throw new IOException(file + " is not an EcoPower trace");
+            }
+            int version = in.readByte();
+            if (version < 1 || version > TraceFormat.VERSION) {
+                throw new IOException("Unsupported trace version " + version + " in " + file);
+            }
+            long start = in.readLong();
+
+            Columns columns = new Columns();
+            List<String> sessionNames = new ArrayList<>();
+            List<String> planIds = new ArrayList<>();
+            Map<String, Integer> planIndex = new HashMap<>();
+            long offset = 0;
+            boolean truncated = false;
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                try {
+                    offset += TraceFormat.readVarLong(in);
+                    int i = columns.add((byte) type, offset);
+                    switch (type) {
+                        case TraceFormat.JOIN -> {
+                            int session = (int) TraceFormat.readVarLong(in);
+                            String name = in.readUTF();
+                            // 会话号按加入顺序分配，与列表下标一致
+                            while (sessionNames.size() <= session) sessionNames.add(null);
+                            sessionNames.set(session, name);
+                            columns.values[i] = session;
+                        }
+                        case TraceFormat.LEAVE, TraceFormat.ACTIVE -> columns.values[i] = (int) TraceFormat.readVarLong(in);
+                        case TraceFormat.PLAN -> {
+                            String planId = in.readUTF();
+                            columns.values[i] = planIndex.computeIfAbsent(planId, id -> {
+                                planIds.add(id);
+                                return planIds.size() - 1;
+                            });
+                        }
+                        case TraceFormat.SAMPLE -> {
+                            int flags = in.readUnsignedByte();
+                            columns.values[i] = flags;
+                            columns.msptEwma[i] = in.readFloat();
+                            columns.msptP95[i] = in.readFloat();
+                            columns.loadedChunks[i] = (flags & TraceFormat.FLAG_CHUNKS) != 0 ? in.readFloat() : Float.NaN;
+                            columns.entities[i] = (flags & TraceFormat.FLAG_ENTITIES) != 0 ? in.readFloat() : Float.NaN;
+                            columns.timeOfDay[i] = (flags & TraceFormat.FLAG_TIME_OF_DAY) != 0 ? in.readFloat() : Float.NaN;
+                            columns.watts[i] = (flags & TraceFormat.FLAG_WATTS) != 0 ? in.readFloat() : Float.NaN;
+                        }
+                        default -> throw new IOException("Unknown trace record type " + type + " in " + file);
+                    }
+                } catch (EOFException e) {
+                    columns.size--;
+                    truncated = true;
+                    break;
+                }
+            }
+            return new Trace(start, columns, sessionNames, planIds, truncated, version >= TraceFormat.FIRST_ACTIVITY_VERSION);
+        }
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * 最后一条记录相对开始时间的毫秒数
+     */
+    public long getDurationMillis() {
+        return size == 0 ? 0 : offsetMillis[size - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte getType(int i) {
+        return types[i];
+    }
+
+    public long getOffsetMillis(int i) {
+        return offsetMillis[i];
+    }
+
+    public int getSession(int i) {
+        return values[i];
+    }
+
+    public String getSessionName(int session) {
+        return sessionNames.get(session);
+    }
+
+    public String getPlanId(int i) {
+        return planIds.get(values[i]);
+    }
+
+    public List<String> getPlanIds() {
+        return planIds;
+    }
+
+    public boolean isWarm(int i) {
+        return (values[i] & TraceFormat.FLAG_WARM) != 0;
+    }
+
+    public float getMsptEwma(int i) {
+        return msptEwma[i];
+    }
+
+    public float getMsptP95(int i) {
+        return msptP95[i];
+    }
+
+    public float getLoadedChunks(int i) {
+        return loadedChunks[i];
+    }
+
+    public float getEntities(int i) {
+        return entities[i];
+    }
+
+    public float getTimeOfDay(int i) {
+        return timeOfDay[i];
+    }
+
+    public float getWatts(int i) {
+        return watts[i];
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 版本 1 的轨迹没有录制玩家活动，无法回放活动加权
+     */
+    public boolean isActivityRecorded() {
+        return activityRecorded;
+    }
+
+    public int count(byte type) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 按录制时实际生效的计划统计平均功率（瓦），没有功率样本的计划不出现在结果中
+     * 每个样本代表它到下一条样本之间的时间
+     */
+    public Map<String, Double> measuredWatts() {
+        double[] joules = new double[planIds.size()];
+        long[] millis = new long[planIds.size()];
+        int plan = -1;
+        int lastSample = -1;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == TraceFormat.PLAN) {
+                plan = values[i];
+            } else if (types[i] == TraceFormat.SAMPLE && !Float.isNaN(watts[i])) {
+                if (lastSample >= 0 && plan >= 0) {
+                    long elapsed = offsetMillis[i] - offsetMillis[lastSample];
+                    joules[plan] += watts[i] * elapsed / 1000.0;
+                    millis[plan] += elapsed;
+                }
+                lastSample = i;
+            }
+        }
+        Map<String, Double> result = new HashMap<>();
+        for (int p = 0; p < planIds.size(); p++) {
+            if (millis[p] > 0) {
+                result.put(planIds.get(p), joules[p] * 1000.0 / millis[p]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 读取时按需扩容的列缓冲
+     */
+    private static final class Columns {
+        private int size = 0;
+        private byte[] types = new byte[4096];
+        private long[] offsetMillis = new long[4096];
+        private int[] values = new int[4096];
+        private float[] msptEwma = new float[4096];
+        private float[] msptP95 = new float[4096];
+        private float[] loadedChunks = new float[4096];
+        private float[] entities = new float[4096];
+        private float[] timeOfDay = new float[4096];
+        private float[] watts = new float[4096];
+
+        private int add(byte type, long offset) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                offsetMillis = Arrays.copyOf(offsetMillis, capacity);
+                values = Arrays.copyOf(values, capacity);
+                msptEwma = Arrays.copyOf(msptEwma, capacity);
+                msptP95 = Arrays.copyOf(msptP95, capacity);
+                loadedChunks = Arrays.copyOf(loadedChunks, capacity);
+                entities = Arrays.copyOf(entities, capacity);
+                timeOfDay = Arrays.copyOf(timeOfDay, capacity);
+                watts = Arrays.copyOf(watts, capacity);
+            }
+            types[size] = type;
+            offsetMillis[size] = offset;
+            return size++;
+        }
+    }
+}
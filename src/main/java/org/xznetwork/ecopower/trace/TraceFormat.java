@@ -0,0 +1,62 @@
+package org.xznetwork.ecopower.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 轨迹文件格式
+ * <pre>
+ * 文件头：int 魔数 "EPTR"，byte 版本，long 开始时间（epoch 毫秒）
+ * 记录：  byte 类型，varint 距上一条记录的毫秒数，之后按类型：
+ *   JOIN   varint 会话号，UTF 玩家名
+ *   LEAVE  varint 会话号
+ *   SAMPLE byte 标志，float MSPT EWMA，float MSPT p95，[float 区块] [float 实体] [float 时间] [float 功率（瓦）]
+ *   PLAN   UTF 实际生效的计划 ID
+ *   ACTIVE varint 会话号（版本 2 起）
+ * </pre>
+ * 会话号在一次录制中按加入顺序递增，同一玩家重新加入时分配新的会话号
+ * ACTIVE 表示玩家在这一时刻有活动（移动、交互、聊天），同一会话最多每 {@link #ACTIVITY_RESOLUTION_MILLIS} 记录一次；
+ * 回放时据此按候选配置的空闲阈值重新判断空闲
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x45505452; // "EPTR"
+    static final byte VERSION = 2;
+    static final byte FIRST_ACTIVITY_VERSION = 2;
+
+    static final byte JOIN = 1;
+    static final byte LEAVE = 2;
+    static final byte SAMPLE = 3;
+    static final byte PLAN = 4;
+    static final byte ACTIVE = 5;
+
+    static final long ACTIVITY_RESOLUTION_MILLIS = 5000;
+
+    static final int FLAG_WARM = 1;
+    static final int FLAG_CHUNKS = 1 << 1;
+    static final int FLAG_ENTITIES = 1 << 2;
+    static final int FLAG_TIME_OF_DAY = 1 << 3;
+    static final int FLAG_WATTS = 1 << 4;
+
+    private TraceFormat() {}
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+}
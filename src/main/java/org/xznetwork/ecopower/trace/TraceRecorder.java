@@ -0,0 +1,200 @@
+package org.xznetwork.ecopower.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录制玩家进出和活动、每秒负载样本和实际计划切换的紧凑二进制轨迹，供 {@link ReplayMain} 离线回放
+ * 服务器线程只把记录编码进内存缓冲，后台线程每隔几秒把缓冲追加写入文件
+ */
+public class TraceRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Trace");
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'trace-'yyyyMMdd-HHmmss'.eptr'");
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final Map<UUID, Session> sessions = new HashMap<>();
+    private int nextSession = 0;
+    private long lastRecordMillis;
+
+    // 以下由 this 保护
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    private TraceRecorder(Path file, long startMillis) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.lastRecordMillis = startMillis;
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeByte(TraceFormat.VERSION);
+        out.writeLong(startMillis);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EcoPower-Trace");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 在目录下以当前时间命名新建一个轨迹文件并开始录制
+     */
+    public static TraceRecorder start(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(LocalDateTime.now().format(FILE_NAME));
+        TraceRecorder recorder = new TraceRecorder(file, System.currentTimeMillis());
+        LOGGER.info("[Eco Power] Recording load trace to {}", file);
+        return recorder;
+    }
+
+    public synchronized void onJoin(UUID uuid, String name, long nowMillis) {
+        int session = nextSession++;
+        sessions.put(uuid, new Session(session, nowMillis));
+        try {
+            header(TraceFormat.JOIN, nowMillis);
+            TraceFormat.writeVarLong(out, session);
+            out.writeUTF(name);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // 内存缓冲不会抛出
+        }
+    }
+
+    public synchronized void onLeave(UUID uuid, long nowMillis) {
+        Session session = sessions.remove(uuid);
+        if (session == null) return;
+        try {
+            header(TraceFormat.LEAVE, nowMillis);
+            TraceFormat.writeVarLong(out, session.id);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按玩家最近一次活动的时间（任意单调时钟）记录活动，与录制的活动相隔不到一个分辨率时跳过
+     * 无论服务器是否启用了活动加权都会录制，回放时可以评估不同的空闲阈值
+     */
+    public synchronized void onActivity(UUID uuid, long lastActionTime, long nowMillis) {
+        Session session = sessions.get(uuid);
+        if (session == null || lastActionTime == session.lastActionTime) return;
+        session.lastActionTime = lastActionTime;
+        if (nowMillis - session.lastRecordedMillis < TraceFormat.ACTIVITY_RESOLUTION_MILLIS) return;
+        session.lastRecordedMillis = nowMillis;
+        try {
+            header(TraceFormat.ACTIVE, nowMillis);
+            TraceFormat.writeVarLong(out, session.id);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public synchronized void onPlanSwitched(String planId, long nowMillis) {
+        try {
+            header(TraceFormat.PLAN, nowMillis);
+            out.writeUTF(planId);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 记录一个负载样本，未采样的信号传入 {@link Double#NaN}
+     */
+    public synchronized void sample(long nowMillis, double msptEwma, double msptP95, boolean warm,
+                                    double loadedChunks, double entities, double timeOfDay, double watts) {
+        int flags = (warm ? TraceFormat.FLAG_WARM : 0)
+                | (Double.isNaN(loadedChunks) ? 0 : TraceFormat.FLAG_CHUNKS)
+                | (Double.isNaN(entities) ? 0 : TraceFormat.FLAG_ENTITIES)
+                | (Double.isNaN(timeOfDay) ? 0 : TraceFormat.FLAG_TIME_OF_DAY)
+                | (Double.isNaN(watts) ? 0 : TraceFormat.FLAG_WATTS);
+        try {
+            header(TraceFormat.SAMPLE, nowMillis);
+            out.writeByte(flags);
+            out.writeFloat((float) msptEwma);
+            out.writeFloat((float) msptP95);
+            if ((flags & TraceFormat.FLAG_CHUNKS) != 0) out.writeFloat((float) loadedChunks);
+            if ((flags & TraceFormat.FLAG_ENTITIES) != 0) out.writeFloat((float) entities);
+            if ((flags & TraceFormat.FLAG_TIME_OF_DAY) != 0) out.writeFloat((float) timeOfDay);
+            if ((flags & TraceFormat.FLAG_WATTS) != 0) out.writeFloat((float) watts);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 写出剩余的记录并关闭文件
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("[Eco Power] Failed to close trace file {}", file, e);
+        }
+    }
+
+    private void header(byte type, long nowMillis) throws IOException {
+        out.writeByte(type);
+        // 系统时钟回拨时记为 0，保持记录顺序
+        TraceFormat.writeVarLong(out, Math.max(0, nowMillis - lastRecordMillis));
+        lastRecordMillis = Math.max(lastRecordMillis, nowMillis);
+    }
+
+    private void flush() {
+        byte[] bytes;
+        synchronized (this) {
+            if (buffer.size() == 0) return;
+            bytes = buffer.toByteArray();
+            buffer.reset();
+        }
+        try {
+            ByteBuffer data = ByteBuffer.wrap(bytes);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            LOGGER.error("[Eco Power] Failed to write trace file {}, {} bytes lost", file, bytes.length, e);
+        }
+    }
+
+    private static class Session {
+        private final int id;
+        private long lastActionTime = Long.MIN_VALUE;
+        // 加入本身就是一次活动
+        private long lastRecordedMillis;
+
+        private Session(int id, long joinMillis) {
+            this.id = id;
+            this.lastRecordedMillis = joinMillis;
+        }
+    }
+}
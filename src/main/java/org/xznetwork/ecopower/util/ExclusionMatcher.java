@@ -0,0 +1,137 @@
+package org.xznetwork.ecopower.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xznetwork.ecopower.config.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 由 {@link Config.Exclude} 编译得到的不可变匹配器
+ * 前缀使用前缀树，后缀使用反向前缀树，正则在加载时预编译并尽量合并为一个交替表达式
+ */
+public final class ExclusionMatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Exclusion");
+    // 含有反向引用的表达式合并后组号会错位，只能单独匹配
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+    private final TrieNode prefixes;
+    private final TrieNode suffixes;
+    private final Pattern[] patterns;
+    private final int ruleCount;
+
+    private ExclusionMatcher(TrieNode prefixes, TrieNode suffixes, Pattern[] patterns, int ruleCount) {
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.patterns = patterns;
+        this.ruleCount = ruleCount;
+    }
+
+    public static ExclusionMatcher compile(Config.Exclude exclude) {
+        TrieNode prefixRoot = new TrieNode();
+        for (String prefix : exclude.getPrefixes()) {
+            if (prefix != null) prefixRoot.insert(prefix, false);
+        }
+
+        TrieNode suffixRoot = new TrieNode();
+        for (String suffix : exclude.getSuffixes()) {
+            if (suffix != null) suffixRoot.insert(suffix, true);
+        }
+
+        List<String> mergeable = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : exclude.getRegexes()) {
+            if (regex == null) continue;
+            try {
+                Pattern pattern = Pattern.compile(regex);
+                if (BACK_REFERENCE.matcher(regex).find()) {
+                    patterns.add(pattern);
+                } else {
+                    mergeable.add(regex);
+                }
+            } catch (PatternSyntaxException e) {
+                LOGGER.warn("[Eco Power] Ignoring invalid regex pattern: '{}' - {}", regex, e.getDescription());
+            }
+        }
+
+        if (mergeable.size() == 1) {
+            patterns.add(Pattern.compile(mergeable.get(0)));
+        } else if (!mergeable.isEmpty()) {
+            StringBuilder alternation = new StringBuilder();
+            for (String regex : mergeable) {
+                if (!alternation.isEmpty()) alternation.append('|');
+                alternation.append("(?:").append(regex).append(')');
+            }
+            try {
+                patterns.add(Pattern.compile(alternation.toString()));
+            } catch (PatternSyntaxException e) {
+                // 例如重复的命名分组，退回逐个匹配
+                for (String regex : mergeable) {
+                    patterns.add(Pattern.compile(regex));
+                }
+            }
+        }
+
+        int ruleCount = exclude.getPrefixes().size() + exclude.getSuffixes().size() + exclude.getRegexes().size();
+        return new ExclusionMatcher(prefixRoot, suffixRoot, patterns.toArray(new Pattern[0]), ruleCount);
+    }
+
+    public boolean matches(String playerName) {
+        return prefixes.matchesPrefix(playerName)
+                || suffixes.matchesSuffix(playerName)
+                || matchesPattern(playerName);
+    }
+
+    private boolean matchesPattern(String playerName) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(playerName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private boolean terminal;
+
+        private void insert(String key, boolean reversed) {
+            TrieNode node = this;
+            int length = key.length();
+            for (int i = 0; i < length; i++) {
+                char c = key.charAt(reversed ? length - 1 - i : i);
+                node = node.children.computeIfAbsent(c, k -> new TrieNode());
+            }
+            node.terminal = true;
+        }
+
+        private boolean matchesPrefix(String name) {
+            TrieNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.terminal) return true;
+                if (i == name.length()) return false;
+                node = node.children.get(name.charAt(i));
+                if (node == null) return false;
+            }
+        }
+
+        private boolean matchesSuffix(String name) {
+            TrieNode node = this;
+            for (int i = name.length() - 1; ; i--) {
+                if (node.terminal) return true;
+                if (i < 0) return false;
+                node = node.children.get(name.charAt(i));
+                if (node == null) return false;
+            }
+        }
+    }
+}
@@ -1,50 +1,31 @@
 package org.xznetwork.ecopower.util;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.xznetwork.ecopower.config.Config;
 
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
 public class PlayerExclusion {
-    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Exclusion");
-    private Config config;
+    private ExclusionMatcher matcher;
 
     public PlayerExclusion(Config config) {
-        this.config = config;
+        updateConfig(config);
     }
 
-    public void updateConfig(Config config) {
-        this.config = config;
+    public PlayerExclusion(ExclusionMatcher matcher) {
+        this.matcher = matcher;
     }
 
-    public boolean shouldExcludePlayer(String playerName) {
-        // Check prefixes
-        for (String prefix : config.getExclude().getPrefixes()) {
-            if (playerName.startsWith(prefix)) {
-                return true;
-            }
-        }
-
-        // Check suffixes
-        for (String suffix : config.getExclude().getSuffixes()) {
-            if (playerName.endsWith(suffix)) {
-                return true;
-            }
-        }
+    public void updateConfig(Config config) {
+        // 规则只在加载配置时编译一次，无效的正则也只在这里报告
+        this.matcher = ExclusionMatcher.compile(config.getExclude());
+    }
 
-        // Check regex patterns
-        for (String regex : config.getExclude().getRegexes()) {
-            try {
-                if (Pattern.matches(regex, playerName)) {
-                    return true;
-                }
-            } catch (PatternSyntaxException e) {
-                LOGGER.warn("Invalid regex pattern: '{}' - {}", regex, e.getMessage());
-            }
-        }
+    /**
+     * 切换到配置快照中已编译好的匹配器
+     */
+    public void setMatcher(ExclusionMatcher matcher) {
+        this.matcher = matcher;
+    }
 
-        return false;
+    public boolean shouldExcludePlayer(String playerName) {
+        return matcher.matches(playerName);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package org.xznetwork.ecopower.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 增量维护在线真实玩家数量
+ * 只在玩家加入、离开以及配置重载时重新判断排除规则，tick 中直接读取计数
+ * 每名玩家分配一个紧凑下标，最近活动时间和空闲状态按下标存放在基本类型数组中，
+ * 活动更新和空闲判断不分配内存
+ */
+public class PlayerTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger("EcoPower|Tracker");
+    private static final int INITIAL_SLOTS = 64;
+
+    private final Map<UUID, TrackedPlayer> players = new HashMap<>();
+    private final PlayerExclusion playerExclusion;
+    private int realPlayerCount = 0;
+
+    // 按下标存放：最近活动时间（毫秒，调用方的单调时钟）、是否空闲、是否计入真实玩家
+    private long[] lastActivity = new long[INITIAL_SLOTS];
+    private boolean[] idle = new boolean[INITIAL_SLOTS];
+    private boolean[] counted = new boolean[INITIAL_SLOTS];
+    private int[] freeSlots = new int[INITIAL_SLOTS];
+    private int freeCount = 0;
+    private int slotLimit = 0; // 曾经分配过的最大下标 + 1
+    private int idleRealCount = 0;
+    private long clockMillis = 0; // 最近一次 refreshIdle 的时间，作为新加入玩家的活动时间
+    private long idleThresholdMillis = Long.MAX_VALUE;
+
+    public PlayerTracker(PlayerExclusion playerExclusion) {
+        this.playerExclusion = playerExclusion;
+    }
+
+    public void onJoin(UUID uuid, String name) {
+        TrackedPlayer previous = players.get(uuid);
+        if (previous != null) {
+            // 同一 UUID 重复加入（或改名后重新加入），先撤销旧的判定
+            release(previous);
+        }
+
+        TrackedPlayer player = new TrackedPlayer(name, playerExclusion.shouldExcludePlayer(name), allocateSlot());
+        players.put(uuid, player);
+        lastActivity[player.slot] = clockMillis;
+        idle[player.slot] = false;
+        counted[player.slot] = !player.excluded;
+        if (!player.excluded) realPlayerCount++;
+
+        LOGGER.debug("[Eco Power] Player joined: {} (excluded: {}), real players: {}", name, player.excluded, realPlayerCount);
+    }
+
+    public void onLeave(UUID uuid) {
+        TrackedPlayer player = players.remove(uuid);
+        if (player == null) return;
+        release(player);
+
+        LOGGER.debug("[Eco Power] Player left: {}, real players: {}", player.name, realPlayerCount);
+    }
+
+    /**
+     * 记录玩家的活动（移动、交互、聊天），空闲的玩家立即恢复为活跃
+     * 时间早于已记录的活动时间时忽略
+     */
+    public void onActivity(UUID uuid, long nowMillis) {
+        TrackedPlayer player = players.get(uuid);
+        if (player == null) return;
+        int slot = player.slot;
+        if (nowMillis > lastActivity[slot]) {
+            lastActivity[slot] = nowMillis;
+        }
+        // 轮询到的可能是早已记录过的旧活动时间，按当前时钟判断是否真的恢复了活动
+        if (idle[slot] && Math.max(clockMillis, nowMillis) - lastActivity[slot] < idleThresholdMillis) {
+            idle[slot] = false;
+            if (counted[slot]) idleRealCount--;
+        }
+    }
+
+    /**
+     * 按空闲阈值重新判断每名玩家是否空闲，通常每秒调用一次
+     */
+    public void refreshIdle(long nowMillis, long idleMillis) {
+        clockMillis = nowMillis;
+        idleThresholdMillis = idleMillis;
+        int idleCount = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            boolean isIdle = nowMillis - lastActivity[slot] >= idleMillis;
+            idle[slot] = isIdle;
+            if (isIdle && counted[slot]) idleCount++;
+        }
+        idleRealCount = idleCount;
+    }
+
+    /**
+     * 配置重载后重新判断所有在线玩家的排除状态
+     */
+    public void recheckAll() {
+        int count = 0;
+        int idleCount = 0;
+        for (TrackedPlayer player : players.values()) {
+            player.excluded = playerExclusion.shouldExcludePlayer(player.name);
+            counted[player.slot] = !player.excluded;
+            if (!player.excluded) {
+                count++;
+                if (idle[player.slot]) idleCount++;
+            }
+        }
+        realPlayerCount = count;
+        idleRealCount = idleCount;
+    }
+
+    public void clear() {
+        players.clear();
+        realPlayerCount = 0;
+        idleRealCount = 0;
+        freeCount = 0;
+        slotLimit = 0;
+    }
+
+    /**
+     * 遍历所有在线玩家（包括被排除的）
+     */
+    public void forEachPlayer(BiConsumer<UUID, String> action) {
+        players.forEach((uuid, player) -> action.accept(uuid, player.name));
+    }
+
+    public boolean isExcluded(UUID uuid) {
+        TrackedPlayer player = players.get(uuid);
+        return player != null && player.excluded;
+    }
+
+    public int getRealPlayerCount() {
+        return realPlayerCount;
+    }
+
+    /**
+     * 空闲的真实玩家数量，在 {@link #refreshIdle} 之前始终为 0
+     */
+    public int getIdlePlayerCount() {
+        return idleRealCount;
+    }
+
+    /**
+     * 按活跃程度加权的真实玩家需求：活跃玩家计 1，空闲玩家计 {@code idleWeight}
+     */
+    public double getDemand(double idleWeight) {
+        return (realPlayerCount - idleRealCount) + idleRealCount * idleWeight;
+    }
+
+    public int getTrackedPlayerCount() {
+        return players.size();
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotLimit == lastActivity.length) {
+            int capacity = slotLimit * 2;
+            lastActivity = Arrays.copyOf(lastActivity, capacity);
+            idle = Arrays.copyOf(idle, capacity);
+            counted = Arrays.copyOf(counted, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return slotLimit++;
+    }
+
+    private void release(TrackedPlayer player) {
+        int slot = player.slot;
+        if (counted[slot]) {
+            realPlayerCount--;
+            if (idle[slot]) idleRealCount--;
+        }
+        // 空槽位不计入任何计数，也不会被判为空闲
+        counted[slot] = false;
+        idle[slot] = false;
+        lastActivity[slot] = Long.MAX_VALUE / 2;
+        freeSlots[freeCount++] = slot;
+    }
+
+    private static class TrackedPlayer {
+        private final String name;
+        private final int slot;
+        private boolean excluded;
+
+        private TrackedPlayer(String name, boolean excluded, int slot) {
+            this.name = name;
+            this.excluded = excluded;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.xznetwork.ecopower.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 哈希时间轮：定时器按到期时间（固定分辨率的时间格）散列到环形槽位中
+ * 还没到下一格时 {@link #advance} 只做一次比较；每经过一格只处理对应的一个槽位，
+ * 其中不属于本圈的远期定时器原地保留。时钟大幅前跳时每个槽位最多扫描一次
+ * 非线程安全，只在一个线程上使用
+ */
+public final class TimerWheel<T> {
+    private final Node<T>[] slots;
+    private final int mask;
+    private final long resolutionMillis;
+    private long currentTick; // 下一个要处理的时间格
+    private long nextTickMillis;
+    private int size = 0;
+
+    /**
+     * @param slotCount 槽位数，向上取整为 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int slotCount, long resolutionMillis, long nowMillis) {
+        int capacity = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = (Node<T>[]) new Node[capacity];
+        this.mask = capacity - 1;
+        this.resolutionMillis = Math.max(1, resolutionMillis);
+        reset(nowMillis);
+    }
+
+    /**
+     * 在 {@code deadlineMillis} 之后的第一次推进时触发；已经过期的定时器在下一次推进时触发
+     */
+    public void schedule(T payload, long deadlineMillis) {
+        long tick = Math.max(Math.floorDiv(deadlineMillis + resolutionMillis - 1, resolutionMillis), currentTick);
+        int index = (int) (tick & mask);
+        slots[index] = new Node<>(payload, tick, slots[index]);
+        size++;
+    }
+
+    /**
+     * 推进到 {@code nowMillis}，对每个到期的定时器调用 {@code onExpired}，同一次推进内的顺序不保证
+     * 回调中可以安排新的定时器，它们最早在下一次推进时触发
+     */
+    public void advance(long nowMillis, Consumer<T> onExpired) {
+        if (nowMillis < nextTickMillis) return;
+
+        long target = Math.floorDiv(nowMillis, resolutionMillis);
+        long last = Math.min(target, currentTick + mask);
+        Node<T> expired = null;
+        for (long tick = currentTick; tick <= last; tick++) {
+            int index = (int) (tick & mask);
+            Node<T> kept = null;
+            Node<T> node = slots[index];
+            while (node != null) {
+                Node<T> next = node.next;
+                if (node.tick <= target) {
+                    node.next = expired;
+                    expired = node;
+                    size--;
+                } else {
+                    node.next = kept;
+                    kept = node;
+                }
+                node = next;
+            }
+            slots[index] = kept;
+        }
+        currentTick = target + 1;
+        nextTickMillis = currentTick * resolutionMillis;
+
+        for (Node<T> node = expired; node != null; node = node.next) {
+            onExpired.accept(node.payload);
+        }
+    }
+
+    /**
+     * 清空所有定时器并把当前时间设为 {@code nowMillis}
+     */
+    public void reset(long nowMillis) {
+        Arrays.fill(slots, null);
+        size = 0;
+        currentTick = Math.floorDiv(nowMillis, resolutionMillis) + 1;
+        nextTickMillis = currentTick * resolutionMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        private final T payload;
+        private final long tick;
+        private Node<T> next;
+
+        private Node(T payload, long tick, Node<T> next) {
+            this.payload = payload;
+            this.tick = tick;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+# EcoPower 电源命令助手（Windows）
+# 从标准输入逐行读取命令，每条命令回复一行 OK [结果] 或 ERR <原因>：
+#   PING          -> OK
+#   GET           -> OK <当前方案 GUID>
+#   SET <guid>    -> OK
+#   LIST          -> OK <数量>，随后每行一个 <guid><TAB><名称>
+# GET/SET 直接调用 powrprof.dll，不再为每次切换启动 powercfg
+$ErrorActionPreference = 'Stop'
+Add-Type -Namespace EcoPower -Name PowrProf -MemberDefinition @'
+[DllImport("powrprof.dll")]
+public static extern uint PowerGetActiveScheme(IntPtr root, out IntPtr guid);
+[DllImport("powrprof.dll")]
+public static extern uint PowerSetActiveScheme(IntPtr root, ref Guid guid);
+[DllImport("kernel32.dll")]
+public static extern IntPtr LocalFree(IntPtr mem);
+'@
+[Console]::OutputEncoding = [System.Text.Encoding]::UTF8
+
+function Reply([string]$text) {
+    [Console]::Out.WriteLine($text)
+    [Console]::Out.Flush()
+}
+
+while ($true) {
+    $line = [Console]::In.ReadLine()
+    if ($line -eq $null) { break }
+    $parts = $line.Trim().Split(' ', 2)
+    try {
+        switch ($parts[0].ToUpperInvariant()) {
+            'PING' { Reply 'OK' }
+            'GET' {
+                $ptr = [IntPtr]::Zero
+                $rc = [EcoPower.PowrProf]::PowerGetActiveScheme([IntPtr]::Zero, [ref]$ptr)
+                if ($rc -ne 0) { throw "PowerGetActiveScheme failed with code $rc" }
+                $guid = [System.Runtime.InteropServices.Marshal]::PtrToStructure($ptr, [type][Guid])
+                [void][EcoPower.PowrProf]::LocalFree($ptr)
+                Reply "OK $guid"
+            }
+            'SET' {
+                $guid = [Guid]::Parse($parts[1])
+                $rc = [EcoPower.PowrProf]::PowerSetActiveScheme([IntPtr]::Zero, [ref]$guid)
+                if ($rc -ne 0) { throw "PowerSetActiveScheme failed with code $rc. Admin rights required?" }
+                Reply 'OK'
+            }
+            'LIST' {
+                $plans = @(powercfg /list | Select-String -Pattern '([0-9a-fA-F-]{36})\s+\((.*)\)' | ForEach-Object {
+                    "$($_.Matches[0].Groups[1].Value)`t$($_.Matches[0].Groups[2].Value)"
+                })
+                [Console]::Out.WriteLine("OK $($plans.Count)")
+                foreach ($plan in $plans) { [Console]::Out.WriteLine($plan) }
+                [Console]::Out.Flush()
+            }
+            default { Reply "ERR Unknown command $($parts[0])" }
+        }
+    } catch {
+        Reply ("ERR " + ($_.Exception.Message -replace '\r?\n', ' '))
+    }
+}
@@ -0,0 +1,57 @@
+#!/bin/sh
+# EcoPower 电源命令助手（Linux cpufreq），协议与 ecopower-helper.ps1 相同
+# 计划 ID 与 cpufreq 后端一致：governor[:energy_performance_preference]
+# 用法：ecopower-helper.sh [CPU 根目录，默认 /sys/devices/system/cpu]
+root="${1:-/sys/devices/system/cpu}"
+
+while IFS= read -r line; do
+    set -- $line
+    case "$1" in
+        PING)
+            echo "OK"
+            ;;
+        GET)
+            policy="$root/cpu0/cpufreq"
+            if ! governor=$(cat "$policy/scaling_governor" 2>/dev/null); then
+                echo "ERR Cannot read $policy/scaling_governor"
+            elif [ -f "$policy/energy_performance_preference" ]; then
+                echo "OK $governor:$(cat "$policy/energy_performance_preference")"
+            else
+                echo "OK $governor"
+            fi
+            ;;
+        SET)
+            governor="${2%%:*}"
+            epp=""
+            case "$2" in *:*) epp="${2#*:}" ;; esac
+            failed=""
+            count=0
+            for policy in "$root"/cpu[0-9]*/cpufreq; do
+                [ -f "$policy/scaling_governor" ] || continue
+                echo "$governor" > "$policy/scaling_governor" 2>/dev/null || failed="$policy"
+                if [ -n "$epp" ] && [ -f "$policy/energy_performance_preference" ]; then
+                    echo "$epp" > "$policy/energy_performance_preference" 2>/dev/null || failed="$policy"
+                fi
+                count=$((count + 1))
+            done
+            if [ "$count" -eq 0 ]; then
+                echo "ERR No cpufreq policies found under $root"
+            elif [ -n "$failed" ]; then
+                echo "ERR Failed to write $failed. Root required?"
+            else
+                echo "OK"
+            fi
+            ;;
+        LIST)
+            governors=$(cat "$root/cpu0/cpufreq/scaling_available_governors" 2>/dev/null)
+            set -- $governors
+            echo "OK $#"
+            for governor in "$@"; do
+                printf '%s\t%s\n' "$governor" "$governor"
+            done
+            ;;
+        *)
+            echo "ERR Unknown command $1"
+            ;;
+    esac
+done
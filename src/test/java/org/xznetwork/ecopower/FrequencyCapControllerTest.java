@@ -0,0 +1,94 @@
+package org.xznetwork.ecopower;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xznetwork.ecopower.backend.PowerBackend;
+import org.xznetwork.ecopower.backend.PowerPlan;
+import org.xznetwork.ecopower.backend.PowerTier;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.metrics.Metrics;
+import org.xznetwork.ecopower.policy.MsptController;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+class FrequencyCapControllerTest {
+
+    /**
+     * 只记录最后一次写入的频率上限
+     */
+    private static class CappingBackend implements PowerBackend {
+        volatile int cap = MsptController.FULL_SPEED;
+
+        @Override
+        public String getName() {
+            return "capping";
+        }
+
+        @Override
+        public List<PowerPlan> listPlans() {
+            return List.of();
+        }
+
+        @Override
+        public String getActivePlan() {
+            return "plan";
+        }
+
+        @Override
+        public void setActivePlan(String planId) {}
+
+        @Override
+        public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) {}
+
+        @Override
+        public boolean supportsFrequencyCap() {
+            return true;
+        }
+
+        @Override
+        public void setFrequencyCap(int percent) {
+            cap = percent;
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    @Test
+    void staleSignalRestoresFullSpeed() throws InterruptedException {
+        CappingBackend backend = new CappingBackend();
+        PowerPlanManager manager = new PowerPlanManager(backend, 5000, new Metrics());
+        Config.Controller settings = new Config.Controller();
+        settings.setIntervalTicks(1);
+        settings.setStaleSeconds(1);
+        FrequencyCapController controller = new FrequencyCapController(manager, settings);
+        controller.updateSettings(settings, true);
+        try {
+            for (int i = 0; i < 5; i++) {
+                controller.tick(10, true, System.nanoTime());
+            }
+            Assertions.assertTrue(await(() -> backend.cap < MsptController.FULL_SPEED, 2000), "cap " + backend.cap);
+
+            // 不再调用 tick，看门狗在 1 秒后恢复全速
+            Assertions.assertTrue(await(controller::isStale, 4000));
+            Assertions.assertTrue(await(() -> backend.cap == MsptController.FULL_SPEED, 2000), "cap " + backend.cap);
+
+            // 信号恢复后从全速重新收敛
+            controller.tick(10, true, System.nanoTime());
+            Assertions.assertFalse(controller.isStale());
+            Assertions.assertEquals(90, controller.getRequestedCap());
+        } finally {
+            controller.shutdown();
+            manager.shutdown();
+        }
+        Assertions.assertEquals(MsptController.FULL_SPEED, backend.cap);
+    }
+}
@@ -0,0 +1,72 @@
+package org.xznetwork.ecopower;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class PowerSwitchExecutorTest {
+
+    @Test
+    void supersededRequestStillGetsCallback() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        PowerSwitchExecutor executor = new PowerSwitchExecutor(planId -> {
+            executed.add(planId);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return !planId.equals("broken");
+        });
+
+        SwitchResult[] results = new SwitchResult[4];
+        CountDownLatch done = new CountDownLatch(3);
+        executor.submit("first", result -> { results[0] = result; done.countDown(); });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 第一个请求正在执行时排队的两个请求，只有后一个会执行
+        executor.submit("second", result -> { results[1] = result; done.countDown(); });
+        executor.submit("broken", result -> { results[2] = result; done.countDown(); });
+        Assertions.assertEquals(SwitchResult.SUPERSEDED, results[1]);
+
+        release.countDown();
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown(5000);
+        // 关闭后提交的请求不会执行，但同样会回调
+        executor.submit("late", result -> results[3] = result);
+
+        Assertions.assertEquals(List.of("first", "broken"), executed);
+        Assertions.assertEquals(SwitchResult.SUCCESS, results[0]);
+        Assertions.assertEquals(SwitchResult.FAILED, results[2]);
+        Assertions.assertEquals(SwitchResult.SUPERSEDED, results[3]);
+    }
+
+    @Test
+    void shutdownWaitsForSwitchOutlastingTimeout() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> finished = new CopyOnWriteArrayList<>();
+        PowerSwitchExecutor executor = new PowerSwitchExecutor(planId -> {
+            started.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.add(planId);
+            return true;
+        });
+
+        executor.submit("slow", result -> finished.add("callback " + result));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.shutdown(10);
+
+        // 关闭返回时切换和它的回调都已经结束，之后的同步恢复不会被覆盖
+        Assertions.assertEquals(List.of("slow", "callback SUCCESS"), finished);
+    }
+}
@@ -0,0 +1,134 @@
+package org.xznetwork.ecopower.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class CpufreqBackendTest {
+    @TempDir
+    Path root;
+
+    /**
+     * 仿照 /sys/devices/system/cpu 建立 cpuN/cpufreq 目录
+     */
+    private void cpu(int index, String governors, boolean epp) throws IOException {
+        Path cpufreq = Files.createDirectories(root.resolve("cpu" + index).resolve("cpufreq"));
+        Files.writeString(cpufreq.resolve("scaling_available_governors"), governors + "\n");
+        Files.writeString(cpufreq.resolve("scaling_governor"), "powersave\n");
+        Files.writeString(cpufreq.resolve("cpuinfo_max_freq"), "4000000\n");
+        Files.writeString(cpufreq.resolve("scaling_max_freq"), "4000000\n");
+        Files.writeString(cpufreq.resolve("scaling_min_freq"), "800000\n");
+        if (epp) {
+            Files.writeString(cpufreq.resolve("energy_performance_preference"), "balance_performance\n");
+        }
+    }
+
+    private String read(int index, String file) throws IOException {
+        return Files.readString(root.resolve("cpu" + index).resolve("cpufreq").resolve(file)).trim();
+    }
+
+    @Test
+    void listsGovernorsAndDetectsActivePlan() throws IOException {
+        cpu(0, "performance powersave", true);
+        cpu(1, "performance powersave", true);
+        // 离线的 CPU 没有 cpufreq 目录，cpufreq 之类的同级目录也不算 CPU
+        Files.createDirectories(root.resolve("cpu2"));
+        Files.createDirectories(root.resolve("cpufreq"));
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        Assertions.assertEquals(List.of("performance", "powersave"),
+                backend.listPlans().stream().map(PowerPlan::getId).toList());
+        Assertions.assertEquals("powersave:balance_performance", backend.getActivePlan());
+        Assertions.assertTrue(backend.isActivePlan("powersave:balance_performance", "powersave"));
+        Assertions.assertTrue(backend.isActivePlan("powersave:balance_performance", "powersave:balance_performance"));
+        Assertions.assertFalse(backend.isActivePlan("powersave:power", "powersave:balance_performance"));
+        Assertions.assertFalse(backend.isActivePlan("performance", "powersave"));
+    }
+
+    @Test
+    void writesGovernorAndPreferenceToEveryCpu() throws IOException {
+        cpu(0, "performance powersave", true);
+        cpu(1, "performance powersave", false);
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        backend.setActivePlan("performance:performance");
+        Assertions.assertEquals("performance", read(0, "scaling_governor"));
+        Assertions.assertEquals("performance", read(1, "scaling_governor"));
+        Assertions.assertEquals("performance", read(0, "energy_performance_preference"));
+        // 不支持能效偏好的 CPU 只切换调速器
+        Assertions.assertFalse(Files.exists(root.resolve("cpu1/cpufreq/energy_performance_preference")));
+
+        backend.setActivePlan("powersave");
+        Assertions.assertEquals("powersave", read(0, "scaling_governor"));
+        Assertions.assertEquals("performance", read(0, "energy_performance_preference"));
+    }
+
+    @Test
+    void defaultPlansFallBackToPreferenceOnPstateDrivers() throws IOException {
+        cpu(0, "performance powersave", true);
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        Config.PlanEntry balanced = new Config.PlanEntry();
+        backend.applyDefaultPlan(balanced, PowerTier.BALANCED);
+        Assertions.assertEquals("powersave:balance_performance", balanced.getPlanId());
+
+        Config.PlanEntry saver = new Config.PlanEntry();
+        backend.applyDefaultPlan(saver, PowerTier.POWER_SAVER);
+        Assertions.assertEquals("powersave:power", saver.getPlanId());
+
+        Config.PlanEntry high = new Config.PlanEntry();
+        backend.applyDefaultPlan(high, PowerTier.HIGH_PERFORMANCE);
+        Assertions.assertEquals("performance", high.getPlanId());
+    }
+
+    @Test
+    void defaultBalancedPlanPrefersSchedutil() throws IOException {
+        cpu(0, "performance schedutil powersave", false);
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        Config.PlanEntry balanced = new Config.PlanEntry();
+        backend.applyDefaultPlan(balanced, PowerTier.BALANCED);
+        Assertions.assertEquals("schedutil", balanced.getPlanId());
+    }
+
+    @Test
+    void missingGovernorIsReported() throws IOException {
+        cpu(0, "schedutil", false);
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        Assertions.assertThrows(IOException.class, () -> backend.applyDefaultPlan(new Config.PlanEntry(), PowerTier.HIGH_PERFORMANCE));
+    }
+
+    @Test
+    void capsMaximumFrequencyAboveMinimum() throws IOException {
+        cpu(0, "performance powersave", false);
+        cpu(1, "performance powersave", false);
+        CpufreqBackend backend = new CpufreqBackend(root);
+        Assertions.assertTrue(backend.supportsFrequencyCap());
+
+        backend.setFrequencyCap(50);
+        Assertions.assertEquals("2000000", read(0, "scaling_max_freq"));
+        Assertions.assertEquals("2000000", read(1, "scaling_max_freq"));
+
+        // 低于 scaling_min_freq 的上限按下限写入
+        backend.setFrequencyCap(10);
+        Assertions.assertEquals("800000", read(0, "scaling_max_freq"));
+
+        backend.setFrequencyCap(150);
+        Assertions.assertEquals("4000000", read(1, "scaling_max_freq"));
+    }
+
+    @Test
+    void emptyRootHasNoPolicies() {
+        CpufreqBackend backend = new CpufreqBackend(root);
+
+        Assertions.assertFalse(backend.supportsFrequencyCap());
+        Assertions.assertThrows(IOException.class, () -> backend.setActivePlan("performance"));
+    }
+}
@@ -0,0 +1,123 @@
+package org.xznetwork.ecopower.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@DisabledOnOs(OS.WINDOWS)
+class HelperBackendTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * 记录被调用的方法，直接执行的切换写入 active
+     */
+    private static class RecordingBackend implements PowerBackend {
+        final List<String> calls = new ArrayList<>();
+        String active = "balanced";
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public List<PowerPlan> listPlans() {
+            calls.add("list");
+            return List.of(new PowerPlan(active, active));
+        }
+
+        @Override
+        public String getActivePlan() {
+            calls.add("get");
+            return active;
+        }
+
+        @Override
+        public void setActivePlan(String planId) {
+            calls.add("set " + planId);
+            active = planId;
+        }
+
+        @Override
+        public void noteActivePlan(String planId) {
+            calls.add("note " + planId);
+        }
+
+        @Override
+        public void applyDefaultPlan(Config.PlanEntry plan, PowerTier tier) {}
+    }
+
+    @Test
+    void helperSwitchIsNotedOnWrappedBackend() throws IOException {
+        RecordingBackend fallback = new RecordingBackend();
+        HelperBackend backend = new HelperBackend(fallback, new HelperProcess(HelperProcessTest.standIn(directory), 2000), 0);
+        try {
+            backend.setActivePlan("saver");
+            Assertions.assertEquals("saver", backend.getActivePlan());
+
+            Assertions.assertEquals(List.of("note saver", "note saver"), fallback.calls);
+            Assertions.assertFalse(backend.isDegraded());
+        } finally {
+            backend.close();
+        }
+    }
+
+    /**
+     * 助手切换之后，powercfg 后端的频率上限要作用在新方案上；
+     * 测试环境没有 powercfg，活动方案只能来自缓存，否则读取本身就会失败
+     */
+    @Test
+    void capAfterHelperSwitchTargetsNewScheme() throws IOException {
+        PowercfgBackend powercfg = new PowercfgBackend(2000);
+        HelperBackend backend = new HelperBackend(powercfg, new HelperProcess(HelperProcessTest.standIn(directory), 2000), 0);
+        try {
+            backend.setActivePlan(PowerPlanCatalog.POWER_SAVER_GUID);
+
+            Assertions.assertEquals(PowerPlanCatalog.POWER_SAVER_GUID, powercfg.getActivePlan());
+            // 没有限制过的方案保持全速时不需要启动 powercfg
+            backend.setFrequencyCap(100);
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void fallsBackWhileHelperIsUnavailable() throws IOException {
+        RecordingBackend fallback = new RecordingBackend();
+        HelperProcess helper = new HelperProcess(List.of(directory.resolve("missing").toString()), 2000);
+        HelperBackend backend = new HelperBackend(fallback, helper, 0);
+        try {
+            backend.setActivePlan("saver");
+
+            Assertions.assertTrue(backend.isDegraded());
+            Assertions.assertEquals(List.of("set saver"), fallback.calls);
+            Assertions.assertEquals("saver", backend.getActivePlan());
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void helperErrorIsNotRetriedDirectly() throws IOException {
+        RecordingBackend fallback = new RecordingBackend();
+        HelperBackend backend = new HelperBackend(fallback, new HelperProcess(HelperProcessTest.standIn(directory), 2000), 0);
+        try {
+            IOException error = Assertions.assertThrows(IOException.class, () -> backend.setActivePlan("locked"));
+
+            Assertions.assertEquals("Power helper: Access denied", error.getMessage());
+            Assertions.assertTrue(fallback.calls.isEmpty());
+            Assertions.assertFalse(backend.isDegraded());
+        } finally {
+            backend.close();
+        }
+    }
+}
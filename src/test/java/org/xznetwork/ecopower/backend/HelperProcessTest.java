@@ -0,0 +1,137 @@
+package org.xznetwork.ecopower.backend;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@DisabledOnOs(OS.WINDOWS)
+class HelperProcessTest {
+    /**
+     * 按助手协议应答的替身脚本；切换到 locked 时回复 ERR，HANG 不回复，EXIT 让进程退出
+     */
+    static final String STAND_IN = """
+            active=balanced
+            while IFS= read -r line; do
+                set -- $line
+                case "$1" in
+                    PING) echo "OK" ;;
+                    GET) echo "OK $active" ;;
+                    SET)
+                        if [ "$2" = locked ]; then
+                            echo "ERR Access denied"
+                        else
+                            active="$2"
+                            echo "OK"
+                        fi
+                        ;;
+                    LIST) echo "OK 2"; printf 'balanced\\tBalanced\\n'; printf 'saver\\tPower saver\\n' ;;
+                    HANG) sleep 2 ;;
+                    EXIT) exit 3 ;;
+                    *) echo "ERR Unknown command $1" ;;
+                esac
+            done
+            """;
+
+    @TempDir
+    Path directory;
+
+    private HelperProcess helper;
+
+    static List<String> standIn(Path directory) throws IOException {
+        Path script = directory.resolve("helper.sh");
+        Files.writeString(script, STAND_IN);
+        return List.of("sh", script.toString());
+    }
+
+    @AfterEach
+    void close() {
+        if (helper != null) {
+            helper.close();
+        }
+    }
+
+    @Test
+    void startsOnFirstRequestAndAnswersPing() throws IOException {
+        helper = new HelperProcess(standIn(directory), 2000);
+
+        Assertions.assertFalse(helper.isRunning());
+        Assertions.assertTrue(helper.ping());
+        Assertions.assertTrue(helper.isRunning());
+        Assertions.assertEquals(1, helper.getStarts());
+    }
+
+    @Test
+    void readsSingleAndMultiLineReplies() throws IOException {
+        helper = new HelperProcess(standIn(directory), 2000);
+
+        helper.request("SET saver");
+        Assertions.assertEquals("saver", helper.request("GET"));
+        Assertions.assertEquals(List.of("balanced\tBalanced", "saver\tPower saver"), helper.requestLines("LIST"));
+    }
+
+    @Test
+    void restartsAfterHelperDies() throws IOException, InterruptedException {
+        helper = new HelperProcess(standIn(directory), 2000);
+        helper.request("SET saver");
+
+        Assertions.assertThrows(HelperProcess.HelperUnavailableException.class, () -> helper.request("EXIT"));
+        Assertions.assertFalse(helper.isRunning());
+        // 重启有 1 秒的退避，期间的请求直接判为不可用
+        Assertions.assertThrows(HelperProcess.HelperUnavailableException.class, () -> helper.request("GET"));
+        Thread.sleep(1100);
+
+        // 新进程从头开始，之前的状态不会保留
+        Assertions.assertEquals("balanced", helper.request("GET"));
+        Assertions.assertEquals(2, helper.getStarts());
+    }
+
+    @Test
+    void killsHelperThatDoesNotAnswerInTime() throws IOException {
+        helper = new HelperProcess(standIn(directory), 200);
+        helper.request("PING");
+
+        HelperProcess.HelperUnavailableException timeout =
+                Assertions.assertThrows(HelperProcess.HelperUnavailableException.class, () -> helper.request("HANG"));
+        Assertions.assertTrue(timeout.getMessage().contains("within 200 ms"), timeout.getMessage());
+        Assertions.assertFalse(helper.isRunning());
+    }
+
+    @Test
+    void errorReplyKeepsHelperRunning() throws IOException {
+        helper = new HelperProcess(standIn(directory), 2000);
+
+        IOException error = Assertions.assertThrows(IOException.class, () -> helper.request("FROB"));
+        // ERR 说明命令本身失败，不能退回直接执行来掩盖
+        Assertions.assertFalse(error instanceof HelperProcess.HelperUnavailableException);
+        Assertions.assertEquals("Power helper: Unknown command FROB", error.getMessage());
+        Assertions.assertTrue(helper.isRunning());
+        Assertions.assertEquals(1, helper.getStarts());
+    }
+
+    @Test
+    void missingExecutableIsUnavailable() {
+        helper = new HelperProcess(List.of(directory.resolve("missing").toString()), 2000);
+
+        Assertions.assertThrows(HelperProcess.HelperUnavailableException.class, () -> helper.request("PING"));
+        Assertions.assertFalse(helper.ping());
+        Assertions.assertEquals(0, helper.getStarts());
+    }
+
+    @Test
+    void closedHelperIsUnavailable() throws IOException {
+        helper = new HelperProcess(standIn(directory), 2000);
+        helper.request("PING");
+        helper.close();
+
+        Assertions.assertFalse(helper.isRunning());
+        Assertions.assertThrows(HelperProcess.HelperUnavailableException.class, () -> helper.request("PING"));
+    }
+}
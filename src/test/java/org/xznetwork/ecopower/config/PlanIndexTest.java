@@ -0,0 +1,80 @@
+package org.xznetwork.ecopower.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class PlanIndexTest {
+
+    private static Config.PlanEntry plan(String name, int min, int max) {
+        Config.PlanEntry plan = new Config.PlanEntry();
+        plan.setName(name);
+        plan.setRange(new int[]{min, max});
+        return plan;
+    }
+
+    @Test
+    void findsPlanCoveringPlayerCount() {
+        Config.PlanEntry low = plan("low", 0, 4);
+        Config.PlanEntry mid = plan("mid", 5, 19);
+        Config.PlanEntry high = plan("high", 20, 1000);
+        PlanIndex index = PlanIndex.compile(List.of(high, low, mid));
+
+        Assertions.assertSame(low, index.find(0));
+        Assertions.assertSame(low, index.find(4));
+        Assertions.assertSame(mid, index.find(5));
+        Assertions.assertSame(high, index.find(20));
+        // 超出直接查表范围时二分查找
+        Assertions.assertSame(high, index.find(999));
+        Assertions.assertNull(index.find(1001));
+        Assertions.assertNull(index.find(-1));
+    }
+
+    @Test
+    void earlierPlanWinsWhereRangesOverlap() {
+        Config.PlanEntry first = plan("first", 0, 10);
+        Config.PlanEntry second = plan("second", 5, 20);
+        PlanIndex index = PlanIndex.compile(List.of(first, second));
+
+        Assertions.assertSame(first, index.find(5));
+        Assertions.assertSame(first, index.find(10));
+        Assertions.assertSame(second, index.find(11));
+    }
+
+    @Test
+    void gapsAndInvalidRangesMatchNothing() {
+        Config.PlanEntry low = plan("low", 0, 2);
+        Config.PlanEntry high = plan("high", 10, 20);
+        Config.PlanEntry broken = plan("broken", 8, 3);
+        PlanIndex index = PlanIndex.compile(List.of(low, high, broken));
+
+        Assertions.assertNull(index.find(5));
+        Assertions.assertSame(high, index.find(10));
+        Assertions.assertEquals(-1, broken.getRank());
+    }
+
+    @Test
+    void ranksFollowLowerBound() {
+        Config.PlanEntry low = plan("low", 0, 4);
+        Config.PlanEntry mid = plan("mid", 5, 19);
+        Config.PlanEntry high = plan("high", 20, 100);
+        PlanIndex.compile(List.of(high, mid, low));
+
+        Assertions.assertEquals(0, low.getRank());
+        Assertions.assertEquals(1, mid.getRank());
+        Assertions.assertEquals(2, high.getRank());
+    }
+
+    @Test
+    void denseLimitDoesNotChangeResults() {
+        Config.PlanEntry low = plan("low", 0, 49);
+        Config.PlanEntry high = plan("high", 50, 500);
+        PlanIndex index = PlanIndex.compile(List.of(low, high));
+        PlanIndex wide = index.withDenseLimit(400);
+
+        for (int count = 0; count <= 600; count++) {
+            Assertions.assertSame(index.find(count), wide.find(count), "players " + count);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.xznetwork.ecopower.history;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+class HistoryLogTest {
+    private static final int CAPACITY = 64;
+
+    @TempDir
+    Path directory;
+
+    private static Config.History settings() {
+        Config.History settings = new Config.History();
+        settings.setSegmentRecords(CAPACITY);
+        settings.setRawRetentionDays(1);
+        return settings;
+    }
+
+    /**
+     * 写满一个十天前的分段，两个小时各 32 个样本
+     */
+    private Path writeOldSegment(long sequence) throws IOException {
+        Path file = directory.resolve(String.format("segment-%06d.eph", sequence));
+        long start = Math.floorDiv(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(10), HistoryFormat.HOUR_MILLIS)
+                * HistoryFormat.HOUR_MILLIS;
+        HistorySegment segment = HistorySegment.create(file, sequence, CAPACITY, start);
+        for (int i = 0; i < CAPACITY; i++) {
+            long time = start + (i / 32) * HistoryFormat.HOUR_MILLIS + (i % 32) * 60_000L;
+            Assertions.assertTrue(segment.append(time, (short) 0, HistoryFormat.TYPE_SAMPLE, 0, 2, 20f, 0));
+        }
+        segment.force();
+        return file;
+    }
+
+    private HistorySummary queryAll() throws IOException {
+        HistoryLog log = HistoryLog.open(directory, settings());
+        try {
+            // 打开时排队的压缩先于查询在同一后台线程上执行
+            return log.query(0, System.currentTimeMillis() + 1).join();
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    void compactsOldSegmentsIntoRollups() throws IOException {
+        Path segment = writeOldSegment(1);
+
+        HistorySummary summary = queryAll();
+
+        Assertions.assertEquals(CAPACITY, summary.getSamples());
+        Assertions.assertEquals(2, summary.getRollupRecords());
+        Assertions.assertEquals(0, summary.getRawRecords());
+        Assertions.assertEquals(2.0, summary.getAveragePlayers());
+        Assertions.assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    void segmentLeftBehindAfterCommitIsNotCountedTwice() throws IOException {
+        Path segment = writeOldSegment(1);
+        byte[] original = Files.readAllBytes(segment);
+        queryAll();
+
+        // 汇总已提交、分段还没标记和删除时异常退出
+        Files.write(segment, original);
+        HistorySummary summary = queryAll();
+
+        Assertions.assertEquals(CAPACITY, summary.getSamples());
+        Assertions.assertEquals(2, summary.getRollupRecords());
+        Assertions.assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    void hourSpanningSegmentsIsMergedWithinOneCompaction() throws IOException {
+        writeOldSegment(1);
+        writeOldSegment(2);
+
+        HistorySummary summary = queryAll();
+
+        Assertions.assertEquals(2 * CAPACITY, summary.getSamples());
+        Assertions.assertEquals(2, summary.getRollupRecords());
+    }
+
+    @Test
+    void fullSegmentRotatesIntoPreallocatedSegment() throws IOException {
+        HistoryLog log = HistoryLog.open(directory, settings());
+        long start = System.currentTimeMillis();
+        try {
+            // 查询排在预先分配之后，返回时下一个分段已经就绪
+            log.query(0, 1).join();
+            Assertions.assertTrue(Files.exists(directory.resolve("segment-000002.eph")));
+
+            for (int i = 0; i <= CAPACITY; i++) {
+                log.recordSample(start + i, 3, 25.0);
+            }
+            HistorySummary summary = log.query(0, start + CAPACITY + 1).join();
+
+            Assertions.assertEquals(CAPACITY + 1, summary.getRawRecords());
+            Assertions.assertEquals(3.0, summary.getAveragePlayers());
+            // 换上分段 2 之后，后台线程接着分配分段 3
+            Assertions.assertTrue(Files.exists(directory.resolve("segment-000003.eph")));
+        } finally {
+            log.close();
+        }
+    }
+}
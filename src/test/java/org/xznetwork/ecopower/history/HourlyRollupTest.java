@@ -0,0 +1,77 @@
+package org.xznetwork.ecopower.history;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+class HourlyRollupTest {
+
+    @Test
+    void mergeAddsSumsAndKeepsMaxima() {
+        HourlyRollup first = new HourlyRollup(0, (short) 1);
+        first.addSample(3, 20f);
+        first.addSample(5, 30f);
+        first.addSwitch(true, 1500);
+        HourlyRollup second = new HourlyRollup(0, (short) 1);
+        second.addSample(4, 45f);
+        second.addSwitch(false, 9000);
+        second.addSwitch(true, 500);
+
+        first.merge(second);
+
+        Assertions.assertEquals(3, first.samples);
+        Assertions.assertEquals(12, first.sumPlayers);
+        Assertions.assertEquals(5, first.maxPlayers);
+        Assertions.assertEquals(95f, first.sumMspt);
+        Assertions.assertEquals(45f, first.maxMspt);
+        Assertions.assertEquals(2, first.switches);
+        Assertions.assertEquals(1, first.failedSwitches);
+        Assertions.assertEquals(11000, first.sumLatencyMicros);
+        Assertions.assertEquals(9000, first.maxLatencyMicros);
+    }
+
+    @Test
+    void mergeWithEmptyRollupChangesNothing() {
+        HourlyRollup rollup = new HourlyRollup(0, (short) 0);
+        rollup.addSample(2, 10f);
+        rollup.merge(new HourlyRollup(0, (short) 0));
+
+        Assertions.assertEquals(1, rollup.samples);
+        Assertions.assertEquals(2, rollup.sumPlayers);
+        Assertions.assertEquals(10f, rollup.maxMspt);
+    }
+
+    @Test
+    void mergeSaturatesSums() {
+        HourlyRollup first = new HourlyRollup(0, (short) 0);
+        first.sumPlayers = Integer.MAX_VALUE - 1;
+        first.sumLatencyMicros = Integer.MAX_VALUE;
+        HourlyRollup second = new HourlyRollup(0, (short) 0);
+        second.sumPlayers = 10;
+        second.sumLatencyMicros = 1;
+
+        first.merge(second);
+
+        Assertions.assertEquals(Integer.MAX_VALUE, first.sumPlayers);
+        Assertions.assertEquals(Integer.MAX_VALUE, first.sumLatencyMicros);
+    }
+
+    @Test
+    void roundTripsThroughBuffer() {
+        HourlyRollup rollup = new HourlyRollup(3_600_000L, (short) 7);
+        rollup.addSample(6, 12.5f);
+        rollup.addSwitch(false, 2500);
+        ByteBuffer buffer = ByteBuffer.allocate(HistoryFormat.ROLLUP_SIZE * 2);
+        rollup.write(buffer, HistoryFormat.ROLLUP_SIZE);
+
+        HourlyRollup read = HourlyRollup.read(buffer, HistoryFormat.ROLLUP_SIZE);
+        Assertions.assertEquals(3_600_000L, read.hourStart);
+        Assertions.assertEquals(7, read.plan);
+        Assertions.assertEquals(1, read.samples);
+        Assertions.assertEquals(6, read.maxPlayers);
+        Assertions.assertEquals(12.5f, read.sumMspt);
+        Assertions.assertEquals(1, read.failedSwitches);
+        Assertions.assertEquals(2500, read.maxLatencyMicros);
+    }
+}
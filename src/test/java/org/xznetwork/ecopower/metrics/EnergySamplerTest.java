@@ -0,0 +1,143 @@
+package org.xznetwork.ecopower.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class EnergySamplerTest {
+    // 定时采样不会在测试期间触发，样本全部由测试直接驱动
+    private static final int INTERVAL_SECONDS = 3600;
+
+    @TempDir
+    Path root;
+
+    private EnergySampler sampler;
+
+    @AfterEach
+    void stop() {
+        if (sampler != null) {
+            sampler.stop();
+        }
+    }
+
+    /**
+     * 仿照 /sys/class/powercap 建立 intel-rapl:N 区域，maxRange 为 0 时不写 max_energy_range_uj
+     */
+    private void zone(String name, long energy, long maxRange) throws IOException {
+        Path zone = Files.createDirectories(root.resolve(name));
+        Files.writeString(zone.resolve("energy_uj"), energy + "\n");
+        if (maxRange > 0) {
+            Files.writeString(zone.resolve("max_energy_range_uj"), maxRange + "\n");
+        }
+    }
+
+    private void energy(String name, long energy) throws IOException {
+        Files.writeString(root.resolve(name).resolve("energy_uj"), energy + "\n");
+    }
+
+    private EnergySampler start() {
+        sampler = new EnergySampler(root, INTERVAL_SECONDS);
+        Assertions.assertTrue(sampler.start());
+        return sampler;
+    }
+
+    @Test
+    void readsOnlyPackageZones() throws IOException {
+        zone("intel-rapl:0", 1000, 0);
+        zone("intel-rapl:1", 2000, 0);
+        // core、dram 等子区域已包含在 package 中
+        zone("intel-rapl:0:0", 500, 0);
+        EnergySampler sampler = start();
+
+        energy("intel-rapl:0", 1100);
+        energy("intel-rapl:1", 2050);
+        energy("intel-rapl:0:0", 900);
+        sampler.sample();
+
+        Assertions.assertEquals(2, sampler.getZoneCount());
+        Assertions.assertEquals(150, sampler.getTotalMicrojoules());
+    }
+
+    @Test
+    void correctsWraparoundWithMaxEnergyRange() throws IOException {
+        zone("intel-rapl:0", 900, 1000);
+        zone("intel-rapl:1", 900, 0);
+        EnergySampler sampler = start();
+
+        energy("intel-rapl:0", 100);
+        energy("intel-rapl:1", 100);
+        sampler.sample();
+
+        // 有范围的区域按 1000 回绕修正，范围未知的区域丢弃这一段
+        Assertions.assertEquals(200, sampler.getTotalMicrojoules());
+
+        energy("intel-rapl:0", 150);
+        energy("intel-rapl:1", 130);
+        sampler.sample();
+        Assertions.assertEquals(280, sampler.getTotalMicrojoules());
+    }
+
+    @Test
+    void zoneReadFailureDiscardsWholeSample() throws IOException {
+        zone("intel-rapl:0", 100, 0);
+        zone("intel-rapl:1", 1000, 0);
+        EnergySampler sampler = start();
+
+        energy("intel-rapl:0", 150);
+        Files.writeString(root.resolve("intel-rapl:1").resolve("energy_uj"), "garbage\n");
+        sampler.sample();
+
+        // 已读到的区域也不提交，下一次成功的采样覆盖整段时间
+        Assertions.assertEquals(0, sampler.getTotalMicrojoules());
+        Assertions.assertEquals(0, sampler.getTotalNanos());
+
+        energy("intel-rapl:0", 200);
+        energy("intel-rapl:1", 1100);
+        sampler.sample();
+        Assertions.assertEquals(200, sampler.getTotalMicrojoules());
+        Assertions.assertTrue(sampler.getTotalNanos() > 0);
+    }
+
+    @Test
+    void attributesEnergyToPlansAndPlayerHours() throws IOException {
+        zone("intel-rapl:0", 0, 0);
+        EnergySampler sampler = start();
+
+        sampler.setActivePlan("saver");
+        sampler.setRealPlayerCount(0);
+        energy("intel-rapl:0", 100);
+        sampler.sample();
+        long emptyNanos = sampler.getTotalNanos();
+
+        sampler.setActivePlan("busy");
+        sampler.setRealPlayerCount(3);
+        energy("intel-rapl:0", 400);
+        sampler.sample();
+
+        Map<String, EnergySampler.PlanUsage> usage = sampler.getPlanUsage();
+        Assertions.assertEquals(100, usage.get("saver").microjoules());
+        Assertions.assertEquals(300, usage.get("busy").microjoules());
+        Assertions.assertEquals(emptyNanos, usage.get("saver").nanos());
+        Assertions.assertEquals(sampler.getTotalNanos(), usage.get("saver").nanos() + usage.get("busy").nanos());
+
+        // 只有有人在线的那一段计入，玩家小时按人数加权
+        Assertions.assertEquals(300, sampler.getOccupiedMicrojoules());
+        double expectedHours = 3.0 * usage.get("busy").nanos() / TimeUnit.HOURS.toNanos(1);
+        Assertions.assertEquals(expectedHours, sampler.getPlayerHours(), 1e-12);
+    }
+
+    @Test
+    void missingZonesDisableSampling() {
+        sampler = new EnergySampler(root, INTERVAL_SECONDS);
+
+        Assertions.assertFalse(sampler.start());
+        Assertions.assertFalse(sampler.isRunning());
+    }
+}
@@ -0,0 +1,65 @@
+package org.xznetwork.ecopower.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class LatencyHistogramTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void bucketsCoverEveryValueWithinQuarterError() {
+        for (long value = 0; value < 100_000; value += value < 64 ? 1 : 37) {
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBound(index);
+            long lower = index == 0 ? 0 : LatencyHistogram.upperBound(index - 1);
+            Assertions.assertTrue(lower <= value && value < upper, "value " + value + " in [" + lower + ", " + upper + ")");
+            Assertions.assertTrue(upper - lower <= Math.max(1, value / 4), "bucket width at " + value);
+        }
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getPercentileNanos(0.99));
+    }
+
+    @Test
+    void percentilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * MILLI);
+        }
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(1000 * MILLI, histogram.getMaxNanos());
+        Assertions.assertEquals(500_500 * MILLI, histogram.getSumNanos());
+
+        long p50 = histogram.getPercentileNanos(0.5);
+        Assertions.assertTrue(p50 >= 500 * MILLI && p50 <= 625 * MILLI, "p50 " + p50);
+        // 分位数不超过实际最大值
+        Assertions.assertEquals(1000 * MILLI, histogram.getPercentileNanos(1.0));
+    }
+
+    @Test
+    void negativeDurationsAreClampedToZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        Assertions.assertEquals(1, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getSumNanos());
+        Assertions.assertEquals(0, histogram.getPercentileNanos(0.5));
+    }
+
+    @Test
+    void countsSamplesBelowPowerOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long limit = 1L << 20;
+        histogram.record(limit - 1);
+        histogram.record(limit / 2);
+        histogram.record(limit);
+        histogram.record(limit * 3);
+        Assertions.assertEquals(2, histogram.getCountBelow(limit));
+        Assertions.assertEquals(3, histogram.getCountBelow(limit * 2));
+    }
+}
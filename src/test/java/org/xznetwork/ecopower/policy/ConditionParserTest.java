@@ -0,0 +1,64 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConditionParserTest {
+
+    private static double[] signals(double players, double msptP95, double loadedChunks) {
+        double[] signals = new double[Signal.count()];
+        signals[Signal.PLAYERS.ordinal()] = players;
+        signals[Signal.MSPT_P95.ordinal()] = msptP95;
+        signals[Signal.LOADED_CHUNKS.ordinal()] = loadedChunks;
+        return signals;
+    }
+
+    @Test
+    void evaluatesAnyOfSeveralSignals() {
+        Condition condition = ConditionParser.parse("players >= 5 || mspt_p95 > 35 || loaded_chunks > 4000");
+        Assertions.assertTrue(condition.test(signals(5, 0, 0)));
+        Assertions.assertTrue(condition.test(signals(0, 35.5, 0)));
+        Assertions.assertTrue(condition.test(signals(0, 0, 4001)));
+        Assertions.assertFalse(condition.test(signals(4, 35, 4000)));
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        Condition condition = ConditionParser.parse("players > 10 or players > 2 and mspt_p95 > 40");
+        Assertions.assertTrue(condition.test(signals(11, 0, 0)));
+        Assertions.assertTrue(condition.test(signals(3, 41, 0)));
+        Assertions.assertFalse(condition.test(signals(3, 20, 0)));
+    }
+
+    @Test
+    void supportsArithmeticParenthesesAndNegation() {
+        Condition condition = ConditionParser.parse("!(loaded_chunks / (players + 1) < 100) && -players < 0");
+        Assertions.assertTrue(condition.test(signals(4, 0, 500)));
+        Assertions.assertFalse(condition.test(signals(4, 0, 499)));
+        Assertions.assertFalse(condition.test(signals(0, 0, 1000)));
+        Assertions.assertTrue(ConditionParser.parse("not false").test(signals(0, 0, 0)));
+        Assertions.assertTrue(ConditionParser.parse("players != 3").test(signals(2, 0, 0)));
+    }
+
+    @Test
+    void recordsReferencedSignalsOnly() {
+        Condition condition = ConditionParser.parse("players >= 5 && entities > 100");
+        Assertions.assertEquals(Signal.PLAYERS.mask() | Signal.ENTITIES.mask(), condition.getSignalMask());
+        Assertions.assertEquals(0, ConditionParser.parse("1 < 2").getSignalMask());
+    }
+
+    @Test
+    void wordOperatorsNeedWordBoundary() {
+        // "order" 不能被当作 or 加上信号 "der"
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("players > 1 order"));
+    }
+
+    @Test
+    void rejectsInvalidExpressions() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("unknown_signal > 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("(players > 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("players >"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("players > 1 2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("1..2 > 0"));
+    }
+}
@@ -0,0 +1,84 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class CronExpressionTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(UTC).toInstant().toEpochMilli();
+    }
+
+    private static long next(String expression, long afterMillis) {
+        return CronExpression.parse(expression).next(afterMillis, UTC);
+    }
+
+    @Test
+    void nextIsStrictlyAfterAndOnWholeMinutes() {
+        long saturdayEvening = at(2026, 10, 17, 20, 0);
+
+        // 2026-10-17 是周六
+        Assertions.assertEquals(saturdayEvening, next("0 20 * * SAT", at(2026, 10, 12, 9, 30)));
+        Assertions.assertEquals(at(2026, 10, 24, 20, 0), next("0 20 * * SAT", saturdayEvening));
+        Assertions.assertEquals(at(2026, 10, 17, 20, 1), next("* * * * *", saturdayEvening + 30_000));
+    }
+
+    @Test
+    void rangesListsAndSteps() {
+        long start = at(2026, 10, 19, 8, 59);
+
+        Assertions.assertEquals(at(2026, 10, 19, 9, 0), next("0 9-17 * * MON-FRI", start));
+        Assertions.assertEquals(at(2026, 10, 19, 9, 15), next("*/15 * * * *", at(2026, 10, 19, 9, 0)));
+        Assertions.assertEquals(at(2026, 10, 19, 9, 5), next("5/20 * * * *", start));
+        Assertions.assertEquals(at(2026, 10, 19, 12, 0), next("0 6,12,18 * * *", at(2026, 10, 19, 6, 0)));
+        Assertions.assertEquals(at(2026, 12, 1, 0, 0), next("0 0 1 dec *", start));
+    }
+
+    @Test
+    void sundayIsZeroOrSeven() {
+        long sunday = at(2026, 10, 18, 0, 0);
+        long before = at(2026, 10, 17, 12, 0);
+
+        Assertions.assertEquals(sunday, next("0 0 * * 0", before));
+        Assertions.assertEquals(sunday, next("0 0 * * 7", before));
+        Assertions.assertEquals(sunday, next("0 0 * * SUN", before));
+    }
+
+    @Test
+    void dayOfMonthOrDayOfWeekWhenBothRestricted() {
+        long start = at(2026, 10, 1, 12, 0);
+
+        // 13 日是周二，在此之前的第一个周五是 10 月 2 日
+        Assertions.assertEquals(at(2026, 10, 2, 0, 0), next("0 0 13 * FRI", start));
+        Assertions.assertEquals(at(2026, 10, 13, 0, 0), next("0 0 13 * *", start));
+    }
+
+    @Test
+    void impossibleDatesNeverFire() {
+        Assertions.assertEquals(Long.MAX_VALUE, next("0 0 30 2 *", at(2026, 1, 1, 0, 0)));
+        // 2 月 29 日在搜索范围内的闰年仍能找到
+        Assertions.assertEquals(at(2028, 2, 29, 0, 0), next("0 0 29 2 *", at(2026, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void followsLocalTimeOfZone() {
+        ZoneId shanghai = ZoneId.of("Asia/Shanghai");
+        long expected = LocalDateTime.of(2026, 10, 19, 8, 0).atZone(shanghai).toInstant().toEpochMilli();
+
+        Assertions.assertEquals(expected, CronExpression.parse("0 8 * * *").next(at(2026, 10, 18, 12, 0), shanghai));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 20 * *"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * * FUNDAY"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 17-9 * * *"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/0 * * * *"));
+    }
+}
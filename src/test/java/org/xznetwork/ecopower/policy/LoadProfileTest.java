@@ -0,0 +1,80 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class LoadProfileTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * 按分钟记录一整个时段，返回下一个时段的编号
+     */
+    private static int visit(LoadProfile profile, int slot, int... playerCounts) {
+        for (int players : playerCounts) {
+            profile.record(slot, players);
+        }
+        return slot + 1;
+    }
+
+    @Test
+    void eachSlotVisitCountsAsOneWeek() {
+        LoadProfile profile = new LoadProfile();
+        int[] minutes = new int[15];
+        minutes[14] = 12;
+        profile.record(visit(profile, 10, minutes), 0);
+
+        Assertions.assertEquals(1, profile.getSamples(10));
+        // 取这次经过期间的峰值，而不是最后几分钟的平均
+        Assertions.assertEquals(12.0f, profile.getMean(10), 1e-6f);
+    }
+
+    @Test
+    void visitIsCountedOnlyAfterLeavingSlot() {
+        LoadProfile profile = new LoadProfile();
+        visit(profile, 5, 3, 4, 8);
+        Assertions.assertEquals(0, profile.getSamples(5));
+        profile.record(6, 0);
+        Assertions.assertEquals(1, profile.getSamples(5));
+    }
+
+    @Test
+    void weeksAreAveragedWithBoundedWeight() {
+        LoadProfile profile = new LoadProfile();
+        for (int week = 0; week < 20; week++) {
+            visit(profile, 0, 10);
+            visit(profile, 1, 0);
+        }
+        Assertions.assertEquals(20, profile.getSamples(0));
+        Assertions.assertEquals(10.0f, profile.getMean(0), 1e-4f);
+
+        // 权重上限为 8 周，新的峰值按 1/8 计入
+        visit(profile, 0, 50);
+        visit(profile, 1, 0);
+        Assertions.assertEquals(15.0f, profile.getMean(0), 1e-4f);
+    }
+
+    @Test
+    void saveAndLoadKeepsVisitInProgress() throws IOException {
+        Path file = directory.resolve("load-profile.bin");
+        LoadProfile profile = new LoadProfile();
+        visit(profile, 40, 7);
+        visit(profile, 41, 9);
+        profile.recordPrediction(true);
+        profile.save(file);
+
+        LoadProfile loaded = new LoadProfile();
+        loaded.load(file);
+        Assertions.assertEquals(7.0f, loaded.getMean(40), 1e-6f);
+        Assertions.assertEquals(1, loaded.getHits());
+        // 重启后回到同一时段继续累计峰值
+        loaded.record(41, 2);
+        loaded.record(42, 0);
+        Assertions.assertEquals(9.0f, loaded.getMean(41), 1e-6f);
+        Assertions.assertEquals(1, loaded.getSamples(41));
+    }
+}
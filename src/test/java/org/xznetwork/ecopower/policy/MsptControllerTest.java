@@ -0,0 +1,105 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xznetwork.ecopower.config.Config;
+
+import java.util.concurrent.TimeUnit;
+
+class MsptControllerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 默认参数：目标 40 ms，kp 0.5，ki 0.2，最低 40%，步长 5%，每次最多变化 10%
+     */
+    private static Config.Controller settings() {
+        return new Config.Controller();
+    }
+
+    /**
+     * 以 1 秒间隔喂入同一个 MSPT，返回最后的时间
+     */
+    private static long hold(MsptController controller, double mspt, int updates, long startNanos) {
+        long now = startNanos;
+        for (int i = 0; i < updates; i++) {
+            now += SECOND;
+            controller.update(mspt, now);
+        }
+        return now;
+    }
+
+    @Test
+    void outputIsQuantizedAndRateLimited() {
+        MsptController controller = new MsptController(settings(), 0);
+        double[] mspt = {10, 12, 20, 31, 38, 42, 47, 25, 5, 44, 39, 41, 15, 49};
+        int previous = controller.getOutput();
+        long now = 0;
+        for (int round = 0; round < 20; round++) {
+            for (double value : mspt) {
+                now += SECOND;
+                int output = controller.update(value, now);
+                Assertions.assertEquals(0, output % 5, "output " + output + " for " + value + " ms");
+                Assertions.assertTrue(output >= 40 && output <= 100, "output " + output);
+                Assertions.assertTrue(Math.abs(output - previous) <= 10, previous + " -> " + output);
+                previous = output;
+            }
+        }
+    }
+
+    @Test
+    void integralStopsAtLimitsWhileSaturated() {
+        MsptController controller = new MsptController(settings(), 0);
+
+        // 全速时仍然偏慢：输出已饱和，积分不再增长
+        long now = hold(controller, 45, 30, 0);
+        Assertions.assertTrue(controller.isSaturated());
+        Assertions.assertEquals(100, controller.getIntegral(), 1e-9);
+        Assertions.assertEquals(100, controller.getOutput());
+
+        // 长时间远低于目标：输出压到下限之后积分不再减少，不会继续累积
+        now = hold(controller, 10, 30, now);
+        Assertions.assertTrue(controller.isSaturated());
+        double integral = controller.getIntegral();
+        int floor = controller.getOutput();
+        now = hold(controller, 10, 300, now);
+        Assertions.assertEquals(integral, controller.getIntegral(), 1e-9);
+        Assertions.assertEquals(floor, controller.getOutput());
+        Assertions.assertTrue(floor < 100 - 10, "output " + floor);
+
+        // 负载回升到目标之上时立即开始升频，不需要先消化积累的误差
+        now += SECOND;
+        int output = controller.update(44, now);
+        Assertions.assertFalse(controller.isSaturated());
+        Assertions.assertTrue(controller.getIntegral() > integral);
+        Assertions.assertEquals(floor + 10, output);
+    }
+
+    @Test
+    void missedTickBudgetJumpsToFullSpeed() {
+        MsptController controller = new MsptController(settings(), 0);
+        long now = hold(controller, 10, 300, 0);
+        Assertions.assertTrue(controller.getOutput() <= 50, "output " + controller.getOutput());
+
+        // 超过 50 ms 的预算时不受每次 10% 的限制
+        int output = controller.update(50, now + SECOND);
+
+        Assertions.assertEquals(MsptController.FULL_SPEED, output);
+        Assertions.assertEquals(MsptController.FULL_SPEED, controller.getIntegral(), 1e-9);
+        Assertions.assertTrue(controller.isSaturated());
+    }
+
+    @Test
+    void settingsAreClamped() {
+        Config.Controller settings = settings();
+        settings.setTargetMspt(80);
+        settings.setMinCapPercent(0);
+        settings.setStepPercent(20);
+        settings.setMaxChangePercent(5);
+        MsptController controller = new MsptController(settings, 0);
+
+        // 目标不超过 tick 预算，最大变化不小于步长
+        Assertions.assertEquals(50, controller.getTargetMspt(), 1e-9);
+        int output = controller.update(1, SECOND);
+        Assertions.assertEquals(80, output);
+    }
+}
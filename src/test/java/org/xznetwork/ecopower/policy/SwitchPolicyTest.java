@@ -0,0 +1,110 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xznetwork.ecopower.config.Config;
+import org.xznetwork.ecopower.config.PlanIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class SwitchPolicyTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private Config.PlanEntry low;
+    private Config.PlanEntry mid;
+    private Config.PlanEntry high;
+
+    private static Config.PlanEntry plan(String name, int min, int max, int hysteresis) {
+        Config.PlanEntry plan = new Config.PlanEntry();
+        plan.setName(name);
+        plan.setRange(new int[]{min, max});
+        plan.setHysteresis(hysteresis);
+        return plan;
+    }
+
+    private static SwitchPolicy policy(int dwellSeconds, int stepDownDelaySeconds, int maxPerMinute) {
+        Config.Switching switching = new Config.Switching();
+        switching.setMinDwellSeconds(dwellSeconds);
+        switching.setStepDownDelaySeconds(stepDownDelaySeconds);
+        switching.setMaxSwitchesPerMinute(maxPerMinute);
+        return new SwitchPolicy(switching);
+    }
+
+    @BeforeEach
+    void compilePlans() {
+        low = plan("low", 0, 4, 2);
+        mid = plan("mid", 5, 19, 2);
+        high = plan("high", 20, 100, 2);
+        // 编译索引时分配档位
+        PlanIndex.compile(List.of(low, mid, high));
+    }
+
+    @Test
+    void steppingUpIsImmediate() {
+        SwitchPolicy policy = policy(60, 60, 0);
+        Assertions.assertSame(low, policy.select(low, 0, true, 0));
+        // 玩家数量仍在 low 的滞回带内，升档也不受影响
+        Assertions.assertSame(mid, policy.select(mid, 5, true, SECOND));
+    }
+
+    @Test
+    void steppingDownWaitsForDelay() {
+        SwitchPolicy policy = policy(0, 30, 0);
+        policy.select(high, 25, true, 0);
+        Assertions.assertSame(high, policy.select(mid, 10, true, SECOND));
+        Assertions.assertSame(high, policy.select(mid, 10, true, 30 * SECOND));
+        Assertions.assertSame(mid, policy.select(mid, 10, true, 31 * SECOND));
+        Assertions.assertEquals(1, policy.getSuppressedByDwell());
+    }
+
+    @Test
+    void hysteresisHoldsPlayerDrivenStepDown() {
+        SwitchPolicy policy = policy(0, 0, 0);
+        policy.select(mid, 5, true, 0);
+        Assertions.assertSame(mid, policy.select(low, 3, true, SECOND));
+        Assertions.assertEquals(1, policy.getSuppressedByHysteresis());
+        Assertions.assertSame(low, policy.select(low, 2, true, 2 * SECOND));
+    }
+
+    @Test
+    void hysteresisIgnoredWhenNotPlayerDriven() {
+        SwitchPolicy policy = policy(0, 0, 0);
+        // 例如 MSPT 选出了 high，玩家数量仍在 mid 的区间内
+        policy.select(mid, 10, true, 0);
+        Assertions.assertSame(high, policy.select(high, 10, false, SECOND));
+        Assertions.assertSame(mid, policy.select(mid, 19, false, 2 * SECOND));
+        Assertions.assertEquals(0, policy.getSuppressedByHysteresis());
+    }
+
+    @Test
+    void rateLimitCapsSwitchesPerMinute() {
+        SwitchPolicy policy = policy(0, 0, 2);
+        policy.select(low, 0, true, 0);
+        policy.select(mid, 10, true, SECOND);
+        Assertions.assertSame(mid, policy.select(high, 50, true, 2 * SECOND));
+        Assertions.assertEquals(1, policy.getSuppressedByRateLimit());
+        // 最早的一次切换移出一分钟窗口后恢复
+        Assertions.assertSame(high, policy.select(high, 50, true, 61 * SECOND));
+    }
+
+    @Test
+    void scheduledPlanBypassesDelayButNotRateLimit() {
+        SwitchPolicy policy = policy(0, 300, 2);
+        policy.select(high, 50, true, 0);
+        Assertions.assertSame(low, policy.selectScheduled(low, SECOND));
+        Assertions.assertSame(low, policy.selectScheduled(high, 2 * SECOND));
+        Assertions.assertEquals(1, policy.getSuppressedByRateLimit());
+    }
+
+    @Test
+    void rebindFollowsPlanByName() {
+        SwitchPolicy policy = policy(0, 0, 0);
+        policy.select(mid, 10, true, 0);
+        Config.PlanEntry reloaded = plan("mid", 5, 19, 0);
+        policy.rebind(Map.of("mid", reloaded));
+        Assertions.assertSame(reloaded, policy.getCurrent());
+    }
+}
@@ -0,0 +1,71 @@
+package org.xznetwork.ecopower.policy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TickTimeSamplerTest {
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    void warmsUpWhenWindowIsFull() {
+        TickTimeSampler sampler = new TickTimeSampler(4, 0.5);
+        for (int i = 0; i < 3; i++) {
+            sampler.record(10 * MILLI);
+            Assertions.assertFalse(sampler.isWarm());
+        }
+        sampler.record(10 * MILLI);
+        Assertions.assertTrue(sampler.isWarm());
+    }
+
+    @Test
+    void ewmaStartsAtFirstSampleAndFollowsAlpha() {
+        TickTimeSampler sampler = new TickTimeSampler(10, 0.5);
+        sampler.record(10 * MILLI);
+        Assertions.assertEquals(10.0, sampler.getEwmaMillis(), 1e-9);
+        sampler.record(30 * MILLI);
+        Assertions.assertEquals(20.0, sampler.getEwmaMillis(), 1e-9);
+    }
+
+    @Test
+    void alphaChangeAppliesToNextSample() {
+        TickTimeSampler sampler = new TickTimeSampler(10, 0.5);
+        sampler.record(10 * MILLI);
+        sampler.setAlpha(0.25);
+        sampler.record(50 * MILLI);
+        Assertions.assertEquals(20.0, sampler.getEwmaMillis(), 1e-9);
+        Assertions.assertEquals(10, sampler.getWindowTicks());
+    }
+
+    @Test
+    void p95IgnoresRareSpikes() {
+        TickTimeSampler sampler = new TickTimeSampler(100, 0.05);
+        for (int i = 0; i < 100; i++) {
+            // 100 个样本中 4 个为 200ms 的尖峰
+            sampler.record((i % 25 == 0 ? 200 : 20 + i % 5) * MILLI);
+        }
+        Assertions.assertEquals(24.0, sampler.getP95Millis(), 1e-9);
+    }
+
+    @Test
+    void ringBufferDropsOldestSamples() {
+        TickTimeSampler sampler = new TickTimeSampler(20, 0.05);
+        for (int i = 0; i < 20; i++) {
+            sampler.record(100 * MILLI);
+        }
+        for (int i = 0; i < 20; i++) {
+            sampler.record(5 * MILLI);
+        }
+        Assertions.assertEquals(5.0, sampler.getP95Millis(), 1e-9);
+    }
+
+    @Test
+    void tickEndWithoutStartIsIgnored() {
+        TickTimeSampler sampler = new TickTimeSampler(4, 0.5);
+        sampler.onTickEnd(100 * MILLI);
+        Assertions.assertEquals(0, sampler.getLastSampleNanos());
+        sampler.onTickStart(100 * MILLI);
+        sampler.onTickEnd(125 * MILLI);
+        Assertions.assertEquals(25.0, sampler.getEwmaMillis(), 1e-9);
+        Assertions.assertEquals(125 * MILLI, sampler.getLastSampleNanos());
+    }
+}
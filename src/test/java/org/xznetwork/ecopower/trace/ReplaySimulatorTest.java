@@ -0,0 +1,114 @@
+package org.xznetwork.ecopower.trace;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xznetwork.ecopower.config.Config;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+class ReplaySimulatorTest {
+    private static final long SECOND = 1000;
+
+    @TempDir
+    Path directory;
+
+    private static Config config(boolean activity) {
+        Config config = new Config();
+        Map<String, Config.PlanEntry> plans = new LinkedHashMap<>();
+        plans.put("saver", plan("saver-guid", Integer.MIN_VALUE, 0));
+        plans.put("busy", plan("busy-guid", 1, 100));
+        config.setPlan(plans);
+        Config.Activity settings = new Config.Activity();
+        settings.setEnabled(activity);
+        settings.setIdleSeconds(60);
+        settings.setIdleWeight(0.0);
+        config.setActivity(settings);
+        return config;
+    }
+
+    private static Config.PlanEntry plan(String guid, int min, int max) {
+        Config.PlanEntry plan = new Config.PlanEntry();
+        plan.setGuid(guid);
+        plan.setRange(new int[]{min, max});
+        return plan;
+    }
+
+    /**
+     * 一名玩家加入后活动 5 分钟，之后挂机到 30 分钟
+     */
+    private Trace recordIdlePlayer() throws IOException {
+        TraceRecorder recorder = TraceRecorder.start(directory);
+        long start = System.currentTimeMillis() + SECOND;
+        UUID uuid = UUID.randomUUID();
+        recorder.onJoin(uuid, "alice", start);
+        for (long second = 1; second <= 1800; second++) {
+            long now = start + second * SECOND;
+            long lastAction = Math.min(second, 300);
+            recorder.onActivity(uuid, lastAction, now);
+            recorder.sample(now, 20, 25, true, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        recorder.close();
+        return Trace.read(recorder.getFile());
+    }
+
+    @Test
+    void recordsActivityAtLimitedResolution() throws IOException {
+        Trace trace = recordIdlePlayer();
+
+        Assertions.assertTrue(trace.isActivityRecorded());
+        // 5 分钟的活动按 5 秒分辨率录制
+        Assertions.assertEquals(300 / (TraceFormat.ACTIVITY_RESOLUTION_MILLIS / SECOND), trace.count(TraceFormat.ACTIVE));
+    }
+
+    @Test
+    void idlePlayersStopCountingWhenCandidateWeighsActivity() throws IOException {
+        Trace trace = recordIdlePlayer();
+
+        ReplaySimulator.Result weighted = ReplaySimulator.run("weighted", trace, config(true), Map.of());
+        ReplaySimulator.Result plain = ReplaySimulator.run("plain", trace, config(false), Map.of());
+
+        // 最后一次活动约在 300 秒，60 秒后空闲，再经过 30 秒降档宽限
+        long saverMillis = weighted.timeByPlan().getOrDefault("saver", 0L);
+        Assertions.assertTrue(saverMillis > 1350 * SECOND && saverMillis < 1450 * SECOND, "saver for " + saverMillis + " ms");
+        Assertions.assertEquals(1, weighted.switches());
+        Assertions.assertFalse(weighted.activityIgnored());
+
+        Assertions.assertFalse(plain.timeByPlan().containsKey("saver"));
+        Assertions.assertEquals(0, plain.switches());
+    }
+
+    @Test
+    void warnsWhenTraceHasNoActivity() throws IOException {
+        Path file = directory.resolve("v1.eptr");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(TraceFormat.MAGIC);
+            out.writeByte(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeByte(TraceFormat.JOIN);
+            TraceFormat.writeVarLong(out, 0);
+            TraceFormat.writeVarLong(out, 0);
+            out.writeUTF("alice");
+            for (int i = 0; i < 600; i++) {
+                out.writeByte(TraceFormat.SAMPLE);
+                TraceFormat.writeVarLong(out, SECOND);
+                out.writeByte(TraceFormat.FLAG_WARM);
+                out.writeFloat(20);
+                out.writeFloat(25);
+            }
+        }
+        Trace trace = Trace.read(file);
+
+        Assertions.assertFalse(trace.isActivityRecorded());
+        ReplaySimulator.Result result = ReplaySimulator.run("weighted", trace, config(true), Map.of());
+        Assertions.assertTrue(result.activityIgnored());
+        // 按真实玩家数量回放，玩家不会被判为空闲
+        Assertions.assertFalse(result.timeByPlan().containsKey("saver"));
+    }
+}
@@ -0,0 +1,67 @@
+package org.xznetwork.ecopower.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xznetwork.ecopower.config.Config;
+
+import java.util.List;
+
+class ExclusionMatcherTest {
+
+    private static ExclusionMatcher compile(List<String> prefixes, List<String> suffixes, List<String> regexes) {
+        Config.Exclude exclude = new Config.Exclude();
+        exclude.setPrefixes(prefixes);
+        exclude.setSuffixes(suffixes);
+        exclude.setRegexes(regexes);
+        return ExclusionMatcher.compile(exclude);
+    }
+
+    @Test
+    void matchesPrefixesAndSuffixes() {
+        ExclusionMatcher matcher = compile(List.of("bot_", "afk"), List.of("_bot", "-npc"), List.of());
+        Assertions.assertTrue(matcher.matches("bot_miner"));
+        Assertions.assertTrue(matcher.matches("afk"));
+        Assertions.assertTrue(matcher.matches("farm_bot"));
+        Assertions.assertTrue(matcher.matches("shop-npc"));
+        Assertions.assertFalse(matcher.matches("bot"));
+        Assertions.assertFalse(matcher.matches("robot_steve"));
+        Assertions.assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void emptyPrefixMatchesEveryName() {
+        ExclusionMatcher matcher = compile(List.of(""), List.of(), List.of());
+        Assertions.assertTrue(matcher.matches("anyone"));
+    }
+
+    @Test
+    void regexesMustMatchWholeName() {
+        ExclusionMatcher matcher = compile(List.of(), List.of(), List.of("test\\d+", "[A-Z]{3}"));
+        Assertions.assertTrue(matcher.matches("test42"));
+        Assertions.assertTrue(matcher.matches("ABC"));
+        Assertions.assertFalse(matcher.matches("test42x"));
+        Assertions.assertFalse(matcher.matches("ABCD"));
+    }
+
+    @Test
+    void invalidRegexIsSkippedWithoutDroppingOthers() {
+        ExclusionMatcher matcher = compile(List.of(), List.of(), List.of("([unclosed", "cam_\\w+"));
+        Assertions.assertTrue(matcher.matches("cam_1"));
+        Assertions.assertFalse(matcher.matches("([unclosed"));
+    }
+
+    @Test
+    void backReferencesAreMatchedSeparately() {
+        // 合并为交替表达式后组号会错位，含反向引用的表达式必须单独匹配
+        ExclusionMatcher matcher = compile(List.of(), List.of(), List.of("(x)y", "(a)\\1"));
+        Assertions.assertTrue(matcher.matches("aa"));
+        Assertions.assertTrue(matcher.matches("xy"));
+        Assertions.assertFalse(matcher.matches("ab"));
+    }
+
+    @Test
+    void countsAllConfiguredRules() {
+        ExclusionMatcher matcher = compile(List.of("a", "b"), List.of("c"), List.of("d", "("));
+        Assertions.assertEquals(5, matcher.getRuleCount());
+    }
+}
@@ -0,0 +1,167 @@
+package org.xznetwork.ecopower.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xznetwork.ecopower.config.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+
+class PlayerTrackerTest {
+    private static final int PLAYERS = 150;
+    private static final int TICKS = 20_000;
+
+    private static Config config(String... prefixes) {
+        Config config = new Config();
+        Config.Exclude exclude = new Config.Exclude();
+        exclude.setPrefixes(List.of(prefixes));
+        config.setExclude(exclude);
+        return config;
+    }
+
+    private static PlayerTracker tracker(String... prefixes) {
+        return new PlayerTracker(new PlayerExclusion(config(prefixes)));
+    }
+
+    @Test
+    void countsOnlyPlayersOutsideExclusionRules() {
+        PlayerTracker tracker = tracker("bot_");
+        UUID alice = UUID.randomUUID();
+        UUID bot = UUID.randomUUID();
+        tracker.onJoin(alice, "alice");
+        tracker.onJoin(bot, "bot_farm");
+        Assertions.assertEquals(1, tracker.getRealPlayerCount());
+        Assertions.assertEquals(2, tracker.getTrackedPlayerCount());
+
+        // 同一 UUID 重复加入不重复计数
+        tracker.onJoin(alice, "alice");
+        Assertions.assertEquals(1, tracker.getRealPlayerCount());
+
+        tracker.onLeave(bot);
+        tracker.onLeave(alice);
+        tracker.onLeave(alice);
+        Assertions.assertEquals(0, tracker.getRealPlayerCount());
+    }
+
+    @Test
+    void recheckAppliesNewExclusionRules() {
+        Config config = config();
+        PlayerExclusion exclusion = new PlayerExclusion(config);
+        PlayerTracker tracker = new PlayerTracker(exclusion);
+        tracker.onJoin(UUID.randomUUID(), "alice");
+        tracker.onJoin(UUID.randomUUID(), "bot_1");
+        Assertions.assertEquals(2, tracker.getRealPlayerCount());
+
+        config.getExclude().setPrefixes(List.of("bot_"));
+        exclusion.updateConfig(config);
+        tracker.recheckAll();
+        Assertions.assertEquals(1, tracker.getRealPlayerCount());
+    }
+
+    @Test
+    void idlePlayersCountWithReducedWeight() {
+        PlayerTracker tracker = tracker();
+        UUID active = UUID.randomUUID();
+        UUID idle = UUID.randomUUID();
+        tracker.refreshIdle(0, 1000);
+        tracker.onJoin(active, "active");
+        tracker.onJoin(idle, "idle");
+
+        tracker.onActivity(active, 5000);
+        tracker.refreshIdle(5000, 1000);
+        Assertions.assertEquals(1, tracker.getIdlePlayerCount());
+        Assertions.assertEquals(1.25, tracker.getDemand(0.25), 1e-9);
+
+        // 空闲玩家有了新的活动后立即恢复
+        tracker.onActivity(idle, 5000);
+        Assertions.assertEquals(0, tracker.getIdlePlayerCount());
+    }
+
+    @Test
+    void excludedAndDepartedPlayersNeverCountAsIdle() {
+        PlayerTracker tracker = tracker("bot_");
+        UUID bot = UUID.randomUUID();
+        UUID alice = UUID.randomUUID();
+        tracker.onJoin(bot, "bot_1");
+        tracker.onJoin(alice, "alice");
+
+        tracker.refreshIdle(10_000, 1000);
+        Assertions.assertEquals(1, tracker.getIdlePlayerCount());
+        tracker.onLeave(alice);
+        Assertions.assertEquals(0, tracker.getIdlePlayerCount());
+        Assertions.assertEquals(0.0, tracker.getDemand(0.5), 1e-9);
+
+        // 槽位复用后新玩家从当前时钟开始计时
+        tracker.onJoin(UUID.randomUUID(), "bob");
+        tracker.refreshIdle(10_500, 1000);
+        Assertions.assertEquals(0, tracker.getIdlePlayerCount());
+    }
+
+    /**
+     * 稳定状态下每个 tick 读取计数不应分配内存
+     */
+    @Test
+    void tickPathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PlayerTracker tracker = tracker("bot_");
+        UUID[] uuids = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            uuids[i] = UUID.randomUUID();
+            tracker.onJoin(uuids[i], (i % 10 == 0 ? "bot_" : "player") + i);
+        }
+
+        // 先预热，让解释执行和编译后的代码路径都已走过
+        long sink = runTicks(tracker, uuids, 0);
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        sink += runTicks(tracker, uuids, TICKS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertEquals(0, allocated, "bytes allocated on the tick path (sink " + sink + ")");
+    }
+
+    /**
+     * 活动更新、空闲判断和加权需求同样不分配内存
+     */
+    @Test
+    void activityPathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PlayerTracker tracker = tracker("bot_");
+        UUID[] uuids = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            uuids[i] = UUID.randomUUID();
+            tracker.onJoin(uuids[i], (i % 10 == 0 ? "bot_" : "player") + i);
+        }
+
+        long sink = runActivityTicks(tracker, uuids, 0);
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        sink += runActivityTicks(tracker, uuids, TICKS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertEquals(0, allocated, "bytes allocated on the activity path (sink " + sink + ")");
+    }
+
+    private static long runActivityTicks(PlayerTracker tracker, UUID[] uuids, long startTick) {
+        long sink = 0;
+        for (long tick = startTick; tick < startTick + TICKS; tick++) {
+            long nowMillis = tick * 50;
+            tracker.onActivity(uuids[(int) (tick % uuids.length)], nowMillis);
+            if (tick % 20 == 0) {
+                tracker.refreshIdle(nowMillis, 10_000);
+            }
+            sink += (long) tracker.getDemand(0.25);
+        }
+        return sink;
+    }
+
+    private static long runTicks(PlayerTracker tracker, UUID[] uuids, long startTick) {
+        long sink = 0;
+        for (long tick = startTick; tick < startTick + TICKS; tick++) {
+            sink += tracker.getRealPlayerCount();
+            sink += tracker.isExcluded(uuids[(int) (tick % uuids.length)]) ? 1 : 0;
+        }
+        return sink;
+    }
+}
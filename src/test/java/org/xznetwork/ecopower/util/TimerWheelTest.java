@@ -0,0 +1,97 @@
+package org.xznetwork.ecopower.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TimerWheelTest {
+
+    @Test
+    void firesOnFirstAdvanceAfterDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 300);
+
+        wheel.advance(299, fired::add);
+        Assertions.assertEquals(List.of(), fired);
+        wheel.advance(300, fired::add);
+        Assertions.assertEquals(2, fired.size());
+        Assertions.assertTrue(fired.containsAll(List.of("a", "b")));
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiredDeadlineFiresOnNextAdvance() {
+        TimerWheel<String> wheel = new TimerWheel<>(8, 100, 1000);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("late", 500);
+
+        wheel.advance(1050, fired::add);
+        Assertions.assertEquals(List.of(), fired);
+        wheel.advance(1100, fired::add);
+        Assertions.assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void timersBeyondOneTurnStayInPlace() {
+        // 8 个槽位、每格 100 ms，一圈为 800 ms
+        TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("near", 200);
+        wheel.schedule("far", 2000);
+
+        for (long now = 100; now < 2000; now += 100) {
+            wheel.advance(now, fired::add);
+        }
+        Assertions.assertEquals(List.of("near"), fired);
+        Assertions.assertEquals(1, wheel.size());
+        wheel.advance(2000, fired::add);
+        Assertions.assertEquals(List.of("near", "far"), fired);
+    }
+
+    @Test
+    void largeClockJumpFiresEverythingDue() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(4, 10, 0);
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule(i, i * 25L);
+        }
+
+        wheel.advance(300, fired::add);
+        Assertions.assertEquals(12, fired.size());
+        Assertions.assertEquals(8, wheel.size());
+        wheel.advance(10_000, fired::add);
+        Assertions.assertEquals(20, fired.size());
+    }
+
+    @Test
+    void callbackCanRescheduleForLaterAdvance() {
+        TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("tick", 100);
+
+        wheel.advance(100, payload -> {
+            fired.add(payload);
+            wheel.schedule(payload, 0);
+        });
+        Assertions.assertEquals(1, fired.size());
+        Assertions.assertEquals(1, wheel.size());
+        wheel.advance(200, fired::add);
+        Assertions.assertEquals(2, fired.size());
+    }
+
+    @Test
+    void resetDropsTimers() {
+        TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("a", 100);
+        wheel.reset(50);
+
+        Assertions.assertEquals(0, wheel.size());
+        wheel.advance(1000, fired::add);
+        Assertions.assertEquals(List.of(), fired);
+    }
+}